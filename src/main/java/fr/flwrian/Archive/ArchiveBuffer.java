@@ -0,0 +1,112 @@
+package fr.flwrian.Archive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with varint encoding, used to build and parse archive blocks.
+ *
+ * Varints are LEB128 (7 bits per byte, low bits first); signed values are
+ * zigzag encoded first so small negative numbers stay short.
+ */
+class ArchiveBuffer {
+    byte[] data;
+    int length;     // Bytes written
+    int position;   // Read position
+
+    ArchiveBuffer(int capacity) {
+        this.data = new byte[capacity];
+    }
+
+    /**
+     * Read from {@code data[0..length)}, without copying.
+     */
+    ArchiveBuffer(byte[] data, int length) {
+        this.data = data;
+        this.length = length;
+    }
+
+    void clear() {
+        length = 0;
+        position = 0;
+    }
+
+    private void ensure(int more) {
+        if (length + more > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + more));
+        }
+    }
+
+    void writeBytes(byte[] bytes, int offset, int count) {
+        ensure(count);
+        System.arraycopy(bytes, offset, data, length, count);
+        length += count;
+    }
+
+    void writeShort(short value) {
+        ensure(2);
+        data[length++] = (byte) (value >>> 8);
+        data[length++] = (byte) value;
+    }
+
+    void writeVarint(int value) {
+        writeVarlong(value & 0xFFFFFFFFL);
+    }
+
+    void writeVarlong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    void writeSigned(long value) {
+        writeVarlong(zigzag(value));
+    }
+
+    void writeString(String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    short readShort() {
+        return (short) ((data[position++] & 0xFF) << 8 | (data[position++] & 0xFF));
+    }
+
+    int readVarint() {
+        return (int) readVarlong();
+    }
+
+    long readVarlong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    long readSigned() {
+        return unzigzag(readVarlong());
+    }
+
+    String readString() {
+        int count = readVarint();
+        String value = new String(data, position, count, StandardCharsets.UTF_8);
+        position += count;
+        return value;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,262 @@
+package fr.flwrian.Archive;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Reads games from a {@link GameArchive}, by ID or all in order.
+ *
+ * A read inflates the game's block; the last few blocks are kept, so games
+ * read near each other cost one inflate. The archive may still be written
+ * to: the reader sees the games of the blocks written when it was opened.
+ */
+public class ArchiveReader implements AutoCloseable {
+    private static final int CACHED_BLOCKS = 8;
+
+    private final FileChannel channel;
+    private final GameArchive.Index index;
+    private final Inflater inflater = new Inflater();
+    private final Map<Integer, Block> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Block> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+
+    /**
+     * An inflated block and where each of its games starts.
+     */
+    private static class Block {
+        final byte[] data;
+        final int length;
+        final int[] offsets;
+
+        Block(byte[] data, int length, int games) {
+            this.data = data;
+            this.length = length;
+            this.offsets = new int[games];
+            ArchiveBuffer buffer = new ArchiveBuffer(data, length);
+            for (int i = 0; i < games; i++) {
+                int size = buffer.readVarint();
+                offsets[i] = buffer.position;
+                buffer.position += size;
+            }
+        }
+    }
+
+    /**
+     * Receives archived games in order.
+     */
+    public interface GameConsumer {
+        void accept(ArchivedGame game) throws IOException;
+    }
+
+    public ArchiveReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.index = GameArchive.load(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reader over the channel and index of an open {@link GameArchive}, which
+     * reads through it under its own lock. Closing it closes the channel.
+     */
+    ArchiveReader(FileChannel channel, GameArchive.Index index) {
+        this.channel = channel;
+        this.index = index;
+    }
+
+    /**
+     * Number of games (IDs are 0 to size - 1).
+     */
+    public long size() {
+        return index.size;
+    }
+
+    /**
+     * @throws NoSuchElementException if there is no game with this ID
+     */
+    public synchronized ArchivedGame read(long id) throws IOException {
+        if (id < 0 || id >= index.size) {
+            throw new NoSuchElementException("No game " + id + " in archive (" + index.size + " games)");
+        }
+        int blockIndex = index.blockOf(id);
+        Block block = cache.get(blockIndex);
+        if (block == null) {
+            block = readBlock(blockIndex);
+            cache.put(blockIndex, block);
+        }
+        ArchiveBuffer buffer = new ArchiveBuffer(block.data, block.length);
+        buffer.position = block.offsets[(int) (id - index.firstIds[blockIndex])];
+        return decode(buffer, id);
+    }
+
+    /**
+     * Every game in ID order, one block in memory at a time.
+     */
+    public void forEach(GameConsumer action) throws IOException {
+        for (int b = 0; b < index.blocks; b++) {
+            Block block;
+            synchronized (this) {
+                block = readBlock(b);
+            }
+            ArchiveBuffer buffer = new ArchiveBuffer(block.data, block.length);
+            for (int i = 0; i < block.offsets.length; i++) {
+                buffer.position = block.offsets[i];
+                action.accept(decode(buffer, index.firstIds[b] + i));
+            }
+        }
+    }
+
+    private Block readBlock(int blockIndex) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(GameArchive.BLOCK_HEADER_SIZE);
+        GameArchive.readFully(channel, header, index.offsets[blockIndex]);
+        int games = header.getInt(4);
+        int rawLength = header.getInt(8);
+        ByteBuffer compressed = ByteBuffer.allocate(header.getInt(12));
+        GameArchive.readFully(channel, compressed, index.offsets[blockIndex] + GameArchive.BLOCK_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(compressed.array());
+        if (header.getInt(0) != GameArchive.BLOCK_MAGIC || (int) crc.getValue() != header.getInt(16)) {
+            throw new IOException("Corrupt block " + blockIndex + " in game archive");
+        }
+        byte[] data = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        try {
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                length += inflater.inflate(data, length, rawLength - length);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block " + blockIndex + " in game archive", e);
+        }
+        return new Block(data, rawLength, games);
+    }
+
+    /**
+     * Decode the game at the buffer's position (see {@link GameArchive} for the layout).
+     */
+    static ArchivedGame decode(ArchiveBuffer in, long id) {
+        String event = in.readString();
+        String round = in.readString();
+        String white = in.readString();
+        String black = in.readString();
+        String startFen = in.readString();
+        String timeControl = in.readString();
+        String result = in.readString();
+        String reason = in.readString();
+        String diagnostics = in.readString();
+        int gameId = (int) in.readSigned();
+        long timestamp = in.readVarlong();
+        long durationMs = in.readVarlong();
+        double whiteDepth = in.readVarint() / 100.0;
+        double blackDepth = in.readVarint() / 100.0;
+        long whiteNps = in.readVarlong();
+        long blackNps = in.readVarlong();
+        int plies = in.readVarint();
+
+        short[] moves = new short[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            moves[ply] = in.readShort();
+        }
+        int[] scores = new int[plies];
+        int[] previous = new int[2];
+        for (int ply = 0; ply < plies; ply++) {
+            long value = in.readVarlong();
+            if (value == 0) {
+                scores[ply] = GameRecord.NO_SCORE;
+            } else {
+                scores[ply] = (int) (previous[ply & 1] + ArchiveBuffer.unzigzag(value - 1));
+                previous[ply & 1] = scores[ply];
+            }
+        }
+        int[] depths = new int[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            depths[ply] = in.readVarint();
+        }
+        int[] selDepths = new int[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            selDepths[ply] = in.readVarint();
+        }
+        long[] nodes = new long[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            nodes[ply] = in.readVarlong();
+        }
+        long[] nps = new long[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            nps[ply] = in.readVarlong();
+        }
+        int[] timesMs = new int[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            timesMs[ply] = in.readVarint();
+        }
+        int[] clocksMs = new int[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            clocksMs[ply] = (int) in.readSigned();
+        }
+        int[] pvStart = new int[plies + 1];
+        for (int ply = 0; ply < plies; ply++) {
+            pvStart[ply + 1] = pvStart[ply] + in.readVarint();
+        }
+        short[] pv = new short[pvStart[plies]];
+        for (int i = 0; i < pv.length; i++) {
+            pv[i] = in.readShort();
+        }
+
+        GameResult game = new GameResult(gameId, result, reason, diagnostics.isEmpty() ? null : diagnostics);
+        game.setGameStats(plies, durationMs, whiteDepth, blackDepth, whiteNps, blackNps);
+        game.setRecord(new GameRecord(white, black, startFen, timeControl, moves, scores, depths, selDepths,
+            nodes, nps, timesMs, clocksMs, pv, pvStart));
+        return new ArchivedGame(id, event, round, timestamp, game);
+    }
+
+    /**
+     * Write every game as PGN (gzip compressed if the file name ends with .gz).
+     * @return Number of games written
+     */
+    public long exportPgn(Path file) throws IOException {
+        OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            stream = new GZIPOutputStream(stream, 1 << 16);
+        }
+        long[] written = new long[1];
+        try (Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8)) {
+            forEach(archived -> {
+                out.write(archived.toPgn());
+                written[0]++;
+            });
+        }
+        return written[0];
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        inflater.end();
+        cache.clear();
+        channel.close();
+    }
+}
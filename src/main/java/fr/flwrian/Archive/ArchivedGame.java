@@ -0,0 +1,45 @@
+package fr.flwrian.Archive;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+
+/**
+ * A game read back from a {@link GameArchive}: the result with its record, and where it was played.
+ */
+public class ArchivedGame {
+    private final long id;
+    private final String event;
+    private final String round;
+    private final long timestamp;
+    private final GameResult game;
+
+    ArchivedGame(long id, String event, String round, long timestamp, GameResult game) {
+        this.id = id;
+        this.event = event;
+        this.round = round;
+        this.timestamp = timestamp;
+        this.game = game;
+    }
+
+    /**
+     * Position in the archive (the ID it is read by).
+     */
+    public long getId() { return id; }
+    public String getEvent() { return event; }
+    public String getRound() { return round; }
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * Result, game stats and record ({@link GameResult#getRecord()}).
+     */
+    public GameResult getGame() { return game; }
+
+    /**
+     * The game as PGN, with SAN moves (UCI if they cannot be replayed).
+     */
+    public String toPgn() {
+        GameRecord record = game.getRecord();
+        String[] san = PgnWriter.san(record);
+        return PgnWriter.format(game, event, round, PgnWriter.date(timestamp), san != null ? san : record.getMoves());
+    }
+}
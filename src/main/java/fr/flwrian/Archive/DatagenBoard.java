@@ -0,0 +1,321 @@
+package fr.flwrian.Archive;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Minimal board used to replay recorded games for training data: applies the
+ * (legal, already validated) UCI moves, tells whether the side to move is in
+ * check or a move captures, and packs positions into {@value #PACKED_SIZE} bytes.
+ *
+ * Squares are 0 (a1) to 63 (h8). Pieces are 1-6 (pawn, knight, bishop, rook,
+ * queen, king), plus {@value #BLACK} for black pieces, 0 for an empty square.
+ *
+ * Packed position (little-endian):
+ *
+ *   long occupancy (bit n set if square n holds a piece)
+ *   16 bytes: a 4-bit code per piece in square order, low nibble first
+ *             (0-5 white pawn to king, 8-13 black pawn to king)
+ *   byte side to move (bit 7, set for black) | en passant square (64 for none)
+ *   byte halfmove clock, short fullmove number
+ *   short score (centipawns, white's side), byte result (0 black wins, 1 draw, 2 white wins)
+ *   byte castling rights (bits 0-3: white king side, white queen side, black king side, black queen side)
+ */
+class DatagenBoard {
+    static final int PACKED_SIZE = 32;
+    static final int PAWN = 1;
+    static final int KING = 6;
+    static final int BLACK = 8;
+    private static final int NO_SQUARE = 64;
+    private static final String PIECES = " PNBRQK  pnbrqk";
+    private static final int[][] KNIGHT = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int[][] ROOK = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private final byte[] squares = new byte[64];
+    private boolean blackToMove;
+    private int castling;
+    private int enPassant = NO_SQUARE;
+    private int halfmoves;
+    private int fullmoves = 1;
+
+    /**
+     * Set up a position ("startpos", or a FEN possibly without move counters).
+     * @throws IllegalArgumentException if the FEN cannot be read
+     */
+    void load(String fen) {
+        String[] fields = PgnWriter.fullFen(fen).split(" ");
+        Arrays.fill(squares, (byte) 0);
+        int rank = 7;
+        int file = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int piece = PIECES.indexOf(c);
+                if (piece <= 0 || file > 7 || rank < 0) {
+                    throw new IllegalArgumentException("Bad FEN: " + fen);
+                }
+                squares[rank * 8 + file++] = (byte) piece;
+            }
+        }
+        blackToMove = fields[1].equals("b");
+        castling = 0;
+        for (char c : fields[2].toCharArray()) {
+            castling |= c == 'K' ? 1 : c == 'Q' ? 2 : c == 'k' ? 4 : c == 'q' ? 8 : 0;
+        }
+        enPassant = fields[3].equals("-") ? NO_SQUARE : square(fields[3], 0);
+        halfmoves = Integer.parseInt(fields[4]);
+        fullmoves = Integer.parseInt(fields[5]);
+    }
+
+    private static int square(String text, int index) {
+        int file = text.charAt(index) - 'a';
+        int rank = text.charAt(index + 1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            throw new IllegalArgumentException("Bad square: " + text);
+        }
+        return rank * 8 + file;
+    }
+
+    boolean isBlackToMove() {
+        return blackToMove;
+    }
+
+    /**
+     * True if the move takes a piece (en passant included).
+     */
+    boolean isCapture(String move) {
+        int from = square(move, 0);
+        int to = square(move, 2);
+        return squares[to] != 0 || ((squares[from] & 7) == PAWN && to == enPassant);
+    }
+
+    /**
+     * Play a move in UCI notation (e1g1 for castling).
+     */
+    void apply(String move) {
+        int from = square(move, 0);
+        int to = square(move, 2);
+        int piece = squares[from];
+        int type = piece & 7;
+        int color = piece & BLACK;
+        boolean capture = isCapture(move);
+
+        if (type == PAWN && to == enPassant && squares[to] == 0) {
+            squares[to + (color == 0 ? -8 : 8)] = 0;
+        }
+        if (type == KING && Math.abs(to - from) == 2) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            squares[(from + to) / 2] = squares[rookFrom];
+            squares[rookFrom] = 0;
+        }
+        if (move.length() > 4) {
+            piece = color | (" nbrq".indexOf(move.charAt(4)) + 1);
+        }
+        squares[to] = (byte) piece;
+        squares[from] = 0;
+
+        // A king move, or a rook leaving or taken on its corner, loses the right
+        castling &= ~(rightsLost(from) | rightsLost(to));
+        if (type == KING) {
+            castling &= color == 0 ? ~3 : ~12;
+        }
+        enPassant = NO_SQUARE;
+        if (type == PAWN && Math.abs(to - from) == 16 && hasEnemyPawnBeside(to, color)) {
+            enPassant = (from + to) / 2;
+        }
+        halfmoves = type == PAWN || capture ? 0 : halfmoves + 1;
+        if (blackToMove) {
+            fullmoves++;
+        }
+        blackToMove = !blackToMove;
+    }
+
+    private static int rightsLost(int square) {
+        switch (square) {
+            case 7: return 1;   // h1
+            case 0: return 2;   // a1
+            case 63: return 4;  // h8
+            case 56: return 8;  // a8
+            default: return 0;
+        }
+    }
+
+    private boolean hasEnemyPawnBeside(int square, int color) {
+        int enemyPawn = PAWN | (color ^ BLACK);
+        int file = square & 7;
+        return (file > 0 && squares[square - 1] == enemyPawn) || (file < 7 && squares[square + 1] == enemyPawn);
+    }
+
+    /**
+     * True if the side to move is in check.
+     */
+    boolean inCheck() {
+        int king = KING | (blackToMove ? BLACK : 0);
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] == king) {
+                return attacked(square, blackToMove ? 0 : BLACK);
+            }
+        }
+        return false;
+    }
+
+    private boolean attacked(int square, int byColor) {
+        int file = square & 7;
+        int rank = square >> 3;
+        // Pawns attack forwards, so look backwards from the square
+        int pawnRank = rank + (byColor == 0 ? -1 : 1);
+        if (pawnRank >= 0 && pawnRank < 8) {
+            if ((file > 0 && squares[pawnRank * 8 + file - 1] == (PAWN | byColor))
+                    || (file < 7 && squares[pawnRank * 8 + file + 1] == (PAWN | byColor))) {
+                return true;
+            }
+        }
+        for (int[] step : KNIGHT) {
+            if (pieceAt(file + step[0], rank + step[1]) == (2 | byColor)) {
+                return true;
+            }
+        }
+        for (int df = -1; df <= 1; df++) {
+            for (int dr = -1; dr <= 1; dr++) {
+                if ((df != 0 || dr != 0) && pieceAt(file + df, rank + dr) == (KING | byColor)) {
+                    return true;
+                }
+            }
+        }
+        return slides(file, rank, ROOK, 4 | byColor, byColor) || slides(file, rank, BISHOP, 3 | byColor, byColor);
+    }
+
+    /**
+     * True if the first piece along one of the directions is the slider or a queen of that color.
+     */
+    private boolean slides(int file, int rank, int[][] directions, int slider, int byColor) {
+        for (int[] direction : directions) {
+            int f = file + direction[0];
+            int r = rank + direction[1];
+            while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                int piece = squares[r * 8 + f];
+                if (piece != 0) {
+                    if (piece == slider || piece == (5 | byColor)) {
+                        return true;
+                    }
+                    break;
+                }
+                f += direction[0];
+                r += direction[1];
+            }
+        }
+        return false;
+    }
+
+    private int pieceAt(int file, int rank) {
+        return file >= 0 && file < 8 && rank >= 0 && rank < 8 ? squares[rank * 8 + file] : -1;
+    }
+
+    /**
+     * Append the packed position to a little-endian buffer.
+     * @param score Centipawns from white's side
+     * @param result 0 black wins, 1 draw, 2 white wins
+     * @return false if the position has more than 32 pieces and was not written
+     */
+    boolean pack(ByteBuffer out, int score, int result) {
+        long occupancy = 0;
+        byte[] codes = new byte[16];
+        int pieces = 0;
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] != 0) {
+                if (pieces == 32) {
+                    return false;
+                }
+                occupancy |= 1L << square;
+                codes[pieces >> 1] |= (squares[square] - 1) << ((pieces & 1) * 4);
+                pieces++;
+            }
+        }
+        out.putLong(occupancy);
+        out.put(codes);
+        out.put((byte) ((blackToMove ? 0x80 : 0) | enPassant));
+        out.put((byte) Math.min(halfmoves, 255));
+        out.putShort((short) fullmoves);
+        out.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score)));
+        out.put((byte) result);
+        out.put((byte) castling);
+        return true;
+    }
+
+    /**
+     * Read back a packed position (the buffer's position is moved past it).
+     */
+    static DatagenBoard unpack(ByteBuffer in) {
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        DatagenBoard board = new DatagenBoard();
+        long occupancy = in.getLong();
+        byte[] codes = new byte[16];
+        in.get(codes);
+        int pieces = 0;
+        for (int square = 0; square < 64; square++) {
+            if ((occupancy & (1L << square)) != 0) {
+                board.squares[square] = (byte) (((codes[pieces >> 1] >> ((pieces & 1) * 4)) & 15) + 1);
+                pieces++;
+            }
+        }
+        int sideAndEp = in.get() & 0xFF;
+        board.blackToMove = (sideAndEp & 0x80) != 0;
+        board.enPassant = sideAndEp & 0x7F;
+        board.halfmoves = in.get() & 0xFF;
+        board.fullmoves = in.getShort() & 0xFFFF;
+        in.getShort();   // Score
+        in.get();        // Result
+        board.castling = in.get();
+        return board;
+    }
+
+    /**
+     * Six-field FEN of the position.
+     */
+    String fen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = squares[rank * 8 + file];
+                if (piece == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(PIECES.charAt(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(blackToMove ? " b " : " w ");
+        if (castling == 0) {
+            fen.append('-');
+        }
+        for (int right = 0; right < 4; right++) {
+            if ((castling & (1 << right)) != 0) {
+                fen.append("KQkq".charAt(right));
+            }
+        }
+        fen.append(' ');
+        if (enPassant == NO_SQUARE) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >> 3)));
+        }
+        return fen.append(' ').append(halfmoves).append(' ').append(fullmoves).toString();
+    }
+}
@@ -0,0 +1,260 @@
+package fr.flwrian.Archive;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes training positions of every finished game, from a dedicated writer thread.
+ *
+ * Each game is replayed from its record and every position that passes the
+ * filters is written with the score of the engine to move and the game
+ * result, packed in {@value DatagenBoard#PACKED_SIZE} bytes (see
+ * {@link DatagenBoard}). A position is kept when its ply is within
+ * [minPly, maxPly], the side to move is not in check, the move played is
+ * not a capture or promotion, and the engine reported a score below maxScore
+ * in absolute value and is not a mate score. Games whose result does not come
+ * from the board (time forfeits, crashes, illegal moves) are skipped.
+ *
+ * Positions are dealt in turn to the shard files positions-NN.bin, so each
+ * shard is a sample of every game; a restart appends to the existing shards.
+ */
+public class DatagenWriter implements GameSink {
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final int minPly;
+    private final int maxPly;
+    private final int maxScore;
+    private final FileChannel[] shards;
+    private final ByteBuffer[] buffers;
+    private final BlockingQueue<GameResult> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final DatagenBoard board = new DatagenBoard();  // Writer thread only
+    private volatile boolean closed;
+    private int nextShard;          // Writer thread only
+    private long games;             // guarded by this
+    private long positions;         // guarded by this
+    private long queued;            // guarded by this
+    private boolean replayWarningShown;
+
+    /**
+     * @param shards Number of shard files
+     * @param minPly First ply kept (0 is the start position)
+     * @param maxPly Last ply kept
+     * @param maxScore Positions scored at or beyond this (centipawns) are skipped
+     */
+    public DatagenWriter(Path directory, int shards, int minPly, int maxPly, int maxScore) throws IOException {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("Datagen needs at least one shard (got: " + shards + ")");
+        }
+        this.minPly = minPly;
+        this.maxPly = maxPly;
+        this.maxScore = maxScore;
+        Files.createDirectories(directory);
+        this.shards = new FileChannel[shards];
+        this.buffers = new ByteBuffer[shards];
+        try {
+            for (int i = 0; i < shards; i++) {
+                FileChannel channel = FileChannel.open(directory.resolve(String.format("positions-%02d.bin", i)),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                this.shards[i] = channel;
+                // Drop a position torn by a killed process
+                channel.truncate(channel.size() - channel.size() % DatagenBoard.PACKED_SIZE);
+                channel.position(channel.size());
+                buffers[i] = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException e) {
+            closeShards();
+            throw e;
+        }
+        this.writer = new Thread(this::run, "datagen-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue a finished game. Games without a record (never started) are skipped.
+     */
+    @Override
+    public void write(GameResult game, String event, String round) {
+        if (closed || game.getRecord() == null) {
+            return;
+        }
+        synchronized (this) {
+            queued++;
+        }
+        queue.add(game);
+    }
+
+    private void run() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                GameResult game = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (game == null) {
+                    continue;
+                }
+                int batch = 0;
+                long written = 0;
+                do {
+                    written += writeGame(game);
+                    batch++;
+                } while ((game = queue.poll()) != null);
+                for (int i = 0; i < shards.length; i++) {
+                    drain(i);
+                }
+                synchronized (this) {
+                    games += batch;
+                    positions += written;
+                    notifyAll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Datagen writer error: " + e.getMessage());
+                synchronized (this) {
+                    // Games of a failed batch are lost; do not keep flush() waiting for them
+                    games = queued - queue.size();
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Positions written
+     */
+    private int writeGame(GameResult game) throws IOException {
+        int result = result(game);
+        if (result < 0) {
+            return 0;
+        }
+        GameRecord record = game.getRecord();
+        int written = 0;
+        try {
+            board.load(record.getStartFen());
+            int plies = Math.min(record.getPlies(), maxPly + 1);
+            for (int ply = 0; ply < plies; ply++) {
+                String move = record.getMove(ply);
+                int score = record.getScore(ply);
+                if (ply >= minPly && score != GameRecord.NO_SCORE && !GameRecord.isMate(score) && Math.abs(score) < maxScore
+                        && move.length() == 4 && !board.isCapture(move) && !board.inCheck()) {
+                    ByteBuffer buffer = buffers[nextShard];
+                    if (buffer.remaining() < DatagenBoard.PACKED_SIZE) {
+                        drain(nextShard);
+                    }
+                    if (board.pack(buffer, board.isBlackToMove() ? -score : score, result)) {
+                        written++;
+                        nextShard = (nextShard + 1) % shards.length;
+                    }
+                }
+                board.apply(move);
+            }
+        } catch (RuntimeException e) {
+            // Positions already packed are valid and kept
+            if (!replayWarningShown) {
+                replayWarningShown = true;
+                System.err.println("Datagen writer: cannot replay " + record.getWhite() + " vs " + record.getBlack()
+                    + " from " + record.getStartFen() + ": " + e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Result for the positions (0 black wins, 1 draw, 2 white wins), or -1 to skip the game.
+     */
+    static int result(GameResult game) {
+        String termination = PgnWriter.termination(game.getReason());
+        if (!termination.equals("normal") && !termination.equals("adjudication")) {
+            return -1;
+        }
+        switch (game.getResult()) {
+            case "1-0": return 2;
+            case "1/2-1/2": return 1;
+            case "0-1": return 0;
+            default: return -1;
+        }
+    }
+
+    private void drain(int shard) throws IOException {
+        ByteBuffer buffer = buffers[shard];
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                shards[shard].write(buffer);
+            }
+        } catch (IOException e) {
+            // Cut a partly written position so the shard stays aligned; the rest of the buffer is dropped
+            try {
+                FileChannel channel = shards[shard];
+                channel.truncate(channel.size() - channel.size() % DatagenBoard.PACKED_SIZE);
+                channel.position(channel.size());
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Wait until every game queued so far is written.
+     */
+    public synchronized void flush() throws InterruptedException {
+        long target = queued;
+        while (games < target && writer.isAlive()) {
+            wait(100);
+        }
+    }
+
+    /**
+     * Games processed so far (including those with no position kept).
+     */
+    public synchronized long getGames() {
+        return games;
+    }
+
+    /**
+     * Positions written so far.
+     */
+    public synchronized long getPositions() {
+        return positions;
+    }
+
+    /**
+     * Write the queued games and close the shards.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeShards();
+    }
+
+    private void closeShards() throws IOException {
+        for (FileChannel shard : shards) {
+            if (shard != null) {
+                shard.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package fr.flwrian.Archive;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Append-only binary archive of played games, read back by ID with {@link ArchiveReader}.
+ *
+ * Games are numbered from 0 in the order they are appended and packed into
+ * blocks of about {@value #BLOCK_BYTES} bytes, each deflated on its own, so
+ * reading one game inflates one block. The file is
+ *
+ *   "ELGA" int version
+ *   { "BLCK" int games, int rawLength, int compressedLength, int crc32, deflated games }*
+ *   { long offset, long firstId, int games }* int blocks, long indexOffset, "ELGI"
+ *
+ * The index footer is written on close and dropped when the archive is
+ * reopened for appending. Without one (the process was killed, or the archive
+ * is still being written) the index is rebuilt from the block headers and a
+ * torn last block is ignored; games of the block being filled are lost then.
+ *
+ * A game is a varint length followed by its fields, column after column so
+ * that deflate sees similar values together:
+ *
+ *   event, round, white, black, start FEN, time control, result, reason, diagnostics (strings)
+ *   game id, timestamp, duration, average depths (x100) and nps of each side, plies
+ *   moves (16 bits), scores (change from the same side's previous score, 0 for none),
+ *   depths, seldepths, nodes, nps, times, clocks, PV lengths, PV moves (16 bits)
+ */
+public class GameArchive implements GameSink {
+    static final int MAGIC = 0x454C4741;       // "ELGA"
+    static final int BLOCK_MAGIC = 0x424C434B; // "BLCK"
+    static final int INDEX_MAGIC = 0x454C4749; // "ELGI"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int BLOCK_HEADER_SIZE = 20;
+    static final int INDEX_ENTRY_SIZE = 20;
+    static final int FOOTER_SIZE = 16;
+    static final int BLOCK_BYTES = 16 * 1024;
+
+    private final FileChannel channel;
+    private final Index index;
+    private final ArchiveBuffer block = new ArchiveBuffer(BLOCK_BYTES + BLOCK_BYTES / 4);
+    private final ArchiveBuffer game = new ArchiveBuffer(4096);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final CRC32 crc = new CRC32();
+    private byte[] compressed = new byte[BLOCK_BYTES];
+    private ArchiveReader reader;   // Reads back written blocks, created on first read
+    private int blockGames;
+    private long end;
+    private boolean closed;
+
+    /**
+     * Block positions. Games of block i are firstIds[i] to firstIds[i] + games[i] - 1.
+     */
+    static class Index {
+        long[] offsets = new long[64];
+        long[] firstIds = new long[64];
+        int[] games = new int[64];
+        int blocks;
+        long size;      // Games in complete blocks
+        long end;       // End of the last complete block
+
+        void add(long offset, int count) {
+            if (blocks == offsets.length) {
+                offsets = Arrays.copyOf(offsets, blocks * 2);
+                firstIds = Arrays.copyOf(firstIds, blocks * 2);
+                games = Arrays.copyOf(games, blocks * 2);
+            }
+            offsets[blocks] = offset;
+            firstIds[blocks] = size;
+            games[blocks] = count;
+            blocks++;
+            size += count;
+        }
+
+        /**
+         * Block holding a game ID (which must be below {@link #size}).
+         */
+        int blockOf(long id) {
+            int found = Arrays.binarySearch(firstIds, 0, blocks, id);
+            return found >= 0 ? found : -found - 2;
+        }
+    }
+
+    /**
+     * Open an archive for appending, creating it if needed.
+     */
+    public GameArchive(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            channel.write(header.flip(), 0);
+            this.index = new Index();
+            this.index.end = HEADER_SIZE;
+        } else {
+            this.index = load(channel);
+        }
+        // Drop the footer (written again on close) and anything torn after the last block
+        channel.truncate(index.end);
+        this.end = index.end;
+    }
+
+    /**
+     * Read the index from the footer, or rebuild it from the block headers.
+     */
+    static Index load(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE
+                || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a game archive (or an unsupported version)");
+        }
+        Index index = new Index();
+        if (size >= HEADER_SIZE + FOOTER_SIZE) {
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+            channel.read(footer, size - FOOTER_SIZE);
+            int blocks = footer.getInt(0);
+            long indexOffset = footer.getLong(4);
+            if (footer.getInt(12) == INDEX_MAGIC && blocks >= 0
+                    && indexOffset + (long) blocks * INDEX_ENTRY_SIZE + FOOTER_SIZE == size) {
+                ByteBuffer entries = ByteBuffer.allocate(blocks * INDEX_ENTRY_SIZE);
+                readFully(channel, entries, indexOffset);
+                for (int i = 0; i < blocks; i++) {
+                    index.add(entries.getLong(i * INDEX_ENTRY_SIZE), entries.getInt(i * INDEX_ENTRY_SIZE + 16));
+                }
+                index.end = indexOffset;
+                return index;
+            }
+        }
+        // No footer: walk the blocks
+        long position = HEADER_SIZE;
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        while (position + BLOCK_HEADER_SIZE <= size) {
+            blockHeader.clear();
+            readFully(channel, blockHeader, position);
+            long next = position + BLOCK_HEADER_SIZE + blockHeader.getInt(12);
+            if (blockHeader.getInt(0) != BLOCK_MAGIC || blockHeader.getInt(12) < 0 || next > size) {
+                break;
+            }
+            if (next + BLOCK_HEADER_SIZE > size) {
+                // Last block: it may be torn, check its data
+                ByteBuffer data = ByteBuffer.allocate(blockHeader.getInt(12));
+                readFully(channel, data, position + BLOCK_HEADER_SIZE);
+                CRC32 check = new CRC32();
+                check.update(data.array());
+                if ((int) check.getValue() != blockHeader.getInt(16)) {
+                    break;
+                }
+            }
+            index.add(position, blockHeader.getInt(4));
+            position = next;
+        }
+        index.end = position;
+        return index;
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated game archive");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Append a game. Games that never started (no record) are not archived.
+     * @param event Tournament name
+     * @param round PGN round, e.g. "12.1"
+     * @param timestamp When the game ended (ms since epoch)
+     * @return ID of the game, or -1 if it was not archived
+     */
+    public synchronized long append(GameResult result, String event, String round, long timestamp) throws IOException {
+        GameRecord record = result.getRecord();
+        if (record == null) {
+            return -1;
+        }
+        if (closed) {
+            throw new IOException("Game archive is closed");
+        }
+        game.clear();
+        encode(game, result, record, event, round, timestamp);
+        block.writeVarint(game.length);
+        block.writeBytes(game.data, 0, game.length);
+        long id = index.size + blockGames;
+        blockGames++;
+        if (block.length >= BLOCK_BYTES) {
+            writeBlock();
+        }
+        return id;
+    }
+
+    @Override
+    public void write(GameResult game, String event, String round) throws IOException {
+        append(game, event, round, System.currentTimeMillis());
+    }
+
+    /**
+     * Read a game back, including the games not written yet.
+     * @throws NoSuchElementException if there is no game with this ID
+     */
+    public synchronized ArchivedGame read(long id) throws IOException {
+        if (closed) {
+            throw new IOException("Game archive is closed");
+        }
+        if (id < 0 || id >= index.size + blockGames) {
+            throw new NoSuchElementException("No game " + id + " in archive (" + size() + " games)");
+        }
+        if (id < index.size) {
+            if (reader == null) {
+                reader = new ArchiveReader(channel, index);
+            }
+            return reader.read(id);
+        }
+        // In the block being filled
+        ArchiveBuffer buffer = new ArchiveBuffer(block.data, block.length);
+        for (long skip = id - index.size; skip > 0; skip--) {
+            int size = buffer.readVarint();
+            buffer.position += size;
+        }
+        buffer.readVarint();
+        return ArchiveReader.decode(buffer, id);
+    }
+
+    private static void encode(ArchiveBuffer out, GameResult result, GameRecord record, String event, String round,
+                               long timestamp) {
+        out.writeString(event);
+        out.writeString(round);
+        out.writeString(record.getWhite());
+        out.writeString(record.getBlack());
+        out.writeString(record.getStartFen());
+        out.writeString(record.getTimeControl());
+        out.writeString(result.getResult());
+        out.writeString(result.getReason());
+        out.writeString(result.getDiagnostics());
+        out.writeSigned(result.getId());
+        out.writeVarlong(timestamp);
+        out.writeVarlong(result.getDurationMs());
+        out.writeVarint((int) Math.round(result.getWhiteDepth() * 100));
+        out.writeVarint((int) Math.round(result.getBlackDepth() * 100));
+        out.writeVarlong(result.getWhiteNps());
+        out.writeVarlong(result.getBlackNps());
+        int plies = record.getPlies();
+        out.writeVarint(plies);
+        for (int ply = 0; ply < plies; ply++) {
+            out.writeShort(record.getEncodedMove(ply));
+        }
+        int[] previous = new int[2];
+        for (int ply = 0; ply < plies; ply++) {
+            int score = record.getScore(ply);
+            if (score == GameRecord.NO_SCORE) {
+                out.writeVarlong(0);
+            } else {
+                out.writeVarlong(ArchiveBuffer.zigzag((long) score - previous[ply & 1]) + 1);
+                previous[ply & 1] = score;
+            }
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            out.writeVarint(record.getDepth(ply));
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            out.writeVarint(record.getSelDepth(ply));
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            out.writeVarlong(record.getNodes(ply));
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            out.writeVarlong(record.getNps(ply));
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            out.writeVarint(record.getTimeMs(ply));
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            out.writeSigned(record.getClockMs(ply));
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            out.writeVarint(record.getPvLength(ply));
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            for (int i = 0; i < record.getPvLength(ply); i++) {
+                out.writeShort(record.getEncodedPvMove(ply, i));
+            }
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(block.data, 0, block.length);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        crc.reset();
+        crc.update(compressed, 0, length);
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE)
+            .putInt(BLOCK_MAGIC).putInt(blockGames).putInt(block.length).putInt(length).putInt((int) crc.getValue());
+        ByteBuffer[] buffers = {header.flip(), ByteBuffer.wrap(compressed, 0, length)};
+        channel.position(end);
+        while (buffers[1].hasRemaining()) {
+            channel.write(buffers);
+        }
+        index.add(end, blockGames);
+        end += BLOCK_HEADER_SIZE + length;
+        index.end = end;
+        block.clear();
+        blockGames = 0;
+    }
+
+    /**
+     * Write the games appended so far, even if their block is not full (costs compression).
+     */
+    public synchronized void flush() throws IOException {
+        if (blockGames > 0) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Games in the archive, including the ones not written yet.
+     */
+    public synchronized long size() {
+        return index.size + blockGames;
+    }
+
+    /**
+     * Write the pending games and the index footer.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        ByteBuffer footer = ByteBuffer.allocate(index.blocks * INDEX_ENTRY_SIZE + FOOTER_SIZE);
+        for (int i = 0; i < index.blocks; i++) {
+            footer.putLong(index.offsets[i]).putLong(index.firstIds[i]).putInt(index.games[i]);
+        }
+        footer.putInt(index.blocks).putLong(end).putInt(INDEX_MAGIC).flip();
+        channel.position(end);
+        while (footer.hasRemaining()) {
+            channel.write(footer);
+        }
+        channel.force(true);
+        if (reader != null) {
+            reader.close();
+        } else {
+            channel.close();
+        }
+        deflater.end();
+        closed = true;
+    }
+}
@@ -0,0 +1,100 @@
+package fr.flwrian.Archive;
+
+import fr.flwrian.Result.GameResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link GameArchive} with an index of its games, searched with a {@link GameQuery}.
+ *
+ * The index lives next to the archive (games.elga.idx for games.elga) and is
+ * updated as each game is appended. When it is behind the archive on open
+ * (the process was killed before it was flushed, or the archive was written
+ * without it), only the missing games are read back and indexed.
+ */
+public class GameDatabase implements GameSink {
+    private final GameArchive archive;
+    private final GameIndex index;
+
+    /**
+     * Open an archive and its index for appending, creating them if needed.
+     */
+    public GameDatabase(Path file) throws IOException {
+        this.archive = new GameArchive(file);
+        Path indexFile = file.resolveSibling(file.getFileName() + ".idx");
+        try {
+            this.index = new GameIndex(indexFile, archive.size());
+            long missing = archive.size() - index.size();
+            if (missing > 0) {
+                System.out.println("[GameDatabase] Indexing " + missing + " games missing from " + indexFile);
+                for (long id = index.size(); id < archive.size(); id++) {
+                    ArchivedGame game = archive.read(id);
+                    index.add(id, game.getGame(), game.getTimestamp());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            archive.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Append and index a game (see {@link GameArchive#append}).
+     * @return ID of the game, or -1 if it was not archived
+     */
+    public synchronized long append(GameResult game, String event, String round, long timestamp) throws IOException {
+        long id = archive.append(game, event, round, timestamp);
+        if (id >= 0) {
+            index.add(id, game, timestamp);
+        }
+        return id;
+    }
+
+    @Override
+    public void write(GameResult game, String event, String round) throws IOException {
+        append(game, event, round, System.currentTimeMillis());
+    }
+
+    /**
+     * Games in the database.
+     */
+    public long size() {
+        return archive.size();
+    }
+
+    /**
+     * @throws NoSuchElementException if there is no game with this ID
+     */
+    public ArchivedGame read(long id) throws IOException {
+        return archive.read(id);
+    }
+
+    /**
+     * Find the matching games in the index, then read them one at a time,
+     * newest first, and pass each to the action as soon as it is read.
+     * @return Number of games found
+     */
+    public long search(GameQuery query, ArchiveReader.GameConsumer action) throws IOException {
+        long[] ids = index.find(query);
+        for (long id : ids) {
+            action.accept(archive.read(id));
+        }
+        return ids.length;
+    }
+
+    public synchronized void flush() throws IOException {
+        archive.flush();
+        index.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            archive.close();
+        } finally {
+            index.close();
+        }
+    }
+}
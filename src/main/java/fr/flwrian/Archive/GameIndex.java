@@ -0,0 +1,373 @@
+package fr.flwrian.Archive;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+import fr.flwrian.Stats.OpeningStats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over the games of a {@link GameArchive}, by archive ID.
+ *
+ * Each game is a row of columns (engines, result, reason, time control,
+ * opening key, timestamp) and is added to the posting list of its engines,
+ * result, reason, time control, opening and day. A search walks the shortest
+ * posting list of its filters, newest game first, and checks the other
+ * filters against the columns.
+ *
+ * Rows are appended to a log as games are added and replayed on open:
+ *
+ *   "ELGX" int version
+ *   { 'N' short length, UTF-8 name | 'G' int white, black, reason, timeControl, byte result, long opening, timestamp }*
+ *
+ * Names (engines, reasons, time controls) are numbered in the order of their
+ * 'N' records. Rows past the archive's size, written ahead of a block the
+ * archive lost, are dropped on open.
+ */
+class GameIndex implements AutoCloseable {
+    static final int MAGIC = 0x454C4758;   // "ELGX"
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int ROW_SIZE = 1 + 4 * 4 + 1 + 8 + 8;
+
+    private final DataOutputStream out;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+
+    // Columns, by ID
+    private int[] whites = new int[1024];
+    private int[] blacks = new int[1024];
+    private int[] reasons = new int[1024];
+    private int[] timeControls = new int[1024];
+    private byte[] results = new byte[1024];
+    private long[] openings = new long[1024];
+    private long[] timestamps = new long[1024];
+    private int size;
+
+    // Posting lists: IDs in increasing order
+    private final Map<Integer, Postings> byEngine = new HashMap<>();
+    private final Postings[] byResult = {new Postings(), new Postings(), new Postings(), new Postings()};
+    private final Map<Integer, Postings> byReason = new HashMap<>();
+    private final Map<Integer, Postings> byTimeControl = new HashMap<>();
+    private final Map<Long, Postings> byOpening = new HashMap<>();
+    private final NavigableMap<Long, Postings> byDay = new TreeMap<>();
+
+    private static final Postings EMPTY = new Postings();
+
+    private static class Postings {
+        int[] ids = new int[8];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    /**
+     * Open an index, creating it if needed.
+     * @param games Games in the archive: rows past them are dropped
+     */
+    GameIndex(Path file, long games) throws IOException {
+        long position = HEADER_SIZE;
+        if (Files.exists(file) && Files.size(file) > 0) {
+            position = replay(file, games);
+        } else {
+            try (DataOutputStream header = new DataOutputStream(Files.newOutputStream(file))) {
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(position);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(file, StandardOpenOption.APPEND), 1 << 16));
+    }
+
+    /**
+     * Read the log up to the given number of rows.
+     * @return End of the last complete record kept
+     */
+    private long replay(Path file, long games) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a game index (or an unsupported version): " + file);
+            }
+            long position = HEADER_SIZE;
+            try {
+                while (size < games) {
+                    int type = in.read();
+                    if (type == 'N') {
+                        byte[] name = new byte[in.readUnsignedShort()];
+                        in.readFully(name);
+                        addName(new String(name, StandardCharsets.UTF_8));
+                        position += 3 + name.length;
+                    } else if (type == 'G') {
+                        addRow(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readByte(),
+                            in.readLong(), in.readLong());
+                        position += ROW_SIZE;
+                    } else {
+                        break;  // End of the log, or a torn record
+                    }
+                }
+            } catch (EOFException e) {
+                // Torn last record
+            }
+            return position;
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Index the next game of the archive.
+     */
+    synchronized void add(long id, GameResult game, long timestamp) throws IOException {
+        if (id != size) {
+            throw new IllegalStateException("Game " + id + " indexed out of order (expected " + size + ")");
+        }
+        GameRecord record = game.getRecord();
+        int white = name(record.getWhite());
+        int black = name(record.getBlack());
+        int reason = name(game.getReason());
+        int timeControl = name(record.getTimeControl());
+        byte result = (byte) result(game.getResult());
+        long opening = OpeningStats.positionKey(record.getStartFen());
+        out.write('G');
+        out.writeInt(white);
+        out.writeInt(black);
+        out.writeInt(reason);
+        out.writeInt(timeControl);
+        out.writeByte(result);
+        out.writeLong(opening);
+        out.writeLong(timestamp);
+        addRow(white, black, reason, timeControl, result, opening, timestamp);
+    }
+
+    private int name(String name) throws IOException {
+        name = name != null ? name : "";
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            out.write('N');
+            out.writeShort(bytes.length);
+            out.write(bytes);
+            id = addName(name);
+        }
+        return id;
+    }
+
+    private int addName(String name) {
+        nameIds.put(name, names.size());
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    private void addRow(int white, int black, int reason, int timeControl, byte result, long opening, long timestamp) {
+        if (size == whites.length) {
+            int capacity = size * 2;
+            whites = Arrays.copyOf(whites, capacity);
+            blacks = Arrays.copyOf(blacks, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+            timeControls = Arrays.copyOf(timeControls, capacity);
+            results = Arrays.copyOf(results, capacity);
+            openings = Arrays.copyOf(openings, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+        int id = size++;
+        whites[id] = white;
+        blacks[id] = black;
+        reasons[id] = reason;
+        timeControls[id] = timeControl;
+        results[id] = result;
+        openings[id] = opening;
+        timestamps[id] = timestamp;
+        byEngine.computeIfAbsent(white, k -> new Postings()).add(id);
+        if (black != white) {
+            byEngine.computeIfAbsent(black, k -> new Postings()).add(id);
+        }
+        byResult[result].add(id);
+        byReason.computeIfAbsent(reason, k -> new Postings()).add(id);
+        byTimeControl.computeIfAbsent(timeControl, k -> new Postings()).add(id);
+        byOpening.computeIfAbsent(opening, k -> new Postings()).add(id);
+        byDay.computeIfAbsent(day(timestamp), k -> new Postings()).add(id);
+    }
+
+    private static int result(String result) {
+        switch (result) {
+            case "1-0": return GameQuery.WHITE_WINS;
+            case "1/2-1/2": return GameQuery.DRAW;
+            case "0-1": return GameQuery.BLACK_WINS;
+            default: return GameQuery.OTHER;
+        }
+    }
+
+    private static long day(long timestamp) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()).toEpochDay();
+    }
+
+    /**
+     * IDs of the games matching a query, newest (highest ID) first.
+     */
+    synchronized long[] find(GameQuery query) {
+        int engine = id(query.engine);
+        int opponent = id(query.opponent);
+        int reason = id(query.reason);
+        int timeControl = id(query.timeControl);
+        if (engine == -2 || opponent == -2 || reason == -2 || timeControl == -2) {
+            return new long[0];  // A name no game has
+        }
+
+        // Walk the shortest posting list (all games if there is no filter)
+        Postings walked = shorter(null, engine >= 0 ? byEngine.get(engine) : null, engine >= 0);
+        walked = shorter(walked, opponent >= 0 ? byEngine.get(opponent) : null, opponent >= 0);
+        walked = shorter(walked, reason >= 0 ? byReason.get(reason) : null, reason >= 0);
+        walked = shorter(walked, timeControl >= 0 ? byTimeControl.get(timeControl) : null, timeControl >= 0);
+        walked = shorter(walked, query.opening != null ? byOpening.get(query.opening) : null, query.opening != null);
+        if (query.result >= 0 && (!query.relative || query.result == GameQuery.DRAW)) {
+            walked = shorter(walked, byResult[query.result], true);
+        }
+        if (query.from != Long.MIN_VALUE || query.to != Long.MAX_VALUE) {
+            Postings days = days(query.from, query.to, walked != null ? walked.size : size);
+            walked = days != null ? days : walked;
+        }
+        if (walked != null && walked.size == 0) {
+            return new long[0];
+        }
+
+        long[] found = new long[Math.min(query.limit, walked != null ? walked.size : size)];
+        int count = 0;
+        int last = walked != null ? walked.size - 1 : size - 1;
+        if (query.before <= Integer.MAX_VALUE) {
+            // Skip the IDs at or above the cursor
+            int below = (int) Math.max(query.before, 0);
+            last = walked != null ? lowerBound(walked, below) - 1 : Math.min(last, below - 1);
+        }
+        for (int i = last; i >= 0 && count < found.length; i--) {
+            int id = walked != null ? walked.ids[i] : i;
+            if (matches(id, query, engine, opponent, reason, timeControl)) {
+                found[count++] = id;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Name ID, -1 for no filter, -2 for a name that is not indexed.
+     */
+    private int id(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer id = nameIds.get(name);
+        return id != null ? id : -2;
+    }
+
+    private static Postings shorter(Postings walked, Postings candidate, boolean filtered) {
+        if (!filtered) {
+            return walked;
+        }
+        candidate = candidate != null ? candidate : EMPTY;
+        return walked == null || candidate.size < walked.size ? candidate : walked;
+    }
+
+    /**
+     * The games of the days from..to merged in ID order, or null if there are
+     * not fewer than the given number (walking them would not save anything).
+     */
+    private Postings days(long from, long to, int fewerThan) {
+        Postings merged = new Postings();
+        if (from > to) {
+            return merged;
+        }
+        NavigableMap<Long, Postings> range = byDay.subMap(
+            from != Long.MIN_VALUE ? day(from) : Long.MIN_VALUE, true,
+            to != Long.MAX_VALUE ? day(to) : Long.MAX_VALUE, true);
+        int total = 0;
+        for (Postings day : range.values()) {
+            total += day.size;
+        }
+        if (total >= fewerThan) {
+            return null;
+        }
+        merged.ids = new int[Math.max(total, 1)];
+        for (Postings day : range.values()) {
+            System.arraycopy(day.ids, 0, merged.ids, merged.size, day.size);
+            merged.size += day.size;
+        }
+        // Sorted already unless games were appended out of time order
+        Arrays.sort(merged.ids, 0, merged.size);
+        return merged;
+    }
+
+    private static int lowerBound(Postings postings, int id) {
+        int found = Arrays.binarySearch(postings.ids, 0, postings.size, id);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private boolean matches(int id, GameQuery query, int engine, int opponent, int reason, int timeControl) {
+        if ((reason >= 0 && reasons[id] != reason)
+                || (timeControl >= 0 && timeControls[id] != timeControl)
+                || (query.opening != null && openings[id] != query.opening)
+                || timestamps[id] < query.from || timestamps[id] > query.to) {
+            return false;
+        }
+        if (engine < 0) {
+            return query.result < 0 || results[id] == query.result;
+        }
+        return (!Boolean.FALSE.equals(query.engineWhite) && matchesSide(id, query, engine, opponent, true))
+            || (!Boolean.TRUE.equals(query.engineWhite) && matchesSide(id, query, engine, opponent, false));
+    }
+
+    /**
+     * Engine filters, with the engine playing the given color.
+     */
+    private boolean matchesSide(int id, GameQuery query, int engine, int opponent, boolean white) {
+        if ((white ? whites[id] : blacks[id]) != engine) {
+            return false;
+        }
+        if (opponent >= 0 && (white ? blacks[id] : whites[id]) != opponent) {
+            return false;
+        }
+        if (query.result < 0) {
+            return true;
+        }
+        // A win of the engine as black is a black win
+        int expected = query.relative && !white ? GameQuery.BLACK_WINS - query.result : query.result;
+        return results[id] == expected;
+    }
+
+    synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
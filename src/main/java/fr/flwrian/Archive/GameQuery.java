@@ -0,0 +1,144 @@
+package fr.flwrian.Archive;
+
+import fr.flwrian.Stats.OpeningStats;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * Filter of a {@link GameDatabase} search. Every field is optional; games must match all of them.
+ *
+ * Parameters (see {@link #parse}):
+ *   engine, opponent   Engine names; opponent needs engine
+ *   color              white or black: the color engine played
+ *   result             1-0, 1/2-1/2 or 0-1, or win, draw, loss for engine
+ *   reason             Termination reason, e.g. time_forfeit
+ *   tc                 Time control as written in the record, e.g. 10+0.1
+ *   opening            Opening key (hex, as reported by /api/openings), a FEN or startpos
+ *   from, to           Days (yyyy-MM-dd, inclusive) or timestamps (ms since epoch)
+ *   before             Only games with a lower ID, to page through results
+ *   limit              Maximum number of games (default {@value #DEFAULT_LIMIT})
+ */
+public class GameQuery {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 100_000;
+
+    static final int WHITE_WINS = 0;
+    static final int DRAW = 1;
+    static final int BLACK_WINS = 2;
+    static final int OTHER = 3;
+
+    String engine;
+    String opponent;
+    Boolean engineWhite;     // null: either color
+    int result = -1;         // WHITE_WINS, DRAW, BLACK_WINS, or -1
+    boolean relative;        // result is a win (WHITE_WINS) or loss (BLACK_WINS) of engine
+    String reason;
+    String timeControl;
+    Long opening;
+    long from = Long.MIN_VALUE;
+    long to = Long.MAX_VALUE;
+    long before = Long.MAX_VALUE;
+    int limit = DEFAULT_LIMIT;
+
+    /**
+     * @throws IllegalArgumentException on an unknown or malformed value
+     */
+    public static GameQuery parse(Map<String, String> params) {
+        GameQuery query = new GameQuery();
+        query.engine = params.get("engine");
+        query.opponent = params.get("opponent");
+        if (query.opponent != null && query.engine == null) {
+            throw new IllegalArgumentException("opponent needs engine");
+        }
+        String color = params.get("color");
+        if (color != null) {
+            if (query.engine == null) {
+                throw new IllegalArgumentException("color needs engine");
+            }
+            if (!color.equals("white") && !color.equals("black")) {
+                throw new IllegalArgumentException("color must be white or black");
+            }
+            query.engineWhite = color.equals("white");
+        }
+        String result = params.get("result");
+        if (result != null) {
+            switch (result) {
+                case "1-0": query.result = WHITE_WINS; break;
+                case "1/2-1/2": case "draw": query.result = DRAW; break;
+                case "0-1": query.result = BLACK_WINS; break;
+                case "win": case "loss":
+                    if (query.engine == null) {
+                        throw new IllegalArgumentException("result=" + result + " needs engine");
+                    }
+                    query.result = result.equals("win") ? WHITE_WINS : BLACK_WINS;
+                    query.relative = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("result must be 1-0, 1/2-1/2, 0-1, win, draw or loss");
+            }
+        }
+        query.reason = params.get("reason");
+        // A '+' left unescaped in the query string arrives as a space
+        query.timeControl = params.containsKey("tc") ? params.get("tc").replace(' ', '+') : null;
+        String opening = params.get("opening");
+        if (opening != null) {
+            query.opening = opening.equals("startpos") || opening.contains("/")
+                ? OpeningStats.positionKey(opening) : parseHex(opening);
+        }
+        if (params.containsKey("from")) {
+            query.from = time(params.get("from"), false);
+        }
+        if (params.containsKey("to")) {
+            query.to = time(params.get("to"), true);
+        }
+        if (params.containsKey("before")) {
+            query.before = number("before", params.get("before"));
+        }
+        if (params.containsKey("limit")) {
+            long limit = number("limit", params.get("limit"));
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+            }
+            query.limit = (int) limit;
+        }
+        return query;
+    }
+
+    private static long parseHex(String key) {
+        try {
+            return Long.parseUnsignedLong(key, 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("opening must be an opening key, a FEN or startpos");
+        }
+    }
+
+    private static long number(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    /**
+     * A day (from its start, or to its end) in the local time zone, like PGN dates, or a timestamp.
+     */
+    private static long time(String value, boolean end) {
+        if (!value.contains("-")) {
+            return number(end ? "to" : "from", value);
+        }
+        try {
+            LocalDate day = LocalDate.parse(value);
+            if (end) {
+                day = day.plusDays(1);
+            }
+            long start = day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return end ? start - 1 : start;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException((end ? "to" : "from") + " must be a day (yyyy-MM-dd) or a timestamp");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package fr.flwrian.Archive;
+
+import fr.flwrian.Result.GameResult;
+
+import java.io.IOException;
+
+/**
+ * Receives every finished game of a tournament (PGN files, the game archive, ...).
+ *
+ * Called from the runner's scheduling thread, in completion order, so
+ * implementations should only queue or buffer the game.
+ */
+public interface GameSink extends AutoCloseable {
+    /**
+     * @param event Tournament name
+     * @param round PGN round, e.g. "12.1" for the first game of pair 12
+     */
+    void write(GameResult game, String event, String round) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,398 @@
+package fr.flwrian.Archive;
+
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.MoveList;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes every finished game as PGN, from a dedicated writer thread.
+ *
+ * {@link #write} only queues the game, so game threads never wait on the
+ * disk; the writer thread converts moves to SAN, formats and writes them.
+ * Games go to rolling files games-NNNNNN.pgn (or .pgn.gz), a new file being
+ * started every {@code gamesPerFile} games and on each start, so a compressed
+ * file is never appended to. Each move carries a cutechess-style comment with
+ * the mover's score, depth and thinking time: {+0.31/14 0.512s}.
+ */
+public class PgnWriter implements GameSink {
+    static final String STARTPOS_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int LINE_LENGTH = 80;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
+    private final Path directory;
+    private final boolean gzip;
+    private final int gamesPerFile;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private int fileIndex;      // Writer thread only
+    private int gamesInFile;    // Writer thread only
+    private Writer out;         // Writer thread only
+    private long written;       // guarded by this
+    private long queued;        // guarded by this
+    private boolean sanWarningShown;
+
+    private static class Entry {
+        final GameResult game;
+        final String event;
+        final String round;
+        final long timestamp;
+
+        Entry(GameResult game, String event, String round, long timestamp) {
+            this.game = game;
+            this.event = event;
+            this.round = round;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * @param compression "none" or "gzip"
+     * @param gamesPerFile Games per file before rolling to the next one
+     */
+    public PgnWriter(Path directory, String compression, int gamesPerFile) throws IOException {
+        if (!"none".equals(compression) && !"gzip".equals(compression)) {
+            throw new IllegalArgumentException("Unsupported PGN compression: " + compression);
+        }
+        this.directory = directory;
+        this.gzip = "gzip".equals(compression);
+        this.gamesPerFile = gamesPerFile;
+        Files.createDirectories(directory);
+        this.fileIndex = lastFileIndex(directory);
+        this.writer = new Thread(this::run, "pgn-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private static int lastFileIndex(Path directory) throws IOException {
+        int last = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "games-*.pgn*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    last = Math.max(last, Integer.parseInt(name.substring(6, name.indexOf(".pgn"))));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Queue a finished game. Games without moves (never started) are skipped.
+     * @param event PGN Event tag (tournament name)
+     * @param round PGN Round tag, e.g. "12.1" for the first game of pair 12
+     */
+    @Override
+    public void write(GameResult game, String event, String round) {
+        if (closed || game.getRecord() == null) {
+            return;
+        }
+        synchronized (this) {
+            queued++;
+        }
+        queue.add(new Entry(game, event != null ? event : "?", round, System.currentTimeMillis()));
+    }
+
+    private void run() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Entry entry = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (entry == null) {
+                    continue;
+                }
+                int batch = 0;
+                do {
+                    writeGame(entry);
+                    batch++;
+                } while ((entry = queue.poll()) != null);
+                out.flush();
+                synchronized (this) {
+                    written += batch;
+                    notifyAll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("PGN writer error: " + e.getMessage());
+                synchronized (this) {
+                    // Games of a failed batch are lost; do not keep flush() waiting for them
+                    written = queued - queue.size();
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private void writeGame(Entry entry) throws IOException {
+        if (out == null || gamesInFile >= gamesPerFile) {
+            roll();
+        }
+        out.write(format(entry.game, entry.event, entry.round,
+            date(entry.timestamp),
+            toSan(entry.game.getRecord())));
+        gamesInFile++;
+    }
+
+    private void roll() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        fileIndex++;
+        gamesInFile = 0;
+        Path file = directory.resolve(String.format("games-%06d.pgn", fileIndex) + (gzip ? ".gz" : ""));
+        OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+        if (gzip) {
+            // Sync flush: every flushed batch is readable even if the process dies
+            stream = new GZIPOutputStream(stream, 1 << 16, true);
+        }
+        out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * SAN of the moves, or the UCI moves if they cannot be converted.
+     */
+    private String[] toSan(GameRecord game) {
+        String[] san = san(game);
+        if (san != null) {
+            return san;
+        }
+        if (!sanWarningShown) {
+            sanWarningShown = true;
+            System.err.println("PGN writer: cannot convert moves of " + game.getWhite() + " vs " + game.getBlack()
+                + " to SAN, writing UCI moves");
+        }
+        return game.getMoves();
+    }
+
+    /**
+     * SAN of the moves, or null if they cannot be converted.
+     */
+    static String[] san(GameRecord game) {
+        String[] moves = game.getMoves();
+        try {
+            String fen = fullFen(game.getStartFen());
+            MoveList list = new MoveList(fen);
+            Side side = fen.split(" ")[1].equals("b") ? Side.BLACK : Side.WHITE;
+            for (String move : moves) {
+                list.add(new Move(move, side));
+                side = side.flip();
+            }
+            String[] san = list.toSanArray();
+            return san.length == moves.length ? san : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * One game in PGN export format, followed by a blank line.
+     * @param san Moves in SAN (same length as the game's moves)
+     */
+    static String format(GameResult game, String event, String round, String date, String[] san) {
+        GameRecord record = game.getRecord();
+        String fen = fullFen(record.getStartFen());
+        StringBuilder pgn = new StringBuilder(256 + san.length * 24);
+        tag(pgn, "Event", event);
+        tag(pgn, "Site", "EngineLab");
+        tag(pgn, "Date", date);
+        tag(pgn, "Round", round);
+        tag(pgn, "White", record.getWhite());
+        tag(pgn, "Black", record.getBlack());
+        tag(pgn, "Result", pgnResult(game.getResult()));
+        if (!STARTPOS_FEN.equals(fen)) {
+            tag(pgn, "SetUp", "1");
+            tag(pgn, "FEN", fen);
+        }
+        tag(pgn, "TimeControl", record.getTimeControl() != null ? record.getTimeControl() : "?");
+        tag(pgn, "PlyCount", String.valueOf(san.length));
+        tag(pgn, "Termination", termination(game.getReason()));
+        pgn.append('\n');
+
+        String[] fields = fen.split(" ");
+        boolean whiteToMove = !"b".equals(fields[1]);
+        int moveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        int lineStart = pgn.length();
+        for (int ply = 0; ply < san.length; ply++) {
+            StringBuilder token = new StringBuilder(32);
+            if (whiteToMove) {
+                token.append(moveNumber).append(". ");
+            } else if (ply == 0) {
+                token.append(moveNumber).append("... ");
+            }
+            token.append(san[ply]).append(' ').append(comment(record, ply));
+            lineStart = append(pgn, lineStart, token);
+            if (!whiteToMove) {
+                moveNumber++;
+            }
+            whiteToMove = !whiteToMove;
+        }
+        lineStart = append(pgn, lineStart, new StringBuilder("{").append(game.getReason()).append('}'));
+        append(pgn, lineStart, new StringBuilder(pgnResult(game.getResult())));
+        return pgn.append("\n\n").toString();
+    }
+
+    /**
+     * PGN Date tag value of a timestamp, in local time.
+     */
+    static String date(long timestamp) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()).format(DATE);
+    }
+
+    /**
+     * Append a token, wrapping lines at {@value #LINE_LENGTH} characters.
+     * @return Start of the current line
+     */
+    private static int append(StringBuilder pgn, int lineStart, CharSequence token) {
+        if (pgn.length() > lineStart) {
+            if (pgn.length() - lineStart + 1 + token.length() > LINE_LENGTH) {
+                pgn.append('\n');
+                lineStart = pgn.length();
+            } else {
+                pgn.append(' ');
+            }
+        }
+        pgn.append(token);
+        return lineStart;
+    }
+
+    /**
+     * {+0.31/14 0.512s}, {+M3/20 0.100s} or {0.512s} without a score.
+     */
+    static String comment(GameRecord record, int ply) {
+        StringBuilder comment = new StringBuilder("{");
+        int score = record.getScore(ply);
+        int depth = record.getDepth(ply);
+        if (score != GameRecord.NO_SCORE) {
+            if (GameRecord.isMate(score)) {
+                comment.append(score > 0 ? "+M" : "-M").append(Math.abs(GameRecord.mateIn(score)));
+            } else {
+                comment.append(score >= 0 ? "+" : "-")
+                       .append(String.format("%d.%02d", Math.abs(score) / 100, Math.abs(score) % 100));
+            }
+            if (depth > 0) {
+                comment.append('/').append(depth);
+            }
+            comment.append(' ');
+        }
+        int ms = record.getTimeMs(ply);
+        comment.append(ms / 1000).append('.').append(String.format("%03d", ms % 1000)).append("s}");
+        return comment.toString();
+    }
+
+    private static void tag(StringBuilder pgn, String name, String value) {
+        pgn.append('[').append(name).append(" \"")
+           .append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+    }
+
+    private static String pgnResult(String result) {
+        return "1-0".equals(result) || "0-1".equals(result) || "1/2-1/2".equals(result) ? result : "*";
+    }
+
+    /**
+     * Standard Termination tag for an EngineLab end reason (the reason itself goes in the last comment).
+     */
+    static String termination(String reason) {
+        if (reason == null) {
+            return "unterminated";
+        }
+        switch (reason) {
+            case "checkmate":
+            case "stalemate":
+            case "insufficient_material":
+            case "draw":
+            case "resignation":
+                return "normal";
+            case "max_moves":
+                return "adjudication";
+            case "time_forfeit":
+            case "timeout":
+            case "watchdog_timeout":
+                return "time forfeit";
+            case "illegal_move":
+                return "rules infraction";
+            case "engine_crash":
+                return "abandoned";
+            default:
+                return "unterminated";
+        }
+    }
+
+    /**
+     * Six-field FEN of a start position ("startpos", or a FEN possibly without move counters).
+     */
+    static String fullFen(String startFen) {
+        if (startFen == null || "startpos".equals(startFen)) {
+            return STARTPOS_FEN;
+        }
+        String[] fields = startFen.trim().split("\\s+");
+        if (fields.length >= 6) {
+            return String.join(" ", fields);
+        }
+        StringBuilder fen = new StringBuilder(String.join(" ", fields));
+        String[] defaults = {"w", "-", "-", "0", "1"};
+        for (int f = fields.length; f < 6; f++) {
+            fen.append(' ').append(defaults[f - 1]);
+        }
+        return fen.toString();
+    }
+
+    /**
+     * Wait until every game queued so far is written and flushed.
+     */
+    public synchronized void flush() throws InterruptedException {
+        long target = queued;
+        while (written < target && writer.isAlive()) {
+            wait(100);
+        }
+    }
+
+    /**
+     * Games written so far.
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * Write the queued games and close the current file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (out != null) {
+            out.close();
+        }
+    }
+}
@@ -11,6 +11,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import fr.flwrian.Engine.SimulatedEngine;
+
 /**
  * Complete configuration loader for EngineLab.
  * Reads config.yml and validates all settings.
@@ -21,6 +23,10 @@ public class Config {
     private Paths paths;
     private Logging logging;
     private Stats stats;
+    private Distributed distributed;
+    private Pgn pgn;
+    private Archive archive;
+    private Datagen datagen;
     
     // Nested classes for configuration structure
     
@@ -32,6 +38,9 @@ public class Config {
         private int pairsPerMatch;
         private List<TimeControl> timeControls;
         private Openings openings;
+        private boolean virtualThreads;
+        private Adaptive adaptive;
+        private Swiss swiss;
         
         public String getName() { return name; }
         public String getMode() { return mode; }
@@ -40,6 +49,9 @@ public class Config {
         public int getPairsPerMatch() { return pairsPerMatch; }
         public List<TimeControl> getTimeControls() { return timeControls; }
         public Openings getOpenings() { return openings; }
+        public boolean isVirtualThreads() { return virtualThreads; }
+        public Adaptive getAdaptive() { return adaptive; }
+        public Swiss getSwiss() { return swiss; }
         
         public void setName(String name) { this.name = name; }
         public void setMode(String mode) { this.mode = mode; }
@@ -48,6 +60,31 @@ public class Config {
         public void setPairsPerMatch(int pairsPerMatch) { this.pairsPerMatch = pairsPerMatch; }
         public void setTimeControls(List<TimeControl> timeControls) { this.timeControls = timeControls; }
         public void setOpenings(Openings openings) { this.openings = openings; }
+        public void setVirtualThreads(boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+        public void setAdaptive(Adaptive adaptive) { this.adaptive = adaptive; }
+        public void setSwiss(Swiss swiss) { this.swiss = swiss; }
+    }
+    
+    public static class Adaptive {
+        private double targetCiWidth = 40; // Full width of the 95% interval, in Elo
+        private String focusEngine;        // Only this engine's interval matters (optional)
+        
+        public double getTargetCiWidth() { return targetCiWidth; }
+        public String getFocusEngine() { return focusEngine; }
+        
+        public void setTargetCiWidth(double targetCiWidth) { this.targetCiWidth = targetCiWidth; }
+        public void setFocusEngine(String focusEngine) { this.focusEngine = focusEngine; }
+    }
+    
+    public static class Swiss {
+        private int rounds;
+        private int repeatWindow; // Engines may meet again after this many rounds (0 = never)
+        
+        public int getRounds() { return rounds; }
+        public int getRepeatWindow() { return repeatWindow; }
+        
+        public void setRounds(int rounds) { this.rounds = rounds; }
+        public void setRepeatWindow(int repeatWindow) { this.repeatWindow = repeatWindow; }
     }
     
     public static class Openings {
@@ -67,23 +104,29 @@ public class Config {
     public static class TimeControl {
         private long baseTimeMs;
         private long incrementMs;
+        private long nodes; // Fixed nodes per move (0 = use the clock)
         
         public long getBaseTimeMs() { return baseTimeMs; }
         public long getIncrementMs() { return incrementMs; }
+        public long getNodes() { return nodes; }
         
         public void setBaseTimeMs(long baseTimeMs) { this.baseTimeMs = baseTimeMs; }
         public void setIncrementMs(long incrementMs) { this.incrementMs = incrementMs; }
+        public void setNodes(long nodes) { this.nodes = nodes; }
     }
     
     public static class Server {
         private WebSocket webSocket;
         private Ssl ssl;
+        private String controlToken; // Required by the /control API (local requests only when unset)
         
         public WebSocket getWebSocket() { return webSocket; }
         public Ssl getSsl() { return ssl; }
+        public String getControlToken() { return controlToken; }
         
         public void setWebSocket(WebSocket webSocket) { this.webSocket = webSocket; }
         public void setSsl(Ssl ssl) { this.ssl = ssl; }
+        public void setControlToken(String controlToken) { this.controlToken = controlToken; }
     }
     
     public static class WebSocket {
@@ -154,18 +197,97 @@ public class Config {
         }
     }
     
+    public static class Distributed {
+        private boolean enabled;
+        private int port = 9090;
+        private int leaseTimeoutSeconds = 30;
+        private String secret;  // Shared with the workers (ENGINELAB_SECRET on their side)
+        
+        public boolean isEnabled() { return enabled; }
+        public int getPort() { return port; }
+        public int getLeaseTimeoutSeconds() { return leaseTimeoutSeconds; }
+        public String getSecret() { return secret; }
+        
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public void setPort(int port) { this.port = port; }
+        public void setLeaseTimeoutSeconds(int leaseTimeoutSeconds) { this.leaseTimeoutSeconds = leaseTimeoutSeconds; }
+        public void setSecret(String secret) { this.secret = secret; }
+    }
+    
+    public static class Pgn {
+        private boolean enabled;
+        private String directory = "./pgn";
+        private String compression = "none";
+        private int gamesPerFile = 10000;
+        
+        public boolean isEnabled() { return enabled; }
+        public String getDirectory() { return directory; }
+        public String getCompression() { return compression; }
+        public int getGamesPerFile() { return gamesPerFile; }
+        
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public void setDirectory(String directory) { this.directory = directory; }
+        public void setCompression(String compression) { this.compression = compression; }
+        public void setGamesPerFile(int gamesPerFile) { this.gamesPerFile = gamesPerFile; }
+    }
+    
+    public static class Archive {
+        private boolean enabled;
+        private String file = "./archive/games.elga";
+        private boolean indexed = true;  // Keep a searchable index next to the archive
+        
+        public boolean isEnabled() { return enabled; }
+        public String getFile() { return file; }
+        public boolean isIndexed() { return indexed; }
+        
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public void setFile(String file) { this.file = file; }
+        public void setIndexed(boolean indexed) { this.indexed = indexed; }
+    }
+    
+    public static class Datagen {
+        private boolean enabled;
+        private String directory = "./datagen";
+        private int shards = 8;
+        private int minPly = 16;     // Skip the opening (book) plies
+        private int maxPly = 400;
+        private int maxScore = 3000; // Centipawns; mate scores are always excluded
+        
+        public boolean isEnabled() { return enabled; }
+        public String getDirectory() { return directory; }
+        public int getShards() { return shards; }
+        public int getMinPly() { return minPly; }
+        public int getMaxPly() { return maxPly; }
+        public int getMaxScore() { return maxScore; }
+        
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public void setDirectory(String directory) { this.directory = directory; }
+        public void setShards(int shards) { this.shards = shards; }
+        public void setMinPly(int minPly) { this.minPly = minPly; }
+        public void setMaxPly(int maxPly) { this.maxPly = maxPly; }
+        public void setMaxScore(int maxScore) { this.maxScore = maxScore; }
+    }
+    
     // Getters for main sections
     public Tournament getTournament() { return tournament; }
     public Server getServer() { return server; }
     public Paths getPaths() { return paths; }
     public Logging getLogging() { return logging; }
     public Stats getStats() { return stats; }
+    public Distributed getDistributed() { return distributed; }
+    public Pgn getPgn() { return pgn; }
+    public Archive getArchive() { return archive; }
+    public Datagen getDatagen() { return datagen; }
     
     public void setTournament(Tournament tournament) { this.tournament = tournament; }
     public void setServer(Server server) { this.server = server; }
     public void setPaths(Paths paths) { this.paths = paths; }
     public void setLogging(Logging logging) { this.logging = logging; }
     public void setStats(Stats stats) { this.stats = stats; }
+    public void setDistributed(Distributed distributed) { this.distributed = distributed; }
+    public void setPgn(Pgn pgn) { this.pgn = pgn; }
+    public void setArchive(Archive archive) { this.archive = archive; }
+    public void setDatagen(Datagen datagen) { this.datagen = datagen; }
     
     /**
      * Load configuration from YAML file.
@@ -197,7 +319,7 @@ public class Config {
         if (tournament.mode == null) {
             throw new IOException("Tournament mode must be specified");
         }
-        List<String> validModes = List.of("round-robin", "pairs");
+        List<String> validModes = List.of("round-robin", "pairs", "adaptive", "swiss", "selfplay");
         if (!validModes.contains(tournament.mode)) {
             throw new IOException("Invalid mode '" + tournament.mode + "'. Must be one of: " + validModes);
         }
@@ -206,23 +328,47 @@ public class Config {
             throw new IOException("At least one engine must be specified in 'engines' list");
         }
         
-        // Check for minimum 2 different engines (engines can't play against themselves)
+        // Check for minimum 2 different engines (engines can't play against themselves, except in selfplay mode)
         Set<String> uniqueEngines = new HashSet<>(tournament.engines);
-        if (uniqueEngines.size() < 2) {
+        if (uniqueEngines.size() < 2 && !"selfplay".equals(tournament.mode)) {
             throw new IOException("At least 2 different engines are required (engines cannot play against themselves). Found: " + uniqueEngines.size());
         }
         
         if (tournament.concurrency <= 0) {
             throw new IOException("Concurrency must be positive (got: " + tournament.concurrency + ")");
         }
-        if (tournament.concurrency > 16) {
+        if (tournament.concurrency > 16 && !tournament.virtualThreads) {
             System.out.println(" Warning: High concurrency (" + tournament.concurrency + ") may cause performance issues");
         }
         
-        if (tournament.pairsPerMatch <= 0) {
+        if ("swiss".equals(tournament.mode)) {
+            if (tournament.swiss == null || tournament.swiss.rounds <= 0) {
+                throw new IOException("swiss.rounds must be positive in swiss mode");
+            }
+            if (tournament.swiss.repeatWindow < 0) {
+                throw new IOException("swiss.repeatWindow cannot be negative (got: " + tournament.swiss.repeatWindow + ")");
+            }
+            if (tournament.swiss.repeatWindow == 0 && tournament.swiss.rounds >= uniqueEngines.size()) {
+                System.out.println(" Warning: " + tournament.swiss.rounds + " Swiss rounds with " + uniqueEngines.size() +
+                    " engines and no rematches: late rounds will need rematches");
+            }
+        } else if (tournament.pairsPerMatch <= 0) {
             throw new IOException("pairsPerMatch must be positive (got: " + tournament.pairsPerMatch + ")");
         }
         
+        if ("adaptive".equals(tournament.mode)) {
+            if (tournament.adaptive == null) {
+                tournament.adaptive = new Adaptive();
+            }
+            if (tournament.adaptive.targetCiWidth <= 0) {
+                throw new IOException("adaptive.targetCiWidth must be positive (got: " + tournament.adaptive.targetCiWidth + ")");
+            }
+            String focus = tournament.adaptive.focusEngine;
+            if (focus != null && !tournament.engines.contains(focus)) {
+                throw new IOException("adaptive.focusEngine '" + focus + "' is not in the engines list");
+            }
+        }
+        
         // Validate timeControls
         if (tournament.timeControls == null || tournament.timeControls.isEmpty()) {
             throw new IOException("Missing 'timeControls' section - at least one time control is required");
@@ -237,7 +383,13 @@ public class Config {
             if (tc.incrementMs < 0) {
                 throw new IOException("timeControls[" + i + "].incrementMs cannot be negative (got: " + tc.incrementMs + ")");
             }
-            if (tc.baseTimeMs < 1000) {
+            if (tc.nodes < 0) {
+                throw new IOException("timeControls[" + i + "].nodes cannot be negative (got: " + tc.nodes + ")");
+            }
+            if ("selfplay".equals(tournament.mode) && tc.nodes == 0) {
+                throw new IOException("timeControls[" + i + "] must set nodes in selfplay mode (fixed-nodes games)");
+            }
+            if (tc.baseTimeMs < 1000 && tc.nodes == 0) {
                 System.out.println(" Warning: timeControls[" + i + "] has very low base time (" + tc.baseTimeMs + "ms). Games may timeout.");
             }
         }
@@ -275,6 +427,58 @@ public class Config {
             }
         }
         
+        // Distributed mode validation
+        if (distributed != null && distributed.isEnabled()) {
+            if (distributed.port <= 0 || distributed.port > 65535) {
+                throw new IOException("Invalid distributed port (got: " + distributed.port + "). Must be 1-65535");
+            }
+            if (distributed.leaseTimeoutSeconds <= 0) {
+                throw new IOException("distributed.leaseTimeoutSeconds must be positive (got: " + distributed.leaseTimeoutSeconds + ")");
+            }
+            if (distributed.secret == null || distributed.secret.length() < 16) {
+                throw new IOException("distributed.secret is required (at least 16 characters): workers run whatever the coordinator sends");
+            }
+        }
+        
+        // PGN validation
+        if (pgn != null && pgn.isEnabled()) {
+            if (pgn.directory == null || pgn.directory.isEmpty()) {
+                throw new IOException("PGN output enabled but no directory specified");
+            }
+            List<String> validCompressions = List.of("none", "gzip");
+            if (!validCompressions.contains(pgn.compression)) {
+                throw new IOException("Invalid pgn.compression '" + pgn.compression + "'. Must be one of: " + validCompressions);
+            }
+            if (pgn.gamesPerFile <= 0) {
+                throw new IOException("pgn.gamesPerFile must be positive (got: " + pgn.gamesPerFile + ")");
+            }
+        }
+        
+        // Archive validation
+        if (archive != null && archive.isEnabled() && (archive.file == null || archive.file.isEmpty())) {
+            throw new IOException("Game archive enabled but no file specified");
+        }
+        
+        // Datagen validation
+        if (datagen != null && datagen.isEnabled()) {
+            if (datagen.directory == null || datagen.directory.isEmpty()) {
+                throw new IOException("Datagen enabled but no directory specified");
+            }
+            if (datagen.shards <= 0 || datagen.shards > 100) {
+                throw new IOException("datagen.shards must be between 1 and 100 (got: " + datagen.shards + ")");
+            }
+            if (datagen.minPly < 0 || datagen.maxPly < datagen.minPly || datagen.maxPly == Integer.MAX_VALUE) {
+                throw new IOException("datagen ply window must satisfy 0 <= minPly <= maxPly (got: " +
+                    datagen.minPly + "-" + datagen.maxPly + ")");
+            }
+            if (datagen.maxScore <= 0) {
+                throw new IOException("datagen.maxScore must be positive (got: " + datagen.maxScore + ")");
+            }
+        }
+        if ("selfplay".equals(tournament.mode) && (datagen == null || !datagen.isEnabled())) {
+            System.out.println(" Warning: selfplay mode without datagen: no training positions will be written");
+        }
+        
         // Openings validation
         if (tournament.openings != null && tournament.openings.isEnabled()) {
             if (tournament.openings.file == null || tournament.openings.file.isEmpty()) {
@@ -307,6 +511,10 @@ public class Config {
         String engineDir = paths != null ? paths.getEngineDir() : "./engines";
         
         for (String engineName : tournament.getEngines()) {
+            if (SimulatedEngine.isSimulated(engineName)) {
+                enginePaths.add(engineName);
+                continue;
+            }
             Path enginePath = Path.of(engineDir, engineName);
             
             if (!Files.exists(enginePath)) {
@@ -378,6 +586,54 @@ public class Config {
         throw new IllegalStateException("No time controls configured");
     }
     
+    /**
+     * Number of pairs in the tournament: pairsPerMatch, or one pair per engine
+     * couple and round in Swiss mode.
+     */
+    public int getTotalPairs() {
+        if ("swiss".equals(tournament.getMode())) {
+            // Odd fields give one engine a bye each round
+            return tournament.getSwiss().getRounds() * (new HashSet<>(tournament.getEngines()).size() / 2);
+        }
+        return tournament.getPairsPerMatch();
+    }
+    
+    /**
+     * Opening selection mode: "sequential" (default) or "random".
+     */
+    public String getOpeningMode() {
+        if (tournament.getOpenings() != null && tournament.getOpenings().isEnabled()
+                && tournament.getOpenings().getMode() != null) {
+            return tournament.getOpenings().getMode();
+        }
+        return "sequential";
+    }
+    
+    /**
+     * Settings that define the pair schedule (engines, time controls, openings).
+     * A tournament journal written with a different fingerprint is not resumed.
+     */
+    public String getScheduleFingerprint() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("engines=").append(getEnginePaths());
+        for (TimeControl tc : getTimeControls()) {
+            sb.append(";tc=").append(tc.getBaseTimeMs()).append('+').append(tc.getIncrementMs())
+              .append('/').append(tc.getNodes());
+        }
+        List<String> positions = getStartingPositions();
+        sb.append(";openings=").append(positions.size()).append('/').append(positions.hashCode())
+          .append('/').append(getOpeningMode());
+        if ("swiss".equals(tournament.getMode())) {
+            sb.append(";swiss=").append(tournament.getSwiss().getRounds())
+              .append('/').append(tournament.getSwiss().getRepeatWindow());
+        }
+        if ("adaptive".equals(tournament.getMode())) {
+            sb.append(";adaptive=").append(tournament.getAdaptive().getTargetCiWidth())
+              .append('/').append(tournament.getAdaptive().getFocusEngine());
+        }
+        return sb.toString();
+    }
+    
     /**
      * Print configuration summary.
      */
@@ -385,20 +641,29 @@ public class Config {
         System.out.println("=== " + tournament.getName() + " ===");
         System.out.println("Mode:        " + tournament.getMode());
         System.out.println("Engines:     " + String.join(", ", tournament.getEngines()));
-        System.out.println("Concurrency: " + tournament.getConcurrency());
-        System.out.println("Pairs:       " + tournament.getPairsPerMatch() + " (" + (tournament.getPairsPerMatch() * 2) + " games)");
+        System.out.println("Concurrency: " + tournament.getConcurrency() + 
+            (tournament.isVirtualThreads() ? " (virtual threads)" : ""));
+        System.out.println("Pairs:       " + getTotalPairs() + " (" + (getTotalPairs() * 2) + " games)" +
+            ("adaptive".equals(tournament.getMode()) ? " at most" : ""));
+        if ("swiss".equals(tournament.getMode())) {
+            Swiss swiss = tournament.getSwiss();
+            System.out.println("Swiss:       " + swiss.getRounds() + " rounds" +
+                (swiss.getRepeatWindow() > 0 ? ", rematches after " + swiss.getRepeatWindow() + " rounds" : ", no rematches"));
+        }
+        if ("adaptive".equals(tournament.getMode())) {
+            Adaptive adaptive = tournament.getAdaptive();
+            System.out.println("Precision:   95% interval < " + adaptive.getTargetCiWidth() + " Elo" +
+                (adaptive.getFocusEngine() != null ? " for " + adaptive.getFocusEngine() : " for every engine"));
+        }
         
         // Display time controls
         List<TimeControl> timeControls = getTimeControls();
         if (timeControls.size() == 1) {
-            TimeControl tc = timeControls.get(0);
-            System.out.println("Time:        " + (tc.getBaseTimeMs() / 1000.0) + "s + " + 
-                (tc.getIncrementMs() / 1000.0) + "s");
+            System.out.println("Time:        " + describe(timeControls.get(0)));
         } else {
             System.out.println("Time:        " + timeControls.size() + " time controls (random selection):");
             for (TimeControl tc : timeControls) {
-                System.out.println("             - " + (tc.getBaseTimeMs() / 1000.0) + "s + " + 
-                    (tc.getIncrementMs() / 1000.0) + "s");
+                System.out.println("             - " + describe(tc));
             }
         }
         
@@ -414,9 +679,30 @@ public class Config {
             System.out.println("WebSocket:   " + host + ":" + server.getWebSocket().getPort());
             System.out.println("Live View: http://" + host + ":" + server.getWebSocket().getPort() + "/live");
         }
+        if (pgn != null && pgn.isEnabled()) {
+            System.out.println("PGN:         " + pgn.getDirectory() +
+                ("gzip".equals(pgn.getCompression()) ? " (gzip)" : "") + ", " + pgn.getGamesPerFile() + " games/file");
+        }
+        if (archive != null && archive.isEnabled()) {
+            System.out.println("Archive:     " + archive.getFile() + (archive.isIndexed() ? " (indexed)" : ""));
+        }
+        if (datagen != null && datagen.isEnabled()) {
+            System.out.println("Datagen:     " + datagen.getDirectory() + ", " + datagen.getShards() + " shards, plies " +
+                datagen.getMinPly() + "-" + datagen.getMaxPly() + ", |score| < " + datagen.getMaxScore());
+        }
+        if (distributed != null && distributed.isEnabled()) {
+            System.out.println("Workers:     port " + distributed.getPort() + " (games run on remote workers)");
+        }
         System.out.println("===============================\n");
     }
     
+    private static String describe(TimeControl tc) {
+        if (tc.getNodes() > 0) {
+            return tc.getNodes() + " nodes/move (limit " + (tc.getBaseTimeMs() / 1000.0) + "s)";
+        }
+        return (tc.getBaseTimeMs() / 1000.0) + "s + " + (tc.getIncrementMs() / 1000.0) + "s";
+    }
+    
     /**
      * Get the local IP address of the machine.
      * Returns localhost if unable to determine the IP.
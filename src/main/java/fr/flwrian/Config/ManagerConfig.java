@@ -0,0 +1,94 @@
+package fr.flwrian.Config;
+
+import org.yaml.snakeyaml.Yaml;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for running several tournaments on one machine (manager.yml).
+ * Each entry points to a regular tournament config.yml.
+ */
+public class ManagerConfig {
+    private int slots;
+    private int port = 8080;
+    private String controlToken; // Required by /tournaments and /control when the web server is on
+    private boolean virtualThreads;
+    private boolean exitWhenIdle = true;
+    private List<Entry> tournaments = new ArrayList<>();
+    
+    public static class Entry {
+        private String config;
+        private double weight = 1.0;
+        private int priority;
+        
+        public String getConfig() { return config; }
+        public double getWeight() { return weight; }
+        public int getPriority() { return priority; }
+        
+        public void setConfig(String config) { this.config = config; }
+        public void setWeight(double weight) { this.weight = weight; }
+        public void setPriority(int priority) { this.priority = priority; }
+    }
+    
+    public int getSlots() { return slots; }
+    public int getPort() { return port; }
+    public String getControlToken() { return controlToken; }
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public boolean isExitWhenIdle() { return exitWhenIdle; }
+    public List<Entry> getTournaments() { return tournaments; }
+    
+    public void setSlots(int slots) { this.slots = slots; }
+    public void setPort(int port) { this.port = port; }
+    public void setControlToken(String controlToken) { this.controlToken = controlToken; }
+    public void setVirtualThreads(boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+    public void setExitWhenIdle(boolean exitWhenIdle) { this.exitWhenIdle = exitWhenIdle; }
+    public void setTournaments(List<Entry> tournaments) { this.tournaments = tournaments; }
+    
+    /**
+     * Load manager configuration from YAML file.
+     */
+    public static ManagerConfig load(String path) throws IOException {
+        Yaml yaml = new Yaml();
+        ManagerConfig config;
+        
+        try (InputStream input = new FileInputStream(path)) {
+            config = yaml.loadAs(input, ManagerConfig.class);
+        }
+        if (config == null) {
+            throw new IOException("Empty manager configuration: " + path);
+        }
+        
+        config.validate();
+        return config;
+    }
+    
+    private void validate() throws IOException {
+        if (slots <= 0) {
+            throw new IOException("slots must be positive (got: " + slots + ")");
+        }
+        if (port < 0 || port > 65535) {
+            throw new IOException("Invalid port (got: " + port + "). Must be 0-65535");
+        }
+        // Queued tournaments name the executables to launch, so the API is never left open
+        if (port > 0 && (controlToken == null || controlToken.length() < 16)) {
+            throw new IOException("controlToken of at least 16 characters is required when port is set");
+        }
+        if (tournaments == null) {
+            tournaments = new ArrayList<>();
+        }
+        for (int i = 0; i < tournaments.size(); i++) {
+            Entry entry = tournaments.get(i);
+            if (entry.config == null || !Files.isRegularFile(Path.of(entry.config))) {
+                throw new IOException("tournaments[" + i + "].config not found: " + entry.config);
+            }
+            if (entry.weight <= 0) {
+                throw new IOException("tournaments[" + i + "].weight must be positive (got: " + entry.weight + ")");
+            }
+        }
+    }
+}
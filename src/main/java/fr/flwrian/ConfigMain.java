@@ -1,10 +1,20 @@
 package fr.flwrian;
 
+import fr.flwrian.Archive.DatagenWriter;
+import fr.flwrian.Archive.GameArchive;
+import fr.flwrian.Archive.GameDatabase;
+import fr.flwrian.Archive.GameSink;
+import fr.flwrian.Archive.PgnWriter;
 import fr.flwrian.Config.Config;
 import fr.flwrian.Runner.MatchRunner;
+import fr.flwrian.Runner.PairingStrategy;
+import fr.flwrian.Runner.TournamentJournal;
 import fr.flwrian.Stats.StatsManager;
+import fr.flwrian.WebSocket.GameWebSocket;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -32,6 +42,13 @@ public class ConfigMain {
                 System.out.println();
             }
             
+            // Run games on virtual threads if configured (Java 21+)
+            if (config.getTournament().isVirtualThreads()) {
+                boolean virtual = fr.flwrian.Util.GameThreads.setVirtualEnabled(true);
+                System.out.println("Virtual threads " + (virtual ? "enabled" : "unavailable, using platform threads"));
+                System.out.println();
+            }
+            
             // Get engine paths
             List<String> enginePaths = config.getEnginePaths();
             System.out.println("Validating " + enginePaths.size() + " engine(s):");
@@ -63,11 +80,7 @@ public class ConfigMain {
             List<String> startingPositions = config.getStartingPositions();
             
             // Get opening mode
-            String openingMode = "sequential"; // default
-            if (config.getTournament().getOpenings() != null && 
-                config.getTournament().getOpenings().isEnabled()) {
-                openingMode = config.getTournament().getOpenings().getMode();
-            }
+            String openingMode = config.getOpeningMode();
             
             // Get time controls
             List<Config.TimeControl> timeControls = config.getTimeControls();
@@ -102,6 +115,41 @@ public class ConfigMain {
                 runner.setStatsManager(statsManager);
             }
             
+            // Journal every pair so an interrupted tournament resumes where it stopped
+            // (only with persisted stats: a resumed run without them would start from empty stats)
+            if (config.getStats() != null && config.getStats().isPersistenceEnabled()) {
+                TournamentJournal journal = TournamentJournal.open(
+                    Path.of(config.getStats().getStatsDirectory(), "tournament_journal.jsonl"),
+                    config.getScheduleFingerprint(),
+                    config.getTotalPairs());
+                runner.setJournal(journal);
+            }
+            
+            // Save every game to PGN and/or the game archive if configured
+            final List<GameSink> gameSinks = new ArrayList<>();
+            if (config.getPgn() != null && config.getPgn().isEnabled()) {
+                Config.Pgn pgn = config.getPgn();
+                gameSinks.add(new PgnWriter(Path.of(pgn.getDirectory()), pgn.getCompression(), pgn.getGamesPerFile()));
+            }
+            if (config.getArchive() != null && config.getArchive().isEnabled()) {
+                Path file = Path.of(config.getArchive().getFile());
+                if (config.getArchive().isIndexed()) {
+                    GameDatabase database = new GameDatabase(file);
+                    GameWebSocket.setGameDatabase(null, database);
+                    gameSinks.add(database);
+                } else {
+                    gameSinks.add(new GameArchive(file));
+                }
+            }
+            if (config.getDatagen() != null && config.getDatagen().isEnabled()) {
+                Config.Datagen datagen = config.getDatagen();
+                gameSinks.add(new DatagenWriter(Path.of(datagen.getDirectory()), datagen.getShards(),
+                    datagen.getMinPly(), datagen.getMaxPly(), datagen.getMaxScore()));
+            }
+            for (GameSink sink : gameSinks) {
+                runner.addGameSink(sink, t.getName());
+            }
+            
             // Add shutdown hook
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 System.out.println("\n\n🛑 Shutdown signal received (Ctrl+C)...");
@@ -114,6 +162,12 @@ public class ConfigMain {
                     }
                     
                     runner.forceShutdown();
+                    if (statsManager != null) {
+                        statsManager.close();
+                    }
+                    for (GameSink sink : gameSinks) {
+                        sink.close();
+                    }
                     System.out.println("Shutdown complete.");
                 } catch (Exception e) {
                     System.err.println("Error during shutdown: " + e.getMessage());
@@ -124,11 +178,21 @@ public class ConfigMain {
             switch (t.getMode().toLowerCase()) {
                 case "pairs":
                 case "round-robin":
-                    runner.runPairs(t.getPairsPerMatch(), startingPositions, openingMode);
+                case "adaptive":
+                case "swiss":
+                case "selfplay":
+                    runner.setPairingStrategy(PairingStrategy.fromConfig(config));
+                    runner.runPairs(config.getTotalPairs(), startingPositions, openingMode);
+                    if (statsManager != null) {
+                        statsManager.close();
+                    }
+                    for (GameSink sink : gameSinks) {
+                        sink.close();
+                    }
                     break;
                 default:
                     System.err.println("Unknown mode: " + t.getMode());
-                    System.err.println("Supported modes: pairs, round-robin");
+                    System.err.println("Supported modes: pairs, round-robin, adaptive, swiss, selfplay");
                     System.exit(1);
             }
             
@@ -0,0 +1,533 @@
+package fr.flwrian.Distributed;
+
+import com.google.gson.JsonObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import fr.flwrian.Engine.SimulatedEngine;
+import fr.flwrian.Game.MatchPair;
+import fr.flwrian.Game.TimeControl;
+import fr.flwrian.Result.PairResult;
+import fr.flwrian.Task.OnDemandPairTask;
+
+/**
+ * Coordinator side of distributed mode.
+ *
+ * The runner keeps pairing, stats, persistence and the WebSocket server; pairs
+ * are queued here and leased to connected workers, which play them locally and
+ * stream live events and the final PairResult back. A lease is kept alive by
+ * the worker's heartbeats: when a worker disconnects or stops heartbeating,
+ * all its leases are re-queued for another worker. Results from a lease that
+ * was already re-queued are ignored, so a pair is only counted once.
+ *
+ * Engine binaries are identified by SHA-256; workers request the ones missing
+ * from their cache.
+ *
+ * Workers must prove they know the shared secret before anything else is
+ * accepted (see {@link Protocol}). Each connection writes from its own sender
+ * thread, so an engine transfer never holds up the reader (heartbeats) or
+ * scheduling for other workers.
+ */
+public class Coordinator {
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int HANDSHAKE_TIMEOUT_MS = 10000;
+
+    private final int port;
+    private final long leaseTimeoutMs;
+    private final String secret;
+    private final Deque<Job> pending = new ArrayDeque<>();        // guarded by this
+    private final Map<Long, Job> leased = new HashMap<>();        // guarded by this
+    private final List<WorkerConnection> workers = new ArrayList<>(); // guarded by this
+    private final Map<String, Path> enginesByHash = new ConcurrentHashMap<>();
+    private final Map<String, String> hashesByPath = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leaseChecker;
+    private ServerSocket serverSocket;
+    private volatile Consumer<JsonObject> eventSink = event -> { };
+    private volatile boolean running;
+    private long nextLease = 1;  // guarded by this
+    private int requeued;        // guarded by this
+
+    /**
+     * @param port TCP port workers connect to (0 for an ephemeral port)
+     * @param leaseTimeoutMs Time without heartbeat after which a worker's leases are re-queued
+     * @param secret Shared secret workers must prove they know
+     */
+    public Coordinator(int port, long leaseTimeoutMs, String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("Distributed mode needs a shared secret");
+        }
+        this.port = port;
+        this.leaseTimeoutMs = leaseTimeoutMs;
+        this.secret = secret;
+        this.leaseChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "coordinator-leases");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Receive live game events (game_start, move, game_end) from workers.
+     */
+    public void setEventSink(Consumer<JsonObject> sink) {
+        this.eventSink = sink;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "coordinator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        leaseChecker.scheduleAtFixedRate(this::checkLeases, 1, 1, TimeUnit.SECONDS);
+        System.out.println("[Coordinator] Waiting for workers on port " + getPort());
+    }
+
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : port;
+    }
+
+    /**
+     * Queue a pair for remote execution.
+     * The task itself is not run here; only its parameters are sent to a worker.
+     */
+    public CompletableFuture<PairResult> submit(OnDemandPairTask task) throws IOException {
+        Job job = new Job(task.getPair(), task.getTimeControl(),
+            task.getEngine1Name(), registerEngine(task.getEngine1Path()),
+            task.getEngine2Name(), registerEngine(task.getEngine2Path()));
+        synchronized (this) {
+            if (!running) {
+                throw new IOException("Coordinator is not running");
+            }
+            pending.addLast(job);
+        }
+        dispatch();
+        return job.future;
+    }
+
+    public synchronized int getWorkerCount() {
+        return workers.size();
+    }
+
+    public synchronized int getTotalSlots() {
+        int total = 0;
+        for (WorkerConnection worker : workers) {
+            total += worker.slots;
+        }
+        return total;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized int getRequeuedCount() {
+        return requeued;
+    }
+
+    /**
+     * Tell workers to exit and fail any pair still queued or leased.
+     */
+    public void shutdown() {
+        List<WorkerConnection> connected;
+        List<Job> unfinished = new ArrayList<>();
+        synchronized (this) {
+            running = false;
+            connected = new ArrayList<>(workers);
+            unfinished.addAll(pending);
+            unfinished.addAll(leased.values());
+            pending.clear();
+            leased.clear();
+        }
+        for (WorkerConnection worker : connected) {
+            worker.send(Protocol.message("shutdown"));
+            worker.closeWhenSent();
+        }
+        for (Job job : unfinished) {
+            job.future.completeExceptionally(new IOException("Coordinator shut down"));
+        }
+        leaseChecker.shutdownNow();
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    private String registerEngine(String path) throws IOException {
+        if (SimulatedEngine.isSimulated(path)) {
+            return path; // Nothing to ship: workers start the same simulated engine
+        }
+        String hash = hashesByPath.get(path);
+        if (hash == null) {
+            hash = Protocol.sha256(Path.of(path));
+            hashesByPath.put(path, hash);
+            enginesByHash.put(hash, Path.of(path));
+        }
+        return hash;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+                WorkerConnection worker = new WorkerConnection(socket);
+                Thread reader = new Thread(() -> worker.readLoop(), "coordinator-" + socket.getRemoteSocketAddress());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("[Coordinator] Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Lease queued pairs to workers with free slots, most free slots first.
+     */
+    private void dispatch() {
+        List<Object[]> assignments = new ArrayList<>();
+        synchronized (this) {
+            while (!pending.isEmpty()) {
+                WorkerConnection best = null;
+                for (WorkerConnection worker : workers) {
+                    int free = worker.slots - worker.leases.size();
+                    if (free > 0 && (best == null || free > best.slots - best.leases.size())) {
+                        best = worker;
+                    }
+                }
+                if (best == null) {
+                    break;
+                }
+                Job job = pending.pollFirst();
+                job.lease = nextLease++;
+                job.worker = best;
+                job.attempts++;
+                best.leases.add(job.lease);
+                leased.put(job.lease, job);
+                assignments.add(new Object[]{best, job.toAssign()});
+            }
+        }
+        for (Object[] assignment : assignments) {
+            ((WorkerConnection) assignment[0]).send((JsonObject) assignment[1]);
+        }
+    }
+
+    private void checkLeases() {
+        long now = System.currentTimeMillis();
+        List<WorkerConnection> expired = new ArrayList<>();
+        synchronized (this) {
+            for (WorkerConnection worker : workers) {
+                if (now - worker.lastSeen > leaseTimeoutMs) {
+                    expired.add(worker);
+                }
+            }
+        }
+        for (WorkerConnection worker : expired) {
+            System.err.println("[Coordinator] Worker " + worker.id + " missed heartbeats for "
+                + leaseTimeoutMs + " ms, revoking its leases");
+            worker.close();
+            disconnected(worker);
+        }
+    }
+
+    /**
+     * Remove a worker and put its leased pairs back at the head of the queue.
+     */
+    private void disconnected(WorkerConnection worker) {
+        List<Job> failed = new ArrayList<>();
+        synchronized (this) {
+            if (!workers.remove(worker)) {
+                return;
+            }
+            for (Long lease : worker.leases) {
+                Job job = leased.remove(lease);
+                if (job == null) {
+                    continue;
+                }
+                if (job.attempts >= MAX_ATTEMPTS) {
+                    failed.add(job);
+                } else {
+                    pending.addFirst(job);
+                    requeued++;
+                }
+            }
+            worker.leases.clear();
+            System.out.println("[Coordinator] Worker " + worker.id + " disconnected ("
+                + workers.size() + " remaining, " + pending.size() + " pairs queued)");
+        }
+        for (Job job : failed) {
+            job.future.completeExceptionally(new IOException("Pair " + job.pair.getPairId()
+                + " lost " + job.attempts + " times with its worker"));
+        }
+        dispatch();
+    }
+
+    private void completed(WorkerConnection worker, long lease, PairResult result) {
+        Job job;
+        synchronized (this) {
+            job = leased.get(lease);
+            if (job == null || job.worker != worker) {
+                // Lease was revoked and the pair re-queued; the other copy counts
+                return;
+            }
+            leased.remove(lease);
+            worker.leases.remove(lease);
+        }
+        job.future.complete(result);
+        dispatch();
+    }
+
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    /**
+     * A queued or leased pair.
+     */
+    private static class Job {
+        final MatchPair pair;
+        final TimeControl timeControl;
+        final String engine1Name;
+        final String engine1Hash;
+        final String engine2Name;
+        final String engine2Hash;
+        final CompletableFuture<PairResult> future = new CompletableFuture<>();
+        long lease;
+        WorkerConnection worker;
+        int attempts;
+
+        Job(MatchPair pair, TimeControl timeControl, String engine1Name, String engine1Hash,
+            String engine2Name, String engine2Hash) {
+            this.pair = pair;
+            this.timeControl = timeControl;
+            this.engine1Name = engine1Name;
+            this.engine1Hash = engine1Hash;
+            this.engine2Name = engine2Name;
+            this.engine2Hash = engine2Hash;
+        }
+
+        JsonObject toAssign() {
+            JsonObject msg = Protocol.message("assign");
+            msg.addProperty("lease", lease);
+            msg.addProperty("pairId", pair.getPairId());
+            msg.addProperty("fen", pair.getStartFen());
+            msg.addProperty("gameIdBase", pair.getGameIdBase());
+            JsonObject tc = new JsonObject();
+            tc.addProperty("whiteTime", timeControl.getWhiteTime());
+            tc.addProperty("blackTime", timeControl.getBlackTime());
+            tc.addProperty("whiteIncrement", timeControl.getWhiteIncrement());
+            tc.addProperty("blackIncrement", timeControl.getBlackIncrement());
+            tc.addProperty("nodes", timeControl.getNodesPerMove());
+            msg.add("timeControl", tc);
+            msg.add("engine1", engine(engine1Name, engine1Hash));
+            msg.add("engine2", engine(engine2Name, engine2Hash));
+            return msg;
+        }
+
+        private static JsonObject engine(String name, String hash) {
+            JsonObject engine = new JsonObject();
+            engine.addProperty("name", name);
+            engine.addProperty("hash", hash);
+            return engine;
+        }
+    }
+
+    /**
+     * One connected worker: a reader loop and a sender thread.
+     */
+    private class WorkerConnection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final ExecutorService sender;
+        private final String nonce = Protocol.nonce();
+        private final Set<Long> leases = new HashSet<>(); // guarded by Coordinator.this
+        private volatile long lastSeen = System.currentTimeMillis();
+        private boolean authenticated; // Reader thread only
+        private String id;
+        private int slots;
+
+        WorkerConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.id = String.valueOf(socket.getRemoteSocketAddress());
+            this.sender = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "coordinator-send-" + socket.getRemoteSocketAddress());
+                t.setDaemon(true);
+                return t;
+            });
+            JsonObject challenge = Protocol.message("challenge");
+            challenge.addProperty("nonce", nonce);
+            send(challenge);
+        }
+
+        void readLoop() {
+            try {
+                while (running) {
+                    Protocol.Frame frame = Protocol.read(in);
+                    lastSeen = System.currentTimeMillis();
+                    handle(frame);
+                }
+            } catch (EOFException | SocketException e) {
+                // Worker went away
+            } catch (Exception e) {
+                System.err.println("[Coordinator] Protocol error from " + id + ": " + e.getMessage());
+            } finally {
+                closeWhenSent();
+                disconnected(this);
+            }
+        }
+
+        private void handle(Protocol.Frame frame) throws IOException {
+            if (!authenticated && !frame.type().equals("hello")) {
+                throw new IOException("Expected hello, got " + frame.type());
+            }
+            switch (frame.type()) {
+                case "hello":
+                    hello(frame.json);
+                    break;
+                case "heartbeat":
+                    break;
+                case "engine_request":
+                    sendEngine(frame.json.get("hash").getAsString());
+                    break;
+                case "event":
+                    eventSink.accept(frame.json.getAsJsonObject("event"));
+                    break;
+                case "result":
+                    PairResult result = Protocol.gson().fromJson(frame.json.get("result"), PairResult.class);
+                    completed(this, frame.json.get("lease").getAsLong(), result);
+                    break;
+                default:
+                    System.err.println("[Coordinator] Ignoring unknown message from " + id + ": " + frame.type());
+            }
+        }
+
+        /**
+         * Check the version and the worker's proof, then register it and prove ourselves.
+         */
+        private void hello(JsonObject hello) throws IOException {
+            if (authenticated) {
+                throw new IOException("Duplicate hello");
+            }
+            int version = hello.get("version").getAsInt();
+            if (version != Protocol.VERSION) {
+                reject("unsupported protocol version " + version + " (coordinator speaks " + Protocol.VERSION + ")");
+            }
+            String proof = hello.has("proof") ? hello.get("proof").getAsString() : null;
+            if (!Protocol.verify(secret, "worker", nonce, proof)) {
+                reject("wrong secret");
+            }
+            authenticated = true;
+            socket.setSoTimeout(0);
+            id = hello.get("workerId").getAsString();
+            slots = Math.max(1, hello.get("slots").getAsInt());
+            JsonObject welcome = Protocol.message("welcome");
+            welcome.addProperty("leaseTimeoutMs", leaseTimeoutMs);
+            welcome.addProperty("proof", Protocol.proof(secret, "coordinator", hello.get("nonce").getAsString()));
+            send(welcome);
+            synchronized (Coordinator.this) {
+                workers.add(this);
+            }
+            System.out.println("[Coordinator] Worker " + id + " connected with " + slots + " slot(s)");
+            dispatch();
+        }
+
+        private void reject(String reason) throws IOException {
+            JsonObject rejected = Protocol.message("rejected");
+            rejected.addProperty("reason", reason);
+            send(rejected);
+            throw new IOException("Rejected worker: " + reason);
+        }
+
+        /**
+         * Stream an engine binary from the sender thread. Heartbeats keep being
+         * read meanwhile; other messages to this worker wait for the transfer.
+         */
+        private void sendEngine(String hash) throws IOException {
+            Path path = enginesByHash.get(hash);
+            if (path == null) {
+                throw new IOException("Worker requested unknown engine " + hash);
+            }
+            JsonObject header = Protocol.message("engine_data");
+            header.addProperty("hash", hash);
+            header.addProperty("fileName", path.getFileName().toString());
+            header.addProperty("size", Files.size(path));
+            System.out.println("[Coordinator] Sending " + path.getFileName() + " to worker " + id);
+            submit(() -> Protocol.writeFile(out, header, path));
+        }
+
+        void send(JsonObject message) {
+            submit(() -> Protocol.writeJson(out, message));
+        }
+
+        private void submit(Write write) {
+            try {
+                sender.execute(() -> {
+                    try {
+                        write.run();
+                    } catch (IOException e) {
+                        // Reader loop notices the broken connection and re-queues
+                        close();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Connection already closed
+            }
+        }
+
+        /**
+         * Close once the messages already queued are sent.
+         */
+        void closeWhenSent() {
+            try {
+                sender.execute(this::close);
+            } catch (RejectedExecutionException e) {
+                // Already closed
+            }
+            sender.shutdown();
+        }
+
+        void close() {
+            sender.shutdownNow();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
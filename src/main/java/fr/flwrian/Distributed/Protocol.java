@@ -0,0 +1,200 @@
+package fr.flwrian.Distributed;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Wire format between coordinator and workers.
+ *
+ * Every frame is: [byte kind][int length][payload]. JSON frames carry control
+ * messages (a "type" field plus message data); BINARY frames carry chunks of an
+ * engine binary following an "engine_data" header.
+ *
+ * Message types:
+ *   worker -> coordinator: hello, heartbeat, engine_request, event, result
+ *   coordinator -> worker: challenge, welcome, rejected, assign, engine_data, shutdown
+ *
+ * Handshake: both sides share a secret. The coordinator opens with a
+ * challenge nonce; the worker's hello proves the secret with an HMAC of it
+ * and carries a nonce of its own, which the coordinator answers the same way
+ * in its welcome. The secret itself never goes over the wire.
+ */
+public final class Protocol {
+    public static final int VERSION = 2;
+    public static final byte JSON = 1;
+    public static final byte BINARY = 2;
+
+    static final int CHUNK_SIZE = 1 << 20;
+    static final int MAX_FRAME = 16 << 20;
+    static final long HEARTBEAT_INTERVAL_MS = 2000;
+
+    private static final Gson gson = new Gson();
+    private static final SecureRandom random = new SecureRandom();
+
+    private Protocol() {
+    }
+
+    /**
+     * A decoded frame: either a JSON message or a binary chunk.
+     */
+    public static final class Frame {
+        final byte kind;
+        final JsonObject json;
+        final byte[] data;
+
+        Frame(byte kind, JsonObject json, byte[] data) {
+            this.kind = kind;
+            this.json = json;
+            this.data = data;
+        }
+
+        String type() {
+            return json != null && json.has("type") ? json.get("type").getAsString() : "";
+        }
+    }
+
+    static JsonObject message(String type) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("type", type);
+        return msg;
+    }
+
+    static void writeJson(DataOutputStream out, JsonObject msg) throws IOException {
+        byte[] payload = gson.toJson(msg).getBytes(StandardCharsets.UTF_8);
+        synchronized (out) {
+            out.writeByte(JSON);
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    /**
+     * Send a file as an "engine_data" header followed by binary chunks.
+     * The whole transfer holds the stream lock so frames are not interleaved.
+     */
+    static void writeFile(DataOutputStream out, JsonObject header, Path file) throws IOException {
+        byte[] headerBytes = gson.toJson(header).getBytes(StandardCharsets.UTF_8);
+        synchronized (out) {
+            out.writeByte(JSON);
+            out.writeInt(headerBytes.length);
+            out.write(headerBytes);
+            try (InputStream in = Files.newInputStream(file)) {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int read;
+                while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                    out.writeByte(BINARY);
+                    out.writeInt(read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Read the next frame.
+     * @throws EOFException when the peer closed the connection
+     */
+    static Frame read(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] payload = in.readNBytes(length);
+        if (payload.length != length) {
+            throw new EOFException("Truncated frame");
+        }
+        if (kind == JSON) {
+            return new Frame(kind, gson.fromJson(new String(payload, StandardCharsets.UTF_8), JsonObject.class), null);
+        }
+        if (kind == BINARY) {
+            return new Frame(kind, null, payload);
+        }
+        throw new IOException("Unknown frame kind: " + kind);
+    }
+
+    /**
+     * Random challenge for the handshake, hex encoded.
+     */
+    static String nonce() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return hex(bytes);
+    }
+
+    /**
+     * Proof that a side knows the secret: HMAC-SHA256 of its role and the peer's nonce.
+     * The role keeps a proof from being reflected back to the side that asked for it.
+     */
+    static String proof(String secret, String role, String nonce) throws IOException {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return hex(mac.doFinal((role + ":" + nonce).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("HmacSHA256 not available", e);
+        }
+    }
+
+    /**
+     * Check a proof in constant time.
+     */
+    static boolean verify(String secret, String role, String nonce, String proof) throws IOException {
+        return proof != null && MessageDigest.isEqual(
+            proof(secret, role, nonce).getBytes(StandardCharsets.UTF_8), proof.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * SHA-256 of a file, hex encoded. Engines are identified by content, not name.
+     */
+    public static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Whether a string is a hash as {@link #sha256} makes them (64 lowercase hex digits),
+     * and so safe to use as a file name.
+     */
+    public static boolean isSha256(String hash) {
+        return hash != null && hash.matches("[0-9a-f]{64}");
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    static Gson gson() {
+        return gson;
+    }
+}
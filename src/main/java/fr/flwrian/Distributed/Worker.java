@@ -0,0 +1,405 @@
+package fr.flwrian.Distributed;
+
+import com.google.gson.JsonObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import fr.flwrian.Engine.SimulatedEngine;
+import fr.flwrian.Game.MatchPair;
+import fr.flwrian.Game.TimeControl;
+import fr.flwrian.Result.GameResult;
+import fr.flwrian.Result.PairResult;
+import fr.flwrian.Runner.GameWatchdog;
+import fr.flwrian.Task.OnDemandPairTask;
+import fr.flwrian.Util.GameThreads;
+import fr.flwrian.WebSocket.GameWebSocket;
+
+/**
+ * Worker side of distributed mode.
+ *
+ * Connects to a coordinator, advertises a number of slots and plays every
+ * leased pair locally with an OnDemandPairTask. Live game events are forwarded
+ * to the coordinator as they happen and the PairResult is sent back when the
+ * pair finishes. Engine binaries are cached by hash under the cache directory
+ * and downloaded from the coordinator on first use.
+ *
+ * If the connection drops, running pairs are abandoned (the coordinator
+ * re-queues them) and the worker reconnects until it receives "shutdown".
+ * Both sides prove they know the shared secret before any pair or engine is
+ * exchanged; a worker the coordinator rejects stops instead of retrying.
+ */
+public class Worker {
+    private static final long RECONNECT_DELAY_MS = 3000;
+    private static final long ENGINE_DOWNLOAD_TIMEOUT_MS = 10 * 60 * 1000;
+
+    private final String host;
+    private final int port;
+    private final int slots;
+    private final Path cacheDir;
+    private final String secret;
+    private final String workerId;
+    private final GameWatchdog watchdog = new GameWatchdog();
+    private final Map<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+    private volatile boolean stopped;
+    private volatile Socket socket;
+
+    /**
+     * @param host Coordinator host
+     * @param port Coordinator port
+     * @param slots Number of pairs played concurrently on this machine
+     * @param cacheDir Directory for downloaded engine binaries
+     * @param secret Secret shared with the coordinator
+     */
+    public Worker(String host, int port, int slots, Path cacheDir, String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("Worker needs the coordinator's shared secret");
+        }
+        this.host = host;
+        this.port = port;
+        this.slots = slots;
+        this.cacheDir = cacheDir;
+        this.secret = secret;
+        String hostname;
+        try {
+            hostname = java.net.InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            hostname = "worker";
+        }
+        this.workerId = hostname + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 4);
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * Serve the coordinator until it sends "shutdown" or {@link #stop()} is called.
+     */
+    public void run() throws InterruptedException {
+        try {
+            while (!stopped) {
+                try {
+                    session();
+                } catch (IOException e) {
+                    if (!stopped) {
+                        System.err.println("[Worker] Connection to " + host + ":" + port + " failed: " + e.getMessage());
+                    }
+                }
+                if (!stopped) {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                }
+            }
+        } finally {
+            watchdog.shutdown();
+        }
+    }
+
+    public void stop() {
+        stopped = true;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * One connection to the coordinator. Returns when the connection is lost.
+     */
+    private void session() throws IOException {
+        ExecutorService pool = GameThreads.newGamePool(slots);
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "worker-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        try (Socket s = new Socket(host, port)) {
+            socket = s;
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+
+            handshake(in, out);
+            System.out.println("[Worker] " + workerId + " connected to " + host + ":" + port + " (" + slots + " slot(s))");
+
+            heartbeat.scheduleAtFixedRate(() -> sendQuietly(out, Protocol.message("heartbeat")),
+                Protocol.HEARTBEAT_INTERVAL_MS, Protocol.HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            GameWebSocket.setForwarder(event -> {
+                JsonObject msg = Protocol.message("event");
+                msg.add("event", event);
+                sendQuietly(out, msg);
+            });
+
+            while (!stopped) {
+                Protocol.Frame frame = Protocol.read(in);
+                switch (frame.type()) {
+                    case "assign":
+                        JsonObject assign = frame.json;
+                        pool.submit(() -> play(assign, out));
+                        break;
+                    case "engine_data":
+                        receiveEngine(frame.json, in);
+                        break;
+                    case "shutdown":
+                        System.out.println("[Worker] Coordinator finished, exiting");
+                        stopped = true;
+                        break;
+                    default:
+                        System.err.println("[Worker] Ignoring unknown message: " + frame.type());
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            if (!stopped) {
+                System.err.println("[Worker] Lost connection to coordinator");
+            }
+        } finally {
+            socket = null;
+            GameWebSocket.setForwarder(null);
+            heartbeat.shutdownNow();
+            // Leases die with the connection; the coordinator re-queues them
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Downloads in progress cannot complete on a new connection
+            for (CompletableFuture<Path> download : downloads.values()) {
+                download.completeExceptionally(new IOException("Connection lost"));
+            }
+            downloads.clear();
+        }
+    }
+
+    /**
+     * Answer the coordinator's challenge and check its proof in the welcome.
+     * A rejection or a coordinator without the secret stops the worker.
+     */
+    private void handshake(DataInputStream in, DataOutputStream out) throws IOException {
+        Protocol.Frame challenge = Protocol.read(in);
+        if (!challenge.type().equals("challenge")) {
+            throw new IOException("Expected challenge, got " + challenge.type() + " (coordinator version mismatch?)");
+        }
+        String nonce = Protocol.nonce();
+        JsonObject hello = Protocol.message("hello");
+        hello.addProperty("version", Protocol.VERSION);
+        hello.addProperty("workerId", workerId);
+        hello.addProperty("slots", slots);
+        hello.addProperty("proof", Protocol.proof(secret, "worker", challenge.json.get("nonce").getAsString()));
+        hello.addProperty("nonce", nonce);
+        Protocol.writeJson(out, hello);
+
+        Protocol.Frame reply = Protocol.read(in);
+        if (reply.type().equals("rejected")) {
+            refuse("Coordinator rejected this worker: " + reply.json.get("reason").getAsString());
+        }
+        String proof = reply.json != null && reply.json.has("proof") ? reply.json.get("proof").getAsString() : null;
+        if (!reply.type().equals("welcome") || !Protocol.verify(secret, "coordinator", nonce, proof)) {
+            refuse("Coordinator did not prove it knows the secret");
+        }
+    }
+
+    /**
+     * Give up for good: reconnecting would fail the same way.
+     */
+    private void refuse(String reason) throws IOException {
+        System.err.println("[Worker] " + reason + ", exiting");
+        stopped = true;
+        throw new IOException(reason);
+    }
+
+    private void play(JsonObject assign, DataOutputStream out) {
+        long lease = assign.get("lease").getAsLong();
+        int pairId = assign.get("pairId").getAsInt();
+        try {
+            JsonObject e1 = assign.getAsJsonObject("engine1");
+            JsonObject e2 = assign.getAsJsonObject("engine2");
+            String path1 = resolveEngine(e1.get("hash").getAsString(), e1.get("name").getAsString(), out);
+            String path2 = resolveEngine(e2.get("hash").getAsString(), e2.get("name").getAsString(), out);
+
+            JsonObject tc = assign.getAsJsonObject("timeControl");
+            TimeControl timeControl = new TimeControl(
+                tc.get("whiteTime").getAsLong(), tc.get("blackTime").getAsLong(),
+                tc.get("whiteIncrement").getAsLong(), tc.get("blackIncrement").getAsLong(),
+                tc.get("nodes").getAsLong());
+
+            OnDemandPairTask task = new OnDemandPairTask(
+                new MatchPair(assign.get("fen").getAsString(), pairId, assign.get("gameIdBase").getAsInt()),
+                path1, path2, timeControl,
+                e1.get("name").getAsString(), e2.get("name").getAsString(),
+                watchdog);
+            PairResult result = task.call();
+            if (Thread.currentThread().isInterrupted()) {
+                return; // Connection lost while playing, result would be stale
+            }
+
+            JsonObject msg = Protocol.message("result");
+            msg.addProperty("lease", lease);
+            msg.add("result", Protocol.gson().toJsonTree(result));
+            Protocol.writeJson(out, msg);
+        } catch (Exception e) {
+            // No result: the coordinator re-queues the pair if the connection drops,
+            // otherwise report it so the slot is not held forever
+            System.err.println("[Worker] Pair " + pairId + " failed: " + e.getMessage());
+            if (!Thread.currentThread().isInterrupted()) {
+                JsonObject msg = Protocol.message("result");
+                msg.addProperty("lease", lease);
+                msg.add("result", Protocol.gson().toJsonTree(errorResult(assign, e)));
+                sendQuietly(out, msg);
+            }
+        }
+    }
+
+    private static PairResult errorResult(JsonObject assign, Exception e) {
+        MatchPair pair = new MatchPair(assign.get("fen").getAsString(), assign.get("pairId").getAsInt(),
+            assign.get("gameIdBase").getAsInt());
+        String reason = "Error: " + e.getMessage();
+        return new PairResult(pair.getPairId(),
+            List.of(
+                new GameResult(pair.getGame1Id(), "0-0", reason),
+                new GameResult(pair.getGame2Id(), "0-0", reason)),
+            assign.getAsJsonObject("engine1").get("name").getAsString(),
+            assign.getAsJsonObject("engine2").get("name").getAsString());
+    }
+
+    /**
+     * Local path of an engine binary, downloading it once per hash.
+     */
+    private String resolveEngine(String hash, String name, DataOutputStream out) throws Exception {
+        if (SimulatedEngine.isSimulated(hash)) {
+            return hash;
+        }
+        if (!Protocol.isSha256(hash)) {
+            throw new IOException("Invalid engine hash for " + name);
+        }
+        Path cached = findCached(hash);
+        if (cached != null) {
+            return cached.toString();
+        }
+        boolean[] requester = {false};
+        CompletableFuture<Path> download = downloads.computeIfAbsent(hash, h -> {
+            requester[0] = true;
+            return new CompletableFuture<>();
+        });
+        if (requester[0]) {
+            JsonObject request = Protocol.message("engine_request");
+            request.addProperty("hash", hash);
+            System.out.println("[Worker] Downloading " + name + " (" + hash.substring(0, 12) + ")");
+            Protocol.writeJson(out, request);
+        }
+        return download.get(ENGINE_DOWNLOAD_TIMEOUT_MS, TimeUnit.MILLISECONDS).toString();
+    }
+
+    private Path findCached(String hash) throws IOException {
+        Path dir = cacheDir.resolve(hash);
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(Files::isRegularFile).findFirst().orElse(null);
+        }
+    }
+
+    /**
+     * Read an engine binary following its "engine_data" header, verify its hash
+     * and move it into the cache. Nothing named after the header is created
+     * before the hash and file name are checked.
+     */
+    private void receiveEngine(JsonObject header, DataInputStream in) throws IOException {
+        String hash = header.get("hash").getAsString();
+        long size = header.get("size").getAsLong();
+        Path temp = Files.createTempFile(cacheDir, "engine-", ".part");
+        try (OutputStream file = Files.newOutputStream(temp)) {
+            long received = 0;
+            while (received < size) {
+                Protocol.Frame chunk = Protocol.read(in);
+                if (chunk.kind != Protocol.BINARY) {
+                    throw new IOException("Engine transfer interrupted by " + chunk.type());
+                }
+                file.write(chunk.data);
+                received += chunk.data.length;
+            }
+        }
+
+        CompletableFuture<Path> download = downloads.remove(hash);
+        // Keep the coordinator's file name (some engines derive paths from it), without its directories
+        Path fileName = header.has("fileName") && !header.get("fileName").isJsonNull()
+            ? engineFileName(header.get("fileName").getAsString()) : null;
+        String error = !Protocol.isSha256(hash) ? "Invalid engine hash"
+            : fileName == null ? "Invalid engine file name"
+            : null;
+        if (error == null) {
+            String actual = Protocol.sha256(temp);
+            if (!actual.equals(hash)) {
+                error = "Engine hash mismatch (expected " + hash + ", got " + actual + ")";
+            }
+        }
+        if (error != null) {
+            Files.deleteIfExists(temp);
+            if (download != null) {
+                download.completeExceptionally(new IOException(error));
+            }
+            return;
+        }
+
+        Path dir = Files.createDirectories(cacheDir.resolve(hash));
+        Path target = dir.resolve(fileName);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        target.toFile().setExecutable(true);
+        if (download != null) {
+            download.complete(target);
+        }
+    }
+
+    /**
+     * Last element of a file name sent by the coordinator, or null if there is none to use.
+     */
+    static Path engineFileName(String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        Path fileName;
+        try {
+            fileName = Path.of(name).getFileName();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        if (fileName == null || fileName.toString().equals(".") || fileName.toString().equals("..")) {
+            return null;
+        }
+        return fileName;
+    }
+
+    private static void sendQuietly(DataOutputStream out, JsonObject msg) {
+        try {
+            Protocol.writeJson(out, msg);
+        } catch (IOException e) {
+            // Reader loop will notice the broken connection
+        }
+    }
+}
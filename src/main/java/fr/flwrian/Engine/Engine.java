@@ -9,11 +9,14 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+import fr.flwrian.Util.GameThreads;
+
 public class Engine {
     private final Process process;
     private final BufferedWriter in;
     private final BlockingQueue<String> outQueue = new LinkedBlockingQueue<>();
     private final String enginePath;
+    private volatile String lastLine; // Last output line, for diagnostics
     private static boolean logCommunication = false;
 
     /**
@@ -25,39 +28,13 @@ public class Engine {
 
     public Engine(String path) throws Exception {
         this.enginePath = path;
-        
-        // Detailed engine file verification
-        File engineFile = new File(path);
-        // System.out.println("[Engine] Initializing engine: " + path);
-        // System.out.println("  ├─ Absolute path: " + engineFile.getAbsolutePath());
-        // System.out.println("  ├─ Exists: " + engineFile.exists());
-        // System.out.println("  ├─ Is file: " + engineFile.isFile());
-        // System.out.println("  ├─ Can read: " + engineFile.canRead());
-        // System.out.println("  ├─ Can execute: " + engineFile.canExecute());
-        // System.out.println("  └─ Size: " + engineFile.length() + " bytes");
-        
-        if (!engineFile.exists()) {
-            throw new Exception("Engine not found: " + path);
-        }
-        
-        if (!engineFile.canExecute()) {
-            System.err.println("Engine is not executable: " + path);
-            System.err.println("   Attempting to make executable...");
-            engineFile.setExecutable(true);
-        }
-        
-        // System.out.println("[Engine] Starting process...");
-        process = new ProcessBuilder(path).start();
-        
-        if (!process.isAlive()) {
-            throw new Exception("Engine process failed to start properly");
-        }
+        this.process = SimulatedEngine.isSimulated(path) ? SimulatedEngine.start(path) : startProcess(path);
         
         // System.out.println("[Engine] Process started (PID: " + process.pid() + ")");
         in = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
 
-        // Thread to capture engine standard output
-        new Thread(() -> {
+        // Thread to capture engine standard output (virtual when enabled)
+        GameThreads.start("engine-out-" + process.pid(), () -> {
             try (BufferedReader br = new BufferedReader(
                     new InputStreamReader(process.getInputStream()))) {
                 String line;
@@ -65,16 +42,17 @@ public class Engine {
                     if (logCommunication) {
                         System.out.println("[UCI ->] " + line);
                     }
+                    lastLine = line;
                     outQueue.put(line);
                 }
             } catch (Exception e) {
                 System.err.println("[Engine] Error reading output: " + e.getMessage());
                 e.printStackTrace();
             }
-        }).start();
+        });
         
         // Thread to capture engine errors
-        new Thread(() -> {
+        GameThreads.start("engine-err-" + process.pid(), () -> {
             try (BufferedReader br = new BufferedReader(
                     new InputStreamReader(process.getErrorStream()))) {
                 String line;
@@ -84,19 +62,58 @@ public class Engine {
             } catch (Exception e) {
                 System.err.println("[Engine] Error reading stderr: " + e.getMessage());
             }
-        }).start();
+        });
+
+        try {
+            // System.out.println("[Engine] Sending 'uci' command...");
+            send("uci");
+            // System.out.println("[Engine] Waiting for 'uciok'...");
+            waitFor("uciok");
+            // System.out.println("[Engine] 'uciok' received");
+            
+            // System.out.println("[Engine] Sending 'isready' command...");
+            send("isready");
+            // System.out.println("[Engine] Waiting for 'readyok'...");
+            waitFor("readyok");
+            // System.out.println("[Engine] 'readyok' received - Engine ready!");
+        } catch (Exception e) {
+            // Don't leak the process if the handshake fails or is interrupted
+            process.destroyForcibly();
+            throw e;
+        }
+    }
 
-        // System.out.println("[Engine] Sending 'uci' command...");
-        send("uci");
-        // System.out.println("[Engine] Waiting for 'uciok'...");
-        waitFor("uciok");
-        // System.out.println("[Engine] 'uciok' received");
+    /**
+     * Start a real engine executable.
+     */
+    private static Process startProcess(String path) throws Exception {
+        // Detailed engine file verification
+        File engineFile = new File(path);
+        // System.out.println("[Engine] Initializing engine: " + path);
+        // System.out.println("  ├─ Absolute path: " + engineFile.getAbsolutePath());
+        // System.out.println("  ├─ Exists: " + engineFile.exists());
+        // System.out.println("  ├─ Is file: " + engineFile.isFile());
+        // System.out.println("  ├─ Can read: " + engineFile.canRead());
+        // System.out.println("  ├─ Can execute: " + engineFile.canExecute());
+        // System.out.println("  └─ Size: " + engineFile.length() + " bytes");
         
-        // System.out.println("[Engine] Sending 'isready' command...");
-        send("isready");
-        // System.out.println("[Engine] Waiting for 'readyok'...");
-        waitFor("readyok");
-        // System.out.println("[Engine] 'readyok' received - Engine ready!");
+        if (!engineFile.exists()) {
+            throw new Exception("Engine not found: " + path);
+        }
+        
+        if (!engineFile.canExecute()) {
+            System.err.println("Engine is not executable: " + path);
+            System.err.println("   Attempting to make executable...");
+            engineFile.setExecutable(true);
+        }
+        
+        // System.out.println("[Engine] Starting process...");
+        Process process = new ProcessBuilder(path).start();
+        
+        if (!process.isAlive()) {
+            throw new Exception("Engine process failed to start properly");
+        }
+        return process;
     }
 
     public void send(String cmd) throws Exception {
@@ -148,9 +165,39 @@ public class Engine {
         waitFor("readyok");
     }
 
+    /**
+     * Send a command, ignoring failures (used when the engine may be hung or dead).
+     */
+    public void sendQuietly(String cmd) {
+        try {
+            send(cmd);
+        } catch (Exception e) {
+            // Engine pipe already closed
+        }
+    }
+
     public boolean isAlive() {
         return process.isAlive();
     }
+
+    /**
+     * Kill the engine process immediately.
+     */
+    public void kill() {
+        process.destroyForcibly();
+    }
+
+    public String getPath() {
+        return enginePath;
+    }
+
+    /**
+     * Short description for timeout diagnostics: path, pid, state and last output line.
+     */
+    public String getDiagnostics() {
+        return String.format("%s pid=%d alive=%b last=\"%s\"",
+            enginePath, process.pid(), process.isAlive(), lastLine != null ? lastLine : "");
+    }
     
     /**
      * Close the engine process properly.
@@ -0,0 +1,348 @@
+package fr.flwrian.Engine;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import fr.flwrian.Chess.ChessValidator;
+import fr.flwrian.Util.GameThreads;
+
+/**
+ * Synthetic UCI engine for load-testing the harness without real engines.
+ *
+ * It plays legal moves: with probability {@code strength} the best move of a
+ * one-ply material search (mates first), otherwise a random one. Think time
+ * follows a configurable distribution, info lines are sent at a fixed rate and
+ * the engine can crash (exit without a bestmove) at a given rate per move.
+ *
+ * Engine paths select it:
+ *   sim:Name?think=50&dist=exp&info=10&crash=0.001&strength=0.5   (in-process)
+ *   simproc:Name?...                                               (separate JVM)
+ *
+ * Parameters: think (mean think time in ms, default 20), dist (fixed, uniform
+ * or exp, default exp), info (info lines per second, default 10), crash
+ * (probability per move, default 0), strength (0 to 1, default 0.5) and nps
+ * (simulated speed, default 1000000, used for "go nodes").
+ */
+public class SimulatedEngine {
+    public static final String IN_PROCESS_PREFIX = "sim:";
+    public static final String SUBPROCESS_PREFIX = "simproc:";
+
+    private final String name;
+    private final double thinkMs;
+    private final String distribution;
+    private final double infoPerSecond;
+    private final double crashRate;
+    private final double strength;
+    private final long nps;
+    private final SplittableRandom random;
+
+    private SimulatedEngine(String spec, long seed) {
+        String body = spec.substring(spec.indexOf(':') + 1);
+        int query = body.indexOf('?');
+        this.name = query >= 0 ? body.substring(0, query) : body;
+        String params = query >= 0 ? body.substring(query + 1) : "";
+        this.thinkMs = parameter(params, "think", 20);
+        this.distribution = textParameter(params, "dist", "exp");
+        this.infoPerSecond = parameter(params, "info", 10);
+        this.crashRate = parameter(params, "crash", 0);
+        this.strength = parameter(params, "strength", 0.5);
+        this.nps = (long) parameter(params, "nps", 1_000_000);
+        this.random = new SplittableRandom(seed);
+        if (!List.of("fixed", "uniform", "exp").contains(distribution)) {
+            throw new IllegalArgumentException("Unknown think time distribution '" + distribution + "' (fixed, uniform, exp)");
+        }
+        if (nps <= 0) {
+            // "go nodes" think times are nodes / nps
+            throw new IllegalArgumentException("nps must be positive (got: " + nps + ")");
+        }
+    }
+
+    /**
+     * True if the engine path is a simulated engine spec.
+     */
+    public static boolean isSimulated(String path) {
+        return path.startsWith(IN_PROCESS_PREFIX) || path.startsWith(SUBPROCESS_PREFIX);
+    }
+
+    /**
+     * Display name of a simulated engine spec ("sim:Alpha?think=5" -> "Alpha").
+     */
+    public static String nameOf(String spec) {
+        String body = spec.substring(spec.indexOf(':') + 1);
+        int query = body.indexOf('?');
+        return query >= 0 ? body.substring(0, query) : body;
+    }
+
+    /**
+     * Start a simulated engine, in-process or as a separate JVM.
+     */
+    public static Process start(String spec) throws IOException {
+        SimulatedEngine engine = new SimulatedEngine(spec, System.nanoTime());
+        if (spec.startsWith(SUBPROCESS_PREFIX)) {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            return new ProcessBuilder(java, "-Xss512k", "-XX:TieredStopAtLevel=1",
+                "-cp", System.getProperty("java.class.path"), SimulatedEngine.class.getName(), spec).start();
+        }
+        return new SimulatedProcess(engine);
+    }
+
+    /**
+     * Subprocess entry point: speak UCI on stdin/stdout.
+     */
+    public static void main(String[] args) throws Exception {
+        SimulatedEngine engine = new SimulatedEngine(args[0], System.nanoTime());
+        boolean crashed = !engine.run(System.in, System.out);
+        System.exit(crashed ? 1 : 0);
+    }
+
+    /**
+     * Run the UCI loop until "quit", end of input, or a simulated crash.
+     * @return false if the engine crashed
+     */
+    boolean run(InputStream input, OutputStream output) throws Exception {
+        PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8);
+        BlockingQueue<String> commands = new LinkedBlockingQueue<>();
+        // Commands are read on their own thread so "stop" is seen while thinking
+        GameThreads.start("sim-engine-in", () -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    commands.put(line.trim());
+                }
+            } catch (Exception e) {
+                // Input closed
+            }
+            commands.offer("quit");
+        });
+
+        ChessValidator position = new ChessValidator();
+        while (true) {
+            String command = commands.take();
+            if (command.equals("uci")) {
+                out.println("id name " + name + " (simulated)");
+                out.println("id author EngineLab");
+                out.println("uciok");
+            } else if (command.equals("isready")) {
+                out.println("readyok");
+            } else if (command.startsWith("position")) {
+                position = parsePosition(command);
+            } else if (command.startsWith("go")) {
+                if (random.nextDouble() < crashRate) {
+                    return false;
+                }
+                if (!think(command, position, commands, out)) {
+                    return true; // "quit" while thinking
+                }
+            } else if (command.equals("quit")) {
+                return true;
+            }
+            // ucinewgame, setoption and stop outside a search need no answer
+        }
+    }
+
+    /**
+     * Think for a sampled time, sending info lines, then send the bestmove.
+     * @return false if "quit" arrived while thinking
+     */
+    private boolean think(String go, ChessValidator position, BlockingQueue<String> commands, PrintStream out) throws InterruptedException {
+        long budget = thinkTime(go, position.getBoard().getSideToMove() == Side.WHITE);
+        List<Move> moves = position.getLegalMoves();
+        Move best = chooseMove(position.getBoard(), moves);
+        int score = evaluate(position.getBoard());
+        long start = System.nanoTime();
+        long infoInterval = infoPerSecond > 0 ? (long) (1000 / infoPerSecond) : Long.MAX_VALUE;
+        int depth = 1;
+        while (true) {
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            long remaining = budget - elapsed;
+            if (remaining <= 0) {
+                break;
+            }
+            String command = commands.poll(Math.min(remaining, infoInterval), TimeUnit.MILLISECONDS);
+            if ("stop".equals(command)) {
+                break;
+            }
+            if ("quit".equals(command)) {
+                return false;
+            }
+            if (command == null && infoPerSecond > 0 && System.nanoTime() - start < budget * 1_000_000) {
+                long time = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                out.println("info depth " + depth + " seldepth " + (depth + 2) + " score cp " + score +
+                    " nodes " + (nps * time / 1000) + " nps " + nps + " time " + time +
+                    (best != null ? " pv " + best : ""));
+                depth++;
+            }
+        }
+        long time = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        out.println("info depth " + depth + " score cp " + score + " nodes " + (nps * time / 1000) +
+            " nps " + nps + " time " + time + (best != null ? " pv " + best : ""));
+        out.println("bestmove " + (best != null ? best.toString() : "0000"));
+        return true;
+    }
+
+    /**
+     * Sampled think time, never more than a safe share of the remaining clock.
+     */
+    long thinkTime(String go, boolean white) {
+        String[] parts = go.split("\\s+");
+        long limit = Long.MAX_VALUE;
+        long time = -1;
+        long increment = 0;
+        for (int i = 1; i + 1 < parts.length; i++) {
+            switch (parts[i]) {
+                case "nodes":
+                    return Math.max(0, Long.parseLong(parts[i + 1]) * 1000 / nps);
+                case "movetime":
+                    limit = Long.parseLong(parts[i + 1]);
+                    break;
+                case "wtime":
+                    time = white ? Long.parseLong(parts[i + 1]) : time;
+                    break;
+                case "btime":
+                    time = white ? time : Long.parseLong(parts[i + 1]);
+                    break;
+                case "winc":
+                    increment = white ? Long.parseLong(parts[i + 1]) : increment;
+                    break;
+                case "binc":
+                    increment = white ? increment : Long.parseLong(parts[i + 1]);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (time >= 0) {
+            limit = Math.min(limit, time / 20 + increment * 3 / 4);
+        }
+        double sample;
+        switch (distribution) {
+            case "fixed":
+                sample = thinkMs;
+                break;
+            case "uniform":
+                sample = random.nextDouble() * 2 * thinkMs;
+                break;
+            default:
+                sample = -thinkMs * Math.log(1 - random.nextDouble());
+                break;
+        }
+        return Math.min(limit, Math.round(sample));
+    }
+
+    private Move chooseMove(Board board, List<Move> moves) {
+        if (moves.isEmpty()) {
+            return null;
+        }
+        if (random.nextDouble() >= strength) {
+            return moves.get(random.nextInt(moves.size()));
+        }
+        Move best = null;
+        int bestGain = Integer.MIN_VALUE;
+        for (Move move : moves) {
+            int gain = value(board.getPiece(move.getTo()));
+            board.doMove(move);
+            if (board.isMated()) {
+                gain = 100_000;
+            }
+            board.undoMove();
+            // Random tie-break keeps equal moves varied
+            gain = gain * 16 + random.nextInt(16);
+            if (gain > bestGain) {
+                bestGain = gain;
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Material balance from the side to move, in centipawns.
+     */
+    private static int evaluate(Board board) {
+        int score = 0;
+        for (Square square : Square.values()) {
+            if (square == Square.NONE) {
+                continue;
+            }
+            Piece piece = board.getPiece(square);
+            if (piece != null && piece != Piece.NONE) {
+                score += piece.getPieceSide() == board.getSideToMove() ? value(piece) : -value(piece);
+            }
+        }
+        return score;
+    }
+
+    private static int value(Piece piece) {
+        if (piece == null || piece == Piece.NONE) {
+            return 0;
+        }
+        PieceType type = piece.getPieceType();
+        if (type == null) {
+            return 0;
+        }
+        switch (type) {
+            case PAWN: return 100;
+            case KNIGHT: return 320;
+            case BISHOP: return 330;
+            case ROOK: return 500;
+            case QUEEN: return 900;
+            default: return 0;
+        }
+    }
+
+    private static ChessValidator parsePosition(String command) {
+        String[] tokens = command.split("\\s+");
+        int movesAt = -1;
+        StringBuilder fen = new StringBuilder();
+        for (int i = 1; i < tokens.length; i++) {
+            if (tokens[i].equals("moves")) {
+                movesAt = i;
+                break;
+            }
+            if (i > 1) {
+                fen.append(fen.length() > 0 ? " " : "").append(tokens[i]);
+            }
+        }
+        ChessValidator position = "startpos".equals(tokens.length > 1 ? tokens[1] : "")
+            ? new ChessValidator() : new ChessValidator(fen.toString());
+        if (movesAt > 0) {
+            for (int i = movesAt + 1; i < tokens.length; i++) {
+                position.applyMove(tokens[i]);
+            }
+        }
+        return position;
+    }
+
+    private static double parameter(String params, String key, double defaultValue) {
+        String value = textParameter(params, key, null);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    private static String textParameter(String params, String key, String defaultValue) {
+        for (String pair : params.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(key)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,207 @@
+package fr.flwrian.Engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import fr.flwrian.Util.GameThreads;
+
+/**
+ * A {@link Process} backed by an in-process {@link SimulatedEngine}, so the
+ * rest of the harness (Engine, GameManager, watchdog) runs unchanged.
+ * A simulated crash ends the "process" with exit code 1 and closes its output.
+ */
+class SimulatedProcess extends Process {
+    private static final AtomicLong nextPid = new AtomicLong(1);
+
+    private final long pid = -nextPid.getAndIncrement(); // Negative: never a real pid
+    private final Pipe stdin = new Pipe();
+    private final Pipe stdout = new Pipe();
+    private final CountDownLatch exited = new CountDownLatch(1);
+    private volatile int exitCode = -1;
+
+    SimulatedProcess(SimulatedEngine engine) {
+        GameThreads.start("sim-engine-" + -pid, () -> {
+            int code = 1;
+            try {
+                code = engine.run(stdin.input(), stdout.output()) ? 0 : 1;
+            } catch (Exception e) {
+                // Interrupted or pipe closed: treat as a crash
+            } finally {
+                exitCode = code;
+                stdin.close();
+                stdout.close();
+                exited.countDown();
+            }
+        });
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return stdin.output();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return stdout.input();
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public int waitFor() throws InterruptedException {
+        exited.await();
+        return exitCode;
+    }
+
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+        return exited.await(timeout, unit);
+    }
+
+    @Override
+    public int exitValue() {
+        if (exited.getCount() > 0) {
+            throw new IllegalThreadStateException("Simulated engine is still running");
+        }
+        return exitCode;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return exited.getCount() > 0;
+    }
+
+    @Override
+    public void destroy() {
+        // Closing stdin makes the engine loop see "quit"
+        stdin.close();
+    }
+
+    @Override
+    public Process destroyForcibly() {
+        stdin.close();
+        stdout.close();
+        return this;
+    }
+
+    @Override
+    public long pid() {
+        return pid;
+    }
+
+    /**
+     * Unbounded in-memory byte pipe. Reads block until data arrives or the pipe
+     * is closed (end of stream); writes to a closed pipe fail. Uses a lock rather
+     * than monitors so blocked readers do not pin virtual thread carriers.
+     */
+    private static class Pipe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition readable = lock.newCondition();
+        private byte[] buffer = new byte[256];
+        private int head;
+        private int tail;
+        private boolean closed;
+
+        void write(byte[] bytes, int offset, int length) throws IOException {
+            lock.lock();
+            try {
+                if (closed) {
+                    throw new IOException("Pipe closed");
+                }
+                if (tail + length > buffer.length) {
+                    int size = tail - head;
+                    byte[] grown = size + length > buffer.length ? new byte[Math.max(buffer.length * 2, size + length)] : buffer;
+                    System.arraycopy(buffer, head, grown, 0, size);
+                    buffer = grown;
+                    head = 0;
+                    tail = size;
+                }
+                System.arraycopy(bytes, offset, buffer, tail, length);
+                tail += length;
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int read(byte[] bytes, int offset, int length) throws IOException {
+            lock.lock();
+            try {
+                while (head == tail && !closed) {
+                    readable.await();
+                }
+                if (head == tail) {
+                    return -1;
+                }
+                int count = Math.min(length, tail - head);
+                System.arraycopy(buffer, head, bytes, offset, count);
+                head += count;
+                return count;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        InputStream input() {
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return Pipe.this.read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) throws IOException {
+                    return length == 0 ? 0 : Pipe.this.read(bytes, offset, length);
+                }
+
+                @Override
+                public void close() {
+                    Pipe.this.close();
+                }
+            };
+        }
+
+        OutputStream output() {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    Pipe.this.write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    Pipe.this.write(bytes, offset, length);
+                }
+
+                @Override
+                public void close() {
+                    Pipe.this.close();
+                }
+            };
+        }
+    }
+}
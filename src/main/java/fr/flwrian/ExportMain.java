@@ -0,0 +1,29 @@
+package fr.flwrian;
+
+import fr.flwrian.Archive.ArchiveReader;
+
+import java.nio.file.Path;
+
+/**
+ * Converts a game archive to PGN.
+ * 
+ * Usage: java -jar enginelab.jar export-pgn <archive> <output.pgn[.gz]>
+ */
+public class ExportMain {
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java -jar enginelab.jar export-pgn <archive> <output.pgn[.gz]>");
+            System.exit(1);
+        }
+        
+        try (ArchiveReader reader = new ArchiveReader(Path.of(args[0]))) {
+            long start = System.currentTimeMillis();
+            long games = reader.exportPgn(Path.of(args[1]));
+            System.out.println("Exported " + games + " games to " + args[1] + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
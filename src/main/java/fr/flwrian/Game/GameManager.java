@@ -2,7 +2,9 @@ package fr.flwrian.Game;
 
 import fr.flwrian.Chess.ChessValidator;
 import fr.flwrian.Engine.Engine;
+import fr.flwrian.Result.GameRecord;
 import fr.flwrian.Result.GameResult;
+import fr.flwrian.Runner.GameWatchdog;
 import fr.flwrian.WebSocket.GameWebSocket;
 import fr.flwrian.WebSocket.WSMessage;
 
@@ -16,6 +18,7 @@ import java.util.concurrent.TimeoutException;
 public class GameManager {
     private static final int MAX_MOVES = 500;
     private static final long MOVE_OVERHEAD_MS = 50; // Safety margin
+    private static final long WATCHDOG_GRACE_MS = 2000; // Hard limit on top of the soft move timeout
     
     private final Engine whiteEngine;
     private final Engine blackEngine;
@@ -24,6 +27,14 @@ public class GameManager {
     private final int gameId;
     private final String whiteEngineName;
     private final String blackEngineName;
+    private GameWatchdog.Watch watch; // Optional hard deadline enforcement
+    private long startMillis;
+    // Per side (0 = white, 1 = black): searches with a reported depth / nps, and their sums
+    private final int[] depthCount = new int[2];
+    private final long[] depthSum = new long[2];
+    private final int[] npsCount = new int[2];
+    private final long[] npsSum = new long[2];
+    private final GameRecord record;
 
     public GameManager(int gameId, Engine whiteEngine, Engine blackEngine, TimeControl timeControl) {
         this(gameId, whiteEngine, blackEngine, "startpos", timeControl, "White", "Black");
@@ -41,6 +52,8 @@ public class GameManager {
         this.gameState = new GameState(startFen, timeControl);
         this.whiteEngineName = whiteName;
         this.blackEngineName = blackName;
+        // Time control tag taken before the clocks start running
+        this.record = new GameRecord(whiteName, blackName, startFen, timeControl.toPgnTag());
         
         // Initialize chess validator
         if (startFen.equals("startpos")) {
@@ -50,14 +63,26 @@ public class GameManager {
         }
     }
 
+    /**
+     * Attach a watchdog watch: every blocking engine interaction gets a hard deadline.
+     */
+    public void setWatch(GameWatchdog.Watch watch) {
+        this.watch = watch;
+    }
+
     /**
      * Runs the complete game and returns the result.
      */
     public GameResult run() {
+        startMillis = System.currentTimeMillis();
         try {
-            // Prepare both engines
+            // Prepare both engines (ucinewgame + isready)
+            long generation = arm("newgame", whiteEngine, watch != null ? watch.getSetupTimeoutMs() : 0);
             whiteEngine.newGame();
+            disarm(generation);
+            generation = arm("newgame", blackEngine, watch != null ? watch.getSetupTimeoutMs() : 0);
             blackEngine.newGame();
+            disarm(generation);
 
             // Broadcast game start
             broadcastGameStart();
@@ -102,6 +127,9 @@ public class GameManager {
                     return gr;
                 }
 
+                // Hard deadline: soft move timeout plus grace
+                generation = arm("search", currentEngine, getMoveTimeout(isWhite) + WATCHDOG_GRACE_MS);
+
                 // Send position to engine
                 currentEngine.send(gameState.getPositionCommand());
 
@@ -125,6 +153,7 @@ public class GameManager {
                     } catch (Exception stopException) {
                         System.err.println("Failed to stop engine after timeout: " + stopException.getMessage());
                     }
+                    disarm();
                     
                     String result = isWhite ? "0-1" : "1-0";
                     GameResult gr = new GameResult(gameId, result, "timeout");
@@ -132,7 +161,7 @@ public class GameManager {
                     return gr;
                 }
 
-                long elapsed = System.currentTimeMillis() - startTime;
+                long elapsed = disarm(generation) - startTime;
 
                 // Validate move format
                 if (bestMove == null || bestMove.isEmpty()) {
@@ -161,6 +190,7 @@ public class GameManager {
                 // Apply move to both tracker and validator
                 validator.applyMove(bestMove);
                 gameState.addMove(bestMove, elapsed);
+                recordSearch(isWhite, bestMove, elapsed);
 
                 // Broadcast move to connected clients
                 broadcastMove(bestMove);
@@ -172,6 +202,15 @@ public class GameManager {
                 }
             }
         } catch (Exception e) {
+            if (watch != null && watch.isExpired()) {
+                // Hard deadline hit: the engine that was being waited on loses
+                Engine offender = watch.getExpiredEngine();
+                String result = offender == whiteEngine ? "0-1" : offender == blackEngine ? "1-0" : "*";
+                GameResult gr = new GameResult(gameId, result, "watchdog_timeout", watch.getDiagnostics());
+                broadcastGameEnd(gr);
+                return gr;
+            }
+            disarm();
             e.printStackTrace();
             GameResult gr = new GameResult(gameId, "*", "exception: " + e.getMessage());
             broadcastGameEnd(gr);
@@ -184,19 +223,10 @@ public class GameManager {
      * Also captures the last evaluation score from info lines.
      */
     private String waitForBestMove(Engine engine, boolean isWhite) throws InterruptedException, TimeoutException {
-        long timeLeft = isWhite ? 
-            gameState.getTimeControl().getWhiteTime() : 
-            gameState.getTimeControl().getBlackTime();
-        
-        // Set timeout to remaining time + increment + overhead
-        long increment = isWhite ? 
-            gameState.getTimeControl().getWhiteIncrement() : 
-            gameState.getTimeControl().getBlackIncrement();
-        
-        long timeoutMs = timeLeft + increment + MOVE_OVERHEAD_MS;
-        long deadline = System.currentTimeMillis() + timeoutMs;
+        long deadline = System.currentTimeMillis() + getMoveTimeout(isWhite);
 
         Integer lastScore = null; // Centipawn score
+        Integer lastMate = null;  // Mate in n, when lastScore is a mate score
         Integer lastDepth = null;
         Integer lastSelDepth = null;
         Long lastNodes = null;
@@ -239,6 +269,7 @@ public class GameManager {
                         String[] parts = afterScore.split("\\s+");
                         if (parts.length > 0) {
                             lastScore = Integer.parseInt(parts[0]);
+                            lastMate = null;
                         }
                     } catch (Exception e) {
                         // Ignore parse errors
@@ -253,6 +284,7 @@ public class GameManager {
                         String[] parts = afterMate.split("\\s+");
                         if (parts.length > 0) {
                             int mateIn = Integer.parseInt(parts[0]);
+                            lastMate = mateIn;
                             // Convert mate distance to score: 10000 - (mate_distance * 100)
                             // Positive mate = good for white, negative = good for black
                             if (mateIn > 0) {
@@ -353,13 +385,51 @@ public class GameManager {
                 String[] parts = line.split("\\s+");
                 if (parts.length >= 2) {
                     // Store evaluation in game state for broadcast
-                    gameState.setLastEvaluation(isWhite, lastScore, lastDepth, lastSelDepth, lastNodes, lastNps, lastPv);
+                    gameState.setLastEvaluation(isWhite, lastScore, lastMate, lastDepth, lastSelDepth, lastNodes, lastNps, lastPv);
                     return parts[1];
                 }
             }
         }
     }
 
+    /**
+     * Soft timeout for a move: remaining time + increment + overhead.
+     */
+    private long getMoveTimeout(boolean isWhite) {
+        long timeLeft = isWhite ? 
+            gameState.getTimeControl().getWhiteTime() : 
+            gameState.getTimeControl().getBlackTime();
+        
+        long increment = isWhite ? 
+            gameState.getTimeControl().getWhiteIncrement() : 
+            gameState.getTimeControl().getBlackIncrement();
+        
+        return timeLeft + increment + MOVE_OVERHEAD_MS;
+    }
+
+    private long arm(String phase, Engine engine, long timeoutMs) {
+        return watch != null ? watch.arm("Game " + gameId + " " + phase, engine, timeoutMs) : 0;
+    }
+
+    /**
+     * Disarm once the engine answered.
+     * @return Time of the answer
+     * @throws InterruptedException if the hard deadline passed before the answer
+     */
+    private long disarm(long generation) throws InterruptedException {
+        long respondedAt = System.currentTimeMillis();
+        if (watch != null && !watch.disarm(generation, respondedAt)) {
+            throw new InterruptedException("Hard deadline passed before the engine answered");
+        }
+        return respondedAt;
+    }
+
+    private void disarm() {
+        if (watch != null) {
+            watch.disarm();
+        }
+    }
+
     /**
      * Broadcast game start to WebSocket clients.
      */
@@ -412,10 +482,44 @@ public class GameManager {
         }
     }
 
+    private void recordSearch(boolean isWhite, String move, long elapsed) {
+        int side = isWhite ? 0 : 1;
+        Integer depth = isWhite ? gameState.getWhiteDepth() : gameState.getBlackDepth();
+        Long nps = isWhite ? gameState.getWhiteNps() : gameState.getBlackNps();
+        TimeControl clock = gameState.getTimeControl();
+        // The record keeps mates apart from centipawns, whatever the distance
+        Integer mate = isWhite ? gameState.getWhiteMate() : gameState.getBlackMate();
+        Integer score = mate != null ? Integer.valueOf(GameRecord.mateScore(mate))
+            : isWhite ? gameState.getWhiteScore() : gameState.getBlackScore();
+        if (isWhite) {
+            record.addPly(move, score, depth, gameState.getWhiteSelDepth(),
+                gameState.getWhiteNodes(), nps, gameState.getWhitePv(), elapsed, clock.getWhiteTime());
+        } else {
+            record.addPly(move, score, depth, gameState.getBlackSelDepth(),
+                gameState.getBlackNodes(), nps, gameState.getBlackPv(), elapsed, clock.getBlackTime());
+        }
+        if (depth != null) {
+            depthCount[side]++;
+            depthSum[side] += depth;
+        }
+        if (nps != null) {
+            npsCount[side]++;
+            npsSum[side] += nps;
+        }
+    }
+
     /**
      * Broadcast game end to WebSocket clients.
+     * Every way a game ends goes through here, so it also attaches the game stats.
      */
     private void broadcastGameEnd(GameResult result) {
+        result.setGameStats(gameState.getMoveCount(), System.currentTimeMillis() - startMillis,
+            depthCount[0] > 0 ? (double) depthSum[0] / depthCount[0] : 0,
+            depthCount[1] > 0 ? (double) depthSum[1] / depthCount[1] : 0,
+            npsCount[0] > 0 ? npsSum[0] / npsCount[0] : 0,
+            npsCount[1] > 0 ? npsSum[1] / npsCount[1] : 0);
+        record.trim();
+        result.setRecord(record);
         try {
             GameWebSocket.broadcast(WSMessage.gameEnd(
                 gameId,
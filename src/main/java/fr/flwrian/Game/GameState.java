@@ -18,6 +18,8 @@ public class GameState {
     // Engine evaluation data
     private Integer whiteScore = null;  // Centipawn score from white's perspective
     private Integer blackScore = null;
+    private Integer whiteMate = null;  // Mate in n when the score is a mate score, else null
+    private Integer blackMate = null;
     private Integer whiteDepth = null;
     private Integer blackDepth = null;
     private Integer whiteSelDepth = null;  // Selective depth
@@ -76,6 +78,9 @@ public class GameState {
     }
 
     public String getGoCommand() {
+        if (timeControl.isFixedNodes()) {
+            return "go nodes " + timeControl.getNodesPerMove();
+        }
         return String.format("go wtime %d btime %d winc %d binc %d",
             timeControl.getWhiteTime(),
             timeControl.getBlackTime(),
@@ -115,16 +120,18 @@ public class GameState {
      * Store evaluation data from the engine.
      * @param isWhite true if white engine, false if black
      * @param score centipawn score (positive = better for side to move)
+     * @param mate mate in n if the engine reported a mate score, else null
      * @param depth search depth
      * @param selDepth selective depth
      * @param nodes nodes searched
      * @param nps nodes per second
      * @param pv principal variation (best move)
      */
-    public void setLastEvaluation(boolean isWhite, Integer score, Integer depth, Integer selDepth, 
+    public void setLastEvaluation(boolean isWhite, Integer score, Integer mate, Integer depth, Integer selDepth, 
                                    Long nodes, Long nps, String pv) {
         if (isWhite) {
             this.whiteScore = score;
+            this.whiteMate = mate;
             this.whiteDepth = depth;
             this.whiteSelDepth = selDepth;
             this.whiteNodes = nodes;
@@ -132,6 +139,7 @@ public class GameState {
             this.whitePv = pv;
         } else {
             this.blackScore = score;
+            this.blackMate = mate;
             this.blackDepth = depth;
             this.blackSelDepth = selDepth;
             this.blackNodes = nodes;
@@ -142,6 +150,8 @@ public class GameState {
     
     public Integer getWhiteScore() { return whiteScore; }
     public Integer getBlackScore() { return blackScore; }
+    public Integer getWhiteMate() { return whiteMate; }
+    public Integer getBlackMate() { return blackMate; }
     public Integer getWhiteDepth() { return whiteDepth; }
     public Integer getBlackDepth() { return blackDepth; }
     public Integer getWhiteSelDepth() { return whiteSelDepth; }
@@ -7,14 +7,20 @@ package fr.flwrian.Game;
 public class MatchPair {
     private final int pairId;
     private final String startFen;
+    private final int gameIdBase; // Keeps game ids unique when several tournaments share the live view
     
     public MatchPair(int pairId) {
         this("startpos", pairId);
     }
     
     public MatchPair(String startFen, int pairId) {
+        this(startFen, pairId, 0);
+    }
+    
+    public MatchPair(String startFen, int pairId, int gameIdBase) {
         this.startFen = startFen;
         this.pairId = pairId;
+        this.gameIdBase = gameIdBase;
     }
     
     public int getPairId() {
@@ -25,12 +31,16 @@ public class MatchPair {
         return startFen;
     }
     
+    public int getGameIdBase() {
+        return gameIdBase;
+    }
+    
     public int getGame1Id() {
-        return pairId * 2;
+        return gameIdBase + pairId * 2;
     }
     
     public int getGame2Id() {
-        return pairId * 2 + 1;
+        return gameIdBase + pairId * 2 + 1;
     }
     
     @Override
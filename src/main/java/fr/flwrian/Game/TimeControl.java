@@ -3,22 +3,34 @@ package fr.flwrian.Game;
 /**
  * Represents time control settings for a chess game (UCI format).
  * Handles time remaining and increment for both sides.
+ * With a fixed node limit, engines search "go nodes N" and the clock is not
+ * charged: the base time only acts as a per-move safety limit.
  */
 public class TimeControl {
     private long whiteTime; // milliseconds
     private long blackTime; // milliseconds
     private final long whiteIncrement; // milliseconds
     private final long blackIncrement; // milliseconds
+    private final long nodesPerMove; // 0 = clock-based search
 
     public TimeControl(long baseTime, long increment) {
         this(baseTime, baseTime, increment, increment);
     }
 
+    public TimeControl(long baseTime, long increment, long nodesPerMove) {
+        this(baseTime, baseTime, increment, increment, nodesPerMove);
+    }
+
     public TimeControl(long whiteTime, long blackTime, long whiteIncrement, long blackIncrement) {
+        this(whiteTime, blackTime, whiteIncrement, blackIncrement, 0);
+    }
+
+    public TimeControl(long whiteTime, long blackTime, long whiteIncrement, long blackIncrement, long nodesPerMove) {
         this.whiteTime = whiteTime;
         this.blackTime = blackTime;
         this.whiteIncrement = whiteIncrement;
         this.blackIncrement = blackIncrement;
+        this.nodesPerMove = nodesPerMove;
     }
 
     /**
@@ -27,6 +39,9 @@ public class TimeControl {
      * @param isWhite true if white made the move
      */
     public void applyMove(long elapsed, boolean isWhite) {
+        if (isFixedNodes()) {
+            return;
+        }
         if (isWhite) {
             whiteTime -= elapsed;
             whiteTime += whiteIncrement;
@@ -52,16 +67,41 @@ public class TimeControl {
         return blackIncrement;
     }
 
+    public long getNodesPerMove() {
+        return nodesPerMove;
+    }
+
+    public boolean isFixedNodes() {
+        return nodesPerMove > 0;
+    }
+
     public boolean hasTimeLeft(boolean isWhite) {
         return isWhite ? whiteTime > 0 : blackTime > 0;
     }
 
+    /**
+     * PGN TimeControl tag value in seconds ("10+0.1"), or "-" for fixed nodes.
+     */
+    public String toPgnTag() {
+        if (isFixedNodes()) {
+            return "-";
+        }
+        return seconds(whiteTime) + (whiteIncrement > 0 ? "+" + seconds(whiteIncrement) : "");
+    }
+
+    private static String seconds(long ms) {
+        return java.math.BigDecimal.valueOf(ms, 3).stripTrailingZeros().toPlainString();
+    }
+
     public TimeControl copy() {
-        return new TimeControl(whiteTime, blackTime, whiteIncrement, blackIncrement);
+        return new TimeControl(whiteTime, blackTime, whiteIncrement, blackIncrement, nodesPerMove);
     }
 
     @Override
     public String toString() {
+        if (isFixedNodes()) {
+            return String.format("%d nodes/move (limit %.1fs)", nodesPerMove, whiteTime / 1000.0);
+        }
         return String.format("White: %.1fs (+%.1fs), Black: %.1fs (+%.1fs)",
             whiteTime / 1000.0, whiteIncrement / 1000.0,
             blackTime / 1000.0, blackIncrement / 1000.0);
@@ -1,15 +1,38 @@
 package fr.flwrian;
 
+import java.util.Arrays;
+
 /**
  * Main entry point - redirects to ConfigMain.
  * EngineLab now uses config.yml for all configuration.
  * 
  * Usage: java -jar enginelab.jar [config.yml]
+ *        java -jar enginelab.jar worker <host:port> [slots] [cacheDir]
+ *        java -jar enginelab.jar manager [manager.yml]
+ *        java -jar enginelab.jar simulate [pairs] [concurrency] [engines] [base+inc] [virtual]
+ *        java -jar enginelab.jar export-pgn <archive> <output.pgn[.gz]>
  * 
  * See config.yml for configuration details.
  */
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && "worker".equals(args[0])) {
+            WorkerMain.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && "manager".equals(args[0])) {
+            ManagerMain.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && "simulate".equals(args[0])) {
+            SimulateMain.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && "export-pgn".equals(args[0])) {
+            ExportMain.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
         System.out.println(" EngineLab now uses config.yml for configuration.");
         System.out.println("See config.yml for details.");
         System.out.println("");
@@ -0,0 +1,64 @@
+package fr.flwrian;
+
+import fr.flwrian.Config.ManagerConfig;
+import fr.flwrian.Runner.TournamentManager;
+
+/**
+ * Entry point for running several tournaments on shared game slots.
+ * 
+ * Usage: java -jar enginelab.jar manager [manager.yml]
+ * 
+ * Each tournament is a regular config.yml; manager.yml lists them with a
+ * weight and priority. More tournaments can be queued at runtime with
+ * POST /tournaments?config=...&weight=...&priority=... (with the control token)
+ */
+public class ManagerMain {
+    public static void main(String[] args) {
+        String configPath = args.length > 0 ? args[0] : "manager.yml";
+        
+        System.out.println("═══════════════════════════════════════════════");
+        System.out.println("EngineLab Tournament Manager");
+        System.out.println("═══════════════════════════════════════════════");
+        System.out.println("📋 Loading configuration: " + configPath);
+        System.out.println();
+        
+        try {
+            ManagerConfig config = ManagerConfig.load(configPath);
+            
+            if (config.isVirtualThreads()) {
+                boolean virtual = fr.flwrian.Util.GameThreads.setVirtualEnabled(true);
+                System.out.println("Virtual threads " + (virtual ? "enabled" : "unavailable, using platform threads"));
+                System.out.println();
+            }
+            
+            TournamentManager manager = new TournamentManager(config.getSlots(), config.getPort(), config.getControlToken());
+            
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                System.out.println("\n\n🛑 Shutdown signal received (Ctrl+C)...");
+                try {
+                    manager.forceShutdown();
+                    System.out.println("Shutdown complete.");
+                } catch (Exception e) {
+                    System.err.println("Error during shutdown: " + e.getMessage());
+                }
+            }));
+            
+            for (ManagerConfig.Entry entry : config.getTournaments()) {
+                manager.submitTournament(entry.getConfig(), entry.getWeight(), entry.getPriority());
+            }
+            
+            if (!config.isExitWhenIdle()) {
+                // Keep serving /tournaments until Ctrl+C
+                Thread.currentThread().join();
+            }
+            manager.awaitAll();
+            manager.shutdown();
+            System.out.println("All tournaments finished.");
+            
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
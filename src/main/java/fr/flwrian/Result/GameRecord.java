@@ -0,0 +1,249 @@
+package fr.flwrian.Result;
+
+import java.util.Arrays;
+
+/**
+ * Everything known about a played game, move by move.
+ *
+ * Per-ply data lives in parallel primitive arrays (one entry per ply) so a
+ * long game costs a few kilobytes and no per-move objects. Search values are
+ * the mover's last info line before its bestmove; values the engine did not
+ * report are {@link #NO_SCORE} for the score and 0 otherwise. Moves are
+ * 16-bit encoded (see {@link #encodeMove}), principal variations are stored
+ * back to back in one array. This is what PGN, the archive and training data
+ * are written from.
+ */
+public class GameRecord {
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+    public static final int MATE_SCORE = 100_000; // Mate in n is +-(MATE_SCORE - n), far from any centipawn score
+    private static final String PROMOTIONS = " nbrq";
+
+    String white;
+    String black;
+    String startFen;    // "startpos" or a FEN (the opening)
+    String timeControl; // PGN TimeControl tag value, e.g. "10+0.1"
+    int plies;
+    short[] moves;
+    int[] scores;       // Centipawns from the mover's side, or a mate score (see mateScore)
+    int[] depths;
+    int[] selDepths;
+    long[] nodes;
+    long[] nps;
+    int[] timesMs;      // Thinking time
+    int[] clocksMs;     // Mover's clock after the move (increment included)
+    short[] pv;         // PV of ply i is pv[pvStart[i]] to pv[pvStart[i + 1]]
+    int[] pvStart;
+
+    public GameRecord(String white, String black, String startFen, String timeControl) {
+        this.white = white;
+        this.black = black;
+        this.startFen = startFen;
+        this.timeControl = timeControl;
+        int capacity = 128;
+        this.moves = new short[capacity];
+        this.scores = new int[capacity];
+        this.depths = new int[capacity];
+        this.selDepths = new int[capacity];
+        this.nodes = new long[capacity];
+        this.nps = new long[capacity];
+        this.timesMs = new int[capacity];
+        this.clocksMs = new int[capacity];
+        this.pv = new short[capacity * 4];
+        this.pvStart = new int[capacity + 1];
+    }
+
+    /**
+     * A finished record from its per-ply arrays (one entry per ply, used as is), e.g. read back from the archive.
+     * @param pvStart Start of each ply's PV in {@code pv}, plus the end of the last one
+     */
+    public GameRecord(String white, String black, String startFen, String timeControl, short[] moves,
+                      int[] scores, int[] depths, int[] selDepths, long[] nodes, long[] nps, int[] timesMs,
+                      int[] clocksMs, short[] pv, int[] pvStart) {
+        this.white = white;
+        this.black = black;
+        this.startFen = startFen;
+        this.timeControl = timeControl;
+        this.plies = moves.length;
+        this.moves = moves;
+        this.scores = scores;
+        this.depths = depths;
+        this.selDepths = selDepths;
+        this.nodes = nodes;
+        this.nps = nps;
+        this.timesMs = timesMs;
+        this.clocksMs = clocksMs;
+        this.pv = pv;
+        this.pvStart = pvStart;
+    }
+
+    /**
+     * Append a ply. Null search values were not reported. Engine output is not trusted:
+     * a move that does not parse is recorded as the null move, and the PV stops before
+     * its first token that does not parse (e.g. "(none)").
+     * @param pv Space-separated UCI moves, may be null
+     */
+    public void addPly(String move, Integer score, Integer depth, Integer selDepth, Long nodes, Long nps,
+                       String pv, long timeMs, long clockMs) {
+        if (plies == moves.length) {
+            grow(plies * 2);
+        }
+        int encoded = parseMove(move);
+        moves[plies] = (short) Math.max(encoded, 0);
+        scores[plies] = score != null ? score : NO_SCORE;
+        depths[plies] = depth != null ? depth : 0;
+        selDepths[plies] = selDepth != null ? selDepth : 0;
+        this.nodes[plies] = nodes != null ? nodes : 0;
+        this.nps[plies] = nps != null ? nps : 0;
+        timesMs[plies] = (int) Math.min(Integer.MAX_VALUE, timeMs);
+        clocksMs[plies] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, clockMs));
+        int end = pvStart[plies];
+        if (pv != null && !pv.isBlank()) {
+            for (String pvMove : pv.trim().split("\\s+")) {
+                int pvEncoded = parseMove(pvMove);
+                if (pvEncoded < 0) {
+                    break;
+                }
+                if (end == this.pv.length) {
+                    this.pv = Arrays.copyOf(this.pv, end * 2);
+                }
+                this.pv[end++] = (short) pvEncoded;
+            }
+        }
+        plies++;
+        pvStart[plies] = end;
+    }
+
+    /**
+     * Release the unused capacity once the game is over.
+     */
+    public void trim() {
+        grow(plies);
+        pv = Arrays.copyOf(pv, pvStart[plies]);
+    }
+
+    private void grow(int capacity) {
+        moves = Arrays.copyOf(moves, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+        selDepths = Arrays.copyOf(selDepths, capacity);
+        nodes = Arrays.copyOf(nodes, capacity);
+        nps = Arrays.copyOf(nps, capacity);
+        timesMs = Arrays.copyOf(timesMs, capacity);
+        clocksMs = Arrays.copyOf(clocksMs, capacity);
+        pvStart = Arrays.copyOf(pvStart, capacity + 1);
+    }
+
+    /**
+     * Score of a reported "score mate n" (n <= 0: the mover is mated).
+     */
+    public static int mateScore(int mateIn) {
+        return mateIn > 0 ? MATE_SCORE - mateIn : -MATE_SCORE - mateIn;
+    }
+
+    public static boolean isMate(int score) {
+        return score != NO_SCORE && Math.abs(score) > MATE_SCORE / 2;
+    }
+
+    /**
+     * Moves to mate of a mate score (negative when the mover is mated).
+     */
+    public static int mateIn(int score) {
+        return score > 0 ? MATE_SCORE - score : -MATE_SCORE - score;
+    }
+
+    /**
+     * 16-bit move: from square (bits 0-5), to square (6-11), promotion piece
+     * (12-14: 0 none, 1 knight, 2 bishop, 3 rook, 4 queen). Squares are a1 = 0 ... h8 = 63.
+     * The null move "0000" is 0.
+     */
+    public static short encodeMove(String uci) {
+        int encoded = parseMove(uci);
+        if (encoded < 0) {
+            throw new IllegalArgumentException("Not a UCI move: " + uci);
+        }
+        return (short) encoded;
+    }
+
+    /**
+     * The encoded move, or -1 if {@code uci} is not a move.
+     */
+    private static int parseMove(String uci) {
+        if ("0000".equals(uci)) {
+            return 0;
+        }
+        if (uci == null || uci.length() < 4) {
+            return -1;
+        }
+        int from = square(uci.charAt(0), uci.charAt(1));
+        int to = square(uci.charAt(2), uci.charAt(3));
+        if (from < 0 || to < 0) {
+            return -1;
+        }
+        int promotion = uci.length() > 4 ? PROMOTIONS.indexOf(Character.toLowerCase(uci.charAt(4))) : 0;
+        return from | to << 6 | Math.max(promotion, 0) << 12;
+    }
+
+    private static int square(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return (file - 'a') + 8 * (rank - '1');
+    }
+
+    public static String decodeMove(short move) {
+        if (move == 0) {
+            return "0000";
+        }
+        int from = move & 63;
+        int to = (move >>> 6) & 63;
+        int promotion = (move >>> 12) & 7;
+        StringBuilder uci = new StringBuilder(5)
+            .append((char) ('a' + (from & 7))).append((char) ('1' + (from >>> 3)))
+            .append((char) ('a' + (to & 7))).append((char) ('1' + (to >>> 3)));
+        if (promotion != 0) {
+            uci.append(PROMOTIONS.charAt(promotion));
+        }
+        return uci.toString();
+    }
+
+    public String getWhite() { return white; }
+    public String getBlack() { return black; }
+    public String getStartFen() { return startFen; }
+    public String getTimeControl() { return timeControl; }
+    public int getPlies() { return plies; }
+
+    public short getEncodedMove(int ply) { return moves[ply]; }
+    public String getMove(int ply) { return decodeMove(moves[ply]); }
+    public int getScore(int ply) { return scores[ply]; }
+    public int getDepth(int ply) { return depths[ply]; }
+    public int getSelDepth(int ply) { return selDepths[ply]; }
+    public long getNodes(int ply) { return nodes[ply]; }
+    public long getNps(int ply) { return nps[ply]; }
+    public int getTimeMs(int ply) { return timesMs[ply]; }
+    public int getClockMs(int ply) { return clocksMs[ply]; }
+
+    public int getPvLength(int ply) { return pvStart[ply + 1] - pvStart[ply]; }
+    public short getEncodedPvMove(int ply, int index) { return pv[pvStart[ply] + index]; }
+
+    /**
+     * Moves in UCI.
+     */
+    public String[] getMoves() {
+        String[] uci = new String[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            uci[ply] = decodeMove(moves[ply]);
+        }
+        return uci;
+    }
+
+    /**
+     * Principal variation reported with the move of a ply, in UCI (empty if none).
+     */
+    public String[] getPv(int ply) {
+        String[] line = new String[pvStart[ply + 1] - pvStart[ply]];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = decodeMove(pv[pvStart[ply] + i]);
+        }
+        return line;
+    }
+}
@@ -4,11 +4,24 @@ public class GameResult {
     int id;
     String result;
     String reason;
+    String diagnostics; // Optional details (e.g. watchdog timeout), may be null
+    int plies;
+    long durationMs;
+    double whiteDepth; // Average depth of white's searches (0 if none reported)
+    double blackDepth;
+    long whiteNps;     // Average nps of white's searches (0 if none reported)
+    long blackNps;
+    GameRecord record; // Moves and per-move search data (null for games that never started)
 
     public GameResult(int id, String result, String reason) {
+        this(id, result, reason, null);
+    }
+
+    public GameResult(int id, String result, String reason, String diagnostics) {
         this.id = id;
         this.result = result;
         this.reason = reason;
+        this.diagnostics = diagnostics;
     }
 
     public int getId() {
@@ -22,4 +35,36 @@ public class GameResult {
     public String getResult() {
         return result;
     }
+
+    public String getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Set by the game loop when the game ends.
+     */
+    public void setGameStats(int plies, long durationMs, double whiteDepth, double blackDepth,
+                             long whiteNps, long blackNps) {
+        this.plies = plies;
+        this.durationMs = durationMs;
+        this.whiteDepth = whiteDepth;
+        this.blackDepth = blackDepth;
+        this.whiteNps = whiteNps;
+        this.blackNps = blackNps;
+    }
+
+    /**
+     * Set by the game loop when the game ends.
+     */
+    public void setRecord(GameRecord record) {
+        this.record = record;
+    }
+
+    public int getPlies() { return plies; }
+    public long getDurationMs() { return durationMs; }
+    public double getWhiteDepth() { return whiteDepth; }
+    public double getBlackDepth() { return blackDepth; }
+    public long getWhiteNps() { return whiteNps; }
+    public long getBlackNps() { return blackNps; }
+    public GameRecord getRecord() { return record; }
 }
@@ -1,5 +1,6 @@
 package fr.flwrian.Result;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -30,6 +31,19 @@ public class PairResult {
         return gameResults;
     }
 
+    /**
+     * Move-by-move records of the games that were played, in game order.
+     */
+    public List<GameRecord> getGameRecords() {
+        List<GameRecord> records = new ArrayList<>(gameResults.size());
+        for (GameResult game : gameResults) {
+            if (game.getRecord() != null) {
+                records.add(game.getRecord());
+            }
+        }
+        return records;
+    }
+
     public String getEngine1Name() {
         return engine1Name;
     }
@@ -77,6 +91,19 @@ public class PairResult {
         return score;
     }
 
+    /**
+     * Number of drawn games in this pair.
+     */
+    public int getDraws() {
+        int draws = 0;
+        for (GameResult game : gameResults) {
+            if ("1/2-1/2".equals(game.getResult())) {
+                draws++;
+            }
+        }
+        return draws;
+    }
+
     private double getScoreForWhite(String result) {
         switch (result) {
             case "1-0": return 1.0;
@@ -0,0 +1,452 @@
+package fr.flwrian.Runner;
+
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import fr.flwrian.Result.PairResult;
+
+/**
+ * Picks the pairing that most reduces rating uncertainty.
+ *
+ * Ratings are the maximum-likelihood Elo estimates of a logistic model
+ * (with a wide Gaussian prior so unbeaten engines stay finite). Their
+ * covariance is the inverse of the information, centred on the mean rating
+ * since only rating differences are measurable. Draws make a game's score
+ * less noisy than a win/loss coin flip: its variance is p(1-p) - d/4 for a
+ * draw rate d, so a game carries w = k^2 (p(1-p))^2 / (p(1-p) - d/4) of
+ * information (k^2 p(1-p) without draws). Playing a pair between engines i
+ * and j adds w * u u^T with u = e_i - e_j, so the variance reduction of every
+ * candidate pairing follows from one rank-one update (Sherman-Morrison).
+ *
+ * Candidates are scored by the total variance they remove from the engines
+ * whose 95% interval is still wider than the target (or from the focus engine
+ * only). Pairs in flight count as already played with their expected score,
+ * so concurrent slots do not all pile onto the same pairing.
+ */
+public class AdaptivePairing implements PairingStrategy {
+    static final int GAMES_PER_PAIR = 2;
+    private static final double K = Math.log(10) / 400.0;
+    private static final double PRIOR_SD = 500.0;
+    private static final double Z95 = 1.96;
+    private static final double DRAW_PRIOR_GAMES = 10;   // Pooled draw rate weight in a pair's draw rate
+    private static final double MIN_VARIANCE_RATIO = 0.1; // Draws cannot make a game worth more than 10
+
+    private final double targetCiWidth;
+    private final String focusEngine;
+    private final List<String> engines = new ArrayList<>();
+    private final Map<String, Integer> indexOf = new HashMap<>();
+    private double[][] score = new double[0][0];   // score[i][j] = points of i against j
+    private double[][] games = new double[0][0];   // completed games between i and j
+    private double[][] pending = new double[0][0]; // games in flight between i and j
+    private double[][] draws = new double[0][0];   // drawn games between i and j
+    private double totalGames;
+    private double totalDraws;
+    private double[] ratings = new double[0];
+    private boolean solved;
+    private double[][] covariance; // Of the completed games, cached until the next completed pair
+
+    /**
+     * @param targetCiWidth Stop once 95% intervals are narrower than this (full width, in Elo)
+     * @param focusEngine Only this engine's interval matters (null for all engines)
+     */
+    public AdaptivePairing(double targetCiWidth, String focusEngine) {
+        if (targetCiWidth <= 0) {
+            throw new IllegalArgumentException("Target interval width must be positive (got: " + targetCiWidth + ")");
+        }
+        this.targetCiWidth = targetCiWidth;
+        this.focusEngine = focusEngine;
+    }
+
+    public double getTargetCiWidth() {
+        return targetCiWidth;
+    }
+
+    public String getFocusEngine() {
+        return focusEngine;
+    }
+
+    @Override
+    public String describe() {
+        return "Adaptive pairing: until 95% intervals are narrower than " + String.format("%.0f", targetCiWidth) + " Elo" +
+            (focusEngine != null ? " for " + focusEngine : "");
+    }
+
+    /**
+     * Choose the next pairing among the registered engines.
+     * @param candidates Engines that may be scheduled
+     * @param random Breaks ties and picks the color order of the pair
+     * @return Indices into candidates, or null if fewer than 2 engines
+     */
+    @Override
+    public synchronized int[] selectPair(List<String> candidates, Random random) {
+        if (candidates.size() < 2) {
+            return null;
+        }
+        for (String name : candidates) {
+            index(name);
+        }
+        solve();
+        int n = engines.size();
+        double[][] cov = centre(invert(information(true, true)));
+        boolean[] wanted = wantedEngines(candidates, cov);
+
+        int best1 = -1;
+        int best2 = -1;
+        double bestGain = -1;
+        int offset = random.nextInt(candidates.size());
+        for (int a = 0; a < candidates.size(); a++) {
+            for (int b = a + 1; b < candidates.size(); b++) {
+                int ca = (a + offset) % candidates.size();
+                int cb = (b + offset) % candidates.size();
+                int i = indexOf.get(candidates.get(ca));
+                int j = indexOf.get(candidates.get(cb));
+                double w = GAMES_PER_PAIR * gameInformation(i, j);
+                double uCu = cov[i][i] + cov[j][j] - 2 * cov[i][j];
+                double gain = 0;
+                for (int e = 0; e < n; e++) {
+                    if (wanted[e]) {
+                        double cu = cov[e][i] - cov[e][j];
+                        gain += cu * cu;
+                    }
+                }
+                gain = w * gain / (1 + w * uCu);
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    best1 = ca;
+                    best2 = cb;
+                }
+            }
+        }
+        return random.nextBoolean() ? new int[]{best1, best2} : new int[]{best2, best1};
+    }
+
+    @Override
+    public synchronized void pairStarted(String engine1, String engine2) {
+        int i = index(engine1);
+        int j = index(engine2);
+        pending[i][j] += GAMES_PER_PAIR;
+        pending[j][i] += GAMES_PER_PAIR;
+    }
+
+    @Override
+    public synchronized void pairFinished(String engine1, String engine2, PairResult result) {
+        int i = index(engine1);
+        int j = index(engine2);
+        pending[i][j] = Math.max(0, pending[i][j] - GAMES_PER_PAIR);
+        pending[j][i] = pending[i][j];
+        if (result != null) {
+            recordCompleted(result.getEngine1Name(), result.getEngine2Name(),
+                result.getEngine1Score(), result.getGameResults().size(), result.getDraws());
+        }
+    }
+
+    /**
+     * Add a completed pair (also used to replay a resumed tournament).
+     */
+    @Override
+    public synchronized void recordCompleted(String engine1, String engine2, double score1, int gameCount, int drawCount) {
+        int i = index(engine1);
+        int j = index(engine2);
+        score[i][j] += score1;
+        score[j][i] += gameCount - score1;
+        games[i][j] += gameCount;
+        games[j][i] += gameCount;
+        draws[i][j] += drawCount;
+        draws[j][i] += drawCount;
+        totalGames += gameCount;
+        totalDraws += drawCount;
+        solved = false;
+        covariance = null;
+    }
+
+    /**
+     * True once the intervals that matter are narrower than the target.
+     * Polled by the scheduling loop: the covariance is only recomputed after a pair completes.
+     * @param active Engines still scheduled (retired engines are ignored)
+     */
+    @Override
+    public synchronized boolean isComplete(List<String> active) {
+        for (String name : active) {
+            index(name);
+        }
+        double[][] cov = covariance();
+        for (String name : active) {
+            if (focusEngine != null && !focusEngine.equals(name)) {
+                continue;
+            }
+            if (ciWidth(cov, indexOf.get(name)) >= targetCiWidth) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rating estimates relative to the mean, with the full width of their 95% interval.
+     * @return engine name -> {rating, ciWidth}
+     */
+    public synchronized Map<String, double[]> getEstimates() {
+        double[][] cov = covariance();
+        double mean = Arrays.stream(ratings).average().orElse(0);
+        Map<String, double[]> estimates = new HashMap<>();
+        for (int i = 0; i < engines.size(); i++) {
+            estimates.put(engines.get(i), new double[]{ratings[i] - mean, ciWidth(cov, i)});
+        }
+        return estimates;
+    }
+
+    /**
+     * Widest 95% interval among the given engines (or the focus engine).
+     */
+    public synchronized double getMaxCiWidth(List<String> active) {
+        double max = 0;
+        Map<String, double[]> estimates = getEstimates();
+        for (String name : active) {
+            if (focusEngine != null && !focusEngine.equals(name)) {
+                continue;
+            }
+            double[] estimate = estimates.get(name);
+            max = Math.max(max, estimate != null ? estimate[1] : Double.POSITIVE_INFINITY);
+        }
+        return max;
+    }
+
+    @Override
+    public String describeProgress(List<String> engines) {
+        return "Widest 95% interval: " + String.format("%.1f", getMaxCiWidth(engines)) +
+            " Elo (target " + String.format("%.1f", targetCiWidth) + ")";
+    }
+
+    @Override
+    public JsonObject getState(List<String> engines) {
+        JsonObject state = new JsonObject();
+        state.addProperty("pairing", "adaptive");
+        state.addProperty("targetCiWidth", targetCiWidth);
+        state.addProperty("maxCiWidth", getMaxCiWidth(engines));
+        return state;
+    }
+
+    @Override
+    public void printSummary() {
+        System.out.println("Ratings (relative to the mean, 95% interval):");
+        List<Map.Entry<String, double[]>> estimates = new ArrayList<>(getEstimates().entrySet());
+        estimates.sort((e1, e2) -> Double.compare(e2.getValue()[0], e1.getValue()[0]));
+        for (Map.Entry<String, double[]> entry : estimates) {
+            System.out.println("   " + entry.getKey() + ": " + String.format("%+.1f ± %.1f", entry.getValue()[0], entry.getValue()[1] / 2));
+        }
+    }
+
+    private boolean[] wantedEngines(List<String> candidates, double[][] cov) {
+        boolean[] wanted = new boolean[engines.size()];
+        boolean any = false;
+        for (String name : candidates) {
+            int i = indexOf.get(name);
+            boolean relevant = focusEngine == null || focusEngine.equals(name);
+            wanted[i] = relevant && ciWidth(cov, i) >= targetCiWidth;
+            any |= wanted[i];
+        }
+        if (!any) {
+            // Already converged (pairs still in flight): keep reducing the total variance
+            for (String name : candidates) {
+                wanted[indexOf.get(name)] = focusEngine == null || focusEngine.equals(name);
+            }
+        }
+        return wanted;
+    }
+
+    private static double ciWidth(double[][] cov, int i) {
+        return 2 * Z95 * Math.sqrt(Math.max(0, cov[i][i]));
+    }
+
+    private double expected(int i, int j) {
+        return 1.0 / (1.0 + Math.exp(-K * (ratings[i] - ratings[j])));
+    }
+
+    /**
+     * Information one game between i and j carries about their rating difference.
+     * The pair's draw rate is shrunk towards the pooled one, so a few games cannot swing it.
+     */
+    private double gameInformation(int i, int j) {
+        double p = expected(i, j);
+        double pooled = totalGames > 0 ? totalDraws / totalGames : 0;
+        double drawRate = (draws[i][j] + DRAW_PRIOR_GAMES * pooled) / (games[i][j] + DRAW_PRIOR_GAMES);
+        double binomial = p * (1 - p);
+        double variance = Math.max(MIN_VARIANCE_RATIO * binomial, binomial - drawRate / 4);
+        return K * K * binomial * binomial / variance;
+    }
+
+    /**
+     * Centred covariance of the ratings over the completed games.
+     */
+    private double[][] covariance() {
+        solve();
+        if (covariance == null) {
+            covariance = centre(invert(information(false, true)));
+        }
+        return covariance;
+    }
+
+    /**
+     * Maximum a posteriori ratings by Newton's method (warm-started).
+     */
+    private void solve() {
+        if (solved) {
+            return;
+        }
+        int n = engines.size();
+        for (int iteration = 0; iteration < 50; iteration++) {
+            double[] gradient = new double[n];
+            for (int i = 0; i < n; i++) {
+                gradient[i] = -ratings[i] / (PRIOR_SD * PRIOR_SD);
+                for (int j = 0; j < n; j++) {
+                    if (games[i][j] > 0) {
+                        gradient[i] += K * (score[i][j] - games[i][j] * expected(i, j));
+                    }
+                }
+            }
+            double[] step = multiply(invert(information(false, false)), gradient);
+            double largest = 0;
+            for (int i = 0; i < n; i++) {
+                // Damped so a lopsided first result cannot overshoot
+                double delta = Math.max(-200, Math.min(200, step[i]));
+                ratings[i] += delta;
+                largest = Math.max(largest, Math.abs(delta));
+            }
+            if (largest < 1e-4) {
+                break;
+            }
+        }
+        solved = true;
+    }
+
+    /**
+     * Information of the ratings (plus the prior), optionally counting pairs in flight.
+     * @param withDraws Count draws (for the covariance); without, this is the curvature
+     *                  of the likelihood that Newton's method steps with
+     */
+    private double[][] information(boolean withPending, boolean withDraws) {
+        int n = engines.size();
+        double[][] info = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            info[i][i] = 1.0 / (PRIOR_SD * PRIOR_SD);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double count = games[i][j] + (withPending ? pending[i][j] : 0);
+                if (count == 0) {
+                    continue;
+                }
+                double p = expected(i, j);
+                double w = count * (withDraws ? gameInformation(i, j) : K * K * p * (1 - p));
+                info[i][i] += w;
+                info[j][j] += w;
+                info[i][j] -= w;
+                info[j][i] -= w;
+            }
+        }
+        return info;
+    }
+
+    /**
+     * Covariance of ratings relative to their mean: P C P with P = I - 11^T/n.
+     */
+    private static double[][] centre(double[][] cov) {
+        int n = cov.length;
+        double[] rowMean = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                rowMean[i] += cov[i][j] / n;
+            }
+            total += rowMean[i] / n;
+        }
+        double[][] centred = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                centred[i][j] = cov[i][j] - rowMean[i] - rowMean[j] + total;
+            }
+        }
+        return centred;
+    }
+
+    /**
+     * Inverse of a symmetric positive definite matrix (Gauss-Jordan with partial pivoting).
+     */
+    static double[][] invert(double[][] matrix) {
+        int n = matrix.length;
+        double[][] a = new double[n][];
+        double[][] inv = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            a[i] = matrix[i].clone();
+            inv[i][i] = 1;
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            double[] tmp = a[col]; a[col] = a[pivot]; a[pivot] = tmp;
+            tmp = inv[col]; inv[col] = inv[pivot]; inv[pivot] = tmp;
+            double diag = a[col][col];
+            for (int k = 0; k < n; k++) {
+                a[col][k] /= diag;
+                inv[col][k] /= diag;
+            }
+            for (int row = 0; row < n; row++) {
+                if (row == col || a[row][col] == 0) {
+                    continue;
+                }
+                double factor = a[row][col];
+                for (int k = 0; k < n; k++) {
+                    a[row][k] -= factor * a[col][k];
+                    inv[row][k] -= factor * inv[col][k];
+                }
+            }
+        }
+        return inv;
+    }
+
+    private static double[] multiply(double[][] matrix, double[] vector) {
+        double[] result = new double[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            for (int j = 0; j < vector.length; j++) {
+                result[i] += matrix[i][j] * vector[j];
+            }
+        }
+        return result;
+    }
+
+    private int index(String engine) {
+        Integer existing = indexOf.get(engine);
+        if (existing != null) {
+            return existing;
+        }
+        int n = engines.size();
+        engines.add(engine);
+        indexOf.put(engine, n);
+        score = grow(score, n + 1);
+        games = grow(games, n + 1);
+        pending = grow(pending, n + 1);
+        draws = grow(draws, n + 1);
+        ratings = Arrays.copyOf(ratings, n + 1);
+        solved = false;
+        covariance = null;
+        return n;
+    }
+
+    private static double[][] grow(double[][] matrix, int size) {
+        double[][] grown = new double[size][];
+        for (int i = 0; i < size; i++) {
+            grown[i] = i < matrix.length ? Arrays.copyOf(matrix[i], size) : new double[size];
+        }
+        return grown;
+    }
+}
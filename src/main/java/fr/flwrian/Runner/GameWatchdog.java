@@ -0,0 +1,302 @@
+package fr.flwrian.Runner;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.flwrian.Engine.Engine;
+
+/**
+ * Hard deadline enforcement for running games.
+ *
+ * Each pair task registers a {@link Watch} and arms it before every blocking
+ * engine interaction (startup, new game, search) with a deadline derived from
+ * the game's time control. When a deadline passes, the watchdog records
+ * diagnostics and interrupts the game thread so the slot is released at once.
+ * The offending engine is then taken over by the watchdog, which escalates
+ * from "stop" to "quit" to destroyForcibly until the process is gone.
+ *
+ * Every arm starts a new generation. The waiting thread disarms with the
+ * generation and the time the engine answered, so an answer that beat the
+ * deadline but lost the race with the check withdraws the timeout instead
+ * of forfeiting the game.
+ */
+public class GameWatchdog {
+    private static final long CHECK_INTERVAL_MS = 100;
+    private static final long ESCALATION_STEP_MS = 1000;
+    private static final long DEFAULT_SETUP_TIMEOUT_MS = 10000;
+
+    private final ScheduledExecutorService scheduler;
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+    private final List<Escalation> escalations = new CopyOnWriteArrayList<>();
+    private final AtomicInteger timeouts = new AtomicInteger();
+    private final long setupTimeoutMs;
+
+    public GameWatchdog() {
+        this(DEFAULT_SETUP_TIMEOUT_MS);
+    }
+
+    /**
+     * @param setupTimeoutMs Hard limit for engine startup and new game handshakes
+     */
+    public GameWatchdog(long setupTimeoutMs) {
+        this.setupTimeoutMs = setupTimeoutMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "game-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::check, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start watching the calling thread.
+     * @param label Human readable label for diagnostics (e.g. "Pair 12")
+     */
+    public Watch watch(String label) {
+        Watch watch = new Watch(label, Thread.currentThread());
+        watches.add(watch);
+        return watch;
+    }
+
+    /**
+     * Hard limit for engine startup and new game handshakes.
+     */
+    public long getSetupTimeoutMs() {
+        return setupTimeoutMs;
+    }
+
+    /**
+     * Number of watched tasks currently registered.
+     */
+    public int getActiveCount() {
+        return watches.size();
+    }
+
+    /**
+     * Number of deadlines enforced since startup.
+     */
+    public int getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        // Make sure no hung engine outlives the runner
+        for (Escalation escalation : escalations) {
+            escalation.engine.kill();
+        }
+        escalations.clear();
+    }
+
+    private void check() {
+        long now = System.currentTimeMillis();
+        for (Watch watch : watches) {
+            try {
+                watch.check(now);
+            } catch (Exception e) {
+                System.err.println("[Watchdog] Error checking " + watch.label + ": " + e.getMessage());
+            }
+        }
+        for (Escalation escalation : escalations) {
+            if (escalation.step(now)) {
+                escalations.remove(escalation);
+            }
+        }
+    }
+
+    /**
+     * Deadline tracker for one pair task (and the games it runs).
+     */
+    public class Watch implements AutoCloseable {
+        private final String label;
+        private final Thread thread;
+        private String phase = "idle";
+        private Engine engine;
+        private long armedAt;
+        private long deadline = Long.MAX_VALUE;
+        private long generation;
+        private long expiredGeneration;
+        private String diagnostics;
+        private Engine expiredEngine;
+        private Escalation escalation;
+        private boolean closed;
+
+        private Watch(String label, Thread thread) {
+            this.label = label;
+            this.thread = thread;
+        }
+
+        /**
+         * Arm the deadline for a blocking phase.
+         * @param phase Phase name for diagnostics (e.g. "search", "newgame")
+         * @param engine Engine being waited on (null if not created yet)
+         * @param timeoutMs Hard limit in milliseconds
+         * @return Generation to pass to {@link #disarm(long, long)}
+         */
+        public synchronized long arm(String phase, Engine engine, long timeoutMs) {
+            this.phase = phase;
+            this.engine = engine;
+            this.armedAt = System.currentTimeMillis();
+            this.deadline = armedAt + timeoutMs;
+            return ++generation;
+        }
+
+        /**
+         * Disarm without a verdict (the phase failed or was abandoned).
+         */
+        public synchronized void disarm() {
+            this.phase = "idle";
+            this.engine = null;
+            this.deadline = Long.MAX_VALUE;
+        }
+
+        /**
+         * Disarm after the engine answered. If the check fired for this
+         * generation although the answer came before the deadline, the timeout
+         * is withdrawn (unless the engine was already told to quit).
+         * @param respondedAt Time the answer was received
+         * @return false if the deadline was missed: the watch stays expired
+         */
+        public synchronized boolean disarm(long generation, long respondedAt) {
+            if (diagnostics != null) {
+                if (expiredGeneration != generation || respondedAt >= deadline
+                        || (escalation != null && !escalation.cancel())) {
+                    return false;
+                }
+                System.err.println("[Watchdog] " + label + ": " + phase + " answered " + (deadline - respondedAt)
+                    + " ms before the deadline, timeout withdrawn");
+                diagnostics = null;
+                expiredEngine = null;
+                escalation = null;
+                timeouts.decrementAndGet();
+                Thread.interrupted();
+            }
+            disarm();
+            return true;
+        }
+
+        /**
+         * Hard limit for engine startup and new game handshakes.
+         */
+        public long getSetupTimeoutMs() {
+            return setupTimeoutMs;
+        }
+
+        public synchronized boolean isExpired() {
+            return diagnostics != null;
+        }
+
+        public synchronized String getDiagnostics() {
+            return diagnostics;
+        }
+
+        /**
+         * Engine that missed its deadline (now owned by the watchdog), or null.
+         */
+        public synchronized Engine getExpiredEngine() {
+            return expiredEngine;
+        }
+
+        /**
+         * Clear the expired state so the task can carry on with a fresh engine.
+         * Also clears a pending interrupt left by the watchdog.
+         */
+        public synchronized void reset() {
+            diagnostics = null;
+            expiredEngine = null;
+            escalation = null;
+            disarm();
+            Thread.interrupted();
+        }
+
+        private synchronized void check(long now) {
+            if (closed || diagnostics != null || now < deadline) {
+                return;
+            }
+
+            diagnostics = String.format("%s: %s exceeded hard deadline by %d ms (limit %d ms)%s",
+                label, phase, now - deadline, deadline - armedAt,
+                engine != null ? " [" + engine.getDiagnostics() + "]" : "");
+            System.err.println("[Watchdog] " + diagnostics);
+            timeouts.incrementAndGet();
+            expiredGeneration = generation;
+
+            if (engine != null) {
+                expiredEngine = engine;
+                escalation = new Escalation(engine, now);
+                escalations.add(escalation);
+            }
+            thread.interrupt();
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                closed = true;
+                if (diagnostics != null) {
+                    Thread.interrupted();
+                }
+            }
+            watches.remove(this);
+        }
+    }
+
+    /**
+     * Escalation for a hung engine: stop, then quit, then destroyForcibly.
+     */
+    private static class Escalation {
+        private final Engine engine;
+        private int stage = 0;
+        private long nextStepAt;
+        private boolean cancelled;
+
+        Escalation(Engine engine, long now) {
+            this.engine = engine;
+            this.nextStepAt = now;
+        }
+
+        /**
+         * Stop escalating, unless "quit" was already sent.
+         * @return true if cancelled
+         */
+        synchronized boolean cancel() {
+            if (stage > 1) {
+                return false;
+            }
+            cancelled = true;
+            return true;
+        }
+
+        /**
+         * @return true once the engine process is gone (or the escalation was cancelled)
+         */
+        synchronized boolean step(long now) {
+            if (cancelled || !engine.isAlive()) {
+                return true;
+            }
+            if (now < nextStepAt) {
+                return false;
+            }
+            switch (stage++) {
+                case 0:
+                    engine.sendQuietly("stop");
+                    break;
+                case 1:
+                    engine.sendQuietly("quit");
+                    break;
+                default:
+                    System.err.println("[Watchdog] Killing unresponsive engine " + engine.getDiagnostics());
+                    engine.kill();
+                    return true;
+            }
+            nextStepAt = now + ESCALATION_STEP_MS;
+            return false;
+        }
+    }
+}
@@ -1,25 +1,43 @@
 package fr.flwrian.Runner;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import fr.flwrian.Archive.GameSink;
 import fr.flwrian.Config.Config;
+import fr.flwrian.Distributed.Coordinator;
+import fr.flwrian.Engine.SimulatedEngine;
 import fr.flwrian.Game.MatchPair;
 import fr.flwrian.Game.TimeControl;
 import fr.flwrian.Result.GameResult;
 import fr.flwrian.Result.PairResult;
 import fr.flwrian.Stats.StatsManager;
+import fr.flwrian.Task.OnDemandPairTask;
+import fr.flwrian.Util.GameThreads;
 import fr.flwrian.WebSocket.GameWebSocket;
+import fr.flwrian.WebSocket.TournamentControl;
 import fr.flwrian.WebSocket.WebSocketServer;
 
 /**
@@ -27,25 +45,93 @@ import fr.flwrian.WebSocket.WebSocketServer;
  * Supports both single games and paired games (with color swapping).
  * Engines are created on-demand when needed and closed after each game to save resources.
  */
-public class MatchRunner {
+public class MatchRunner implements TournamentControl {
     private final ExecutorService pool;
-    private final List<String> enginePaths = new ArrayList<>();
-    private final List<String> engineNames = new ArrayList<>();
+    private volatile int concurrency;
+    private final SlotSemaphore slots;  // One permit per in-flight pair (bounds games, not threads)
+    private final List<String> enginePaths = new CopyOnWriteArrayList<>();
+    private final List<String> engineNames = new CopyOnWriteArrayList<>();
     private final TimeControl baseTimeControl;  // Legacy: for single time control
     private final List<TimeControl> timeControls;  // New: for multiple time controls
     private final WebSocketServer wsServer;
+    private final GameWatchdog watchdog = new GameWatchdog();
+    private final Coordinator coordinator;  // Non-null in distributed mode: pairs run on remote workers
     private StatsManager statsManager;
+    private final List<GameSink> gameSinks = new CopyOnWriteArrayList<>();
+    private String eventName;  // Tournament name given to game sinks
+    private TournamentJournal journal;
+    private volatile boolean stopping;  // Set on Ctrl+C: interrupted pairs must not be recorded
+    
+    // Runtime control: requests are queued and applied by the scheduling loop at pair boundaries
+    private final Queue<Runnable> controlChanges = new ConcurrentLinkedQueue<>();
+    private volatile boolean paused;
+    private volatile boolean draining;
+    private volatile int activeCount;
+    private volatile int completedCount;
+    private volatile int targetPairs;
+    private volatile long runStartedAt;
+    private volatile int completedAtStart;
+    
+    // Set when run by a TournamentManager next to other tournaments
+    private SharedSlotPool.Share slotShare;
+    private int gameIdBase;
+    private PairingStrategy pairing;  // Null for random pairing
+    private volatile boolean pairingComplete;
+    
+    /**
+     * Set the journal used to checkpoint and resume the tournament.
+     */
+    public void setJournal(TournamentJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * Run pairs on a pool shared with other tournaments instead of this runner's own pool.
+     * @param share This tournament's share of the pool
+     * @param gameIdBase Offset added to game ids so they stay unique across tournaments
+     */
+    public void setSlotShare(SharedSlotPool.Share share, int gameIdBase) {
+        this.slotShare = share;
+        this.gameIdBase = gameIdBase;
+    }
+    
+    /**
+     * Choose pairings with a strategy (adaptive, Swiss) instead of at random.
+     * The tournament ends when the strategy is complete (pairsPerMatch becomes an upper bound).
+     */
+    public void setPairingStrategy(PairingStrategy pairing) {
+        this.pairing = pairing;
+    }
     
     /**
      * Set the stats manager for leaderboard tracking
      */
     public void setStatsManager(StatsManager statsManager) {
+        setStatsManager(statsManager, null);
+    }
+
+    /**
+     * Set the stats manager for leaderboard tracking, exposed under a tournament name
+     * (several tournaments share the web server under the tournament manager)
+     */
+    public void setStatsManager(StatsManager statsManager, String tournament) {
         this.statsManager = statsManager;
         if (this.statsManager != null) {
-            GameWebSocket.setStatsManager(statsManager);
+            GameWebSocket.setStatsManager(tournament, statsManager);
+            // Broadcast from the stats writer thread, once per persisted batch
+            statsManager.setUpdateListener(() -> GameWebSocket.broadcastLeaderboard(statsManager));
         }
     }
 
+    /**
+     * Pass every finished game to a sink (PGN files, game archive).
+     * @param event Tournament name given with the games
+     */
+    public void addGameSink(GameSink sink, String event) {
+        gameSinks.add(sink);
+        this.eventName = event;
+    }
+
     /**
      * Create a match runner with multiple engines and multiple time controls.
      * @param enginePathsList List of paths to engine executables
@@ -58,12 +144,15 @@ public class MatchRunner {
                       List<fr.flwrian.Config.Config.TimeControl> configTimeControls, 
                       int wsPort, 
                       fr.flwrian.Config.Config config) throws Exception {
-        this.pool = Executors.newFixedThreadPool(concurrency);
+        this.pool = GameThreads.newGamePool(concurrency);
+        this.concurrency = concurrency;
+        this.slots = new SlotSemaphore(concurrency);
+        this.coordinator = startCoordinator(config);
         
         // Convert Config.TimeControl to Game.TimeControl
         this.timeControls = new ArrayList<>();
         for (fr.flwrian.Config.Config.TimeControl tc : configTimeControls) {
-            this.timeControls.add(new TimeControl(tc.getBaseTimeMs(), tc.getIncrementMs()));
+            this.timeControls.add(new TimeControl(tc.getBaseTimeMs(), tc.getIncrementMs(), tc.getNodes()));
         }
         
         // Set baseTimeControl to first one for backward compatibility
@@ -85,15 +174,17 @@ public class MatchRunner {
                 this.wsServer = new WebSocketServer(wsPort);
             }
             this.wsServer.start();
+            this.wsServer.setControl(this);
+            if (config.getServer().getControlToken() != null) {
+                this.wsServer.setControlToken(config.getServer().getControlToken());
+            }
         } else {
             this.wsServer = null;
         }
 
         // Store engine paths and names for on-demand creation
         for (String enginePath : enginePathsList) {
-            // Extract engine name from path
-            String[] pathParts = enginePath.replace("\\", "/").split("/");
-            String engineName = pathParts[pathParts.length - 1];
+            String engineName = engineName(enginePath);
             
             this.enginePaths.add(enginePath);
             this.engineNames.add(engineName);
@@ -101,7 +192,9 @@ public class MatchRunner {
             System.out.println("[MatchRunner] Registered engine: " + engineName + " (" + enginePath + ")");
         }
         
-        System.out.println("[MatchRunner] Engines will be created on-demand (concurrency: " + concurrency + ")");
+        System.out.println("[MatchRunner] Engines will be created on-demand (concurrency: " + concurrency + 
+            (GameThreads.isVirtualEnabled() ? ", virtual threads" : "") +
+            (coordinator != null ? ", remote workers" : "") + ")");
     }
 
     /**
@@ -114,7 +207,10 @@ public class MatchRunner {
      * @param config Full configuration (for SSL settings)
      */
     public MatchRunner(List<String> enginePathsList, int concurrency, long baseTimeMs, long incrementMs, int wsPort, Config config) throws Exception {
-        this.pool = Executors.newFixedThreadPool(concurrency);
+        this.pool = GameThreads.newGamePool(concurrency);
+        this.concurrency = concurrency;
+        this.slots = new SlotSemaphore(concurrency);
+        this.coordinator = startCoordinator(config);
         this.baseTimeControl = new TimeControl(baseTimeMs, incrementMs);
         this.timeControls = Arrays.asList(this.baseTimeControl);  // Single time control
 
@@ -136,15 +232,17 @@ public class MatchRunner {
                 this.wsServer = new WebSocketServer(wsPort);
             }
             this.wsServer.start();
+            this.wsServer.setControl(this);
+            if (config.getServer().getControlToken() != null) {
+                this.wsServer.setControlToken(config.getServer().getControlToken());
+            }
         } else {
             this.wsServer = null;
         }
 
         // Store engine paths and names for on-demand creation
         for (String enginePath : enginePathsList) {
-            // Extract engine name from path
-            String[] pathParts = enginePath.replace("\\", "/").split("/");
-            String engineName = pathParts[pathParts.length - 1];
+            String engineName = engineName(enginePath);
             
             this.enginePaths.add(enginePath);
             this.engineNames.add(engineName);
@@ -152,7 +250,25 @@ public class MatchRunner {
             System.out.println("[MatchRunner] Registered engine: " + engineName + " (" + enginePath + ")");
         }
         
-        System.out.println("[MatchRunner] Engines will be created on-demand (concurrency: " + concurrency + ")");
+        System.out.println("[MatchRunner] Engines will be created on-demand (concurrency: " + concurrency + 
+            (GameThreads.isVirtualEnabled() ? ", virtual threads" : "") +
+            (coordinator != null ? ", remote workers" : "") + ")");
+    }
+    
+    /**
+     * Start the coordinator if distributed mode is enabled.
+     * Live events from workers are re-broadcast to local WebSocket clients.
+     */
+    private static Coordinator startCoordinator(Config config) throws Exception {
+        Config.Distributed distributed = config != null ? config.getDistributed() : null;
+        if (distributed == null || !distributed.isEnabled()) {
+            return null;
+        }
+        Coordinator coordinator = new Coordinator(distributed.getPort(), distributed.getLeaseTimeoutSeconds() * 1000L,
+            distributed.getSecret());
+        coordinator.setEventSink(GameWebSocket::broadcast);
+        coordinator.start();
+        return coordinator;
     }
     
     /**
@@ -217,6 +333,10 @@ public class MatchRunner {
         } else {
             System.out.println(" Random Time Controls (" + timeControls.size() + " variants):");
             for (TimeControl tc : timeControls) {
+                if (tc.isFixedNodes()) {
+                    System.out.println("   • " + tc);
+                    continue;
+                }
                 long baseMs = tc.getWhiteTime();
                 long incMs = tc.getWhiteIncrement();
                 String formatted = (baseMs < 60000) ? (baseMs/1000.0 + "s") : 
@@ -231,74 +351,99 @@ public class MatchRunner {
         }
         
         System.out.println("Target: " + totalPairs + " pairs (" + (totalPairs * 2) + " games)");
+        if (pairing != null) {
+            System.out.println(pairing.describe() + " (at most " + totalPairs + " pairs)");
+        }
         System.out.println();
 
-        // Calculate maximum expected time per pair using the longest time control
-        TimeControl longestTC = timeControls.stream()
-            .max((tc1, tc2) -> Long.compare(
-                tc1.getWhiteTime() + tc1.getWhiteIncrement() * 60,
-                tc2.getWhiteTime() + tc2.getWhiteIncrement() * 60
-            ))
-            .orElse(baseTimeControl);
+        // Hung engines are handled per game by the watchdog (deadlines derived from each time control)
         
-        // 2 games × (base + 60 moves × increment) × 2 players, with 50% safety margin
-        long maxTimePerPair = (long) ((2 * (longestTC.getWhiteTime() + 60 * longestTC.getWhiteIncrement()) * 2) * 1.5);
-        long timeoutSeconds = maxTimePerPair / 1000;
-
-        // Random number generator for selecting engines
-        Random random = new Random();
+        // Every pair is derived from the seed and its id, so a resumed run replays the same schedule
+        long seed = journal != null ? journal.getSeed() : System.nanoTime();
+        Deque<Integer> schedule = new ArrayDeque<>();
+        if (journal != null) {
+            schedule.addAll(journal.getRemainingPairs());
+        } else {
+            for (int pairId = 0; pairId < totalPairs; pairId++) {
+                schedule.add(pairId);
+            }
+        }
         
         // Track futures with their engine info
         Map<Future<PairResult>, String[]> activePairs = new HashMap<>();
         Map<Future<PairResult>, String> pairTimeControls = new HashMap<>();
+        Map<Future<PairResult>, String> pairOpenings = new HashMap<>();
+        Map<Future<PairResult>, Integer> pairIds = new HashMap<>();
         
-        int pairsSubmitted = 0;
-        int pairsCompleted = 0;
-        
-        // Calculate concurrency for pairs (each pair task runs 2 games sequentially)
-        int concurrency = ((ThreadPoolExecutor) pool).getCorePoolSize();
-        int maxConcurrentPairs = concurrency;
+        int pairsCompleted = totalPairs - schedule.size();
         
-        // Submit initial batch of pairs (up to max concurrent pairs)
-        while (pairsSubmitted < totalPairs && pairsSubmitted < maxConcurrentPairs) {
-            // Pick 2 random DIFFERENT engines
-            int[] selectedIndices = selectTwoDifferentEngineIndices(random);
-            if (selectedIndices == null) {
-                System.err.println("Cannot select 2 different engines (need at least 2 engines)");
-                throw new Exception("Tournament requires at least 2 different engines");
+        // Engines added or retired through the control API before the restart
+        if (journal != null && journal.isResumed()) {
+            for (TournamentJournal.EngineChange change : journal.getEngineChanges()) {
+                replayEngineChange(change);
             }
-            
-            int idx1 = selectedIndices[0];
-            int idx2 = selectedIndices[1];
-            String enginePath1 = enginePaths.get(idx1);
-            String enginePath2 = enginePaths.get(idx2);
-            String engineName1 = engineNames.get(idx1);
-            String engineName2 = engineNames.get(idx2);
-            
-            String fen = selectStartingPosition(startFens, pairsSubmitted, mode, random);
-            TimeControl selectedTC = selectRandomTimeControl(random);
-            MatchPair pair = new MatchPair(fen, pairsSubmitted);
-            
-            Future<PairResult> future = pool.submit(
-                new fr.flwrian.Task.OnDemandPairTask(pair, 
-                    enginePath1, enginePath2, 
-                    selectedTC, 
-                    engineName1, engineName2)
-            );
-            activePairs.put(future, new String[]{engineName1, engineName2});
-            pairTimeControls.put(future, formatTimeControl(selectedTC));
-            pairsSubmitted++;
-        }
-
-        // Track scores per engine name
+        }
+        
+        // Track scores per engine name (restored from the journal when resuming)
         Map<String, Double> engineScores = new HashMap<>();
         for (String engineName : engineNames) {
             engineScores.put(engineName, 0.0);
         }
         int totalGames = 0;
+        if (journal != null && journal.isResumed()) {
+            engineScores.putAll(journal.getEngineScores());
+            totalGames = journal.getCompletedGames();
+            if (pairing != null) {
+                for (TournamentJournal.Completion completion : journal.getCompletions()) {
+                    pairing.recordCompleted(completion.getEngine1(), completion.getEngine2(),
+                        completion.getScore1(), completion.getGames(), completion.getDraws());
+                }
+            }
+            System.out.println("Resuming: " + pairsCompleted + "/" + totalPairs + " pairs already played, " +
+                journal.getInFlightPairs().size() + " interrupted pair(s) will be replayed");
+            System.out.println();
+        }
+        if (pairing != null && journal != null) {
+            pairing.setByeListener(engine -> writeJournal(() -> journal.byeAwarded(engine)));
+        }
+        
+        int minEngines = pairing != null ? pairing.minEngines() : 2;
+        if (engineNames.size() < minEngines) {
+            System.err.println("Cannot select engines to pair (need at least " + minEngines + ")");
+            throw new Exception("Tournament requires at least " + minEngines + " different engine(s)");
+        }
+        targetPairs = totalPairs;
+        completedCount = pairsCompleted;
+        completedAtStart = pairsCompleted;
+        runStartedAt = System.currentTimeMillis();
+        boolean engineWarningShown = false;
 
         // Wait for pairs to complete and submit new ones
         while (pairsCompleted < totalPairs) {
+            // Control requests take effect here, between pairs
+            applyControlChanges(engineScores);
+            if (pairing != null && !pairingComplete && pairing.isComplete(engineNames)) {
+                pairingComplete = true;
+                System.out.println("Pairing complete after " + pairsCompleted + " pairs, finishing in-flight pairs");
+            }
+            if ((draining || pairingComplete) && activePairs.isEmpty()) {
+                break;
+            }
+            
+            // Fill free slots (in-flight pairs are bounded by concurrency, or by worker capacity)
+            while (!paused && !draining && !pairingComplete && !schedule.isEmpty() && activePairs.size() < maxInFlight()) {
+                if (!submitPair(schedule.peek(), seed, startFens, mode, activePairs, pairTimeControls, pairOpenings, pairIds)) {
+                    if (engineNames.size() < 2 && !engineWarningShown) {
+                        System.err.println("Fewer than 2 engines registered, waiting for an engine to be added");
+                        engineWarningShown = true;
+                    }
+                    break;
+                }
+                schedule.poll();
+                engineWarningShown = false;
+            }
+            activeCount = activePairs.size();
+            
             // Poll all active futures to find completed ones
             Future<PairResult> completedFuture = null;
             
@@ -315,10 +460,21 @@ public class MatchRunner {
                 continue;
             }
             
+            if (stopping) {
+                // Results of pairs interrupted by forceShutdown are incomplete; they stay in flight
+                return;
+            }
+            
             try {
-                PairResult pr = completedFuture.get(timeoutSeconds, TimeUnit.SECONDS);
+                PairResult pr = completedFuture.get();
                 System.out.println(pr);
                 
+                // Journal first: a crash before the stats are persisted loses this pair's
+                // stats, instead of replaying the pair on resume and counting it twice
+                if (journal != null) {
+                    journal.pairCompleted(pr);
+                }
+                
                 // Update total games and scores
                 totalGames += pr.getGameResults().size();
                 
@@ -331,29 +487,39 @@ public class MatchRunner {
                 // Get engine names and time control for this pair
                 String[] engineNamesForPair = activePairs.get(completedFuture);
                 String timeControl = pairTimeControls.get(completedFuture);
+                String opening = pairOpenings.get(completedFuture);
+                if (pairing != null) {
+                    pairing.pairFinished(engineNamesForPair[0], engineNamesForPair[1], pr);
+                }
                 
-                // Record stats if available
-                if (statsManager != null && engineNamesForPair != null && engineNamesForPair.length == 2) {
+                // Record stats if available (self-play pairs say nothing about strength)
+                if (statsManager != null && engineNamesForPair != null && engineNamesForPair.length == 2
+                        && !engineNamesForPair[0].equals(engineNamesForPair[1])) {
                     String engine1Name = engineNamesForPair[0];
                     String engine2Name = engineNamesForPair[1];
                     
                     // Use "Unknown" if timeControl is null (shouldn't happen but defensive)
                     String tc = (timeControl != null) ? timeControl : "Unknown";
                     
-                    // Game 1: engine1 is white, engine2 is black
-                    if (pr.getGameResults().size() > 0) {
+                    if (pr.getGameResults().size() == 2) {
+                        // Both games, so the pair also counts in the pentanomial
+                        statsManager.recordPair(pr.getGameResults().get(0), pr.getGameResults().get(1),
+                            engine1Name, engine2Name, tc, opening);
+                    } else if (pr.getGameResults().size() == 1) {
+                        // Game 1: engine1 is white, engine2 is black
                         GameResult gr1 = pr.getGameResults().get(0);
-                        statsManager.recordGame(gr1, engine1Name, engine2Name, tc);
+                        statsManager.recordGame(gr1, engine1Name, engine2Name, tc, opening);
                     }
-                    
-                    // Game 2: engine2 is white, engine1 is black
-                    if (pr.getGameResults().size() > 1) {
-                        GameResult gr2 = pr.getGameResults().get(1);
-                        statsManager.recordGame(gr2, engine2Name, engine1Name, tc);
+                }
+                for (GameSink sink : gameSinks) {
+                    List<GameResult> games = pr.getGameResults();
+                    try {
+                        for (int g = 0; g < games.size(); g++) {
+                            sink.write(games.get(g), eventName, (pr.getPairId() + 1) + "." + (g + 1));
+                        }
+                    } catch (Exception e) {
+                        System.err.println("[MatchRunner] Cannot save games of pair " + pr.getPairId() + ": " + e.getMessage());
                     }
-                    
-                    // Broadcast updated leaderboard
-                    GameWebSocket.broadcastLeaderboard();
                 }
                 
                 // Print pair result with progress
@@ -376,7 +542,10 @@ public class MatchRunner {
                 for (GameResult gr : pr.getGameResults()) {
                     String resultIcon = gr.getResult().equals("1-0") ? "⚪" : 
                                       gr.getResult().equals("0-1") ? "⚫" : "🤝";
-                    System.out.println("│ " + resultIcon + " Game " + gr.getId() + ": " + gr.getResult() + " (" + gr.getReason() + ")" + " ".repeat(50 - 17 - String.valueOf(gr.getId()).length() - gr.getResult().length() - gr.getReason().length()) + "│");
+                    System.out.println("│ " + resultIcon + " Game " + gr.getId() + ": " + gr.getResult() + " (" + gr.getReason() + ")" + " ".repeat(Math.max(0, 50 - 17 - String.valueOf(gr.getId()).length() - gr.getResult().length() - gr.getReason().length())) + "│");
+                    if (gr.getDiagnostics() != null) {
+                        System.err.println("   ↳ " + gr.getDiagnostics());
+                    }
                 }
                 
                 // Print score with engine names
@@ -390,6 +559,9 @@ public class MatchRunner {
                 }
                 System.out.println(scoreLine);
                 System.out.println("└" + "─".repeat(50) + "┘");
+                if (pairing != null) {
+                    System.out.println(pairing.describeProgress(engineNames));
+                }
                 System.out.println();
                 
                 pairsCompleted++;
@@ -397,74 +569,36 @@ public class MatchRunner {
                 // Remove completed pair
                 activePairs.remove(completedFuture);
                 pairTimeControls.remove(completedFuture);
+                pairOpenings.remove(completedFuture);
+                pairIds.remove(completedFuture);
+                completedCount = pairsCompleted;
                 
-                // Submit next pair if available and under concurrency limit
-                if (pairsSubmitted < totalPairs) {
-                    // Pick 2 random DIFFERENT engines
-                    int[] selectedIndices = selectTwoDifferentEngineIndices(random);
-                    if (selectedIndices != null) {
-                        int idx1 = selectedIndices[0];
-                        int idx2 = selectedIndices[1];
-                        String enginePath1 = enginePaths.get(idx1);
-                        String enginePath2 = enginePaths.get(idx2);
-                        String engineName1 = this.engineNames.get(idx1);
-                        String engineName2 = this.engineNames.get(idx2);
-                        
-                        String fen = selectStartingPosition(startFens, pairsSubmitted, mode, random);
-                        TimeControl selectedTC = selectRandomTimeControl(random);
-                        MatchPair pair = new MatchPair(fen, pairsSubmitted);
-                        
-                        Future<PairResult> future = pool.submit(
-                            new fr.flwrian.Task.OnDemandPairTask(pair, 
-                                enginePath1, enginePath2, 
-                                selectedTC, 
-                                engineName1, engineName2)
-                        );
-                        activePairs.put(future, new String[]{engineName1, engineName2});
-                        pairTimeControls.put(future, formatTimeControl(selectedTC));
-                        pairsSubmitted++;
-                    }
+            } catch (ExecutionException e) {
+                System.err.println("Pair task failed: " + e.getCause() + " - skipping");
+                if (pairing != null) {
+                    String[] failedPair = activePairs.get(completedFuture);
+                    pairing.pairFinished(failedPair[0], failedPair[1], null);
+                }
+                if (journal != null) {
+                    journal.pairFailed(pairIds.get(completedFuture));
                 }
                 
-            } catch (TimeoutException e) {
-                System.err.println("Pair timed out after " + timeoutSeconds + " seconds - skipping");
-                
-                // Remove the timed-out future from active pairs
+                // Remove the failed future from active pairs
                 activePairs.remove(completedFuture);
                 pairTimeControls.remove(completedFuture);
+                pairOpenings.remove(completedFuture);
+                pairIds.remove(completedFuture);
                 pairsCompleted++;
-                
-                // Submit next pair if available
-                if (pairsSubmitted < totalPairs) {
-                    int[] selectedIndices = selectTwoDifferentEngineIndices(random);
-                    if (selectedIndices != null) {
-                        int idx1 = selectedIndices[0];
-                        int idx2 = selectedIndices[1];
-                        String enginePath1 = enginePaths.get(idx1);
-                        String enginePath2 = enginePaths.get(idx2);
-                        String engineName1 = this.engineNames.get(idx1);
-                        String engineName2 = this.engineNames.get(idx2);
-                        
-                        String fen = selectStartingPosition(startFens, pairsSubmitted, mode, random);
-                        TimeControl selectedTC = selectRandomTimeControl(random);
-                        MatchPair pair = new MatchPair(fen, pairsSubmitted);
-                        
-                        Future<PairResult> future = pool.submit(
-                            new fr.flwrian.Task.OnDemandPairTask(pair, 
-                                enginePath1, enginePath2, 
-                                selectedTC, 
-                                engineName1, engineName2)
-                        );
-                        activePairs.put(future, new String[]{engineName1, engineName2});
-                        pairTimeControls.put(future, formatTimeControl(selectedTC));
-                        pairsSubmitted++;
-                    }
-                }
+                completedCount = pairsCompleted;
             }
         }
+        activeCount = 0;
+        boolean drained = pairsCompleted < totalPairs && !pairingComplete;
 
         System.out.println("\n" + "═".repeat(60));
-        System.out.println("TOURNAMENT COMPLETE");
+        System.out.println(drained ? "TOURNAMENT DRAINED (" + (totalPairs - pairsCompleted) + " pairs left in the journal)"
+                         : pairingComplete ? "TOURNAMENT COMPLETE (pairing complete after " + pairsCompleted + " pairs)"
+                                     : "TOURNAMENT COMPLETE");
         System.out.println("═".repeat(60));
         System.out.println();
         System.out.println("Final Scores:");
@@ -480,6 +614,11 @@ public class MatchRunner {
             System.out.println("   " + engineName + ": " + String.format("%.1f", score) + " points (" + String.format("%.1f%%", percentage) + ")");
         }
         
+        if (pairing != null) {
+            System.out.println();
+            pairing.printSummary();
+        }
+        
         System.out.println();
         System.out.println("Statistics:");
         System.out.println("   Total games: " + totalGames);
@@ -500,9 +639,350 @@ public class MatchRunner {
         }
         System.out.println("═".repeat(60) + "\n");
 
+        if (journal != null) {
+            if (!drained) {
+                journal.finished();
+            }
+            journal.close();
+        }
         shutdown();
     }
     
+    /**
+     * Pairs allowed in flight: concurrency for local games, the slots of the
+     * connected workers in distributed mode (none run here).
+     */
+    private int maxInFlight() {
+        return coordinator != null ? coordinator.getTotalSlots() : concurrency;
+    }
+
+    /**
+     * Build the next pair and submit it once a slot is free.
+     * The slot is released when the pair task finishes, whatever its outcome.
+     * In distributed mode the pair is queued on the coordinator instead of the
+     * local pool and takes no local slot; see {@link #maxInFlight()}.
+     * @return false if two different engines could not be selected
+     */
+    private boolean submitPair(int pairIndex, long seed, List<String> startFens, String mode,
+                               Map<Future<PairResult>, String[]> activePairs,
+                               Map<Future<PairResult>, String> pairTimeControls,
+                               Map<Future<PairResult>, String> pairOpenings,
+                               Map<Future<PairResult>, Integer> pairIds) throws Exception {
+        Random random = pairRandom(seed, pairIndex);
+        
+        // Pick 2 DIFFERENT engines at random, or let the pairing strategy choose (self-play included)
+        int[] selectedIndices = pairing != null ? pairing.selectPair(engineNames, random)
+                                                 : selectTwoDifferentEngineIndices(random);
+        if (selectedIndices == null) {
+            return false;
+        }
+        
+        int idx1 = selectedIndices[0];
+        int idx2 = selectedIndices[1];
+        
+        // A pair interrupted by a restart keeps its engines even if the roster changed since
+        // (pairing strategies choose again from their rebuilt state)
+        String[] journaled = pairing == null && journal != null ? journal.getSubmittedEngines(pairIndex) : null;
+        if (journaled != null && engineNames.contains(journaled[0]) && engineNames.contains(journaled[1])) {
+            idx1 = engineNames.indexOf(journaled[0]);
+            idx2 = engineNames.indexOf(journaled[1]);
+        }
+        String engineName1 = engineNames.get(idx1);
+        String engineName2 = engineNames.get(idx2);
+        
+        String fen = selectStartingPosition(startFens, pairIndex, mode, random);
+        TimeControl selectedTC = selectRandomTimeControl(random);
+        MatchPair pair = new MatchPair(fen, pairIndex, gameIdBase);
+        OnDemandPairTask task = new OnDemandPairTask(pair, 
+            enginePaths.get(idx1), enginePaths.get(idx2), 
+            selectedTC, 
+            engineName1, engineName2,
+            watchdog);
+        
+        boolean local = coordinator == null;
+        if (local) {
+            slots.acquire();
+        }
+        if (journal != null) {
+            try {
+                journal.pairSubmitted(pairIndex, engineName1, engineName2);
+            } catch (Exception e) {
+                if (local) {
+                    slots.release();
+                }
+                throw e;
+            }
+        }
+        Future<PairResult> future;
+        try {
+            if (!local) {
+                future = coordinator.submit(task);
+            } else if (slotShare != null) {
+                CompletableFuture<PairResult> shared = slotShare.submit(task);
+                shared.whenComplete((result, error) -> slots.release());
+                future = shared;
+            } else {
+                future = pool.submit(() -> {
+                    try {
+                        return task.call();
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } catch (Exception e) {
+            if (local) {
+                slots.release();
+            }
+            throw e;
+        }
+        activePairs.put(future, new String[]{engineName1, engineName2});
+        pairTimeControls.put(future, formatTimeControl(selectedTC));
+        pairOpenings.put(future, fen);
+        pairIds.put(future, pairIndex);
+        if (pairing != null) {
+            pairing.pairStarted(engineName1, engineName2);
+        }
+        return true;
+    }
+
+    /**
+     * Apply queued control requests. Called by the scheduling loop between pairs.
+     */
+    private void applyControlChanges(Map<String, Double> engineScores) {
+        Runnable change;
+        while ((change = controlChanges.poll()) != null) {
+            change.run();
+        }
+        for (String engineName : engineNames) {
+            engineScores.putIfAbsent(engineName, 0.0);
+        }
+    }
+
+    @Override
+    public JsonObject getState() {
+        JsonObject state = new JsonObject();
+        state.addProperty("state", draining ? "draining" : paused ? "paused" : "running");
+        state.addProperty("concurrency", concurrency);
+        state.addProperty("activePairs", activeCount);
+        state.addProperty("completedPairs", completedCount);
+        state.addProperty("totalPairs", targetPairs);
+        long eta = getEtaSeconds();
+        if (eta >= 0) {
+            state.addProperty("etaSeconds", eta);
+        }
+        state.addProperty("pendingChanges", controlChanges.size());
+        if (statsManager != null) {
+            state.add("stats", statsManager.getPersistenceState());
+        }
+        if (pairing != null) {
+            JsonObject pairingState = pairing.getState(engineNames);
+            pairingState.addProperty("complete", pairingComplete);
+            state.add("pairing", pairingState);
+        }
+        JsonArray engines = new JsonArray();
+        for (String engineName : engineNames) {
+            engines.add(engineName);
+        }
+        state.add("engines", engines);
+        return state;
+    }
+
+    public int getCompletedPairs() {
+        return completedCount;
+    }
+
+    public int getTotalPairs() {
+        return targetPairs;
+    }
+
+    public int getActivePairs() {
+        return activeCount;
+    }
+
+    /**
+     * Estimated seconds to completion from the pair rate of this run, or -1 if unknown yet.
+     */
+    public long getEtaSeconds() {
+        int done = completedCount - completedAtStart;
+        long elapsed = System.currentTimeMillis() - runStartedAt;
+        if (runStartedAt == 0 || done <= 0) {
+            return -1;
+        }
+        int remaining = targetPairs - completedCount;
+        return Math.round(remaining * (elapsed / 1000.0) / done);
+    }
+
+    @Override
+    public void pause() {
+        controlChanges.add(() -> {
+            paused = true;
+            System.out.println("[Control] Scheduling paused (in-flight pairs continue)");
+        });
+    }
+
+    @Override
+    public void resume() {
+        controlChanges.add(() -> {
+            paused = false;
+            System.out.println("[Control] Scheduling resumed");
+        });
+    }
+
+    @Override
+    public void drain() {
+        controlChanges.add(() -> {
+            draining = true;
+            System.out.println("[Control] Draining: waiting for in-flight pairs, no new pairs will start");
+        });
+    }
+
+    @Override
+    public void setConcurrency(int newConcurrency) {
+        if (newConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive (got: " + newConcurrency + ")");
+        }
+        controlChanges.add(() -> {
+            int delta = newConcurrency - concurrency;
+            if (delta == 0) {
+                return;
+            }
+            if (pool instanceof ThreadPoolExecutor) {
+                // Grow the maximum first / shrink the core first to keep core <= max
+                ThreadPoolExecutor executor = (ThreadPoolExecutor) pool;
+                if (delta > 0) {
+                    executor.setMaximumPoolSize(newConcurrency);
+                    executor.setCorePoolSize(newConcurrency);
+                } else {
+                    executor.setCorePoolSize(newConcurrency);
+                    executor.setMaximumPoolSize(newConcurrency);
+                }
+            }
+            slots.resize(delta);
+            concurrency = newConcurrency;
+            System.out.println("[Control] Concurrency set to " + newConcurrency);
+        });
+    }
+
+    @Override
+    public void addEngine(String path) {
+        String engineName = engineName(path);
+        if (!SimulatedEngine.isSimulated(path) && !new File(path).isFile()) {
+            throw new IllegalArgumentException("Engine not found: " + path);
+        }
+        if (engineNames.contains(engineName)) {
+            throw new IllegalArgumentException("Engine already registered: " + engineName);
+        }
+        controlChanges.add(() -> {
+            if (!engineNames.contains(engineName)) {
+                writeJournal(() -> journal.engineAdded(path));
+                enginePaths.add(path);
+                engineNames.add(engineName);
+                System.out.println("[Control] Registered engine: " + engineName + " (" + path + ")");
+            }
+        });
+    }
+
+    @Override
+    public void retireEngine(String engineName) {
+        if (!engineNames.contains(engineName)) {
+            throw new IllegalArgumentException("Unknown engine: " + engineName);
+        }
+        controlChanges.add(() -> {
+            int index = engineNames.indexOf(engineName);
+            if (index >= 0) {
+                writeJournal(() -> journal.engineRetired(engineName));
+                engineNames.remove(index);
+                enginePaths.remove(index);
+                System.out.println("[Control] Retired engine: " + engineName);
+            }
+        });
+    }
+
+    /**
+     * Journal a change the schedule depends on (roster change, bye), so a resumed run derives the same one.
+     */
+    private void writeJournal(JournalWrite write) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            write.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Apply an engine change journaled before the restart.
+     */
+    private void replayEngineChange(TournamentJournal.EngineChange change) {
+        if (change.isAdd()) {
+            String path = change.getEngine();
+            String engineName = engineName(path);
+            if (engineNames.contains(engineName)) {
+                return;
+            }
+            if (!SimulatedEngine.isSimulated(path) && !new File(path).isFile()) {
+                System.err.println("Engine added before the restart is missing, not registering it: " + path);
+                return;
+            }
+            enginePaths.add(path);
+            engineNames.add(engineName);
+            System.out.println("Resuming: re-registered engine " + engineName + " (" + path + ")");
+        } else {
+            int index = engineNames.indexOf(change.getEngine());
+            if (index >= 0) {
+                engineNames.remove(index);
+                enginePaths.remove(index);
+                System.out.println("Resuming: engine " + change.getEngine() + " stays retired");
+            }
+        }
+    }
+
+    private interface JournalWrite {
+        void run() throws IOException;
+    }
+
+    /**
+     * Engine name derived from its path (file name).
+     */
+    private static String engineName(String enginePath) {
+        if (SimulatedEngine.isSimulated(enginePath)) {
+            return SimulatedEngine.nameOf(enginePath);
+        }
+        String[] pathParts = enginePath.replace("\\", "/").split("/");
+        return pathParts[pathParts.length - 1];
+    }
+
+    /**
+     * Semaphore whose number of permits can shrink as well as grow.
+     */
+    private static class SlotSemaphore extends Semaphore {
+        SlotSemaphore(int permits) {
+            super(permits);
+        }
+
+        void resize(int delta) {
+            if (delta > 0) {
+                release(delta);
+            } else if (delta < 0) {
+                reducePermits(-delta);
+            }
+        }
+    }
+
+    /**
+     * Random generator for one pair, derived from the tournament seed and the pair id
+     * so the schedule does not depend on completion order.
+     */
+    static Random pairRandom(long seed, int pairIndex) {
+        long z = seed + (pairIndex + 1) * 0x9E3779B97F4A7C15L;  // splitmix64 step
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(z ^ (z >>> 31));
+    }
+
     /**
      * Select 2 random DIFFERENT engine indices from registered engines.
      * @param random Random number generator
@@ -540,6 +1020,9 @@ public class MatchRunner {
      * Format time control as human-readable string for leaderboard (e.g., "1:00 + 1.0s").
      */
     private String formatTimeControl(TimeControl tc) {
+        if (tc.isFixedNodes()) {
+            return tc.getNodesPerMove() + " nodes";
+        }
         long baseMs = tc.getWhiteTime();  // Use white time as base (they're equal at start)
         long incMs = tc.getWhiteIncrement();
         
@@ -589,6 +1072,16 @@ public class MatchRunner {
     private void shutdown() throws InterruptedException {
         pool.shutdown();
         pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        watchdog.shutdown();
+        if (coordinator != null) {
+            if (coordinator.getRequeuedCount() > 0) {
+                System.out.println("Coordinator re-queued " + coordinator.getRequeuedCount() + " pair(s) from lost workers");
+            }
+            coordinator.shutdown();
+        }
+        if (watchdog.getTimeoutCount() > 0) {
+            System.out.println("Watchdog enforced " + watchdog.getTimeoutCount() + " hard timeout(s)");
+        }
         
         // Stop WebSocket server
         if (wsServer != null) {
@@ -607,6 +1100,7 @@ public class MatchRunner {
      * Stops all running games and closes connections gracefully.
      */
     public void forceShutdown() throws Exception {
+        stopping = true;
         System.out.println("Closing WebSocket connections...");
         
         // Stop WebSocket server first (graceful close for browsers)
@@ -621,6 +1115,10 @@ public class MatchRunner {
         if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
             System.out.println("Some tasks did not terminate in time");
         }
+        watchdog.shutdown();
+        if (coordinator != null) {
+            coordinator.shutdown();
+        }
         
         System.out.println("🧹 Cleanup complete");
     }
@@ -0,0 +1,96 @@
+package fr.flwrian.Runner;
+
+import com.google.gson.JsonObject;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import fr.flwrian.Config.Config;
+import fr.flwrian.Result.PairResult;
+
+/**
+ * Chooses which engines play the next pair, replacing the default random
+ * pairing. Called from the scheduling loop only.
+ */
+public interface PairingStrategy {
+
+    /**
+     * Strategy for the tournament mode, or null for random pairing.
+     */
+    static PairingStrategy fromConfig(Config config) {
+        Config.Tournament tournament = config.getTournament();
+        switch (tournament.getMode()) {
+            case "adaptive":
+                return new AdaptivePairing(tournament.getAdaptive().getTargetCiWidth(),
+                    tournament.getAdaptive().getFocusEngine());
+            case "swiss":
+                return new SwissPairing(tournament.getSwiss().getRounds(), tournament.getSwiss().getRepeatWindow());
+            case "selfplay":
+                return new SelfPlayPairing();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * One-line description printed when the tournament starts.
+     */
+    String describe();
+
+    /**
+     * Choose the next pairing.
+     * @param engines Engines that may be scheduled
+     * @param random Generator derived from the pair id
+     * @return Indices into engines (first one plays white in game 1), or null if
+     *         no pair can be scheduled now (the loop retries when a pair finishes)
+     */
+    int[] selectPair(List<String> engines, Random random);
+
+    void pairStarted(String engine1, String engine2);
+
+    /**
+     * @param result The pair result, or null if the pair failed
+     */
+    void pairFinished(String engine1, String engine2, PairResult result);
+
+    /**
+     * Replay a pair completed before a restart (from the journal).
+     * A bye is replayed with engine2 null.
+     * @param draws Drawn games among the pair's games
+     */
+    void recordCompleted(String engine1, String engine2, double score1, int games, int draws);
+
+    /**
+     * Fewest distinct engines the strategy can pair (one engine plays itself in self-play).
+     */
+    default int minEngines() {
+        return 2;
+    }
+
+    /**
+     * Be told of every bye as it is given, so it can be journaled (only Swiss gives byes).
+     */
+    default void setByeListener(Consumer<String> listener) {
+    }
+
+    /**
+     * True when no more pairs are needed (pairsPerMatch is then only an upper bound).
+     */
+    boolean isComplete(List<String> engines);
+
+    /**
+     * Progress line printed after each pair.
+     */
+    String describeProgress(List<String> engines);
+
+    /**
+     * Progress reported by the /control API.
+     */
+    JsonObject getState(List<String> engines);
+
+    /**
+     * Final standings printed at the end of the tournament.
+     */
+    void printSummary();
+}
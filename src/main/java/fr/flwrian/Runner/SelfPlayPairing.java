@@ -0,0 +1,102 @@
+package fr.flwrian.Runner;
+
+import com.google.gson.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import fr.flwrian.Result.PairResult;
+
+/**
+ * Self-play for training data: every pair is an engine against itself, the
+ * engine with the fewest pairs (started or done) going next so that each
+ * engine gets the same share of the games. One engine process plays both
+ * sides of a self-play pair (see OnDemandPairTask), and such pairs are not
+ * counted in the ratings.
+ */
+public class SelfPlayPairing implements PairingStrategy {
+    private final Map<String, long[]> pairs = new LinkedHashMap<>(); // Engine -> {started, finished}
+
+    @Override
+    public String describe() {
+        return "Self-play: each engine plays itself";
+    }
+
+    @Override
+    public synchronized int[] selectPair(List<String> engines, Random random) {
+        int best = -1;
+        long fewest = Long.MAX_VALUE;
+        for (int i = 0; i < engines.size(); i++) {
+            long started = counts(engines.get(i))[0];
+            if (started < fewest) {
+                fewest = started;
+                best = i;
+            }
+        }
+        return best >= 0 ? new int[]{best, best} : null;
+    }
+
+    private long[] counts(String engine) {
+        return pairs.computeIfAbsent(engine, e -> new long[2]);
+    }
+
+    @Override
+    public synchronized void pairStarted(String engine1, String engine2) {
+        counts(engine1)[0]++;
+    }
+
+    @Override
+    public synchronized void pairFinished(String engine1, String engine2, PairResult result) {
+        if (result != null) {
+            counts(engine1)[1]++;
+        } else {
+            // Failed pairs are played again
+            counts(engine1)[0]--;
+        }
+    }
+
+    @Override
+    public synchronized void recordCompleted(String engine1, String engine2, double score1, int games, int draws) {
+        counts(engine1)[0]++;
+        counts(engine1)[1]++;
+    }
+
+    @Override
+    public int minEngines() {
+        return 1;
+    }
+
+    @Override
+    public boolean isComplete(List<String> engines) {
+        return false;
+    }
+
+    @Override
+    public synchronized String describeProgress(List<String> engines) {
+        StringBuilder line = new StringBuilder("Self-play pairs:");
+        for (String engine : engines) {
+            line.append(' ').append(engine).append(' ').append(counts(engine)[1]);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public synchronized JsonObject getState(List<String> engines) {
+        JsonObject state = new JsonObject();
+        state.addProperty("pairing", "selfplay");
+        JsonObject finished = new JsonObject();
+        for (String engine : engines) {
+            finished.addProperty(engine, counts(engine)[1]);
+        }
+        state.add("pairs", finished);
+        return state;
+    }
+
+    @Override
+    public synchronized void printSummary() {
+        System.out.println("Self-play pairs:");
+        pairs.forEach((engine, counts) -> System.out.println("   " + engine + ": " + counts[1]));
+    }
+}
@@ -0,0 +1,199 @@
+package fr.flwrian.Runner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import fr.flwrian.Result.PairResult;
+import fr.flwrian.Util.GameThreads;
+
+/**
+ * Game slots shared by several tournaments.
+ *
+ * Each tournament registers a {@link Share} and queues its pairs there. When a
+ * slot frees up, the next pair is taken from the highest priority tournament
+ * with queued work; tournaments of equal priority are served by weighted fair
+ * queueing: each started pair advances the tournament's virtual time by
+ * 1/weight and the tournament with the lowest virtual time goes next. A
+ * tournament with weight 2 therefore gets twice the slots of one with weight 1
+ * while both have pairs queued.
+ */
+public class SharedSlotPool {
+    private final ExecutorService executor;
+    private final int slots;
+    private final List<Share> shares = new ArrayList<>(); // guarded by this
+    private int running;                                  // guarded by this
+
+    public SharedSlotPool(int slots) {
+        this.slots = slots;
+        this.executor = GameThreads.newGamePool(slots);
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * Register a tournament.
+     * @param name Tournament name (for diagnostics)
+     * @param weight Relative share of slots among tournaments of the same priority
+     * @param priority Higher priorities are always served first
+     */
+    public synchronized Share register(String name, double weight, int priority) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight must be positive (got: " + weight + ")");
+        }
+        // Start at the current minimum so a newcomer does not get a burst of catch-up slots
+        double start = Double.MAX_VALUE;
+        for (Share share : shares) {
+            start = Math.min(start, share.virtualTime);
+        }
+        Share share = new Share(name, weight, priority, shares.isEmpty() ? 0 : start);
+        shares.add(share);
+        return share;
+    }
+
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    public void shutdownNow() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start queued pairs while slots are free.
+     */
+    private synchronized void dispatch() {
+        while (running < slots) {
+            Share next = null;
+            for (Share share : shares) {
+                if (share.queue.isEmpty()) {
+                    continue;
+                }
+                if (next == null || share.priority > next.priority
+                        || (share.priority == next.priority && share.virtualTime < next.virtualTime)) {
+                    next = share;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            QueuedPair queued = next.queue.poll();
+            next.virtualTime += 1.0 / next.weight;
+            next.running++;
+            next.started++;
+            running++;
+            Share owner = next;
+            executor.submit(() -> run(owner, queued));
+        }
+    }
+
+    private void run(Share share, QueuedPair queued) {
+        try {
+            queued.future.complete(queued.task.call());
+        } catch (Throwable t) {
+            queued.future.completeExceptionally(t);
+        } finally {
+            synchronized (this) {
+                running--;
+                share.running--;
+            }
+            dispatch();
+        }
+    }
+
+    private static class QueuedPair {
+        final Callable<PairResult> task;
+        final CompletableFuture<PairResult> future = new CompletableFuture<>();
+
+        QueuedPair(Callable<PairResult> task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * One tournament's view of the pool.
+     */
+    public class Share {
+        private final String name;
+        private final double weight;
+        private final int priority;
+        private final Deque<QueuedPair> queue = new ArrayDeque<>(); // guarded by pool
+        private double virtualTime;                                  // guarded by pool
+        private int running;                                         // guarded by pool
+        private long started;                                        // guarded by pool
+
+        private Share(String name, double weight, int priority, double virtualTime) {
+            this.name = name;
+            this.weight = weight;
+            this.priority = priority;
+            this.virtualTime = virtualTime;
+        }
+
+        /**
+         * Queue a pair; it starts when the scheduler grants this tournament a slot.
+         */
+        public CompletableFuture<PairResult> submit(Callable<PairResult> task) {
+            QueuedPair queued = new QueuedPair(task);
+            synchronized (SharedSlotPool.this) {
+                queue.add(queued);
+            }
+            dispatch();
+            return queued.future;
+        }
+
+        /**
+         * Stop scheduling this tournament (queued pairs are dropped).
+         */
+        public void close() {
+            synchronized (SharedSlotPool.this) {
+                shares.remove(this);
+                for (QueuedPair queued : queue) {
+                    queued.future.cancel(false);
+                }
+                queue.clear();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public int getRunning() {
+            synchronized (SharedSlotPool.this) {
+                return running;
+            }
+        }
+
+        public int getQueued() {
+            synchronized (SharedSlotPool.this) {
+                return queue.size();
+            }
+        }
+
+        public long getStarted() {
+            synchronized (SharedSlotPool.this) {
+                return started;
+            }
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package fr.flwrian.Runner;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import fr.flwrian.Result.PairResult;
+
+/**
+ * Swiss-system pairing for large fields.
+ *
+ * Each round every engine plays one pair (two games, colors swapped) against
+ * an opponent with the closest score it has not met within the repeat window.
+ * Engines are paired top-down by score; the engine that has played white first
+ * less often gets white in game 1. With an odd field, the lowest engine without
+ * a previous bye sits out the round and scores a drawn pair (1 point).
+ *
+ * Rounds are pipelined: an engine that has finished round N can be paired for
+ * round N+1 while other round N pairs are still playing, as long as no engine
+ * still playing could end up closer in score. Only the last pairs of a round
+ * wait for the slowest game.
+ */
+public class SwissPairing implements PairingStrategy {
+    private static final double BYE_SCORE = 1.0;
+    private static final int MATCHING_BUDGET = 20_000;
+
+    private final int rounds;
+    private final int repeatWindow;
+    private final Map<String, Player> players = new LinkedHashMap<>();
+    private Consumer<String> byeListener;
+
+    /**
+     * @param rounds Number of rounds
+     * @param repeatWindow Two engines may meet again after this many rounds (0 = never)
+     */
+    public SwissPairing(int rounds, int repeatWindow) {
+        if (rounds <= 0) {
+            throw new IllegalArgumentException("Rounds must be positive (got: " + rounds + ")");
+        }
+        if (repeatWindow < 0) {
+            throw new IllegalArgumentException("Repeat window cannot be negative (got: " + repeatWindow + ")");
+        }
+        this.rounds = rounds;
+        this.repeatWindow = repeatWindow;
+    }
+
+    @Override
+    public String describe() {
+        return "Swiss: " + rounds + " rounds" +
+            (repeatWindow > 0 ? ", rematches after " + repeatWindow + " rounds" : ", no rematches");
+    }
+
+    @Override
+    public synchronized int[] selectPair(List<String> engines, Random random) {
+        List<Player> active = activePlayers(engines);
+        for (int round = 0; round < rounds; round++) {
+            boolean closed = isClosed(active, round);
+            List<Player> ready = cohort(active, round);
+            if (closed && ready.size() % 2 == 1) {
+                awardBye(ready);
+                ready = cohort(active, round);
+            }
+            if (ready.size() < 2) {
+                continue;
+            }
+            Player[] pair = pairCohort(active, ready, round, closed);
+            if (pair != null) {
+                return orderColors(engines, pair[0], pair[1], random);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void pairStarted(String engine1, String engine2) {
+        player(engine1).busy = true;
+        player(engine2).busy = true;
+    }
+
+    @Override
+    public synchronized void pairFinished(String engine1, String engine2, PairResult result) {
+        player(engine1).busy = false;
+        player(engine2).busy = false;
+        if (result != null) {
+            recordCompleted(result.getEngine1Name(), result.getEngine2Name(),
+                result.getEngine1Score(), result.getGameResults().size(), result.getDraws());
+        }
+        // A failed pair is simply paired again: neither engine has played the round
+    }
+
+    @Override
+    public synchronized void setByeListener(Consumer<String> listener) {
+        this.byeListener = listener;
+    }
+
+    @Override
+    public synchronized void recordCompleted(String engine1, String engine2, double score1, int games, int draws) {
+        if (engine2 == null) {
+            scoreBye(player(engine1));
+            return;
+        }
+        Player white = player(engine1);
+        Player black = player(engine2);
+        white.rounds++;
+        black.rounds++;
+        white.score += score1;
+        black.score += games - score1;
+        white.lastMet.put(black.name, white.rounds);
+        black.lastMet.put(white.name, black.rounds);
+        white.opponents.add(black.name);
+        black.opponents.add(white.name);
+        white.colorBalance++;
+        black.colorBalance--;
+    }
+
+    @Override
+    public synchronized boolean isComplete(List<String> engines) {
+        for (Player player : activePlayers(engines)) {
+            if (player.rounds < rounds) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized String describeProgress(List<String> engines) {
+        List<Player> standings = standings();
+        int minRound = rounds;
+        for (Player player : activePlayers(engines)) {
+            minRound = Math.min(minRound, player.rounds);
+        }
+        return "Swiss: round " + Math.min(rounds, minRound + 1) + "/" + rounds +
+            (standings.isEmpty() ? "" : " (leader: " + standings.get(0).name + " " + formatScore(standings.get(0).score) + ")");
+    }
+
+    @Override
+    public synchronized JsonObject getState(List<String> engines) {
+        JsonObject state = new JsonObject();
+        state.addProperty("pairing", "swiss");
+        state.addProperty("rounds", rounds);
+        JsonArray standings = new JsonArray();
+        for (Player player : standings()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("engine", player.name);
+            entry.addProperty("score", player.score);
+            entry.addProperty("roundsPlayed", player.rounds);
+            entry.addProperty("buchholz", buchholz(player));
+            standings.add(entry);
+        }
+        state.add("standings", standings);
+        return state;
+    }
+
+    @Override
+    public synchronized void printSummary() {
+        System.out.println("Swiss standings (score, Buchholz):");
+        int rank = 1;
+        for (Player player : standings()) {
+            System.out.println("   " + rank++ + ". " + player.name + ": " + formatScore(player.score) +
+                " (" + formatScore(buchholz(player)) + ")" + (player.hadBye ? " [bye]" : ""));
+        }
+    }
+
+    /**
+     * Pair the best-placed engine of a cohort that can be paired now.
+     * A pairing is only made if the rest of the round can still be paired without
+     * rematches. In an open cohort (engines still playing the previous round), it
+     * is also only made if no engine that may still join could be a closer opponent.
+     */
+    private Player[] pairCohort(List<Player> active, List<Player> ready, int round, boolean closed) {
+        List<Player> waiting = new ArrayList<>();
+        for (Player player : ready) {
+            Player chosen = null;
+            boolean wait = false;
+            for (Player opponent : opponentsByPreference(player, ready, waiting, round, false)) {
+                if (!closed && mayGetCloserOpponent(player, opponent, active, waiting, round)) {
+                    wait = true;
+                    break;
+                }
+                List<Player> rest = roundPool(active, round);
+                rest.remove(player);
+                rest.remove(opponent);
+                if (canPairWithoutRematch(rest, round, new int[]{MATCHING_BUDGET})) {
+                    chosen = opponent;
+                    break;
+                }
+            }
+            if (chosen == null && !wait && closed) {
+                // Everyone left has met recently: allow a rematch rather than stall the round
+                List<Player> rematches = opponentsByPreference(player, ready, waiting, round, true);
+                chosen = rematches.isEmpty() ? null : rematches.get(0);
+            }
+            if (chosen == null) {
+                waiting.add(player);
+                continue;
+            }
+            return new Player[]{player, chosen};
+        }
+        return null;
+    }
+
+    private List<Player> opponentsByPreference(Player player, List<Player> ready, List<Player> waiting, int round, boolean allowRematch) {
+        List<Player> candidates = new ArrayList<>();
+        for (Player candidate : ready) {
+            if (candidate != player && !waiting.contains(candidate) && (allowRematch || mayMeet(player, candidate, round))) {
+                candidates.add(candidate);
+            }
+        }
+        candidates.sort((a, b) -> isBetterOpponent(player, a, b, allowRematch) ? -1
+                                : isBetterOpponent(player, b, a, allowRematch) ? 1 : 0);
+        return candidates;
+    }
+
+    /**
+     * Engines still to be paired in this round: the cohort plus every engine that
+     * will join it once its current pair finishes.
+     */
+    private List<Player> roundPool(List<Player> active, int round) {
+        List<Player> pool = new ArrayList<>();
+        for (Player player : active) {
+            if (player.rounds < round || (player.rounds == round && !player.busy)) {
+                pool.add(player);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Depth-first search for a rematch-free pairing of the pool (one engine may
+     * get the bye). Gives up optimistically once the budget is spent.
+     */
+    private boolean canPairWithoutRematch(List<Player> pool, int round, int[] budget) {
+        if (pool.size() <= 1 || --budget[0] < 0) {
+            return true;
+        }
+        Player first = pool.get(0);
+        for (int i = 1; i < pool.size(); i++) {
+            Player partner = pool.get(i);
+            if (!mayMeet(first, partner, round)) {
+                continue;
+            }
+            List<Player> rest = new ArrayList<>(pool);
+            rest.remove(partner);
+            rest.remove(0);
+            if (canPairWithoutRematch(rest, round, budget)) {
+                return true;
+            }
+        }
+        // With an odd pool, the first engine may be the one sitting out
+        return pool.size() % 2 == 1 && canPairWithoutRematch(pool.subList(1, pool.size()), round, budget);
+    }
+
+    private boolean isBetterOpponent(Player player, Player candidate, Player best, boolean allowRematch) {
+        if (allowRematch) {
+            int candidateMet = player.lastMet.getOrDefault(candidate.name, 0);
+            int bestMet = player.lastMet.getOrDefault(best.name, 0);
+            if (candidateMet != bestMet) {
+                return candidateMet < bestMet;
+            }
+        }
+        double candidateDiff = Math.abs(candidate.score - player.score);
+        double bestDiff = Math.abs(best.score - player.score);
+        if (candidateDiff != bestDiff) {
+            return candidateDiff < bestDiff;
+        }
+        // Same score gap: prefer the opponent that balances colors
+        return Math.abs(candidate.colorBalance - player.colorBalance) > Math.abs(best.colorBalance - player.colorBalance);
+    }
+
+    /**
+     * True if an engine still playing its previous round (or waiting in this one)
+     * might be a closer valid opponent than the chosen one.
+     */
+    private boolean mayGetCloserOpponent(Player player, Player opponent, List<Player> active, List<Player> waiting, int round) {
+        double gap = Math.abs(opponent.score - player.score);
+        for (Player other : active) {
+            if (other == player || other == opponent || other.rounds > round || !mayMeet(player, other, round)) {
+                continue;
+            }
+            boolean joining = other.rounds < round;
+            if (!joining && !waiting.contains(other)) {
+                continue;
+            }
+            // Each round still to finish adds 0 to 2 points
+            double low = other.score;
+            double high = other.score + 2.0 * (round - other.rounds);
+            double nearest = Math.max(low, Math.min(high, player.score));
+            if (Math.abs(nearest - player.score) < gap) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean mayMeet(Player a, Player b, int round) {
+        Integer met = a.lastMet.get(b.name);
+        return met == null || (repeatWindow > 0 && round + 1 - met > repeatWindow);
+    }
+
+    /**
+     * A cohort is closed when no engine can still join it: every active engine
+     * has finished at least this many rounds.
+     */
+    private boolean isClosed(List<Player> active, int round) {
+        for (Player player : active) {
+            if (player.rounds < round) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Engines that finished exactly this many rounds and wait for their next pair,
+     * best placed first.
+     */
+    private List<Player> cohort(List<Player> active, int round) {
+        List<Player> cohort = new ArrayList<>();
+        for (Player player : active) {
+            if (!player.busy && player.rounds == round) {
+                cohort.add(player);
+            }
+        }
+        cohort.sort(RANKING);
+        return cohort;
+    }
+
+    private void awardBye(List<Player> cohort) {
+        Player bye = cohort.get(cohort.size() - 1);
+        for (int i = cohort.size() - 1; i >= 0; i--) {
+            if (!cohort.get(i).hadBye) {
+                bye = cohort.get(i);
+                break;
+            }
+        }
+        scoreBye(bye);
+        System.out.println("[Swiss] " + bye.name + " gets a bye in round " + bye.rounds);
+        if (byeListener != null) {
+            byeListener.accept(bye.name);
+        }
+    }
+
+    private static void scoreBye(Player bye) {
+        bye.rounds++;
+        bye.score += BYE_SCORE;
+        bye.hadBye = true;
+    }
+
+    private int[] orderColors(List<String> engines, Player a, Player b, Random random) {
+        boolean aWhite = a.colorBalance != b.colorBalance ? a.colorBalance < b.colorBalance : random.nextBoolean();
+        int ia = engines.indexOf(a.name);
+        int ib = engines.indexOf(b.name);
+        return aWhite ? new int[]{ia, ib} : new int[]{ib, ia};
+    }
+
+    private List<Player> activePlayers(List<String> engines) {
+        List<Player> active = new ArrayList<>();
+        for (String name : engines) {
+            if (!players.containsKey(name)) {
+                // Late entries start with the slowest engine, on zero points
+                int start = players.isEmpty() ? 0 : rounds;
+                for (Player player : players.values()) {
+                    start = Math.min(start, player.rounds);
+                }
+                player(name).rounds = start;
+            }
+            active.add(players.get(name));
+        }
+        return active;
+    }
+
+    private List<Player> standings() {
+        List<Player> standings = new ArrayList<>(players.values());
+        standings.sort(Comparator.comparingDouble((Player p) -> -p.score)
+            .thenComparingDouble(p -> -buchholz(p))
+            .thenComparing(p -> p.name));
+        return standings;
+    }
+
+    private double buchholz(Player player) {
+        double sum = 0;
+        for (String opponent : player.opponents) {
+            sum += players.get(opponent).score;
+        }
+        return sum;
+    }
+
+    private Player player(String name) {
+        return players.computeIfAbsent(name, Player::new);
+    }
+
+    private static String formatScore(double score) {
+        return score == Math.floor(score) ? String.valueOf((long) score) : String.valueOf(score);
+    }
+
+    private static final Comparator<Player> RANKING = Comparator.comparingDouble((Player p) -> -p.score)
+        .thenComparing(p -> p.name);
+
+    private static class Player {
+        final String name;
+        final Map<String, Integer> lastMet = new HashMap<>(); // opponent -> round of the last meeting
+        final List<String> opponents = new ArrayList<>();
+        double score;
+        int rounds;
+        int colorBalance; // Pairs started as white minus pairs started as black
+        boolean busy;
+        boolean hadBye;
+
+        Player(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package fr.flwrian.Runner;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import fr.flwrian.Result.PairResult;
+
+/**
+ * Durable record of a running tournament, used to resume after a crash.
+ *
+ * The journal is an append-only JSON-lines file, synced to disk after every
+ * record:
+ *   start    - fingerprint of the settings, number of pairs and the RNG seed
+ *   submit   - a pair was handed to a game slot (with its engines)
+ *   complete - a pair finished (with its scores)
+ *   fail     - a pair could not be played and was skipped
+ *   bye      - an engine was given a bye (Swiss)
+ *   engine   - an engine was added or retired through the control API
+ *   finish   - the tournament ran to completion
+ *
+ * Pairings, colors, openings and time controls are derived from the seed and
+ * the pair id only, so a resumed run replays the exact same schedule: engine
+ * changes are applied again, pairs that were in flight are run again first
+ * (with the engines they had), completed pairs are skipped.
+ */
+public class TournamentJournal implements AutoCloseable {
+    private static final Gson gson = new Gson();
+
+    private final Path file;
+    private final FileOutputStream out;
+    private final long seed;
+    private final int totalPairs;
+    private final boolean resumed;
+    private final Set<Integer> submitted = new LinkedHashSet<>();
+    private final Map<Integer, String[]> submittedEngines = new HashMap<>();
+    private final List<EngineChange> engineChanges = new ArrayList<>();
+    private final Set<Integer> completed = new TreeSet<>();
+    private final Map<String, Double> engineScores = new HashMap<>();
+    private final List<Completion> completions = new ArrayList<>();
+    private int completedGames;
+
+    private TournamentJournal(Path file, long seed, int totalPairs, boolean resumed) throws IOException {
+        this.file = file;
+        this.seed = seed;
+        this.totalPairs = totalPairs;
+        this.resumed = resumed;
+        this.out = new FileOutputStream(file.toFile(), true);
+    }
+
+    /**
+     * Open the journal for a tournament.
+     * Resumes an unfinished journal written with the same settings; otherwise the
+     * previous file is kept as a ".prev" backup and a new tournament is started.
+     * @param file Journal file
+     * @param fingerprint Settings that define the schedule (engines, time controls, openings...)
+     * @param totalPairs Number of pairs in the tournament
+     */
+    public static TournamentJournal open(Path file, String fingerprint, int totalPairs) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        if (Files.exists(file)) {
+            TournamentJournal previous = replay(file, fingerprint, totalPairs);
+            if (previous != null) {
+                return previous;
+            }
+            Files.move(file, file.resolveSibling(file.getFileName() + ".prev"), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        long seed = new SecureRandom().nextLong();
+        TournamentJournal journal = new TournamentJournal(file, seed, totalPairs, false);
+        JsonObject start = record("start");
+        start.addProperty("fingerprint", fingerprint);
+        start.addProperty("totalPairs", totalPairs);
+        start.addProperty("seed", seed);
+        journal.append(start);
+        return journal;
+    }
+
+    /**
+     * Rebuild state from an existing journal.
+     * @return the journal to resume, or null if it is finished or belongs to other settings
+     */
+    private static TournamentJournal replay(Path file, String fingerprint, int totalPairs) throws IOException {
+        List<JsonObject> records = new ArrayList<>();
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        int valid = 0;
+        while (valid < content.length()) {
+            int end = content.indexOf('\n', valid);
+            if (end < 0) {
+                break; // Torn last line from a crash mid-write
+            }
+            try {
+                JsonObject record = gson.fromJson(content.substring(valid, end), JsonObject.class);
+                if (record != null) {
+                    records.add(record);
+                }
+            } catch (JsonParseException e) {
+                break;
+            }
+            valid = end + 1;
+        }
+
+        if (records.isEmpty() || !"start".equals(records.get(0).get("type").getAsString())) {
+            return null;
+        }
+        JsonObject start = records.get(0);
+        if (!fingerprint.equals(start.get("fingerprint").getAsString())
+                || start.get("totalPairs").getAsInt() != totalPairs) {
+            System.out.println("Tournament settings changed, starting a new journal");
+            return null;
+        }
+        for (JsonObject record : records) {
+            if ("finish".equals(record.get("type").getAsString())) {
+                return null;
+            }
+        }
+
+        // Drop the torn tail so new records start on a clean line
+        if (valid < content.length()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(content.substring(0, valid).getBytes(StandardCharsets.UTF_8).length);
+            }
+        }
+
+        TournamentJournal journal = new TournamentJournal(file, start.get("seed").getAsLong(), totalPairs, true);
+        for (JsonObject record : records) {
+            String type = record.get("type").getAsString();
+            if ("submit".equals(type)) {
+                int pairId = record.get("pairId").getAsInt();
+                journal.submitted.add(pairId);
+                if (record.has("engine1")) {
+                    journal.submittedEngines.put(pairId,
+                        new String[]{record.get("engine1").getAsString(), record.get("engine2").getAsString()});
+                }
+            } else if ("engine".equals(type)) {
+                journal.engineChanges.add(new EngineChange(record.get("action").getAsString(),
+                    record.get("engine").getAsString()));
+            } else if ("complete".equals(type)) {
+                journal.applyCompletion(record);
+            } else if ("fail".equals(type)) {
+                journal.completed.add(record.get("pairId").getAsInt());
+            } else if ("bye".equals(type)) {
+                journal.completions.add(new Completion(record.get("engine").getAsString(), null, 0, 0, 0));
+            }
+        }
+        return journal;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTotalPairs() {
+        return totalPairs;
+    }
+
+    /**
+     * True if this run continues an interrupted tournament.
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public synchronized Set<Integer> getCompletedPairs() {
+        return new TreeSet<>(completed);
+    }
+
+    /**
+     * Pairs that were submitted but never completed (interrupted by the crash).
+     */
+    public synchronized List<Integer> getInFlightPairs() {
+        List<Integer> inFlight = new ArrayList<>();
+        for (int pairId : submitted) {
+            if (!completed.contains(pairId)) {
+                inFlight.add(pairId);
+            }
+        }
+        return inFlight;
+    }
+
+    /**
+     * Pair ids still to play, in-flight pairs first, then the rest of the schedule.
+     */
+    public synchronized List<Integer> getRemainingPairs() {
+        List<Integer> remaining = getInFlightPairs();
+        for (int pairId = 0; pairId < totalPairs; pairId++) {
+            if (!completed.contains(pairId) && !submitted.contains(pairId)) {
+                remaining.add(pairId);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Scores per engine over the completed pairs of this tournament.
+     */
+    public synchronized Map<String, Double> getEngineScores() {
+        return new HashMap<>(engineScores);
+    }
+
+    /**
+     * Completed pairs and byes (engine2 null) in completion order.
+     */
+    public synchronized List<Completion> getCompletions() {
+        return new ArrayList<>(completions);
+    }
+
+    public synchronized int getCompletedGames() {
+        return completedGames;
+    }
+
+    /**
+     * Engines a pair was submitted with, or null if it was never submitted.
+     */
+    public synchronized String[] getSubmittedEngines(int pairId) {
+        return submittedEngines.get(pairId);
+    }
+
+    /**
+     * Engines added and retired during the tournament, in order.
+     */
+    public synchronized List<EngineChange> getEngineChanges() {
+        return new ArrayList<>(engineChanges);
+    }
+
+    public synchronized void pairSubmitted(int pairId, String engine1, String engine2) throws IOException {
+        JsonObject record = record("submit");
+        record.addProperty("pairId", pairId);
+        record.addProperty("engine1", engine1);
+        record.addProperty("engine2", engine2);
+        append(record);
+        submitted.add(pairId);
+        submittedEngines.put(pairId, new String[]{engine1, engine2});
+    }
+
+    /**
+     * Record an engine registered through the control API.
+     * @param path Engine path
+     */
+    public synchronized void engineAdded(String path) throws IOException {
+        engineChanged(new EngineChange(EngineChange.ADD, path));
+    }
+
+    /**
+     * Record an engine retired through the control API.
+     * @param name Engine name
+     */
+    public synchronized void engineRetired(String name) throws IOException {
+        engineChanged(new EngineChange(EngineChange.RETIRE, name));
+    }
+
+    private void engineChanged(EngineChange change) throws IOException {
+        JsonObject record = record("engine");
+        record.addProperty("action", change.getAction());
+        record.addProperty("engine", change.getEngine());
+        append(record);
+        engineChanges.add(change);
+    }
+
+    public synchronized void pairCompleted(PairResult pr) throws IOException {
+        JsonObject record = record("complete");
+        record.addProperty("pairId", pr.getPairId());
+        record.addProperty("engine1", pr.getEngine1Name());
+        record.addProperty("engine2", pr.getEngine2Name());
+        record.addProperty("score1", pr.getEngine1Score());
+        record.addProperty("score2", pr.getEngine2Score());
+        record.addProperty("games", pr.getGameResults().size());
+        record.addProperty("draws", pr.getDraws());
+        append(record);
+        applyCompletion(record);
+    }
+
+    /**
+     * Record a pair that failed and is skipped, so a resumed run skips it too.
+     */
+    public synchronized void pairFailed(int pairId) throws IOException {
+        JsonObject record = record("fail");
+        record.addProperty("pairId", pairId);
+        append(record);
+        completed.add(pairId);
+    }
+
+    /**
+     * Record a bye, replayed with the completions so a resumed Swiss gives it again.
+     */
+    public synchronized void byeAwarded(String engine) throws IOException {
+        JsonObject record = record("bye");
+        record.addProperty("engine", engine);
+        append(record);
+        completions.add(new Completion(engine, null, 0, 0, 0));
+    }
+
+    /**
+     * Mark the tournament as finished; the next run starts a new one.
+     */
+    public synchronized void finished() throws IOException {
+        append(record("finish"));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void applyCompletion(JsonObject record) {
+        if (!completed.add(record.get("pairId").getAsInt())) {
+            return;
+        }
+        engineScores.merge(record.get("engine1").getAsString(), record.get("score1").getAsDouble(), Double::sum);
+        engineScores.merge(record.get("engine2").getAsString(), record.get("score2").getAsDouble(), Double::sum);
+        completedGames += record.get("games").getAsInt();
+        completions.add(new Completion(record.get("engine1").getAsString(), record.get("engine2").getAsString(),
+            record.get("score1").getAsDouble(), record.get("games").getAsInt(),
+            record.has("draws") ? record.get("draws").getAsInt() : 0));
+    }
+
+    private void append(JsonObject record) throws IOException {
+        out.write((gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        out.getFD().sync();
+    }
+
+    private static JsonObject record(String type) {
+        JsonObject record = new JsonObject();
+        record.addProperty("type", type);
+        record.addProperty("time", System.currentTimeMillis());
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        return "TournamentJournal[" + file + "]";
+    }
+
+    /**
+     * Outcome of one completed pair.
+     */
+    public static class Completion {
+        private final String engine1;
+        private final String engine2;
+        private final double score1;
+        private final int games;
+        private final int draws;
+
+        Completion(String engine1, String engine2, double score1, int games, int draws) {
+            this.engine1 = engine1;
+            this.engine2 = engine2;
+            this.score1 = score1;
+            this.games = games;
+            this.draws = draws;
+        }
+
+        public String getEngine1() { return engine1; }
+        public String getEngine2() { return engine2; }
+        public double getScore1() { return score1; }
+        public int getGames() { return games; }
+        public int getDraws() { return draws; }
+    }
+
+    /**
+     * Engine added (by path) or retired (by name) during the tournament.
+     */
+    public static class EngineChange {
+        public static final String ADD = "add";
+        public static final String RETIRE = "retire";
+
+        private final String action;
+        private final String engine;
+
+        EngineChange(String action, String engine) {
+            this.action = action;
+            this.engine = engine;
+        }
+
+        public String getAction() { return action; }
+        public String getEngine() { return engine; }
+        public boolean isAdd() { return ADD.equals(action); }
+    }
+}
@@ -0,0 +1,294 @@
+package fr.flwrian.Runner;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import fr.flwrian.Archive.DatagenWriter;
+import fr.flwrian.Archive.GameArchive;
+import fr.flwrian.Archive.GameDatabase;
+import fr.flwrian.Archive.GameSink;
+import fr.flwrian.Archive.PgnWriter;
+import fr.flwrian.Config.Config;
+import fr.flwrian.Stats.StatsManager;
+import fr.flwrian.WebSocket.GameWebSocket;
+import fr.flwrian.WebSocket.TournamentQueue;
+import fr.flwrian.WebSocket.WebSocketServer;
+
+/**
+ * Runs several tournaments at once on a shared pool of game slots.
+ *
+ * Every tournament keeps its own MatchRunner (pairing, journal, stats) but its
+ * pairs are started by a {@link SharedSlotPool}, which interleaves tournaments
+ * by priority and weighted fair share. The manager owns the web server: live
+ * games of all tournaments share the live view (game ids are offset per
+ * tournament) and /tournaments reports per-tournament progress and ETA.
+ */
+public class TournamentManager implements TournamentQueue {
+    private static final int GAME_ID_STRIDE = 10_000_000;
+    private static final long PROGRESS_INTERVAL_SECONDS = 60;
+
+    private final SharedSlotPool pool;
+    private final WebSocketServer wsServer;
+    private final List<Tournament> tournaments = new ArrayList<>();         // guarded by this
+    private final Map<String, StatsManager> statsByDirectory = new HashMap<>(); // guarded by this
+    private final Map<Path, GameSink> sinksByPath = new HashMap<>();            // guarded by this
+    private final ScheduledExecutorService reporter;
+
+    /**
+     * @param slots Number of pairs played concurrently across all tournaments
+     * @param wsPort Web server port (0 to disable)
+     * @param controlToken Token required by /tournaments (required with a web server)
+     */
+    public TournamentManager(int slots, int wsPort, String controlToken) throws Exception {
+        this.pool = new SharedSlotPool(slots);
+        if (wsPort > 0) {
+            if (controlToken == null || controlToken.isEmpty()) {
+                throw new IllegalArgumentException("A control token is required to serve /tournaments");
+            }
+            this.wsServer = new WebSocketServer(wsPort);
+            this.wsServer.setControlToken(controlToken);
+            this.wsServer.start();
+            this.wsServer.setTournamentQueue(this);
+        } else {
+            this.wsServer = null;
+        }
+        this.reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tournament-progress");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(this::printProgress, PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        System.out.println("[Manager] " + slots + " shared game slot(s)");
+    }
+
+    @Override
+    public synchronized void submitTournament(String configPath, double weight, int priority) throws IOException {
+        Config config = Config.load(configPath);
+        if (config.getDistributed() != null && config.getDistributed().isEnabled()) {
+            throw new IOException("Distributed tournaments cannot run under the manager: " + configPath);
+        }
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight must be positive (got: " + weight + ")");
+        }
+        String name = config.getTournament().getName() != null ? config.getTournament().getName() : configPath;
+        int index = tournaments.size();
+
+        List<String> enginePaths = config.getEnginePaths();
+        MatchRunner runner;
+        try {
+            // Each runner keeps up to one pool-full of pairs queued; the shared pool decides what runs
+            runner = new MatchRunner(enginePaths, pool.getSlots(), config.getTimeControls(), 0, config);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Cannot create tournament " + name + ": " + e.getMessage(), e);
+        }
+        runner.setSlotShare(pool.register(name, weight, priority), index * GAME_ID_STRIDE);
+        runner.setPairingStrategy(PairingStrategy.fromConfig(config));
+
+        String statsDir = config.getStats() != null && config.getStats().getStatsDirectory() != null
+            ? config.getStats().getStatsDirectory() : "./stats";
+        if (config.getStats() != null) {
+            // Tournaments writing to the same directory share one StatsManager
+            StatsManager stats = statsByDirectory.computeIfAbsent(statsDir,
+                dir -> new StatsManager(config.getStats().isPersistenceEnabled(), dir));
+            runner.setStatsManager(stats, name);
+        }
+        // Likewise for PGN directories and game archives, which cannot have two writers
+        Config.Pgn pgn = config.getPgn();
+        if (pgn != null && pgn.isEnabled()) {
+            Path directory = Path.of(pgn.getDirectory()).toAbsolutePath().normalize();
+            GameSink writer = sinksByPath.get(directory);
+            if (writer == null) {
+                writer = new PgnWriter(directory, pgn.getCompression(), pgn.getGamesPerFile());
+                sinksByPath.put(directory, writer);
+            }
+            runner.addGameSink(writer, name);
+        }
+        if (config.getArchive() != null && config.getArchive().isEnabled()) {
+            Path file = Path.of(config.getArchive().getFile()).toAbsolutePath().normalize();
+            GameSink archive = sinksByPath.get(file);
+            if (archive == null) {
+                archive = config.getArchive().isIndexed() ? new GameDatabase(file) : new GameArchive(file);
+                sinksByPath.put(file, archive);
+            }
+            if (archive instanceof GameDatabase) {
+                GameWebSocket.setGameDatabase(name, (GameDatabase) archive);
+            }
+            runner.addGameSink(archive, name);
+        }
+        Config.Datagen datagen = config.getDatagen();
+        if (datagen != null && datagen.isEnabled()) {
+            // Keyed by its first shard, so it can share a directory with PGN files
+            Path shard = Path.of(datagen.getDirectory()).toAbsolutePath().normalize().resolve("positions-00.bin");
+            GameSink writer = sinksByPath.get(shard);
+            if (writer == null) {
+                writer = new DatagenWriter(shard.getParent(), datagen.getShards(), datagen.getMinPly(),
+                    datagen.getMaxPly(), datagen.getMaxScore());
+                sinksByPath.put(shard, writer);
+            }
+            runner.addGameSink(writer, name);
+        }
+        if (config.getStats() != null && config.getStats().isPersistenceEnabled()) {
+            runner.setJournal(TournamentJournal.open(
+                Path.of(statsDir, "tournament_journal-" + slug(name) + ".jsonl"),
+                config.getScheduleFingerprint(),
+                config.getTotalPairs()));
+        }
+
+        List<String> startingPositions = config.getStartingPositions();
+        String openingMode = config.getOpeningMode();
+        int pairs = config.getTotalPairs();
+        Tournament tournament = new Tournament(name, configPath, weight, priority, runner);
+        tournament.thread = new Thread(() -> {
+            tournament.status = "running";
+            try {
+                runner.runPairs(pairs, startingPositions, openingMode);
+                tournament.status = "finished";
+            } catch (Exception e) {
+                tournament.status = "failed: " + e.getMessage();
+                System.err.println("[Manager] Tournament " + name + " failed: " + e.getMessage());
+            }
+        }, "tournament-" + slug(name));
+        tournaments.add(tournament);
+        tournament.thread.start();
+        System.out.println("[Manager] Queued tournament " + name + " (weight " + weight + ", priority " + priority + ")");
+    }
+
+    @Override
+    public synchronized JsonArray getTournaments() {
+        JsonArray list = new JsonArray();
+        for (Tournament tournament : tournaments) {
+            JsonObject state = tournament.runner.getState();
+            state.addProperty("name", tournament.name);
+            state.addProperty("config", tournament.configPath);
+            state.addProperty("status", tournament.status);
+            state.addProperty("weight", tournament.weight);
+            state.addProperty("priority", tournament.priority);
+            list.add(state);
+        }
+        return list;
+    }
+
+    /**
+     * Wait until every submitted tournament has finished (including ones
+     * submitted while waiting).
+     */
+    public void awaitAll() throws InterruptedException {
+        while (true) {
+            Thread next = null;
+            synchronized (this) {
+                for (Tournament tournament : tournaments) {
+                    if (tournament.thread.isAlive()) {
+                        next = tournament.thread;
+                        break;
+                    }
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            next.join();
+        }
+    }
+
+    public void shutdown() throws Exception {
+        reporter.shutdownNow();
+        pool.shutdown();
+        closeStats();
+        if (wsServer != null) {
+            wsServer.stop();
+        }
+    }
+
+    /**
+     * Stop every tournament immediately (Ctrl+C).
+     */
+    public void forceShutdown() throws Exception {
+        reporter.shutdownNow();
+        List<Tournament> running;
+        synchronized (this) {
+            running = new ArrayList<>(tournaments);
+        }
+        for (Tournament tournament : running) {
+            tournament.runner.forceShutdown();
+        }
+        pool.shutdownNow();
+        closeStats();
+        if (wsServer != null) {
+            wsServer.stop();
+        }
+    }
+
+    private synchronized void closeStats() {
+        for (StatsManager stats : statsByDirectory.values()) {
+            stats.close();
+        }
+        for (GameSink sink : sinksByPath.values()) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                System.err.println("[Manager] Cannot close " + sink.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void printProgress() {
+        List<Tournament> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(tournaments);
+        }
+        System.out.println(String.format("%n%-30s %10s %12s %8s %10s", "Tournament", "Status", "Pairs", "Slots", "ETA"));
+        for (Tournament tournament : snapshot) {
+            MatchRunner runner = tournament.runner;
+            long eta = runner.getEtaSeconds();
+            System.out.println(String.format("%-30s %10s %12s %8d %10s",
+                tournament.name.length() > 30 ? tournament.name.substring(0, 30) : tournament.name,
+                tournament.status.startsWith("failed") ? "failed" : tournament.status,
+                runner.getCompletedPairs() + "/" + runner.getTotalPairs(),
+                runner.getActivePairs(),
+                eta < 0 ? "-" : formatDuration(eta)));
+        }
+        System.out.println();
+    }
+
+    static String formatDuration(long seconds) {
+        if (seconds >= 3600) {
+            return String.format("%dh%02dm", seconds / 3600, (seconds % 3600) / 60);
+        }
+        return String.format("%dm%02ds", seconds / 60, seconds % 60);
+    }
+
+    private static String slug(String name) {
+        String slug = name.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+        return slug.isEmpty() ? "tournament" : slug;
+    }
+
+    private static class Tournament {
+        final String name;
+        final String configPath;
+        final double weight;
+        final int priority;
+        final MatchRunner runner;
+        volatile String status = "queued";
+        Thread thread;
+
+        Tournament(String name, String configPath, double weight, int priority, MatchRunner runner) {
+            this.name = name;
+            this.configPath = configPath;
+            this.weight = weight;
+            this.priority = priority;
+            this.runner = runner;
+        }
+    }
+}
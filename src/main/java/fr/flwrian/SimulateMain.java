@@ -0,0 +1,105 @@
+package fr.flwrian;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.flwrian.Config.Config;
+import fr.flwrian.Runner.MatchRunner;
+import fr.flwrian.Stats.StatsManager;
+import fr.flwrian.Util.GameThreads;
+
+/**
+ * Load-test the harness with simulated engines, no engine binaries needed.
+ *
+ * Usage: java -jar enginelab.jar simulate [pairs] [concurrency] [engines] [base+inc] [virtual]
+ *
+ * Defaults: 100 pairs, 16 concurrent, 4 engines, 1000+10 (ms), platform threads.
+ * Engines are in-process "sim:" engines of mixed strength; reports throughput
+ * and harness overhead (JVM CPU, peak threads, peak heap) at the end.
+ */
+public class SimulateMain {
+    public static void main(String[] args) {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int engines = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        String[] tc = (args.length > 3 ? args[3] : "1000+10").split("\\+");
+        boolean virtual = args.length > 4 && "virtual".equals(args[4]);
+
+        if (virtual && !GameThreads.setVirtualEnabled(true)) {
+            System.out.println("Virtual threads unavailable, using platform threads");
+        }
+
+        List<String> specs = new ArrayList<>();
+        for (int i = 0; i < engines; i++) {
+            double strength = engines > 1 ? 0.2 + 0.6 * i / (engines - 1) : 0.5;
+            specs.add(String.format(Locale.ROOT, "sim:Sim%02d?think=20&dist=exp&info=10&strength=%.2f", i + 1, strength));
+        }
+        Config.TimeControl timeControl = new Config.TimeControl();
+        timeControl.setBaseTimeMs(Long.parseLong(tc[0]));
+        timeControl.setIncrementMs(tc.length > 1 ? Long.parseLong(tc[1]) : 0);
+
+        System.out.println("═══════════════════════════════════════════════");
+        System.out.println("EngineLab Simulation");
+        System.out.println("═══════════════════════════════════════════════");
+        System.out.println(pairs + " pairs, " + concurrency + " concurrent, " + engines + " simulated engines, " +
+            timeControl.getBaseTimeMs() + "+" + timeControl.getIncrementMs() + " ms" +
+            (GameThreads.isVirtualEnabled() ? ", virtual threads" : ""));
+        System.out.println();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        threads.resetPeakThreadCount();
+        AtomicLong peakHeap = new AtomicLong();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "simulate-heap-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        try {
+            Duration cpuBefore = cpuTime();
+            long start = System.nanoTime();
+
+            MatchRunner runner = new MatchRunner(specs, concurrency, List.of(timeControl), 0, null);
+            runner.setStatsManager(new StatsManager(false, "./stats"));
+            runner.runPairs(pairs);
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double cpuSeconds = cpuTime().minus(cpuBefore).toMillis() / 1000.0;
+            sampler.interrupt();
+            int games = runner.getCompletedPairs() * 2;
+
+            System.out.println();
+            System.out.println("═══════════════════════════════════════════════");
+            System.out.println(String.format("Games:        %d in %.1fs (%.1f games/min)", games, seconds, games * 60 / seconds));
+            System.out.println(String.format("Harness CPU:  %.1fs (%.2f cores, %.1f ms/game)",
+                cpuSeconds, cpuSeconds / seconds, games > 0 ? cpuSeconds * 1000 / games : 0));
+            System.out.println(String.format("Peak threads: %d", threads.getPeakThreadCount()));
+            System.out.println(String.format("Peak heap:    %.1f MB", peakHeap.get() / (1024.0 * 1024.0)));
+            System.out.println("═══════════════════════════════════════════════");
+            System.exit(0);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static Duration cpuTime() {
+        // Simulated engines run in-process, so this is harness plus engine cost
+        return ProcessHandle.current().info().totalCpuDuration().orElse(Duration.ZERO);
+    }
+}
@@ -0,0 +1,101 @@
+package fr.flwrian.Stats;
+
+/**
+ * Error margins of a W/D/L record (trinomial model), as used to decide
+ * whether a match can stop:
+ *
+ *   score       s = (W + D/2) / N, per-game variance var = (W(1-s)^2 + D(1/2-s)^2 + L s^2) / N
+ *   elo         -400 log10(1/s - 1), with a 95% interval from s +- 1.96 sqrt(var/N)
+ *   los         likelihood of superiority, Phi((W - L) / sqrt(W + L))
+ *   nElo        (s - 1/2) / sqrt(var) * 800/ln(10), Elo normalized by the draw rate
+ *   drawRatio   D / N with its 95% interval
+ *
+ * Everything derives from the three counts, so it is recomputed in O(1)
+ * whenever a snapshot is taken.
+ */
+public class Confidence {
+    private static final double Z95 = 1.959964;
+    private static final double NELO_SCALE = 800 / Math.log(10);
+
+    private long games;
+    private double score;
+    private double elo;
+    private double eloLow;
+    private double eloHigh;
+    private double eloError; // Half-width of the 95% interval
+    private double los;
+    private double nElo;
+    private double nEloError;
+    private double drawRatio;
+    private double drawRatioError;
+
+    /**
+     * @return the margins of the record, or null if no games were played
+     */
+    public static Confidence of(long wins, long draws, long losses) {
+        long n = wins + draws + losses;
+        if (n == 0) {
+            return null;
+        }
+        Confidence c = new Confidence();
+        c.games = n;
+        double s = (wins + draws * 0.5) / n;
+        double variance = (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / n;
+        double stderr = Math.sqrt(variance / n);
+        c.score = round(s, 4);
+        c.elo = round(elo(s), 1);
+        c.eloLow = round(elo(s - Z95 * stderr), 1);
+        c.eloHigh = round(elo(s + Z95 * stderr), 1);
+        c.eloError = round((elo(s + Z95 * stderr) - elo(s - Z95 * stderr)) / 2, 1);
+        c.los = round(wins + losses > 0 ? phi((wins - losses) / Math.sqrt(wins + losses)) : 0.5, 4);
+        if (variance > 0) {
+            c.nElo = round((s - 0.5) / Math.sqrt(variance) * NELO_SCALE, 1);
+            c.nEloError = round(Z95 * NELO_SCALE / Math.sqrt(n), 1);
+        }
+        double d = (double) draws / n;
+        c.drawRatio = round(d, 4);
+        c.drawRatioError = round(Z95 * Math.sqrt(d * (1 - d) / n), 4);
+        return c;
+    }
+
+    /**
+     * Elo difference for an expected score, clamped to +-2000 for 0% and 100%.
+     */
+    static double elo(double score) {
+        if (score <= 0) {
+            return -2000;
+        }
+        if (score >= 1) {
+            return 2000;
+        }
+        return Math.max(-2000, Math.min(2000, -400 * Math.log10(1 / score - 1)));
+    }
+
+    /**
+     * Standard normal CDF (Abramowitz-Stegun 7.1.26 erf approximation, error below 1.5e-7).
+     */
+    static double phi(double x) {
+        double z = Math.abs(x) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * z);
+        double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+            + t * (-1.453152027 + t * 1.061405429)))) * Math.exp(-z * z);
+        return x >= 0 ? 0.5 * (1 + erf) : 0.5 * (1 - erf);
+    }
+
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+
+    public long getGames() { return games; }
+    public double getScore() { return score; }
+    public double getElo() { return elo; }
+    public double getEloLow() { return eloLow; }
+    public double getEloHigh() { return eloHigh; }
+    public double getEloError() { return eloError; }
+    public double getLos() { return los; }
+    public double getNElo() { return nElo; }
+    public double getNEloError() { return nEloError; }
+    public double getDrawRatio() { return drawRatio; }
+    public double getDrawRatioError() { return drawRatioError; }
+}
@@ -0,0 +1,349 @@
+package fr.flwrian.Stats;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Rating time series of every engine, kept in memory and in an append-only binary file.
+ *
+ * A point is (engine's game count, global game sequence, timestamp, rating,
+ * 95% error). Each engine keeps at most {@value #MAX_POINTS} points in
+ * primitive arrays: when full, every other point of the older half is dropped,
+ * so recent history stays at full resolution and older history gets
+ * progressively sparser. The file holds fixed-size records behind a header:
+ *
+ *   "ELOH" int version
+ *   { int engine, int games, long sequence, long timestamp, float rating, float error }*
+ *
+ * with engine IDs as line numbers of a names file next to it. A torn last
+ * record is dropped on load, and a file much larger than what was kept is
+ * rewritten downsampled.
+ */
+public class EloHistory implements AutoCloseable {
+    static final int MAX_POINTS = 2048;
+    private static final int MAGIC = 0x454C4F48; // "ELOH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 32;
+    private static final int REWRITE_FACTOR = 2;
+
+    private final Path file;
+    private final Path namesFile;
+    private final Map<String, Series> series = new LinkedHashMap<>();
+    private DataOutputStream out;
+    private FileOutputStream names;
+
+    /**
+     * Points of one engine, oldest first.
+     */
+    public static class Series {
+        private final String engine;
+        private final int id;
+        private int size;
+        private int[] games = new int[64];
+        private long[] sequences = new long[64];
+        private long[] timestamps = new long[64];
+        private float[] ratings = new float[64];
+        private float[] errors = new float[64];
+
+        Series(String engine, int id) {
+            this.engine = engine;
+            this.id = id;
+        }
+
+        void add(int game, long sequence, long timestamp, float rating, float error) {
+            if (size == MAX_POINTS) {
+                downsample();
+            } else if (size == games.length) {
+                int capacity = Math.min(MAX_POINTS, size * 2);
+                games = Arrays.copyOf(games, capacity);
+                sequences = Arrays.copyOf(sequences, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+                errors = Arrays.copyOf(errors, capacity);
+            }
+            games[size] = game;
+            sequences[size] = sequence;
+            timestamps[size] = timestamp;
+            ratings[size] = rating;
+            errors[size] = error;
+            size++;
+        }
+
+        /**
+         * Keep every other point of the older half.
+         */
+        private void downsample() {
+            int half = size / 2;
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (i >= half || i % 2 == 0) {
+                    games[kept] = games[i];
+                    sequences[kept] = sequences[i];
+                    timestamps[kept] = timestamps[i];
+                    ratings[kept] = ratings[i];
+                    errors[kept] = errors[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        public String getEngine() { return engine; }
+        public int size() { return size; }
+        public int getGames(int i) { return games[i]; }
+        public long getSequence(int i) { return sequences[i]; }
+        public long getTimestamp(int i) { return timestamps[i]; }
+        public float getRating(int i) { return ratings[i]; }
+        public float getError(int i) { return errors[i]; }
+    }
+
+    /**
+     * In-memory history only.
+     */
+    public EloHistory() {
+        this.file = null;
+        this.namesFile = null;
+    }
+
+    /**
+     * History backed by a file (and "&lt;file&gt;.engines" for names), loaded if present.
+     */
+    public EloHistory(Path file) throws IOException {
+        this.file = file;
+        this.namesFile = file.resolveSibling(file.getFileName() + ".engines");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        long records = load();
+        long kept = series.values().stream().mapToLong(s -> s.size).sum();
+        if (records > REWRITE_FACTOR * kept + MAX_POINTS) {
+            rewrite();
+        }
+        open();
+    }
+
+    private long load() throws IOException {
+        if (!Files.exists(file) || !Files.exists(namesFile) || Files.size(file) < HEADER_SIZE) {
+            // Nothing usable: start a new file
+            Files.deleteIfExists(file);
+            return 0;
+        }
+        List<String> engineNames = Files.readAllLines(namesFile, StandardCharsets.UTF_8);
+        for (String name : engineNames) {
+            series(name);
+        }
+        Series[] byId = series.values().toArray(new Series[0]);
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not an Elo history file: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            while (channel.read(buffer) > 0 || buffer.position() > 0) {
+                buffer.flip();
+                if (buffer.remaining() < RECORD_SIZE) {
+                    break;
+                }
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    int id = buffer.getInt();
+                    int games = buffer.getInt();
+                    long sequence = buffer.getLong();
+                    long timestamp = buffer.getLong();
+                    float rating = buffer.getFloat();
+                    float error = buffer.getFloat();
+                    if (id >= 0 && id < byId.length) {
+                        byId[id].add(games, sequence, timestamp, rating, error);
+                    }
+                    records++;
+                }
+                buffer.compact();
+            }
+            // Drop a torn last record
+            channel.truncate(HEADER_SIZE + records * RECORD_SIZE);
+        }
+        return records;
+    }
+
+    /**
+     * Replace the file with the downsampled points.
+     */
+    private void rewrite() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tmp.toFile());
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(stream))) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            for (Series s : series.values()) {
+                for (int i = 0; i < s.size; i++) {
+                    writeRecord(data, s, i);
+                }
+            }
+            data.flush();
+            stream.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void open() throws IOException {
+        boolean fresh = !Files.exists(file);
+        if (fresh) {
+            Files.deleteIfExists(namesFile);
+        }
+        names = new FileOutputStream(namesFile.toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), !fresh)));
+        if (fresh) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Series s : series.values()) {
+                names.write((s.engine + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static void writeRecord(DataOutputStream data, Series s, int i) throws IOException {
+        data.writeInt(s.id);
+        data.writeInt(s.games[i]);
+        data.writeLong(s.sequences[i]);
+        data.writeLong(s.timestamps[i]);
+        data.writeFloat(s.ratings[i]);
+        data.writeFloat(s.errors[i]);
+    }
+
+    /**
+     * Add a point for every engine that played or whose rating moved since its last point,
+     * then flush them to the file.
+     */
+    public synchronized void record(LeaderboardStats.Snapshot snapshot, long timestamp) throws IOException {
+        for (LeaderboardStats.EngineStats engine : snapshot.getEngineStats().values()) {
+            Series s = series(engine.getEngineName());
+            float rating = (float) engine.getRating();
+            if (s.size > 0 && s.games[s.size - 1] == engine.getTotalGames()
+                    && Math.abs(s.ratings[s.size - 1] - rating) < 0.5f) {
+                continue;
+            }
+            Confidence confidence = engine.getConfidence();
+            s.add(engine.getTotalGames(), snapshot.getSequence(), timestamp, rating,
+                confidence != null ? (float) confidence.getEloError() : Float.NaN);
+            if (out != null) {
+                writeRecord(out, s, s.size - 1);
+            }
+        }
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    private Series series(String engine) throws IOException {
+        Series s = series.get(engine);
+        if (s == null) {
+            s = new Series(engine, series.size());
+            series.put(engine, s);
+            if (names != null) {
+                names.write((engine + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return s;
+    }
+
+    public synchronized Set<String> getEngines() {
+        return new LinkedHashSet<>(series.keySet());
+    }
+
+    /**
+     * Points of engines between two global game sequences, columnar:
+     * {engine: {"games": [...], "sequences": [...], "timestamps": [...], "ratings": [...], "errors": [...]}}
+     * @param engine Only this engine (null for all)
+     * @param maxPoints At most this many points per engine, evenly spaced with both ends kept (below 2 for all)
+     */
+    public synchronized JsonObject query(String engine, long fromSequence, long toSequence, int maxPoints) {
+        JsonObject result = new JsonObject();
+        for (Series s : series.values()) {
+            if (engine != null && !engine.equals(s.engine)) {
+                continue;
+            }
+            int from = lowerBound(s, fromSequence);
+            int to = lowerBound(s, toSequence == Long.MAX_VALUE ? toSequence : toSequence + 1);
+            int count = to - from;
+            int points = maxPoints >= 2 && count > maxPoints ? maxPoints : count;
+            JsonArray games = new JsonArray();
+            JsonArray sequences = new JsonArray();
+            JsonArray timestamps = new JsonArray();
+            JsonArray ratings = new JsonArray();
+            JsonArray errors = new JsonArray();
+            for (int k = 0; k < points; k++) {
+                int i = points == count ? from + k : from + (int) Math.round((double) k * (count - 1) / (points - 1));
+                games.add(s.games[i]);
+                sequences.add(s.sequences[i]);
+                timestamps.add(s.timestamps[i]);
+                ratings.add(Math.round(s.ratings[i] * 10) / 10.0);
+                errors.add(Float.isNaN(s.errors[i]) ? null : Math.round(s.errors[i] * 10) / 10.0);
+            }
+            JsonObject columns = new JsonObject();
+            columns.add("games", games);
+            columns.add("sequences", sequences);
+            columns.add("timestamps", timestamps);
+            columns.add("ratings", ratings);
+            columns.add("errors", errors);
+            result.add(s.engine, columns);
+        }
+        return result;
+    }
+
+    /**
+     * Index of the first point at or after the sequence.
+     */
+    private static int lowerBound(Series s, long sequence) {
+        int low = 0;
+        int high = s.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (s.sequences[mid] < sequence) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copy of an engine's points, or null if it has none.
+     */
+    public synchronized Series getSeries(String engine) {
+        Series s = series.get(engine);
+        if (s == null) {
+            return null;
+        }
+        Series copy = new Series(s.engine, s.id);
+        for (int i = 0; i < s.size; i++) {
+            copy.add(s.games[i], s.sequences[i], s.timestamps[i], s.ratings[i], s.errors[i]);
+        }
+        return copy;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            names.close();
+            out = null;
+            names = null;
+        }
+    }
+}
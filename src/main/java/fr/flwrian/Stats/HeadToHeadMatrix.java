@@ -0,0 +1,280 @@
+package fr.flwrian.Stats;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Who beat whom: an N x N matrix of W/D/L and pentanomial counts per time control.
+ *
+ * Engines get a dense ID in the order they first appear. Each time control
+ * keeps one cell per (row, column) engine pair, from the row engine's side:
+ *
+ *   cell[k]      k = 0..2: win, draw, loss
+ *   cell[3 + k]  k = 0..4: row's points over a game pair x 2
+ *
+ * Both (a, b) and (b, a) are updated, so a row reads without transposing.
+ * Cells are {@link AtomicLongArray}s in concurrent maps: recorders and readers
+ * never lock, and only registering a new engine is serialized. A reader may see
+ * a game in one cell and not yet in its mirror; {@link LeaderboardStats}
+ * snapshots take a {@link #copy()} where every game is whole.
+ *
+ * JSON form (also used for persistence), rows flattened per engine:
+ *   {"version": v, "engines": [...], "timeControls": {tc: {"results": [[w,d,l, w,d,l, ...], ...],
+ *                                                         "pentanomial": [[p0..p4, ...], ...]}}}
+ */
+public class HeadToHeadMatrix {
+    static final String UNKNOWN_TIME_CONTROL = "Unknown";
+    private static final int CELL_SIZE = 8;
+    private static final int PENTANOMIAL = 3;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> engines = new CopyOnWriteArrayList<>();
+    // Time control -> (row << 32 | col) -> cell
+    private final Map<String, Map<Long, AtomicLongArray>> tables = new ConcurrentHashMap<>();
+    private final LongAdder version = new LongAdder();
+
+    /**
+     * Count one game.
+     */
+    public void recordGame(String whiteEngine, String blackEngine, String result, String timeControl) {
+        int whiteOutcome;
+        switch (result) {
+            case "1-0": whiteOutcome = 0; break;
+            case "1/2-1/2": whiteOutcome = 1; break;
+            case "0-1": whiteOutcome = 2; break;
+            default: return;
+        }
+        int white = id(whiteEngine);
+        int black = id(blackEngine);
+        Map<Long, AtomicLongArray> table = table(timeControl);
+        cell(table, white, black).incrementAndGet(whiteOutcome);
+        cell(table, black, white).incrementAndGet(2 - whiteOutcome);
+        version.increment();
+    }
+
+    /**
+     * Count one game pair into the pentanomial.
+     * @param firstResult Result of the game with engine1 as white
+     * @param secondResult Result of the game with engine2 as white
+     */
+    public void recordPair(String engine1, String engine2, String firstResult, String secondResult,
+                           String timeControl) {
+        int first = halfPoints(firstResult);
+        int second = halfPoints(secondResult);
+        if (first < 0 || second < 0) {
+            return;
+        }
+        // engine1's half-points: white in the first game, black in the second
+        int bucket = first + 2 - second;
+        int a = id(engine1);
+        int b = id(engine2);
+        Map<Long, AtomicLongArray> table = table(timeControl);
+        cell(table, a, b).incrementAndGet(PENTANOMIAL + bucket);
+        cell(table, b, a).incrementAndGet(PENTANOMIAL + 4 - bucket);
+        version.increment();
+    }
+
+    /**
+     * White's half-points of a result, or -1 if it is not rated.
+     */
+    private static int halfPoints(String result) {
+        switch (result) {
+            case "1-0": return 2;
+            case "1/2-1/2": return 1;
+            case "0-1": return 0;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Wins, draws and losses of engine against opponent.
+     * @param timeControl Time control, or null for all of them
+     */
+    public long[] getResults(String engine, String opponent, String timeControl) {
+        return sum(engine, opponent, timeControl, 0, 3);
+    }
+
+    /**
+     * Game pairs of engine against opponent scoring 0, 0.5, 1, 1.5 and 2 points.
+     * @param timeControl Time control, or null for all of them
+     */
+    public long[] getPentanomial(String engine, String opponent, String timeControl) {
+        return sum(engine, opponent, timeControl, PENTANOMIAL, 5);
+    }
+
+    private long[] sum(String engine, String opponent, String timeControl, int offset, int width) {
+        long[] total = new long[width];
+        Integer row = ids.get(engine);
+        Integer col = ids.get(opponent);
+        if (row == null || col == null) {
+            return total;
+        }
+        for (Map.Entry<String, Map<Long, AtomicLongArray>> entry : tables.entrySet()) {
+            if (timeControl != null && !timeControl.equals(entry.getKey())) {
+                continue;
+            }
+            AtomicLongArray cell = entry.getValue().get(key(row, col));
+            for (int k = 0; cell != null && k < width; k++) {
+                total[k] += cell.get(offset + k);
+            }
+        }
+        return total;
+    }
+
+    public List<String> getEngines() {
+        return new ArrayList<>(engines);
+    }
+
+    public Set<String> getTimeControls() {
+        return new TreeSet<>(tables.keySet());
+    }
+
+    /**
+     * Incremented by every update; equal versions mean equal contents.
+     */
+    public long getVersion() {
+        return version.sum();
+    }
+
+    /**
+     * Matrices as JSON (see the class comment), read without blocking recorders.
+     * @param timeControl Only this time control (null for all)
+     */
+    public JsonObject toJson(String timeControl) {
+        JsonObject json = new JsonObject();
+        json.addProperty("version", version.sum());
+        List<String> names = getEngines();
+        JsonArray nameArray = new JsonArray();
+        names.forEach(nameArray::add);
+        json.add("engines", nameArray);
+        JsonObject byTimeControl = new JsonObject();
+        for (String tc : getTimeControls()) {
+            if (timeControl != null && !timeControl.equals(tc)) {
+                continue;
+            }
+            Map<Long, AtomicLongArray> cells = tables.get(tc);
+            JsonObject table = new JsonObject();
+            table.add("results", rows(cells, names.size(), 0, 3));
+            table.add("pentanomial", rows(cells, names.size(), PENTANOMIAL, 5));
+            byTimeControl.add(tc, table);
+        }
+        json.add("timeControls", byTimeControl);
+        return json;
+    }
+
+    private static JsonArray rows(Map<Long, AtomicLongArray> cells, int count, int offset, int width) {
+        JsonArray rows = new JsonArray(count);
+        for (int row = 0; row < count; row++) {
+            JsonArray values = new JsonArray(count * width);
+            for (int col = 0; col < count; col++) {
+                AtomicLongArray cell = cells.get(key(row, col));
+                for (int k = 0; k < width; k++) {
+                    values.add(cell != null ? cell.get(offset + k) : 0);
+                }
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    /**
+     * Adds matrices saved with {@link #toJson(String)}.
+     */
+    public void merge(JsonObject saved) {
+        JsonArray names = saved.getAsJsonArray("engines");
+        int[] mapped = new int[names.size()];
+        for (int i = 0; i < mapped.length; i++) {
+            mapped[i] = id(names.get(i).getAsString());
+        }
+        for (Map.Entry<String, JsonElement> entry : saved.getAsJsonObject("timeControls").entrySet()) {
+            JsonObject savedTable = entry.getValue().getAsJsonObject();
+            Map<Long, AtomicLongArray> table = table(entry.getKey());
+            mergeRows(savedTable.getAsJsonArray("results"), table, 0, 3, mapped);
+            mergeRows(savedTable.getAsJsonArray("pentanomial"), table, PENTANOMIAL, 5, mapped);
+        }
+        version.increment();
+    }
+
+    private void mergeRows(JsonArray rows, Map<Long, AtomicLongArray> table, int offset, int width, int[] mapped) {
+        for (int row = 0; row < rows.size(); row++) {
+            JsonArray values = rows.get(row).getAsJsonArray();
+            for (int i = 0; i < values.size(); i++) {
+                long count = values.get(i).getAsLong();
+                if (count != 0) {
+                    cell(table, mapped[row], mapped[i / width]).addAndGet(offset + i % width, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Independent copy of the current counts.
+     */
+    public HeadToHeadMatrix copy() {
+        HeadToHeadMatrix copy = new HeadToHeadMatrix();
+        synchronized (engines) {
+            copy.engines.addAll(engines);
+            copy.ids.putAll(ids);
+        }
+        tables.forEach((tc, cells) -> {
+            Map<Long, AtomicLongArray> copied = new ConcurrentHashMap<>();
+            cells.forEach((key, cell) -> {
+                long[] values = new long[CELL_SIZE];
+                for (int k = 0; k < CELL_SIZE; k++) {
+                    values[k] = cell.get(k);
+                }
+                copied.put(key, new AtomicLongArray(values));
+            });
+            copy.tables.put(tc, copied);
+        });
+        copy.version.add(version.sum());
+        return copy;
+    }
+
+    public void clear() {
+        synchronized (engines) {
+            tables.clear();
+            ids.clear();
+            engines.clear();
+        }
+        version.increment();
+    }
+
+    private int id(String engine) {
+        Integer id = ids.get(engine);
+        if (id != null) {
+            return id;
+        }
+        // Registering is the only serialized step, so IDs stay dense
+        synchronized (engines) {
+            id = ids.get(engine);
+            if (id == null) {
+                id = engines.size();
+                engines.add(engine);
+                ids.put(engine, id);
+            }
+            return id;
+        }
+    }
+
+    private Map<Long, AtomicLongArray> table(String timeControl) {
+        return tables.computeIfAbsent(timeControl != null ? timeControl : UNKNOWN_TIME_CONTROL,
+            tc -> new ConcurrentHashMap<>());
+    }
+
+    private static long key(int row, int col) {
+        return (long) row << 32 | col;
+    }
+
+    private static AtomicLongArray cell(Map<Long, AtomicLongArray> table, int row, int col) {
+        AtomicLongArray cell = table.get(key(row, col));
+        return cell != null ? cell : table.computeIfAbsent(key(row, col), k -> new AtomicLongArray(CELL_SIZE));
+    }
+}
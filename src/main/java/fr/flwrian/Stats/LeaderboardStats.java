@@ -2,14 +2,27 @@ package fr.flwrian.Stats;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 
 /**
- * Leaderboard statistics by engine and time control
+ * Leaderboard statistics by engine and time control.
+ *
+ * Live counters are {@link LongAdder}s, so games between different engines are
+ * recorded without contending on a shared lock; only the Elo update of the two
+ * engines of a game is serialized, under per-engine locks. Readers never see the
+ * live counters: {@link #snapshot()} returns an immutable copy that is
+ * consistent (each game is either fully in it or not at all) and serializes to
+ * the same JSON as before.
  */
 public class LeaderboardStats {
-    
+    private static final int OPTIMISTIC_SNAPSHOT_ATTEMPTS = 8;
+
     /**
-     * Statistics for a specific engine
+     * Statistics for a specific engine (immutable snapshot)
      */
     public static class EngineStats {
         private String engineName;
@@ -20,77 +33,43 @@ public class LeaderboardStats {
         private double points; // 1 for win, 0.5 for draw, 0 for loss
         private int elo; // Elo rating
         private int peakElo; // Highest Elo reached
-        
+        private Double mlElo; // Maximum-likelihood rating (null until first solved)
+        private Confidence confidence; // Error margins of the score against all opponents
+
         // Stats par time control
         private Map<String, TimeControlStats> timeControlStats;
-        
-        public EngineStats(String engineName) {
+
+        EngineStats(String engineName, int wins, int draws, int losses, int elo, int peakElo, Double mlElo,
+                    Map<String, TimeControlStats> timeControlStats) {
             this.engineName = engineName;
-            this.totalGames = 0;
-            this.wins = 0;
-            this.draws = 0;
-            this.losses = 0;
-            this.points = 0.0;
-            this.elo = EloCalculator.DEFAULT_ELO;
-            this.peakElo = EloCalculator.DEFAULT_ELO;
-            this.timeControlStats = new ConcurrentHashMap<>();
-        }
-        
-        public void addWin(String timeControl) {
-            wins++;
-            totalGames++;
-            points += 1.0;
-            if (timeControl != null) {
-                getOrCreateTimeControlStats(timeControl).addWin();
-            }
-        }
-        
-        public void addDraw(String timeControl) {
-            draws++;
-            totalGames++;
-            points += 0.5;
-            if (timeControl != null) {
-                getOrCreateTimeControlStats(timeControl).addDraw();
-            }
-        }
-        
-        public void addLoss(String timeControl) {
-            losses++;
-            totalGames++;
-            if (timeControl != null) {
-                getOrCreateTimeControlStats(timeControl).addLoss();
-            }
-        }
-        
-        public void updateElo(int newElo) {
-            this.elo = newElo;
-            if (newElo > peakElo) {
-                this.peakElo = newElo;
-            }
-        }
-        
-        private TimeControlStats getOrCreateTimeControlStats(String timeControl) {
-            // Use "Unknown" as fallback if timeControl is null
-            String tc = (timeControl != null) ? timeControl : "Unknown";
-            return timeControlStats.computeIfAbsent(tc, t -> new TimeControlStats(t));
+            this.totalGames = wins + draws + losses;
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+            this.points = wins + draws * 0.5;
+            this.elo = elo;
+            this.peakElo = peakElo;
+            this.mlElo = mlElo;
+            this.confidence = Confidence.of(wins, draws, losses);
+            this.timeControlStats = Collections.unmodifiableMap(timeControlStats);
         }
-        
+
         public double getWinRate() {
             return totalGames > 0 ? (double) wins / totalGames * 100 : 0.0;
         }
-        
+
         public double getDrawRate() {
             return totalGames > 0 ? (double) draws / totalGames * 100 : 0.0;
         }
-        
+
         public double getLossRate() {
             return totalGames > 0 ? (double) losses / totalGames * 100 : 0.0;
         }
-        
+
         public double getPointsPercentage() {
             return totalGames > 0 ? points / totalGames * 100 : 0.0;
         }
-        
+
         // Getters
         public String getEngineName() { return engineName; }
         public int getTotalGames() { return totalGames; }
@@ -100,11 +79,22 @@ public class LeaderboardStats {
         public double getPoints() { return points; }
         public int getElo() { return elo; }
         public int getPeakElo() { return peakElo; }
-        public Map<String, TimeControlStats> getTimeControlStats() { return timeControlStats; }
+        public Double getMlElo() { return mlElo; }
+        public Confidence getConfidence() { return confidence; }
+
+        /**
+         * Maximum-likelihood rating when solved, else the incremental Elo.
+         */
+        public double getRating() {
+            return mlElo != null ? mlElo : elo;
+        }
+        public Map<String, TimeControlStats> getTimeControlStats() {
+            return timeControlStats != null ? timeControlStats : Collections.emptyMap();
+        }
     }
-    
+
     /**
-     * Statistics for a specific time control
+     * Statistics for a specific time control (immutable snapshot)
      */
     public static class TimeControlStats {
         private String timeControl;
@@ -112,34 +102,19 @@ public class LeaderboardStats {
         private int wins;
         private int draws;
         private int losses;
-        
-        public TimeControlStats(String timeControl) {
+
+        TimeControlStats(String timeControl, int wins, int draws, int losses) {
             this.timeControl = timeControl;
-            this.games = 0;
-            this.wins = 0;
-            this.draws = 0;
-            this.losses = 0;
-        }
-        
-        public void addWin() {
-            wins++;
-            games++;
-        }
-        
-        public void addDraw() {
-            draws++;
-            games++;
-        }
-        
-        public void addLoss() {
-            losses++;
-            games++;
-        }
-        
+            this.games = wins + draws + losses;
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+        }
+
         public double getWinRate() {
             return games > 0 ? (double) wins / games * 100 : 0.0;
         }
-        
+
         // Getters
         public String getTimeControl() { return timeControl; }
         public int getGames() { return games; }
@@ -147,117 +122,619 @@ public class LeaderboardStats {
         public int getDraws() { return draws; }
         public int getLosses() { return losses; }
     }
-    
-    private Map<String, EngineStats> engineStats;
-    
-    public LeaderboardStats() {
-        this.engineStats = new ConcurrentHashMap<>();
+
+    /**
+     * Head-to-head record of two engines, both colors combined, from engine1's side
+     */
+    public static class PairingStats {
+        private String engine1;
+        private String engine2;
+        private long games;
+        private long wins;
+        private long draws;
+        private long losses;
+        private Confidence confidence;
+
+        PairingStats(String engine1, String engine2, long wins, long draws, long losses) {
+            this.engine1 = engine1;
+            this.engine2 = engine2;
+            this.games = wins + draws + losses;
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+            this.confidence = Confidence.of(wins, draws, losses);
+        }
+
+        public String getEngine1() { return engine1; }
+        public String getEngine2() { return engine2; }
+        public long getGames() { return games; }
+        public long getWins() { return wins; }
+        public long getDraws() { return draws; }
+        public long getLosses() { return losses; }
+        public Confidence getConfidence() { return confidence; }
+    }
+
+    /**
+     * Global parameters of the last maximum-likelihood solve
+     */
+    public static class RatingModel {
+        private double whiteAdvantage;
+        private double drawElo;
+        private long games; // Games included in the solve
+        private int sweeps;
+
+        RatingModel(RatingSolver.Result result) {
+            this.whiteAdvantage = result.getWhiteAdvantage();
+            this.drawElo = result.getDrawElo();
+            this.games = result.getSequence();
+            this.sweeps = result.getSweeps();
+        }
+
+        public double getWhiteAdvantage() { return whiteAdvantage; }
+        public double getDrawElo() { return drawElo; }
+        public long getGames() { return games; }
+        public int getSweeps() { return sweeps; }
+    }
+
+    /**
+     * Consistent, immutable view of the leaderboard.
+     * Serializes as {"engineStats": {name: EngineStats}, "ratingModel": {...}}
+     * (ratingModel only once ratings have been solved).
+     */
+    public static class Snapshot {
+        private Map<String, EngineStats> engineStats;
+        private RatingModel ratingModel;
+        private transient long sequence;
+        private transient long version;
+        private transient RatingSolver.PairwiseResults pairwise;
+        private transient HeadToHeadMatrix headToHead;
+        private transient OpeningStats openings;
+
+        Snapshot(Map<String, EngineStats> engineStats, RatingModel ratingModel, long sequence, long version,
+                 RatingSolver.PairwiseResults pairwise, HeadToHeadMatrix headToHead, OpeningStats openings) {
+            this.engineStats = Collections.unmodifiableMap(engineStats);
+            this.ratingModel = ratingModel;
+            this.sequence = sequence;
+            this.version = version;
+            this.pairwise = pairwise;
+            this.headToHead = headToHead;
+            this.openings = openings;
+        }
+
+        /**
+         * Pairwise results as of this snapshot, if requested with {@link LeaderboardStats#snapshot(boolean)}.
+         */
+        public RatingSolver.PairwiseResults getPairwiseResults() {
+            return pairwise;
+        }
+
+        /**
+         * Copy of the head-to-head matrix as of this snapshot, if taken with pairwise results.
+         */
+        public HeadToHeadMatrix getHeadToHead() {
+            return headToHead;
+        }
+
+        /**
+         * Copy of the per-opening results as of this snapshot, if taken with pairwise results.
+         */
+        public OpeningStats getOpenings() {
+            return openings;
+        }
+
+        public RatingModel getRatingModel() {
+            return ratingModel;
+        }
+
+        /**
+         * Head-to-head records with error margins, engine1 sorted before engine2.
+         * Requires a snapshot taken with pairwise results.
+         * @param engine Only pairings of this engine (null for all)
+         */
+        public List<PairingStats> getPairings(String engine) {
+            if (pairwise == null) {
+                throw new IllegalStateException("Snapshot taken without pairwise results");
+            }
+            Map<String, Map<String, long[]>> records = new TreeMap<>();
+            for (int e = 0; e < pairwise.size(); e++) {
+                String white = pairwise.getWhite(e);
+                String black = pairwise.getBlack(e);
+                if (engine != null && !engine.equals(white) && !engine.equals(black)) {
+                    continue;
+                }
+                boolean whiteFirst = white.compareTo(black) < 0;
+                long[] record = records.computeIfAbsent(whiteFirst ? white : black, k -> new TreeMap<>())
+                    .computeIfAbsent(whiteFirst ? black : white, k -> new long[3]);
+                record[0] += whiteFirst ? pairwise.getWins(e) : pairwise.getLosses(e);
+                record[1] += pairwise.getDraws(e);
+                record[2] += whiteFirst ? pairwise.getLosses(e) : pairwise.getWins(e);
+            }
+            List<PairingStats> pairings = new ArrayList<>();
+            for (Map.Entry<String, Map<String, long[]>> first : records.entrySet()) {
+                for (Map.Entry<String, long[]> second : first.getValue().entrySet()) {
+                    long[] record = second.getValue();
+                    pairings.add(new PairingStats(first.getKey(), second.getKey(), record[0], record[1], record[2]));
+                }
+            }
+            return pairings;
+        }
+
+        /**
+         * Number of the last game included (games are numbered from 1 as recorded).
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * {@link LeaderboardStats#getVersion()} when the snapshot was taken: the contents are at least that recent.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public Map<String, EngineStats> getEngineStats() {
+            return engineStats != null ? engineStats : Collections.emptyMap();
+        }
+
+        /**
+         * Returns statistics sorted by rating (maximum-likelihood when solved)
+         */
+        public List<EngineStats> getLeaderboard() {
+            List<EngineStats> leaderboard = new ArrayList<>(getEngineStats().values());
+            leaderboard.sort((a, b) -> {
+                // Sort by rating (higher first)
+                int eloCompare = Double.compare(b.getRating(), a.getRating());
+                if (eloCompare != 0) return eloCompare;
+                // If same Elo, sort by points
+                int pointsCompare = Double.compare(b.getPoints(), a.getPoints());
+                if (pointsCompare != 0) return pointsCompare;
+                // If same points, sort by wins
+                int winsCompare = Integer.compare(b.getWins(), a.getWins());
+                if (winsCompare != 0) return winsCompare;
+                // Finally, sort by name
+                return a.getEngineName().compareTo(b.getEngineName());
+            });
+            return leaderboard;
+        }
+
+        /**
+         * Retourne tous les time controls utilisés
+         */
+        public Set<String> getAllTimeControls() {
+            Set<String> timeControls = new HashSet<>();
+            for (EngineStats stats : getEngineStats().values()) {
+                timeControls.addAll(stats.getTimeControlStats().keySet());
+            }
+            return timeControls;
+        }
+    }
+
+    /**
+     * Live counters of one engine
+     */
+    private static class EngineCounters {
+        final String name;
+        final ReentrantLock eloLock = new ReentrantLock();
+        final LongAdder wins = new LongAdder();
+        final LongAdder draws = new LongAdder();
+        final LongAdder losses = new LongAdder();
+        final Map<String, TimeControlCounters> timeControls = new ConcurrentHashMap<>();
+        volatile int elo = EloCalculator.DEFAULT_ELO;     // written under eloLock
+        volatile int peakElo = EloCalculator.DEFAULT_ELO; // written under eloLock
+
+        EngineCounters(String name) {
+            this.name = name;
+        }
+
+        void updateElo(int newElo) {
+            elo = newElo;
+            if (newElo > peakElo) {
+                peakElo = newElo;
+            }
+        }
+
+        TimeControlCounters timeControl(String timeControl) {
+            return timeControls.computeIfAbsent(timeControl, t -> new TimeControlCounters());
+        }
+
+        EngineStats snapshot(RatingSolver.Result ratings) {
+            Map<String, TimeControlStats> tcStats = new HashMap<>();
+            for (Map.Entry<String, TimeControlCounters> entry : timeControls.entrySet()) {
+                TimeControlCounters tc = entry.getValue();
+                tcStats.put(entry.getKey(), new TimeControlStats(entry.getKey(),
+                    tc.wins.intValue(), tc.draws.intValue(), tc.losses.intValue()));
+            }
+            double mlElo = ratings != null ? ratings.getRating(name) : Double.NaN;
+            return new EngineStats(name, wins.intValue(), draws.intValue(), losses.intValue(), elo, peakElo,
+                Double.isNaN(mlElo) ? null : Math.round(mlElo * 10) / 10.0, tcStats);
+        }
+    }
+
+    private static class TimeControlCounters {
+        final LongAdder wins = new LongAdder();
+        final LongAdder draws = new LongAdder();
+        final LongAdder losses = new LongAdder();
+    }
+
+    private static class PairCounters {
+        final LongAdder wins = new LongAdder();   // White wins
+        final LongAdder draws = new LongAdder();
+        final LongAdder losses = new LongAdder(); // White losses
     }
-    
+
+    private final Map<String, EngineCounters> engines = new ConcurrentHashMap<>();
+    // White -> black -> results, for the rating solver
+    private final Map<String, Map<String, PairCounters>> pairs = new ConcurrentHashMap<>();
+    private final HeadToHeadMatrix headToHead = new HeadToHeadMatrix();
+    private final OpeningStats openings = new OpeningStats();
+    private volatile RatingSolver.Result ratings;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    // Writers in progress = started - finished; a snapshot is consistent if none ran while it copied
+    private final LongAdder started = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private final ReentrantLock gate = new ReentrantLock();
+    private volatile boolean gateClosed;
+
     /**
      * Records game result and updates Elo ratings
+     * @return the game's sequence number
      */
-    public void recordGameResult(String whiteEngine, String blackEngine, String result, String timeControl) {
-        EngineStats whiteStats = getOrCreateEngineStats(whiteEngine);
-        EngineStats blackStats = getOrCreateEngineStats(blackEngine);
-        
-        // Update Elo ratings
-        int[] newElos = EloCalculator.updateEloRatings(whiteStats.getElo(), blackStats.getElo(), result);
-        whiteStats.updateElo(newElos[0]);
-        blackStats.updateElo(newElos[1]);
-        
-        // Update game statistics
-        switch (result) {
-            case "1-0":
-                whiteStats.addWin(timeControl);
-                blackStats.addLoss(timeControl);
-                break;
-            case "0-1":
-                whiteStats.addLoss(timeControl);
-                blackStats.addWin(timeControl);
-                break;
-            case "1/2-1/2":
-                whiteStats.addDraw(timeControl);
-                blackStats.addDraw(timeControl);
-                break;
-        }
-    }
-    
-    private EngineStats getOrCreateEngineStats(String engineName) {
-        return engineStats.computeIfAbsent(engineName, name -> new EngineStats(name));
-    }
-    
+    public long recordGameResult(String whiteEngine, String blackEngine, String result, String timeControl) {
+        return recordGameResult(whiteEngine, blackEngine, result, timeControl, null);
+    }
+
     /**
-     * Returns statistics sorted by Elo rating
+     * Records game result and updates Elo ratings.
+     * @param onRecorded Called with the game's sequence number while both engines are still locked,
+     *                   so games of the same engine reach it in rating order
+     * @return the game's sequence number
      */
-    public List<EngineStats> getLeaderboard() {
-        List<EngineStats> leaderboard = new ArrayList<>(engineStats.values());
-        leaderboard.sort((a, b) -> {
-            // Sort by Elo rating (higher first)
-            int eloCompare = Integer.compare(b.getElo(), a.getElo());
-            if (eloCompare != 0) return eloCompare;
-            // If same Elo, sort by points
-            int pointsCompare = Double.compare(b.getPoints(), a.getPoints());
-            if (pointsCompare != 0) return pointsCompare;
-            // If same points, sort by wins
-            int winsCompare = Integer.compare(b.getWins(), a.getWins());
-            if (winsCompare != 0) return winsCompare;
-            // Finally, sort by name
-            return a.getEngineName().compareTo(b.getEngineName());
-        });
-        return leaderboard;
-    }
-    
+    public long recordGameResult(String whiteEngine, String blackEngine, String result, String timeControl,
+                                 LongConsumer onRecorded) {
+        return recordGameResult(whiteEngine, blackEngine, result, timeControl, null, null, onRecorded);
+    }
+
+    /**
+     * Records a game played from an opening, possibly the second game of a pair;
+     * the pair then also goes into the pentanomial and opening pair counts.
+     * @param opening Starting position ("startpos" or a FEN), or null if unknown
+     * @param firstResult Result of the first game of the pair, played with colors reversed
+     *                    (null if this game is not the second of a pair)
+     * @param onRecorded Called with the game's sequence number while both engines are still locked,
+     *                   so games of the same engine reach it in rating order
+     * @return the game's sequence number
+     */
+    public long recordGameResult(String whiteEngine, String blackEngine, String result, String timeControl,
+                                 String opening, String firstResult, LongConsumer onRecorded) {
+        EngineCounters white = getOrCreate(whiteEngine);
+        EngineCounters black = getOrCreate(blackEngine);
+        // Lock in name order so two games of the same engines cannot deadlock
+        EngineCounters first = whiteEngine.compareTo(blackEngine) <= 0 ? white : black;
+        EngineCounters second = first == white ? black : white;
+
+        beginWrite();
+        try {
+            long number = recordLocked(white, black, first, second, result, timeControl, onRecorded);
+            // Lock-free counters: they need neither engine's lock
+            headToHead.recordGame(whiteEngine, blackEngine, result, timeControl);
+            if (firstResult != null) {
+                headToHead.recordPair(blackEngine, whiteEngine, firstResult, result, timeControl);
+            }
+            if (opening != null) {
+                openings.recordGame(opening, whiteEngine, blackEngine, result);
+                if (firstResult != null) {
+                    openings.recordPair(opening, firstResult, result);
+                }
+            }
+            version.incrementAndGet();
+            return number;
+        } finally {
+            finished.increment();
+        }
+    }
+
     /**
-     * Retourne tous les time controls utilisés
+     * Elo, W/D/L and pairwise counts of a game, under both engines' locks.
      */
-    public Set<String> getAllTimeControls() {
-        Set<String> timeControls = new HashSet<>();
-        for (EngineStats stats : engineStats.values()) {
-            timeControls.addAll(stats.getTimeControlStats().keySet());
+    private long recordLocked(EngineCounters white, EngineCounters black, EngineCounters first,
+                              EngineCounters second, String result, String timeControl, LongConsumer onRecorded) {
+        first.eloLock.lock();
+        second.eloLock.lock();
+        try {
+            // Update Elo ratings
+            int[] newElos = EloCalculator.updateEloRatings(white.elo, black.elo, result);
+            white.updateElo(newElos[0]);
+            black.updateElo(newElos[1]);
+
+            // Update game statistics
+            PairCounters pair = pair(white.name, black.name);
+            switch (result) {
+                case "1-0":
+                    addWin(white, timeControl);
+                    addLoss(black, timeControl);
+                    pair.wins.increment();
+                    break;
+                case "0-1":
+                    addLoss(white, timeControl);
+                    addWin(black, timeControl);
+                    pair.losses.increment();
+                    break;
+                case "1/2-1/2":
+                    addDraw(white, timeControl);
+                    addDraw(black, timeControl);
+                    pair.draws.increment();
+                    break;
+            }
+            long number = sequence.incrementAndGet();
+            if (onRecorded != null) {
+                onRecorded.accept(number);
+            }
+            return number;
+        } finally {
+            second.eloLock.unlock();
+            first.eloLock.unlock();
         }
-        return timeControls;
     }
-    
-    public Map<String, EngineStats> getEngineStats() {
-        return engineStats;
+
+    private static void addWin(EngineCounters engine, String timeControl) {
+        engine.wins.increment();
+        if (timeControl != null) {
+            engine.timeControl(timeControl).wins.increment();
+        }
+    }
+
+    private static void addDraw(EngineCounters engine, String timeControl) {
+        engine.draws.increment();
+        if (timeControl != null) {
+            engine.timeControl(timeControl).draws.increment();
+        }
+    }
+
+    private static void addLoss(EngineCounters engine, String timeControl) {
+        engine.losses.increment();
+        if (timeControl != null) {
+            engine.timeControl(timeControl).losses.increment();
+        }
+    }
+
+    private EngineCounters getOrCreate(String engineName) {
+        return engines.computeIfAbsent(engineName, EngineCounters::new);
+    }
+
+    private PairCounters pair(String whiteEngine, String blackEngine) {
+        return pairs.computeIfAbsent(whiteEngine, w -> new ConcurrentHashMap<>())
+            .computeIfAbsent(blackEngine, b -> new PairCounters());
+    }
+
+    /**
+     * Take a consistent snapshot without blocking writers: copy, then check that
+     * no write started or finished meanwhile. Under constant writes it falls back
+     * to briefly holding new writers at the gate while it copies.
+     */
+    public Snapshot snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Snapshot, optionally with the pairwise results taken at the same point.
+     */
+    public Snapshot snapshot(boolean withPairs) {
+        return consistentRead(() -> copy(withPairs));
     }
-    
+
     /**
-     * Merges statistics from another instance
+     * Consistent copy of the color-aware pairwise results, for the rating solver.
      */
-    public void merge(LeaderboardStats other) {
-        for (Map.Entry<String, EngineStats> entry : other.engineStats.entrySet()) {
-            String engineName = entry.getKey();
-            EngineStats otherStats = entry.getValue();
-            EngineStats thisStats = getOrCreateEngineStats(engineName);
-            
-            // Fusionner les stats globales
-            thisStats.wins += otherStats.wins;
-            thisStats.draws += otherStats.draws;
-            thisStats.losses += otherStats.losses;
-            thisStats.totalGames += otherStats.totalGames;
-            thisStats.points += otherStats.points;
-            
-            // Restore Elo from saved data (don't add, just restore)
-            if (otherStats.elo > 0) {
-                thisStats.elo = otherStats.elo;
+    public RatingSolver.PairwiseResults pairwiseResults() {
+        return consistentRead(this::copyPairs);
+    }
+
+    private <T> T consistentRead(Supplier<T> copier) {
+        for (int attempt = 0; attempt < OPTIMISTIC_SNAPSHOT_ATTEMPTS; attempt++) {
+            long before = finished.sum();
+            T copy = copier.get();
+            if (started.sum() == before) {
+                return copy;
             }
-            if (otherStats.peakElo > thisStats.peakElo) {
-                thisStats.peakElo = otherStats.peakElo;
+            Thread.onSpinWait();
+        }
+        gate.lock();
+        try {
+            gateClosed = true;
+            while (started.sum() != finished.sum()) {
+                Thread.onSpinWait();
             }
-            
-            // Fusionner les stats par time control
-            for (Map.Entry<String, TimeControlStats> tcEntry : otherStats.timeControlStats.entrySet()) {
-                String tc = tcEntry.getKey();
-                TimeControlStats otherTcStats = tcEntry.getValue();
-                TimeControlStats thisTcStats = thisStats.getOrCreateTimeControlStats(tc);
-                
-                thisTcStats.wins += otherTcStats.wins;
-                thisTcStats.draws += otherTcStats.draws;
-                thisTcStats.losses += otherTcStats.losses;
-                thisTcStats.games += otherTcStats.games;
+            return copier.get();
+        } finally {
+            gateClosed = false;
+            gate.unlock();
+        }
+    }
+
+    private Snapshot copy(boolean withPairs) {
+        long changes = version.get();
+        long number = sequence.get();
+        RatingSolver.Result solved = ratings;
+        Map<String, EngineStats> copy = new HashMap<>();
+        for (EngineCounters engine : engines.values()) {
+            copy.put(engine.name, engine.snapshot(solved));
+        }
+        return new Snapshot(copy, solved != null ? new RatingModel(solved) : null, number, changes,
+            withPairs ? copyPairs() : null, withPairs ? headToHead.copy() : null,
+            withPairs ? openings.copy() : null);
+    }
+
+    private RatingSolver.PairwiseResults copyPairs() {
+        long number = sequence.get();
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> index = new HashMap<>();
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<String, Map<String, PairCounters>> byWhite : pairs.entrySet()) {
+            for (Map.Entry<String, PairCounters> byBlack : byWhite.getValue().entrySet()) {
+                PairCounters counters = byBlack.getValue();
+                long w = counters.wins.sum();
+                long d = counters.draws.sum();
+                long l = counters.losses.sum();
+                if (w + d + l == 0) {
+                    continue;
+                }
+                int white = index.computeIfAbsent(byWhite.getKey(), name -> { names.add(name); return names.size() - 1; });
+                int black = index.computeIfAbsent(byBlack.getKey(), name -> { names.add(name); return names.size() - 1; });
+                entries.add(new long[]{white, black, w, d, l});
+            }
+        }
+        int size = entries.size();
+        int[] white = new int[size];
+        int[] black = new int[size];
+        long[] wins = new long[size];
+        long[] draws = new long[size];
+        long[] losses = new long[size];
+        for (int e = 0; e < size; e++) {
+            long[] entry = entries.get(e);
+            white[e] = (int) entry[0];
+            black[e] = (int) entry[1];
+            wins[e] = entry[2];
+            draws[e] = entry[3];
+            losses[e] = entry[4];
+        }
+        return new RatingSolver.PairwiseResults(names.toArray(new String[0]), white, black, wins, draws, losses, number);
+    }
+
+    /**
+     * Latest maximum-likelihood ratings, shown in later snapshots.
+     */
+    public void setRatings(RatingSolver.Result ratings) {
+        this.ratings = ratings;
+        version.incrementAndGet();
+    }
+
+    public RatingSolver.Result getRatings() {
+        return ratings;
+    }
+
+    /**
+     * Live head-to-head matrix (internally consistent, but not necessarily
+     * at the same point as a snapshot; use {@link Snapshot#getHeadToHead()} for that).
+     */
+    public HeadToHeadMatrix getHeadToHead() {
+        return headToHead;
+    }
+
+    /**
+     * Live per-opening results (same caveat as {@link #getHeadToHead()}).
+     */
+    public OpeningStats getOpenings() {
+        return openings;
+    }
+
+    private void beginWrite() {
+        while (true) {
+            started.increment();
+            if (!gateClosed) {
+                return;
+            }
+            // A snapshot is waiting for writers to drain: back out until it is done
+            finished.increment();
+            gate.lock();
+            gate.unlock();
+        }
+    }
+
+    /**
+     * Number of the last recorded game.
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Incremented by every change (games, solved ratings, merges, clear); equal versions mean equal contents.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Continue numbering games after the given sequence (restored from a saved snapshot).
+     */
+    public void advanceSequence(long number) {
+        sequence.accumulateAndGet(number, Math::max);
+    }
+
+    /**
+     * Removes every engine
+     */
+    public void clear() {
+        beginWrite();
+        try {
+            engines.clear();
+            pairs.clear();
+            headToHead.clear();
+            openings.clear();
+            ratings = null;
+            version.incrementAndGet();
+        } finally {
+            finished.increment();
+        }
+    }
+
+    /**
+     * Adds saved pairwise results (white's wins, draws and losses against black)
+     */
+    public void mergePair(String whiteEngine, String blackEngine, long wins, long draws, long losses) {
+        beginWrite();
+        try {
+            PairCounters pair = pair(whiteEngine, blackEngine);
+            pair.wins.add(wins);
+            pair.draws.add(draws);
+            pair.losses.add(losses);
+            version.incrementAndGet();
+        } finally {
+            finished.increment();
+        }
+    }
+
+    /**
+     * Merges statistics from a saved snapshot
+     */
+    public void merge(Snapshot other) {
+        beginWrite();
+        try {
+            for (Map.Entry<String, EngineStats> entry : other.getEngineStats().entrySet()) {
+                EngineStats otherStats = entry.getValue();
+                EngineCounters thisStats = getOrCreate(entry.getKey());
+                thisStats.eloLock.lock();
+                try {
+                    // Fusionner les stats globales
+                    thisStats.wins.add(otherStats.getWins());
+                    thisStats.draws.add(otherStats.getDraws());
+                    thisStats.losses.add(otherStats.getLosses());
+
+                    // Restore Elo from saved data (don't add, just restore)
+                    if (otherStats.getElo() > 0) {
+                        thisStats.elo = otherStats.getElo();
+                    }
+                    if (otherStats.getPeakElo() > thisStats.peakElo) {
+                        thisStats.peakElo = otherStats.getPeakElo();
+                    }
+                } finally {
+                    thisStats.eloLock.unlock();
+                }
+
+                // Fusionner les stats par time control
+                for (Map.Entry<String, TimeControlStats> tcEntry : otherStats.getTimeControlStats().entrySet()) {
+                    TimeControlStats otherTcStats = tcEntry.getValue();
+                    TimeControlCounters thisTcStats = thisStats.timeControl(tcEntry.getKey());
+                    thisTcStats.wins.add(otherTcStats.getWins());
+                    thisTcStats.draws.add(otherTcStats.getDraws());
+                    thisTcStats.losses.add(otherTcStats.getLosses());
+                }
             }
+            version.incrementAndGet();
+        } finally {
+            finished.increment();
         }
     }
 }
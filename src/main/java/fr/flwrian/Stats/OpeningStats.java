@@ -0,0 +1,300 @@
+package fr.flwrian.Stats;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results by starting position, to find book lines that are unbalanced or uninformative.
+ *
+ * Openings are keyed by a 64-bit hash of the position part of the FEN (board,
+ * side to move, castling, en passant), so move counters and "startpos" versus
+ * its FEN do not split an opening. Each opening counts W/D/L from white's side,
+ * the performance of every engine that played it, and game pairs. With at
+ * least {@value #MIN_PAIRS_TO_FLAG} complete pairs, an opening is flagged when
+ * every pair was drawn twice ({@code always_drawn}) or every pair was won
+ * twice by the same color ({@code color_decided}): either way the engines'
+ * strength did not change the outcome.
+ *
+ * Counters are {@link LongAdder}s in concurrent maps, so recording never
+ * locks and readers never hold recorders up; {@link #copy()} gives readers
+ * counts that no longer move.
+ */
+public class OpeningStats {
+    static final int MIN_PAIRS_TO_FLAG = 4;
+    static final String STARTPOS_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    public static final String ALWAYS_DRAWN = "always_drawn";
+    public static final String COLOR_DECIDED = "color_decided";
+
+    private final Map<Long, Counters> openings = new ConcurrentHashMap<>();
+
+    private static class Counters {
+        final String fen;
+        final LongAdder whiteWins = new LongAdder();
+        final LongAdder draws = new LongAdder();
+        final LongAdder blackWins = new LongAdder();
+        final LongAdder pairs = new LongAdder();
+        final LongAdder drawnPairs = new LongAdder();  // Both games drawn
+        final LongAdder colorPairs = new LongAdder();  // Same color won both games
+        final Map<String, AtomicLongArray> engines = new ConcurrentHashMap<>(); // Engine -> {wins, draws, losses}
+
+        Counters(String fen) {
+            this.fen = fen;
+        }
+
+        Counters copy() {
+            Counters copy = new Counters(fen);
+            copy.whiteWins.add(whiteWins.sum());
+            copy.draws.add(draws.sum());
+            copy.blackWins.add(blackWins.sum());
+            copy.pairs.add(pairs.sum());
+            copy.drawnPairs.add(drawnPairs.sum());
+            copy.colorPairs.add(colorPairs.sum());
+            engines.forEach((engine, wdl) -> copy.engines.put(engine,
+                new AtomicLongArray(new long[]{wdl.get(0), wdl.get(1), wdl.get(2)})));
+            return copy;
+        }
+
+        AtomicLongArray engine(String name) {
+            AtomicLongArray wdl = engines.get(name);
+            return wdl != null ? wdl : engines.computeIfAbsent(name, n -> new AtomicLongArray(3));
+        }
+    }
+
+    /**
+     * Summary of one opening (immutable)
+     */
+    public static class Opening {
+        private String key;
+        private String fen;
+        private long games;
+        private long whiteWins;
+        private long draws;
+        private long blackWins;
+        private double whiteScore;
+        private long pairs;
+        private long drawnPairs;
+        private long colorDecidedPairs;
+        private String flag;
+        private Map<String, Performance> engines;
+
+        Opening(long key, Counters counters) {
+            this.key = Long.toHexString(key);
+            this.fen = counters.fen;
+            this.whiteWins = counters.whiteWins.sum();
+            this.draws = counters.draws.sum();
+            this.blackWins = counters.blackWins.sum();
+            this.games = whiteWins + draws + blackWins;
+            this.whiteScore = games > 0 ? Math.round((whiteWins + draws * 0.5) / games * 10000) / 10000.0 : 0;
+            this.pairs = counters.pairs.sum();
+            this.drawnPairs = counters.drawnPairs.sum();
+            this.colorDecidedPairs = counters.colorPairs.sum();
+            if (pairs >= MIN_PAIRS_TO_FLAG && drawnPairs == pairs) {
+                this.flag = ALWAYS_DRAWN;
+            } else if (pairs >= MIN_PAIRS_TO_FLAG && colorDecidedPairs == pairs) {
+                this.flag = COLOR_DECIDED;
+            }
+            Map<String, Performance> performances = new TreeMap<>();
+            counters.engines.forEach((engine, wdl) ->
+                performances.put(engine, new Performance(wdl.get(0), wdl.get(1), wdl.get(2))));
+            this.engines = Collections.unmodifiableMap(performances);
+        }
+
+        public String getKey() { return key; }
+        public String getFen() { return fen; }
+        public long getGames() { return games; }
+        public long getWhiteWins() { return whiteWins; }
+        public long getDraws() { return draws; }
+        public long getBlackWins() { return blackWins; }
+        public double getWhiteScore() { return whiteScore; }
+        public long getPairs() { return pairs; }
+        public long getDrawnPairs() { return drawnPairs; }
+        public long getColorDecidedPairs() { return colorDecidedPairs; }
+        /** {@link #ALWAYS_DRAWN}, {@link #COLOR_DECIDED} or null. */
+        public String getFlag() { return flag; }
+        public Map<String, Performance> getEngines() { return engines; }
+    }
+
+    /**
+     * One engine's results in an opening (both colors)
+     */
+    public static class Performance {
+        private long games;
+        private long wins;
+        private long draws;
+        private long losses;
+        private double score;
+
+        Performance(long wins, long draws, long losses) {
+            this.games = wins + draws + losses;
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+            this.score = games > 0 ? Math.round((wins + draws * 0.5) / games * 10000) / 10000.0 : 0;
+        }
+
+        public long getGames() { return games; }
+        public long getWins() { return wins; }
+        public long getDraws() { return draws; }
+        public long getLosses() { return losses; }
+        public double getScore() { return score; }
+    }
+
+    /**
+     * FNV-1a hash of the board, side to move, castling and en passant fields.
+     */
+    public static long positionKey(String fen) {
+        String[] fields = normalize(fen).split(" ");
+        long hash = 0xcbf29ce484222325L;
+        for (int f = 0; f < Math.min(4, fields.length); f++) {
+            String field = f > 0 ? " " + fields[f] : fields[f];
+            for (int i = 0; i < field.length(); i++) {
+                hash ^= field.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    private static String normalize(String fen) {
+        return fen == null || "startpos".equals(fen) ? STARTPOS_FEN : fen.trim();
+    }
+
+    /**
+     * Count one game played from the opening.
+     */
+    public void recordGame(String fen, String whiteEngine, String blackEngine, String result) {
+        Counters opening = opening(fen);
+        switch (result) {
+            case "1-0":
+                opening.whiteWins.increment();
+                opening.engine(whiteEngine).incrementAndGet(0);
+                opening.engine(blackEngine).incrementAndGet(2);
+                break;
+            case "1/2-1/2":
+                opening.draws.increment();
+                opening.engine(whiteEngine).incrementAndGet(1);
+                opening.engine(blackEngine).incrementAndGet(1);
+                break;
+            case "0-1":
+                opening.blackWins.increment();
+                opening.engine(whiteEngine).incrementAndGet(2);
+                opening.engine(blackEngine).incrementAndGet(0);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Count a complete pair (both results from white's side).
+     */
+    public void recordPair(String fen, String firstResult, String secondResult) {
+        Counters opening = opening(fen);
+        opening.pairs.increment();
+        if ("1/2-1/2".equals(firstResult) && "1/2-1/2".equals(secondResult)) {
+            opening.drawnPairs.increment();
+        } else if (firstResult.equals(secondResult) && !"1/2-1/2".equals(firstResult)) {
+            opening.colorPairs.increment();
+        }
+    }
+
+    private Counters opening(String fen) {
+        long key = positionKey(fen);
+        Counters counters = openings.get(key);
+        return counters != null ? counters : openings.computeIfAbsent(key, k -> new Counters(normalize(fen)));
+    }
+
+    /**
+     * Openings with their engine performances, most played first.
+     * @param flaggedOnly Only openings flagged for pruning
+     * @param engine Only openings this engine played (null for all)
+     */
+    public List<Opening> getOpenings(boolean flaggedOnly, String engine) {
+        List<Opening> result = new ArrayList<>();
+        for (Map.Entry<Long, Counters> entry : openings.entrySet()) {
+            if (engine != null && !entry.getValue().engines.containsKey(engine)) {
+                continue;
+            }
+            Opening opening = new Opening(entry.getKey(), entry.getValue());
+            if (!flaggedOnly || opening.getFlag() != null) {
+                result.add(opening);
+            }
+        }
+        result.sort(Comparator.comparingLong(Opening::getGames).reversed().thenComparing(Opening::getFen));
+        return result;
+    }
+
+    public int size() {
+        return openings.size();
+    }
+
+    /**
+     * Counts as JSON, for persistence.
+     */
+    public JsonArray toJson() {
+        JsonArray array = new JsonArray();
+        for (Counters counters : openings.values()) {
+            JsonObject opening = new JsonObject();
+            opening.addProperty("fen", counters.fen);
+            opening.addProperty("whiteWins", counters.whiteWins.sum());
+            opening.addProperty("draws", counters.draws.sum());
+            opening.addProperty("blackWins", counters.blackWins.sum());
+            opening.addProperty("pairs", counters.pairs.sum());
+            opening.addProperty("drawnPairs", counters.drawnPairs.sum());
+            opening.addProperty("colorPairs", counters.colorPairs.sum());
+            JsonObject engines = new JsonObject();
+            new TreeMap<>(counters.engines).forEach((engine, wdl) -> {
+                JsonArray counts = new JsonArray();
+                for (int k = 0; k < 3; k++) {
+                    counts.add(wdl.get(k));
+                }
+                engines.add(engine, counts);
+            });
+            opening.add("engines", engines);
+            array.add(opening);
+        }
+        return array;
+    }
+
+    /**
+     * Adds counts saved with {@link #toJson()}.
+     */
+    public void merge(JsonArray saved) {
+        for (JsonElement element : saved) {
+            JsonObject opening = element.getAsJsonObject();
+            Counters counters = opening(opening.get("fen").getAsString());
+            counters.whiteWins.add(opening.get("whiteWins").getAsLong());
+            counters.draws.add(opening.get("draws").getAsLong());
+            counters.blackWins.add(opening.get("blackWins").getAsLong());
+            counters.pairs.add(opening.get("pairs").getAsLong());
+            counters.drawnPairs.add(opening.get("drawnPairs").getAsLong());
+            counters.colorPairs.add(opening.get("colorPairs").getAsLong());
+            for (Map.Entry<String, JsonElement> engine : opening.getAsJsonObject("engines").entrySet()) {
+                AtomicLongArray wdl = counters.engine(engine.getKey());
+                JsonArray counts = engine.getValue().getAsJsonArray();
+                for (int k = 0; k < 3; k++) {
+                    wdl.addAndGet(k, counts.get(k).getAsLong());
+                }
+            }
+        }
+    }
+
+    /**
+     * Independent copy of the current counts.
+     */
+    public OpeningStats copy() {
+        OpeningStats copy = new OpeningStats();
+        openings.forEach((key, counters) -> copy.openings.put(key, counters.copy()));
+        return copy;
+    }
+
+    public void clear() {
+        openings.clear();
+    }
+}
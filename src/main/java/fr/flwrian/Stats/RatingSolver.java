@@ -0,0 +1,239 @@
+package fr.flwrian.Stats;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Order-independent maximum-likelihood ratings (BayesElo model).
+ *
+ * For white i against black j, with x = r_i - r_j + whiteAdvantage:
+ *   P(white wins) = F(x - drawElo)
+ *   P(black wins) = F(-x - drawElo)
+ *   P(draw)       = 1 - P(white wins) - P(black wins)
+ * where F(z) = 1 / (1 + 10^(-z/400)). Ratings, white advantage and draw Elo
+ * are fitted together over the pairwise W/D/L counts by Gauss-Seidel Fisher
+ * scoring: one engine at a time, then the two global parameters, until no
+ * rating moves by more than {@value #TOLERANCE} Elo. A weak Gaussian prior
+ * (sd {@value #PRIOR_SD} Elo) keeps unbeaten engines finite. Ratings are
+ * reported with their mean at {@link EloCalculator#DEFAULT_ELO}.
+ *
+ * Solving from the previous result ({@link #solve(PairwiseResults, Result)})
+ * converges in a few sweeps when only a few games were added.
+ */
+public class RatingSolver {
+    static final double TOLERANCE = 0.01;
+    static final double PRIOR_SD = 1000;
+    private static final int MAX_SWEEPS = 500;
+    private static final double C = Math.log(10) / 400;
+    private static final double MAX_STEP = 200;
+    private static final double INITIAL_DRAW_ELO = 97.3;     // BayesElo defaults
+    private static final double INITIAL_WHITE_ADVANTAGE = 32.8;
+
+    /**
+     * Color-aware result counts, one entry per (white, black) pair that has played.
+     */
+    public static class PairwiseResults {
+        final String[] engines;
+        final int[] white;
+        final int[] black;
+        final long[] wins;   // White wins
+        final long[] draws;
+        final long[] losses; // White losses
+        final long sequence;
+
+        public PairwiseResults(String[] engines, int[] white, int[] black, long[] wins, long[] draws, long[] losses, long sequence) {
+            this.engines = engines;
+            this.white = white;
+            this.black = black;
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+            this.sequence = sequence;
+        }
+
+        public String[] getEngines() { return engines.clone(); }
+        public int size() { return white.length; }
+        public String getWhite(int entry) { return engines[white[entry]]; }
+        public String getBlack(int entry) { return engines[black[entry]]; }
+        public long getWins(int entry) { return wins[entry]; }
+        public long getDraws(int entry) { return draws[entry]; }
+        public long getLosses(int entry) { return losses[entry]; }
+        public long getSequence() { return sequence; }
+    }
+
+    /**
+     * Fitted ratings.
+     */
+    public static class Result {
+        private final String[] engines;
+        private final double[] ratings;
+        private final double whiteAdvantage;
+        private final double drawElo;
+        private final int sweeps;
+        private final long sequence;
+        private final Map<String, Integer> index = new HashMap<>();
+
+        Result(String[] engines, double[] ratings, double whiteAdvantage, double drawElo, int sweeps, long sequence) {
+            this.engines = engines;
+            this.ratings = ratings;
+            this.whiteAdvantage = whiteAdvantage;
+            this.drawElo = drawElo;
+            this.sweeps = sweeps;
+            this.sequence = sequence;
+            for (int i = 0; i < engines.length; i++) {
+                index.put(engines[i], i);
+            }
+        }
+
+        /**
+         * Rating of an engine, or NaN if it has no rated games.
+         */
+        public double getRating(String engine) {
+            Integer i = index.get(engine);
+            return i != null ? ratings[i] : Double.NaN;
+        }
+
+        public String[] getEngines() { return engines.clone(); }
+        public double getWhiteAdvantage() { return whiteAdvantage; }
+        public double getDrawElo() { return drawElo; }
+        public int getSweeps() { return sweeps; }
+        /** Number of the last game included. */
+        public long getSequence() { return sequence; }
+    }
+
+    /**
+     * Solve from scratch.
+     */
+    public static Result solve(PairwiseResults games) {
+        return solve(games, null);
+    }
+
+    /**
+     * Solve, starting from a previous result (engines missing from it start at the mean).
+     */
+    public static Result solve(PairwiseResults games, Result previous) {
+        int n = games.engines.length;
+        double[] r = new double[n];
+        double adv = INITIAL_WHITE_ADVANTAGE;
+        double drawElo = INITIAL_DRAW_ELO;
+        if (previous != null) {
+            for (int i = 0; i < n; i++) {
+                double rating = previous.getRating(games.engines[i]);
+                r[i] = Double.isNaN(rating) ? 0 : rating - EloCalculator.DEFAULT_ELO;
+            }
+            adv = previous.whiteAdvantage;
+            drawElo = previous.drawElo;
+        }
+
+        // Entries of each engine, so one engine's update only touches its own games
+        int[] degree = new int[n];
+        for (int e = 0; e < games.size(); e++) {
+            degree[games.white[e]]++;
+            degree[games.black[e]]++;
+        }
+        int[][] adjacency = new int[n][];
+        for (int i = 0; i < n; i++) {
+            adjacency[i] = new int[degree[i]];
+        }
+        Arrays.fill(degree, 0);
+        for (int e = 0; e < games.size(); e++) {
+            adjacency[games.white[e]][degree[games.white[e]]++] = e;
+            adjacency[games.black[e]][degree[games.black[e]]++] = e;
+        }
+
+        double[] d = new double[5];
+        int sweep = 0;
+        double maxChange = Double.MAX_VALUE;
+        while (sweep < MAX_SWEEPS && maxChange > TOLERANCE) {
+            sweep++;
+            maxChange = 0;
+            for (int i = 0; i < n; i++) {
+                // Prior: N(0, PRIOR_SD^2)
+                double gradient = -r[i] / (PRIOR_SD * PRIOR_SD);
+                double fisher = 1 / (PRIOR_SD * PRIOR_SD);
+                for (int e : adjacency[i]) {
+                    derivatives(r[games.white[e]] - r[games.black[e]] + adv, drawElo,
+                        games.wins[e], games.draws[e], games.losses[e], d);
+                    gradient += games.white[e] == i ? d[0] : -d[0];
+                    fisher += d[1];
+                }
+                double step = clamp(gradient / fisher);
+                r[i] += step;
+                maxChange = Math.max(maxChange, Math.abs(step));
+            }
+
+            // White advantage and draw Elo from all games
+            double gAdv = 0;
+            double fAdv = 0;
+            double gDraw = 0;
+            double fDraw = 0;
+            for (int e = 0; e < games.size(); e++) {
+                derivatives(r[games.white[e]] - r[games.black[e]] + adv, drawElo,
+                    games.wins[e], games.draws[e], games.losses[e], d);
+                gAdv += d[0];
+                fAdv += d[1];
+                gDraw += d[2];
+                fDraw += d[3];
+            }
+            if (fAdv > 0) {
+                double step = clamp(gAdv / fAdv);
+                adv += step;
+                maxChange = Math.max(maxChange, Math.abs(step));
+            }
+            if (fDraw > 0) {
+                double step = clamp(gDraw / fDraw);
+                double next = Math.max(0, Math.min(1000, drawElo + step));
+                maxChange = Math.max(maxChange, Math.abs(next - drawElo));
+                drawElo = next;
+            }
+        }
+
+        double mean = 0;
+        for (double rating : r) {
+            mean += rating;
+        }
+        mean = n > 0 ? mean / n : 0;
+        for (int i = 0; i < n; i++) {
+            r[i] = r[i] - mean + EloCalculator.DEFAULT_ELO;
+        }
+        return new Result(games.engines.clone(), r, adv, drawElo, sweep, games.sequence);
+    }
+
+    /**
+     * Log-likelihood derivatives of one (white, black) entry.
+     * out[0] = dL/dx, out[1] = Fisher information in x,
+     * out[2] = dL/dDrawElo, out[3] = Fisher information in drawElo.
+     */
+    static void derivatives(double x, double drawElo, long wins, long draws, long losses, double[] out) {
+        double fw = logistic(x - drawElo);
+        double fl = logistic(-x - drawElo);
+        double pw = fw;
+        double pl = fl;
+        double pd = Math.max(1e-12, 1 - pw - pl);
+        long n = wins + draws + losses;
+
+        // Derivatives of each outcome probability
+        double sw = C * fw * (1 - fw);
+        double sl = C * fl * (1 - fl);
+        double dpwx = sw;
+        double dplx = -sl;
+        double dpdx = -dpwx - dplx;
+        double dpwd = -sw;
+        double dpld = -sl;
+        double dpdd = -dpwd - dpld;
+
+        out[0] = wins * dpwx / pw + losses * dplx / pl + draws * dpdx / pd;
+        out[1] = n * (dpwx * dpwx / pw + dplx * dplx / pl + dpdx * dpdx / pd);
+        out[2] = wins * dpwd / pw + losses * dpld / pl + draws * dpdd / pd;
+        out[3] = n * (dpwd * dpwd / pw + dpld * dpld / pl + dpdd * dpdd / pd);
+    }
+
+    private static double logistic(double elo) {
+        return 1 / (1 + Math.exp(-C * elo));
+    }
+
+    private static double clamp(double step) {
+        return Math.max(-MAX_STEP, Math.min(MAX_STEP, step));
+    }
+}
@@ -0,0 +1,164 @@
+package fr.flwrian.Stats;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only JSON-lines journal of rated game results.
+ *
+ * Every record carries a sequence number, so a snapshot that remembers the last
+ * sequence it contains can be combined with the journal without counting a game
+ * twice, even if the process dies between writing the snapshot and truncating
+ * the journal. Appends go to the OS immediately (a crashed JVM loses nothing);
+ * the caller decides when to {@link #sync()} them to disk.
+ */
+public class ResultJournal implements AutoCloseable {
+    private static final Gson gson = new Gson();
+
+    private final Path file;
+    private FileOutputStream out;
+    private boolean unsynced;
+
+    /**
+     * One journaled game.
+     */
+    public static class Entry {
+        private final long sequence;
+        private final String white;
+        private final String black;
+        private final String result;
+        private final String timeControl;
+        private final String opening;
+        private final String firstResult;
+
+        Entry(long sequence, String white, String black, String result, String timeControl, String opening,
+              String firstResult) {
+            this.sequence = sequence;
+            this.white = white;
+            this.black = black;
+            this.result = result;
+            this.timeControl = timeControl;
+            this.opening = opening;
+            this.firstResult = firstResult;
+        }
+
+        public long getSequence() { return sequence; }
+        public String getWhite() { return white; }
+        public String getBlack() { return black; }
+        public String getResult() { return result; }
+        public String getTimeControl() { return timeControl; }
+        /** Starting position, or null if unknown. */
+        public String getOpening() { return opening; }
+        /** Result of the first game of the pair this game completes, or null. */
+        public String getFirstResult() { return firstResult; }
+    }
+
+    /**
+     * @param file Journal file (created if missing)
+     */
+    public ResultJournal(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.out = new FileOutputStream(file.toFile(), true);
+    }
+
+    /**
+     * Read every complete record, dropping a torn last line left by a crash.
+     */
+    public synchronized List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        int valid = 0;
+        while (valid < content.length()) {
+            int end = content.indexOf('\n', valid);
+            if (end < 0) {
+                break;
+            }
+            try {
+                JsonObject record = gson.fromJson(content.substring(valid, end), JsonObject.class);
+                if (record != null) {
+                    entries.add(new Entry(record.get("seq").getAsLong(), record.get("white").getAsString(),
+                        record.get("black").getAsString(), record.get("result").getAsString(),
+                        record.has("tc") ? record.get("tc").getAsString() : null,
+                        record.has("fen") ? record.get("fen").getAsString() : null,
+                        record.has("first") ? record.get("first").getAsString() : null));
+                }
+            } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+                break;
+            }
+            valid = end + 1;
+        }
+        if (valid < content.length()) {
+            // Drop the torn tail so new records start on a clean line
+            out.close();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(content.substring(0, valid).getBytes(StandardCharsets.UTF_8).length);
+            }
+            out = new FileOutputStream(file.toFile(), true);
+        }
+        return entries;
+    }
+
+    /**
+     * Append a game result (not yet synced).
+     * @param opening Starting position, or null if unknown
+     * @param firstResult Result of the first game of the pair this game completes, or null
+     */
+    public synchronized void append(long sequence, String white, String black, String result, String timeControl,
+                                    String opening, String firstResult) throws IOException {
+        JsonObject record = new JsonObject();
+        record.addProperty("seq", sequence);
+        record.addProperty("white", white);
+        record.addProperty("black", black);
+        record.addProperty("result", result);
+        if (timeControl != null) {
+            record.addProperty("tc", timeControl);
+        }
+        if (opening != null) {
+            record.addProperty("fen", opening);
+        }
+        if (firstResult != null) {
+            record.addProperty("first", firstResult);
+        }
+        out.write((gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8));
+        unsynced = true;
+    }
+
+    /**
+     * Force appended records to disk.
+     */
+    public synchronized void sync() throws IOException {
+        if (unsynced) {
+            out.getFD().sync();
+            unsynced = false;
+        }
+    }
+
+    /**
+     * Drop every record; called once a snapshot holds them all.
+     */
+    public synchronized void truncate() throws IOException {
+        out.getChannel().truncate(0);
+        out.getFD().sync();
+        unsynced = false;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        out.close();
+    }
+}
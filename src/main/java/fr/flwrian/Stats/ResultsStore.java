@@ -0,0 +1,472 @@
+package fr.flwrian.Stats;
+
+import fr.flwrian.Result.GameResult;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented store of every finished game, for analytics over millions of games.
+ *
+ * Games are appended to fixed-size segment files (segment-NNNNNN.col), each
+ * memory-mapped and laid out column after column:
+ *
+ *   header (64 bytes): int magic, int version, int capacity, int rows
+ *   sequence long[cap] | timestamp long[cap] | white int[cap] | black int[cap] | tc short[cap] |
+ *   opening long[cap] | result byte[cap] | reason byte[cap] | plies short[cap] | duration int[cap] |
+ *   whiteDepth float[cap] | blackDepth float[cap] | whiteNps long[cap] | blackNps long[cap]
+ *
+ * Engines, time controls and reasons are stored as IDs into append-only
+ * dictionaries (engines.txt, time_controls.txt, reasons.txt); openings as their
+ * {@link OpeningStats#positionKey(String) position hash}. The row count in the
+ * header is written after the row, so a crash never exposes a partial row.
+ *
+ * {@link #aggregate(GroupBy, long, long)} scans the columns it needs in
+ * parallel chunks and merges the partial sums.
+ */
+public class ResultsStore implements AutoCloseable {
+    static final int SEGMENT_ROWS = 1 << 16;
+    private static final int MAGIC = 0x454C4352; // "ELCR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int ROWS_OFFSET = 12;
+    private static final int CHUNK_ROWS = 1 << 14;
+
+    // Result codes, from white's side
+    static final byte WHITE_WIN = 0;
+    static final byte DRAW = 1;
+    static final byte BLACK_WIN = 2;
+    static final byte UNFINISHED = 3;
+
+    /**
+     * Columns in file order, with their width in bytes.
+     */
+    enum Column {
+        SEQUENCE(8), TIMESTAMP(8), WHITE(4), BLACK(4), TIME_CONTROL(2), OPENING(8), RESULT(1), REASON(1),
+        PLIES(2), DURATION(4), WHITE_DEPTH(4), BLACK_DEPTH(4), WHITE_NPS(8), BLACK_NPS(8);
+
+        final int width;
+
+        Column(int width) {
+            this.width = width;
+        }
+    }
+
+    public enum GroupBy { ENGINE, TIME_CONTROL, OPENING, DAY }
+
+    private final Path directory;
+    private final int segmentRows;
+    private final Dictionary engines;
+    private final Dictionary timeControls;
+    private final Dictionary reasons;
+    private final List<Segment> segments = new ArrayList<>();
+    private int firstDirty = -1; // First segment written since the last sync (-1 if none)
+
+    /**
+     * One mapped segment file.
+     */
+    private static class Segment {
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        final int[] offsets = new int[Column.values().length];
+        volatile int rows;
+
+        Segment(Path file, int capacity, boolean create) throws IOException {
+            this.capacity = capacity;
+            int size = HEADER_SIZE;
+            for (Column column : Column.values()) {
+                offsets[column.ordinal()] = size;
+                size += column.width * capacity;
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (create) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, capacity);
+                buffer.putInt(ROWS_OFFSET, 0);
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != capacity) {
+                channel.close();
+                throw new IOException("Not a results segment: " + file);
+            }
+            this.rows = buffer.getInt(ROWS_OFFSET);
+        }
+
+        int at(Column column, int row) {
+            return offsets[column.ordinal()] + row * column.width;
+        }
+    }
+
+    /**
+     * Append-only string table; IDs are line numbers.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final FileOutputStream out;
+        private final int limit;
+
+        Dictionary(Path file, int limit) throws IOException {
+            this.limit = limit;
+            if (Files.exists(file)) {
+                for (String name : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    ids.put(name, names.size());
+                    names.add(name);
+                }
+            }
+            this.out = new FileOutputStream(file.toFile(), true);
+        }
+
+        /**
+         * ID of a name, added if new (the last ID is shared once the limit is reached).
+         */
+        synchronized int id(String name) throws IOException {
+            Integer id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (names.size() == limit - 1) {
+                name = "other";
+                id = ids.get(name);
+                if (id != null) {
+                    return id;
+                }
+            }
+            out.write((name + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            ids.put(name, names.size());
+            names.add(name);
+            return names.size() - 1;
+        }
+
+        synchronized String name(int id) {
+            return id < names.size() ? names.get(id) : "?";
+        }
+    }
+
+    /**
+     * One group of an aggregation (engine results are from that engine's side,
+     * other groupings from white's side).
+     */
+    public static class Aggregate {
+        private final String key;
+        private final long games;
+        private final long wins;
+        private final long draws;
+        private final long losses;
+        private final double score;
+        private final double avgPlies;
+        private final double avgDurationMs;
+        private final double avgDepth;
+        private final double avgNps;
+
+        Aggregate(String key, double[] sums) {
+            this.key = key;
+            this.games = (long) sums[0];
+            this.wins = (long) sums[1];
+            this.draws = (long) sums[2];
+            this.losses = (long) sums[3];
+            long decided = wins + draws + losses;
+            this.score = decided > 0 ? round((wins + draws * 0.5) / decided) : 0;
+            this.avgPlies = games > 0 ? round(sums[4] / games) : 0;
+            this.avgDurationMs = games > 0 ? round(sums[5] / games) : 0;
+            this.avgDepth = sums[7] > 0 ? round(sums[6] / sums[7]) : 0;
+            this.avgNps = sums[9] > 0 ? Math.round(sums[8] / sums[9]) : 0;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+
+        public String getKey() { return key; }
+        public long getGames() { return games; }
+        public long getWins() { return wins; }
+        public long getDraws() { return draws; }
+        public long getLosses() { return losses; }
+        public double getScore() { return score; }
+        public double getAvgPlies() { return avgPlies; }
+        public double getAvgDurationMs() { return avgDurationMs; }
+        public double getAvgDepth() { return avgDepth; }
+        public double getAvgNps() { return avgNps; }
+    }
+
+    public ResultsStore(Path directory) throws IOException {
+        this(directory, SEGMENT_ROWS);
+    }
+
+    ResultsStore(Path directory, int segmentRows) throws IOException {
+        this.directory = directory;
+        this.segmentRows = segmentRows;
+        Files.createDirectories(directory);
+        this.engines = new Dictionary(directory.resolve("engines.txt"), Integer.MAX_VALUE);
+        this.timeControls = new Dictionary(directory.resolve("time_controls.txt"), Short.MAX_VALUE);
+        this.reasons = new Dictionary(directory.resolve("reasons.txt"), 256);
+        List<Path> files;
+        try (var stream = Files.list(directory)) {
+            files = stream.filter(f -> f.getFileName().toString().matches("segment-\\d+\\.col"))
+                .sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            segments.add(new Segment(file, segmentRows, false));
+        }
+    }
+
+    /**
+     * Append one game.
+     * @param sequence Leaderboard sequence of the game (0 if it was not rated)
+     * @param opening Starting position ("startpos" or a FEN)
+     */
+    public synchronized void append(long sequence, long timestamp, String white, String black, String timeControl,
+                                    String opening, GameResult game) throws IOException {
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.rows == segment.capacity) {
+            segment = new Segment(directory.resolve(String.format("segment-%06d.col", segments.size())), segmentRows, true);
+            segments.add(segment);
+        }
+        MappedByteBuffer b = segment.buffer;
+        int row = segment.rows;
+        String reason = game.getReason() != null ? game.getReason().split(":")[0] : "unknown";
+        b.putLong(segment.at(Column.SEQUENCE, row), sequence);
+        b.putLong(segment.at(Column.TIMESTAMP, row), timestamp);
+        b.putInt(segment.at(Column.WHITE, row), engines.id(white));
+        b.putInt(segment.at(Column.BLACK, row), engines.id(black));
+        b.putShort(segment.at(Column.TIME_CONTROL, row), (short) timeControls.id(timeControl != null ? timeControl : "Unknown"));
+        b.putLong(segment.at(Column.OPENING, row), OpeningStats.positionKey(opening));
+        b.put(segment.at(Column.RESULT, row), resultCode(game.getResult()));
+        b.put(segment.at(Column.REASON, row), (byte) reasons.id(reason));
+        b.putShort(segment.at(Column.PLIES, row), (short) Math.min(Short.MAX_VALUE, game.getPlies()));
+        b.putInt(segment.at(Column.DURATION, row), (int) Math.min(Integer.MAX_VALUE, game.getDurationMs()));
+        b.putFloat(segment.at(Column.WHITE_DEPTH, row), (float) game.getWhiteDepth());
+        b.putFloat(segment.at(Column.BLACK_DEPTH, row), (float) game.getBlackDepth());
+        b.putLong(segment.at(Column.WHITE_NPS, row), game.getWhiteNps());
+        b.putLong(segment.at(Column.BLACK_NPS, row), game.getBlackNps());
+        // Publish the row
+        b.putInt(ROWS_OFFSET, row + 1);
+        segment.rows = row + 1;
+        if (firstDirty < 0) {
+            firstDirty = segments.size() - 1;
+        }
+    }
+
+    private static byte resultCode(String result) {
+        switch (result) {
+            case "1-0": return WHITE_WIN;
+            case "1/2-1/2": return DRAW;
+            case "0-1": return BLACK_WIN;
+            default: return UNFINISHED;
+        }
+    }
+
+    /**
+     * Write appended rows to disk, in every segment touched since the last sync
+     * (a batch can fill one segment and spill into the next).
+     */
+    public synchronized void sync() {
+        if (firstDirty < 0) {
+            return;
+        }
+        for (int i = firstDirty; i < segments.size(); i++) {
+            segments.get(i).buffer.force();
+        }
+        firstDirty = -1;
+    }
+
+    public synchronized long size() {
+        long rows = 0;
+        for (Segment segment : segments) {
+            rows += segment.rows;
+        }
+        return rows;
+    }
+
+    /**
+     * Aggregate games finished between two timestamps, scanning chunks in parallel.
+     * @return groups, most games first
+     */
+    public List<Aggregate> aggregate(GroupBy groupBy, long fromMillis, long toMillis) {
+        // Rows published so far; later appends are not seen
+        List<Segment> view;
+        List<Integer> rows = new ArrayList<>();
+        synchronized (this) {
+            view = new ArrayList<>(segments);
+            for (Segment segment : view) {
+                rows.add(segment.rows);
+            }
+        }
+        List<int[]> chunks = new ArrayList<>(); // {segment, firstRow, endRow}
+        for (int s = 0; s < view.size(); s++) {
+            for (int first = 0; first < rows.get(s); first += CHUNK_ROWS) {
+                chunks.add(new int[]{s, first, Math.min(rows.get(s), first + CHUNK_ROWS)});
+            }
+        }
+        Groups totals = IntStream.range(0, chunks.size()).parallel()
+            .mapToObj(c -> scan(view.get(chunks.get(c)[0]), chunks.get(c)[1], chunks.get(c)[2], groupBy, fromMillis, toMillis))
+            .reduce(new Groups(), Groups::merge);
+
+        List<Aggregate> result = new ArrayList<>();
+        for (int slot = 0; slot < totals.keys.length; slot++) {
+            if (totals.used[slot]) {
+                result.add(new Aggregate(keyName(groupBy, totals.keys[slot]),
+                    Arrays.copyOfRange(totals.sums, slot * Groups.WIDTH, (slot + 1) * Groups.WIDTH)));
+            }
+        }
+        result.sort(Comparator.comparingLong(Aggregate::getGames).reversed().thenComparing(Aggregate::getKey));
+        return result;
+    }
+
+    /**
+     * Open-addressing map from group key to its sums, in flat primitive arrays:
+     * {games, wins, draws, losses, plies, durationMs, depthSum, depthCount, npsSum, npsCount}.
+     */
+    private static class Groups {
+        static final int WIDTH = 10;
+        long[] keys = new long[16];
+        boolean[] used = new boolean[16];
+        double[] sums = new double[16 * WIDTH];
+        int size;
+
+        /**
+         * Offset of the key's sums, inserting it if new.
+         */
+        int offset(long key) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return slot * WIDTH;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size * 2 >= keys.length) {
+                grow();
+                return offset(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+            return slot * WIDTH;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldUsed = used;
+            double[] oldSums = sums;
+            keys = new long[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            sums = new double[oldKeys.length * 2 * WIDTH];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldUsed[slot]) {
+                    System.arraycopy(oldSums, slot * WIDTH, sums, offset(oldKeys[slot]), WIDTH);
+                }
+            }
+        }
+
+        Groups merge(Groups other) {
+            Groups merged = new Groups();
+            for (Groups groups : new Groups[]{this, other}) {
+                for (int slot = 0; slot < groups.keys.length; slot++) {
+                    if (groups.used[slot]) {
+                        int offset = merged.offset(groups.keys[slot]);
+                        for (int i = 0; i < WIDTH; i++) {
+                            merged.sums[offset + i] += groups.sums[slot * WIDTH + i];
+                        }
+                    }
+                }
+            }
+            return merged;
+        }
+    }
+
+    private static Groups scan(Segment segment, int first, int end, GroupBy groupBy, long fromMillis, long toMillis) {
+        MappedByteBuffer b = segment.buffer;
+        Groups groups = new Groups();
+        for (int row = first; row < end; row++) {
+            long timestamp = b.getLong(segment.at(Column.TIMESTAMP, row));
+            if (timestamp < fromMillis || timestamp >= toMillis) {
+                continue;
+            }
+            byte result = b.get(segment.at(Column.RESULT, row));
+            int plies = b.getShort(segment.at(Column.PLIES, row));
+            int duration = b.getInt(segment.at(Column.DURATION, row));
+            if (groupBy == GroupBy.ENGINE) {
+                // Once for each side, from that engine's point of view
+                for (int side = 0; side < 2; side++) {
+                    int offset = groups.offset(b.getInt(segment.at(side == 0 ? Column.WHITE : Column.BLACK, row)));
+                    byte own = side == 0 || result > BLACK_WIN ? result : (byte) (BLACK_WIN - result);
+                    add(groups.sums, offset, own, plies, duration,
+                        b.getFloat(segment.at(side == 0 ? Column.WHITE_DEPTH : Column.BLACK_DEPTH, row)),
+                        b.getLong(segment.at(side == 0 ? Column.WHITE_NPS : Column.BLACK_NPS, row)));
+                }
+                continue;
+            }
+            long key;
+            switch (groupBy) {
+                case TIME_CONTROL: key = b.getShort(segment.at(Column.TIME_CONTROL, row)); break;
+                case OPENING: key = b.getLong(segment.at(Column.OPENING, row)); break;
+                default: key = Math.floorDiv(timestamp, 86_400_000L); break;
+            }
+            int offset = groups.offset(key);
+            double[] sums = groups.sums;
+            add(sums, offset, result, plies, duration, b.getFloat(segment.at(Column.WHITE_DEPTH, row)),
+                b.getLong(segment.at(Column.WHITE_NPS, row)));
+            add(sums, offset, (byte) -1, 0, 0, b.getFloat(segment.at(Column.BLACK_DEPTH, row)),
+                b.getLong(segment.at(Column.BLACK_NPS, row)));
+        }
+        return groups;
+    }
+
+    /**
+     * @param result Result code from the counted side (-1 to only add search stats)
+     */
+    private static void add(double[] sums, int offset, byte result, int plies, int duration, float depth, long nps) {
+        if (result >= 0) {
+            sums[offset]++;
+            if (result <= BLACK_WIN) {
+                sums[offset + 1 + result]++;
+            }
+            sums[offset + 4] += plies;
+            sums[offset + 5] += duration;
+        }
+        if (depth > 0) {
+            sums[offset + 6] += depth;
+            sums[offset + 7]++;
+        }
+        if (nps > 0) {
+            sums[offset + 8] += nps;
+            sums[offset + 9]++;
+        }
+    }
+
+    private String keyName(GroupBy groupBy, long key) {
+        switch (groupBy) {
+            case ENGINE: return engines.name((int) key);
+            case TIME_CONTROL: return timeControls.name((int) key);
+            case OPENING: return Long.toHexString(key);
+            default: return Instant.ofEpochMilli(key * 86_400_000L).atZone(ZoneOffset.UTC).toLocalDate().toString();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        engines.out.close();
+        timeControls.out.close();
+        reasons.out.close();
+    }
+}
@@ -0,0 +1,53 @@
+package fr.flwrian.Stats;
+
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A leaderboard snapshot serialized to JSON once, shared by every reader of its version (immutable).
+ *
+ * The JSON is that of {@link LeaderboardStats.Snapshot}. Readers compare
+ * {@link #getVersion()} with what a client already has and skip sending
+ * anything when they are equal.
+ */
+public final class SerializedSnapshot {
+    private static final Gson gson = new Gson();
+
+    private final long version;
+    private final long sequence;
+    private final String json;
+    private final byte[] bytes;
+
+    SerializedSnapshot(LeaderboardStats.Snapshot snapshot) {
+        this.version = snapshot.getVersion();
+        this.sequence = snapshot.getSequence();
+        this.json = gson.toJson(snapshot);
+        this.bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stats version the snapshot was taken at (see {@link LeaderboardStats#getVersion()}).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Number of the last game included.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * UTF-8 encoded JSON. Shared: do not modify.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+}
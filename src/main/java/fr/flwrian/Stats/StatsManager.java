@@ -2,6 +2,10 @@ package fr.flwrian.Stats;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import fr.flwrian.Result.GameResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,24 +13,117 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Statistics manager with optional JSON persistence
+ * Statistics manager with optional persistence.
+ *
+ * Recording a game only updates the in-memory leaderboard and queues the result;
+ * a dedicated writer thread persists queued results in batches (up to
+ * {@value #BATCH_SIZE} games or {@value #BATCH_INTERVAL_MS} ms), then notifies
+ * the update listener once per batch. Results are appended to a journal
+ * (leaderboard_journal.jsonl); the full leaderboard is only rewritten as a
+ * compacted snapshot (leaderboard_stats.json) every {@value #SNAPSHOT_EVERY}
+ * games and on close. Startup loads the snapshot and replays the journal
+ * records it does not hold.
+ *
+ * Maximum-likelihood ratings ({@link RatingSolver}) are refreshed in the
+ * background every {@value #RATING_REFRESH_MS} ms when new games arrived,
+ * starting from the previous solution; each refresh adds a point to the
+ * rating history ({@link EloHistory}, elo_history.bin).
+ *
+ * With persistence, every finished game, rated or not, is also appended to
+ * the columnar {@link ResultsStore} (results/) by the writer thread.
  */
-public class StatsManager {
+public class StatsManager implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(StatsManager.class);
     private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    static final int SNAPSHOT_EVERY = 1000;
+    private static final int BATCH_SIZE = 64;
+    private static final long BATCH_INTERVAL_MS = 200;
+    private static final String SEQUENCE_KEY = "journalSequence";
+    private static final String PAIRS_KEY = "pairResults";
+    private static final String HEAD_TO_HEAD_KEY = "headToHead";
+    private static final String OPENINGS_KEY = "openings";
+    private static final long RATING_REFRESH_MS = 2000;
     
     private final LeaderboardStats stats;
+    private final EloHistory history;
+    private final ResultsStore results; // null without persistence
     private final boolean persistenceEnabled;
     private final String statsFilePath;
+    private final int snapshotEvery;
+    private final BlockingQueue<QueuedGame> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final ScheduledExecutorService ratingRefresher;
+    private volatile Runnable updateListener;
+    private volatile SerializedSnapshot serialized;
+    private final Object serializeLock = new Object();
+    private volatile boolean closed;
+    private final Object persistLock = new Object();
+    private ResultJournal journal;  // guarded by persistLock
+    private final AtomicLong recorded = new AtomicLong(); // games queued since startup
+    // Versions restart with the process: the epoch tells a version of this run from an older one
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private long persisted;         // guarded by this: games handled by the writer
+    private int sinceSnapshot;      // guarded by persistLock
+    
+    // Writer metrics
+    private volatile long flushes;
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+    private volatile long totalFlushNanos;
+    private volatile long lastSolveNanos;
+    
+    private static class QueuedGame {
+        final long sequence;
+        final String white;
+        final String black;
+        final String result;
+        final String timeControl;
+        final String opening;
+        final String firstResult;
+        final GameResult game;
+        final long timestamp;
+        
+        QueuedGame(long sequence, String white, String black, String result, String timeControl, String opening,
+                   String firstResult, GameResult game) {
+            this.sequence = sequence;
+            this.white = white;
+            this.black = black;
+            this.result = result;
+            this.timeControl = timeControl;
+            this.opening = opening;
+            this.firstResult = firstResult;
+            this.game = game;
+            this.timestamp = System.currentTimeMillis();
+        }
+        
+        boolean isRated() {
+            return sequence > 0;
+        }
+    }
     
     public StatsManager(boolean persistenceEnabled, String statsDirectory) {
+        this(persistenceEnabled, statsDirectory, SNAPSHOT_EVERY);
+    }
+    
+    StatsManager(boolean persistenceEnabled, String statsDirectory, int snapshotEvery) {
         this.stats = new LeaderboardStats();
         this.persistenceEnabled = persistenceEnabled;
+        this.snapshotEvery = snapshotEvery;
         
         if (persistenceEnabled) {
             // Create directory if necessary
@@ -38,70 +135,483 @@ public class StatsManager {
             }
             
             this.statsFilePath = statsDirectory + "/leaderboard_stats.json";
-            loadStats();
+            loadStats(statsDir.resolve("leaderboard_journal.jsonl"));
+            this.history = openHistory(statsDir.resolve("elo_history.bin"));
+            this.results = openResults(statsDir.resolve("results"));
         } else {
             this.statsFilePath = null;
+            this.history = new EloHistory();
+            this.results = null;
+        }
+        
+        this.writer = new Thread(this::writeLoop, "stats-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        
+        this.ratingRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rating-solver");
+            t.setDaemon(true);
+            return t;
+        });
+        ratingRefresher.scheduleWithFixedDelay(this::refreshRatings, 0, RATING_REFRESH_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    private static EloHistory openHistory(Path file) {
+        try {
+            return new EloHistory(file);
+        } catch (IOException e) {
+            logger.error("Failed to open rating history {}, keeping it in memory only", file, e);
+            return new EloHistory();
+        }
+    }
+    
+    private static ResultsStore openResults(Path directory) {
+        try {
+            return new ResultsStore(directory);
+        } catch (IOException e) {
+            logger.error("Failed to open results store {}, game details will not be kept", directory, e);
+            return null;
         }
     }
     
     /**
-     * Records game result
+     * Called on the writer thread after each batch of recorded games
+     * (used to broadcast the leaderboard).
      */
-    public synchronized void recordGame(GameResult result, String whiteEngine, String blackEngine, String timeControl) {
-        stats.recordGameResult(whiteEngine, blackEngine, result.getResult(), timeControl);
-        
-        if (persistenceEnabled) {
-            saveStats();
-        }
+    public void setUpdateListener(Runnable listener) {
+        this.updateListener = listener;
     }
     
     /**
-     * Returns current statistics
+     * Records game result. Returns immediately; persistence happens on the writer thread.
      */
-    public LeaderboardStats getStats() {
-        return stats;
+    public void recordGame(GameResult result, String whiteEngine, String blackEngine, String timeControl) {
+        recordGame(result, whiteEngine, blackEngine, timeControl, null, null);
     }
     
     /**
-     * Saves statistics to JSON file
+     * Records a game played from a starting position ("startpos" or a FEN).
      */
-    private void saveStats() {
-        if (!persistenceEnabled || statsFilePath == null) {
+    public void recordGame(GameResult result, String whiteEngine, String blackEngine, String timeControl,
+                           String opening) {
+        recordGame(result, whiteEngine, blackEngine, timeControl, opening, null);
+    }
+    
+    /**
+     * Records both games of a pair: engine1 is white in the first, engine2 in the second.
+     * When both are rated, the pair also counts in the pentanomial head-to-head and opening stats.
+     * @param opening Starting position of both games, or null if unknown
+     */
+    public void recordPair(GameResult first, GameResult second, String engine1, String engine2, String timeControl,
+                           String opening) {
+        recordGame(first, engine1, engine2, timeControl, opening, null);
+        recordGame(second, engine2, engine1, timeControl, opening,
+            isRatedResult(first.getResult()) ? first.getResult() : null);
+    }
+    
+    private void recordGame(GameResult result, String whiteEngine, String blackEngine, String timeControl,
+                            String opening, String firstResult) {
+        if (closed) {
+            logger.warn("Not recording game {} ({} vs {}): stats are closed", result.getId(), whiteEngine, blackEngine);
+            return;
+        }
+        // Aborted games (errors, unattributable timeouts) have no rating impact
+        if (!isRatedResult(result.getResult())) {
+            logger.warn("Not rating game {} ({} vs {}): result {} ({})",
+                result.getId(), whiteEngine, blackEngine, result.getResult(), result.getReason());
+            if (results != null) {
+                // Still kept in the results store
+                recorded.incrementAndGet();
+                queue.add(new QueuedGame(0, whiteEngine, blackEngine, result.getResult(), timeControl, opening,
+                    null, result));
+            }
             return;
         }
         
+        // Queued while both engines are locked, so the journal keeps each engine's games in rating order
+        stats.recordGameResult(whiteEngine, blackEngine, result.getResult(), timeControl, opening, firstResult, number -> {
+            recorded.incrementAndGet();
+            queue.add(new QueuedGame(number, whiteEngine, blackEngine, result.getResult(), timeControl, opening,
+                firstResult, result));
+        });
+    }
+    
+    private static boolean isRatedResult(String result) {
+        return "1-0".equals(result) || "0-1".equals(result) || "1/2-1/2".equals(result);
+    }
+    
+    /**
+     * Returns a consistent snapshot of the current statistics
+     */
+    public LeaderboardStats.Snapshot getStats() {
+        return stats.snapshot();
+    }
+    
+    /**
+     * Snapshot including pairwise results (for head-to-head queries)
+     */
+    public LeaderboardStats.Snapshot getStats(boolean withPairs) {
+        return stats.snapshot(withPairs);
+    }
+    
+    /**
+     * Current snapshot serialized to JSON, rebuilt only when the version changed since the last call
+     */
+    public SerializedSnapshot getSerializedStats() {
+        long version = stats.getVersion();
+        SerializedSnapshot current = serialized;
+        if (current == null || current.getVersion() < version) {
+            synchronized (serializeLock) {
+                current = serialized;
+                if (current == null || current.getVersion() < version) {
+                    current = new SerializedSnapshot(stats.snapshot());
+                    serialized = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Changes whenever the statistics do (see {@link LeaderboardStats#getVersion()})
+     */
+    public long getVersion() {
+        return stats.getVersion();
+    }
+    
+    /**
+     * A stats version qualified by this process, so it cannot match one handed out before a restart
+     * (used for ETags and "unchanged" replies)
+     */
+    public String versionTag(long version) {
+        return epoch + "-" + version;
+    }
+    
+    /**
+     * Live head-to-head W/D/L and pentanomial matrices
+     */
+    public HeadToHeadMatrix getHeadToHead() {
+        return stats.getHeadToHead();
+    }
+    
+    /**
+     * Live results by opening
+     */
+    public OpeningStats getOpenings() {
+        return stats.getOpenings();
+    }
+    
+    /**
+     * Columnar store of every finished game, or null without persistence
+     */
+    public ResultsStore getResultsStore() {
+        return results;
+    }
+    
+    /**
+     * Rating history of every engine
+     */
+    public EloHistory getEloHistory() {
+        return history;
+    }
+    
+    /**
+     * Games recorded but not yet persisted.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    /**
+     * Writer metrics: queue depth, batches written and flush latency.
+     */
+    public JsonObject getPersistenceState() {
+        JsonObject state = new JsonObject();
+        state.addProperty("persistence", persistenceEnabled);
+        state.addProperty("queueDepth", queue.size());
+        state.addProperty("flushes", flushes);
+        state.addProperty("lastFlushMs", lastFlushNanos / 1e6);
+        state.addProperty("maxFlushMs", maxFlushNanos / 1e6);
+        state.addProperty("avgFlushMs", flushes > 0 ? totalFlushNanos / 1e6 / flushes : 0);
+        state.addProperty("lastRatingSolveMs", lastSolveNanos / 1e6);
+        return state;
+    }
+    
+    /**
+     * Wait until every game recorded so far has been persisted.
+     */
+    public void flush() throws InterruptedException {
+        long target = recorded.get();
+        synchronized (this) {
+            while (persisted < target && writer.isAlive()) {
+                wait(100);
+            }
+        }
+    }
+    
+    /**
+     * Re-solve maximum-likelihood ratings if games were recorded since the last solve.
+     */
+    void refreshRatings() {
         try {
-            String json = gson.toJson(stats);
-            Files.writeString(Paths.get(statsFilePath), json);
-            logger.debug("Stats saved to {}", statsFilePath);
-        } catch (IOException e) {
-            logger.error("Failed to save stats to {}", statsFilePath, e);
+            RatingSolver.Result previous = stats.getRatings();
+            if (stats.getSequence() == 0 || (previous != null && previous.getSequence() == stats.getSequence())) {
+                return;
+            }
+            long start = System.nanoTime();
+            stats.setRatings(RatingSolver.solve(stats.pairwiseResults(), previous));
+            lastSolveNanos = System.nanoTime() - start;
+            history.record(stats.snapshot(), System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.error("Rating solve failed", e);
+        }
+    }
+    
+    private void writeLoop() {
+        List<QueuedGame> batch = new ArrayList<>();
+        while (true) {
+            try {
+                QueuedGame first = queue.poll(BATCH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                // Collect a batch: up to BATCH_SIZE games or BATCH_INTERVAL_MS after the first
+                long deadline = System.nanoTime() + BATCH_INTERVAL_MS * 1_000_000;
+                while (batch.size() < BATCH_SIZE && !closed) {
+                    QueuedGame next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, BATCH_SIZE - batch.size());
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+                return;
+            }
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+    
+    private void writeBatch(List<QueuedGame> batch) {
+        long start = System.nanoTime();
+        synchronized (persistLock) {
+            if (journal != null) {
+                try {
+                    for (QueuedGame game : batch) {
+                        if (!game.isRated()) {
+                            continue;
+                        }
+                        journal.append(game.sequence, game.white, game.black, game.result, game.timeControl, game.opening,
+                            game.firstResult);
+                        // Counted like on replay: only the rated games in the journal
+                        sinceSnapshot++;
+                    }
+                    journal.sync();
+                } catch (IOException e) {
+                    logger.error("Failed to journal {} game(s)", batch.size(), e);
+                }
+                if (sinceSnapshot >= snapshotEvery) {
+                    saveStats();
+                }
+            } else if (persistenceEnabled) {
+                saveStats();
+            }
+            if (results != null) {
+                try {
+                    for (QueuedGame game : batch) {
+                        results.append(game.sequence, game.timestamp, game.white, game.black, game.timeControl,
+                            game.opening, game.game);
+                    }
+                    results.sync();
+                } catch (IOException e) {
+                    logger.error("Failed to store {} game(s)", batch.size(), e);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        totalFlushNanos += elapsed;
+        flushes++;
+        
+        synchronized (this) {
+            persisted += batch.size();
+            notifyAll();
+        }
+        Runnable listener = updateListener;
+        if (listener != null) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.error("Stats update listener failed", e);
+            }
         }
     }
     
     /**
-     * Loads statistics from JSON file
+     * Write a compacted snapshot and empty the journal.
+     * The snapshot is written to a temporary file and moved into place, so a
+     * crash leaves either the old or the new snapshot; it records the last
+     * game sequence it includes, so replay skips those journal records.
      */
-    private void loadStats() {
+    private void saveStats() {
         if (!persistenceEnabled || statsFilePath == null) {
             return;
         }
         
+        synchronized (persistLock) {
+            try {
+                // Games queued but not yet journaled are in the snapshot; their
+                // sequence is not above the snapshot's, so replay will skip them too
+                LeaderboardStats.Snapshot current = stats.snapshot(true);
+                JsonObject snapshot = gson.toJsonTree(current).getAsJsonObject();
+                snapshot.addProperty(SEQUENCE_KEY, current.getSequence());
+                snapshot.add(PAIRS_KEY, pairsToJson(current.getPairwiseResults()));
+                snapshot.add(HEAD_TO_HEAD_KEY, current.getHeadToHead().toJson(null));
+                snapshot.add(OPENINGS_KEY, current.getOpenings().toJson());
+                Path path = Paths.get(statsFilePath);
+                Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+                    out.write(gson.toJson(snapshot).getBytes(StandardCharsets.UTF_8));
+                    out.getFD().sync();
+                }
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (journal != null) {
+                    journal.truncate();
+                }
+                sinceSnapshot = 0;
+                logger.debug("Stats saved to {}", statsFilePath);
+            } catch (IOException e) {
+                logger.error("Failed to save stats to {}", statsFilePath, e);
+            }
+        }
+    }
+    
+    private static JsonArray pairsToJson(RatingSolver.PairwiseResults pairs) {
+        JsonArray array = new JsonArray();
+        for (int e = 0; e < pairs.size(); e++) {
+            JsonObject pair = new JsonObject();
+            pair.addProperty("white", pairs.getWhite(e));
+            pair.addProperty("black", pairs.getBlack(e));
+            pair.addProperty("wins", pairs.getWins(e));
+            pair.addProperty("draws", pairs.getDraws(e));
+            pair.addProperty("losses", pairs.getLosses(e));
+            array.add(pair);
+        }
+        return array;
+    }
+    
+    /**
+     * Loads the snapshot, then replays newer journal records
+     */
+    private void loadStats(Path journalPath) {
+        long snapshotSequence = 0;
         Path path = Paths.get(statsFilePath);
         if (!Files.exists(path)) {
             logger.info("No existing stats file found at {}, starting fresh", statsFilePath);
-            return;
+        } else {
+            try {
+                JsonObject snapshot = gson.fromJson(Files.readString(path), JsonObject.class);
+                if (snapshot != null) {
+                    if (snapshot.has(SEQUENCE_KEY)) {
+                        snapshotSequence = snapshot.remove(SEQUENCE_KEY).getAsLong();
+                    }
+                    if (snapshot.has(PAIRS_KEY)) {
+                        for (JsonElement element : snapshot.remove(PAIRS_KEY).getAsJsonArray()) {
+                            JsonObject pair = element.getAsJsonObject();
+                            stats.mergePair(pair.get("white").getAsString(), pair.get("black").getAsString(),
+                                pair.get("wins").getAsLong(), pair.get("draws").getAsLong(), pair.get("losses").getAsLong());
+                        }
+                    }
+                    if (snapshot.has(HEAD_TO_HEAD_KEY)) {
+                        stats.getHeadToHead().merge(snapshot.remove(HEAD_TO_HEAD_KEY).getAsJsonObject());
+                    }
+                    if (snapshot.has(OPENINGS_KEY)) {
+                        stats.getOpenings().merge(snapshot.remove(OPENINGS_KEY).getAsJsonArray());
+                    }
+                    snapshot.remove("ratingModel");
+                    stats.merge(gson.fromJson(snapshot, LeaderboardStats.Snapshot.class));
+                    logger.info("Stats loaded from {}", statsFilePath);
+                }
+            } catch (IOException | JsonParseException e) {
+                logger.error("Failed to load stats from {}", statsFilePath, e);
+            }
         }
+        stats.advanceSequence(snapshotSequence);
         
         try {
-            String json = Files.readString(path);
-            LeaderboardStats loadedStats = gson.fromJson(json, LeaderboardStats.class);
-            if (loadedStats != null) {
-                stats.merge(loadedStats);
-                logger.info("Stats loaded from {}", statsFilePath);
+            journal = new ResultJournal(journalPath);
+            int replayed = 0;
+            for (ResultJournal.Entry entry : journal.readAll()) {
+                if (entry.getSequence() > snapshotSequence) {
+                    stats.recordGameResult(entry.getWhite(), entry.getBlack(), entry.getResult(), entry.getTimeControl(),
+                        entry.getOpening(), entry.getFirstResult(), null);
+                    stats.advanceSequence(entry.getSequence());
+                    replayed++;
+                }
+            }
+            sinceSnapshot = replayed;
+            if (replayed > 0) {
+                logger.info("Replayed {} game(s) from {}", replayed, journalPath);
             }
         } catch (IOException e) {
-            logger.error("Failed to load stats from {}", statsFilePath, e);
+            logger.error("Failed to open results journal {}, saving full snapshots instead", journalPath, e);
+            journal = null;
+        }
+    }
+    
+    /**
+     * Persist every queued game, write a final snapshot and close the journal.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        ratingRefresher.shutdownNow();
+        try {
+            ratingRefresher.awaitTermination(5, TimeUnit.SECONDS);
+            history.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Failed to close rating history", e);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (persistLock) {
+            if (journal != null) {
+                saveStats();
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    logger.error("Failed to close results journal", e);
+                }
+                journal = null;
+            }
+            if (results != null) {
+                try {
+                    results.close();
+                } catch (IOException e) {
+                    logger.error("Failed to close results store", e);
+                }
+            }
         }
     }
     
@@ -114,7 +624,7 @@ public class StatsManager {
         
         try {
             Files.createDirectories(Paths.get(directory));
-            String json = gson.toJson(stats);
+            String json = gson.toJson(stats.snapshot());
             Files.writeString(Paths.get(filename), json);
             logger.info("Stats exported to {}", filename);
         } catch (IOException e) {
@@ -125,8 +635,8 @@ public class StatsManager {
     /**
      * Resets all statistics
      */
-    public synchronized void reset() {
-        stats.getEngineStats().clear();
+    public void reset() {
+        stats.clear();
         if (persistenceEnabled) {
             saveStats();
         }
@@ -141,7 +651,7 @@ public class StatsManager {
         logger.info("LEADERBOARD SUMMARY");
         logger.info("════════════════════════════════════════");
         
-        var leaderboard = stats.getLeaderboard();
+        var leaderboard = stats.snapshot().getLeaderboard();
         for (int i = 0; i < leaderboard.size(); i++) {
             var engineStats = leaderboard.get(i);
             String rank = String.format("%d.", i + 1);
@@ -158,6 +668,15 @@ public class StatsManager {
             );
         }
         
+        
+        var flagged = stats.getOpenings().getOpenings(true, null);
+        if (!flagged.isEmpty()) {
+            logger.info("{} opening(s) flagged for pruning:", flagged.size());
+            for (var opening : flagged) {
+                logger.info("  {} [{}] ({} pairs)", opening.getFen(), opening.getFlag(), opening.getPairs());
+            }
+        }
+        
         logger.info("════════════════════════════════════════");
     }
 }
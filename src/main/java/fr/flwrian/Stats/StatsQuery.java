@@ -0,0 +1,250 @@
+package fr.flwrian.Stats;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.*;
+
+/**
+ * Read-only queries over the statistics, rendered to JSON and cached per version.
+ *
+ * Paths (relative to the API root):
+ *
+ *   /leaderboard[?minGames=N]                          standings, paginated
+ *   /leaderboard?tc=TC[&minGames=N]                    standings in one time control, paginated
+ *   /engines/NAME                                      one engine with its pairings
+ *   /time-controls                                     time controls with game counts
+ *   /time-controls/TC                                  same as /leaderboard?tc=TC (unknown TC: 404)
+ *
+ * Head-to-head matrices and opening results are served by /api/head-to-head
+ * and /api/openings.
+ *
+ * Paginated responses are {"version", "total", "offset", "limit", "items"}
+ * ({@code offset} and {@code limit} parameters, limit at most {@value #MAX_LIMIT}).
+ *
+ * Every response carries the stats version it was rendered from. Rendered
+ * bodies are kept in a small LRU cache keyed by path and parameters, and the
+ * snapshot they are rendered from is shared, so between two games a repeated
+ * query is a map lookup and a new one costs one snapshot at most.
+ */
+public class StatsQuery {
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 1000;
+    private static final int CACHE_SIZE = 256;
+    private static final Gson gson = new Gson();
+
+    private final StatsManager stats;
+    private final Map<String, Response> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Response> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private volatile LeaderboardStats.Snapshot snapshot;
+
+    /**
+     * A rendered body and the version it reflects (immutable).
+     */
+    public static class Response {
+        private final long version;
+        private final String body;
+
+        Response(long version, String body) {
+            this.version = version;
+            this.body = body;
+        }
+
+        public long getVersion() { return version; }
+        public String getBody() { return body; }
+    }
+
+    public StatsQuery(StatsManager stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Current stats version; a client holding a response of this version is up to date.
+     */
+    public long getVersion() {
+        return stats.getVersion();
+    }
+
+    /**
+     * Render a query, or reuse the cached body if nothing changed since.
+     * @throws IllegalArgumentException for invalid parameters
+     * @throws NoSuchElementException for an unknown path, engine or time control
+     */
+    public Response query(String path, Map<String, String> params) {
+        String key = path + "?" + new TreeMap<>(params);
+        long version = stats.getVersion();
+        synchronized (cache) {
+            Response cached = cache.get(key);
+            if (cached != null && cached.version == version) {
+                return cached;
+            }
+        }
+        LeaderboardStats.Snapshot current = snapshot(version);
+        JsonObject body = render(current, path, params);
+        body.addProperty("version", current.getVersion());
+        Response response = new Response(current.getVersion(), body.toString());
+        synchronized (cache) {
+            Response cached = cache.get(key);
+            if (cached == null || cached.version < response.version) {
+                cache.put(key, response);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Snapshot with pairwise results, taken again only when it is older than the version.
+     */
+    private LeaderboardStats.Snapshot snapshot(long version) {
+        LeaderboardStats.Snapshot current = snapshot;
+        if (current == null || current.getVersion() < version) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || current.getVersion() < version) {
+                    current = stats.getStats(true);
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static JsonObject render(LeaderboardStats.Snapshot snapshot, String path, Map<String, String> params) {
+        String[] parts = path.replaceAll("^/+|/+$", "").split("/", 2);
+        String rest = parts.length > 1 ? parts[1] : null;
+        switch (parts[0]) {
+            case "leaderboard":
+                if (rest == null) {
+                    return leaderboard(snapshot, params);
+                }
+                break;
+            case "engines":
+                if (rest != null) {
+                    return engine(snapshot, rest);
+                }
+                break;
+            case "time-controls":
+                if (rest == null) {
+                    return timeControls(snapshot);
+                }
+                List<JsonObject> items = timeControlStandings(snapshot, rest, intParam(params, "minGames", 0));
+                if (items.isEmpty()) {
+                    throw new NoSuchElementException("Unknown time control: " + rest);
+                }
+                return page(items, params);
+            default:
+                break;
+        }
+        throw new NoSuchElementException("Unknown path: " + path);
+    }
+
+    private static JsonObject leaderboard(LeaderboardStats.Snapshot snapshot, Map<String, String> params) {
+        String timeControl = params.get("tc");
+        int minGames = intParam(params, "minGames", 0);
+        if (timeControl != null) {
+            // Results in that time control only, not the overall stats of the engines that played it
+            return page(timeControlStandings(snapshot, timeControl, minGames), params);
+        }
+        List<LeaderboardStats.EngineStats> items = new ArrayList<>();
+        for (LeaderboardStats.EngineStats engine : snapshot.getLeaderboard()) {
+            if (engine.getTotalGames() >= minGames) {
+                items.add(engine);
+            }
+        }
+        return page(items, params);
+    }
+
+    private static JsonObject engine(LeaderboardStats.Snapshot snapshot, String name) {
+        List<LeaderboardStats.EngineStats> leaderboard = snapshot.getLeaderboard();
+        for (int rank = 0; rank < leaderboard.size(); rank++) {
+            if (leaderboard.get(rank).getEngineName().equals(name)) {
+                JsonObject json = new JsonObject();
+                json.addProperty("rank", rank + 1);
+                json.add("engine", gson.toJsonTree(leaderboard.get(rank)));
+                json.add("pairings", gson.toJsonTree(snapshot.getPairings(name)));
+                return json;
+            }
+        }
+        throw new NoSuchElementException("Unknown engine: " + name);
+    }
+
+    private static JsonObject timeControls(LeaderboardStats.Snapshot snapshot) {
+        Map<String, long[]> counts = new TreeMap<>(); // tc -> {games from each side, engines}
+        for (LeaderboardStats.EngineStats engine : snapshot.getEngineStats().values()) {
+            for (LeaderboardStats.TimeControlStats tc : engine.getTimeControlStats().values()) {
+                long[] count = counts.computeIfAbsent(tc.getTimeControl(), k -> new long[2]);
+                count[0] += tc.getGames();
+                count[1]++;
+            }
+        }
+        JsonArray items = new JsonArray();
+        counts.forEach((tc, count) -> {
+            JsonObject item = new JsonObject();
+            item.addProperty("timeControl", tc);
+            item.addProperty("games", count[0] / 2);
+            item.addProperty("engines", count[1]);
+            items.add(item);
+        });
+        JsonObject json = new JsonObject();
+        json.add("items", items);
+        return json;
+    }
+
+    /**
+     * Per-engine results in one time control, by score in it.
+     */
+    private static List<JsonObject> timeControlStandings(LeaderboardStats.Snapshot snapshot, String timeControl,
+                                                         int minGames) {
+        List<JsonObject> items = new ArrayList<>();
+        for (LeaderboardStats.EngineStats engine : snapshot.getLeaderboard()) {
+            LeaderboardStats.TimeControlStats tc = engine.getTimeControlStats().get(timeControl);
+            if (tc == null || tc.getGames() < minGames) {
+                continue;
+            }
+            JsonObject item = gson.toJsonTree(tc).getAsJsonObject();
+            item.remove("timeControl");
+            item.addProperty("engine", engine.getEngineName());
+            item.add("confidence", gson.toJsonTree(Confidence.of(tc.getWins(), tc.getDraws(), tc.getLosses())));
+            items.add(item);
+        }
+        // By score in this time control, not by overall rating
+        items.sort(Comparator.comparingDouble((JsonObject item) -> -item.getAsJsonObject("confidence").get("score").getAsDouble()));
+        return items;
+    }
+
+    private static JsonObject page(List<?> items, Map<String, String> params) {
+        int offset = intParam(params, "offset", 0);
+        int limit = intParam(params, "limit", DEFAULT_LIMIT);
+        if (limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be at most " + MAX_LIMIT);
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("total", items.size());
+        json.addProperty("offset", offset);
+        json.addProperty("limit", limit);
+        int from = Math.min(offset, items.size());
+        json.add("items", gson.toJsonTree(items.subList(from, Math.min(from + limit, items.size()))));
+        return json;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < 0) {
+                throw new NumberFormatException();
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a non-negative integer");
+        }
+    }
+}
@@ -10,11 +10,16 @@ import fr.flwrian.Game.MatchPair;
 import fr.flwrian.Game.TimeControl;
 import fr.flwrian.Result.GameResult;
 import fr.flwrian.Result.PairResult;
+import fr.flwrian.Runner.GameWatchdog;
 
 /**
  * Represents a pair task where two engines play two games,
  * swapping colors between games.
  * Engines are created on-demand and closed after the pair completes.
+ * With a watchdog, every blocking step has a hard deadline; an engine that
+ * misses one is handed to the watchdog and replaced for the next game.
+ * In a self-play pair (same engine and name twice) a single process plays
+ * both sides, which halves the processes started per pair.
  */
 public class OnDemandPairTask implements Callable<PairResult> {
     private final String engine1Path;
@@ -23,9 +28,17 @@ public class OnDemandPairTask implements Callable<PairResult> {
     private final TimeControl baseTimeControl;
     private final String engine1Name;
     private final String engine2Name;
+    private final GameWatchdog watchdog;
 
     public OnDemandPairTask(MatchPair pair, String engine1Path, String engine2Path, 
                             TimeControl baseTimeControl, String engine1Name, String engine2Name) {
+        this(pair, engine1Path, engine2Path, baseTimeControl, engine1Name, engine2Name, null);
+    }
+
+    public OnDemandPairTask(MatchPair pair, String engine1Path, String engine2Path, 
+                            TimeControl baseTimeControl, String engine1Name, String engine2Name,
+                            GameWatchdog watchdog) {
+        this.watchdog = watchdog;
         this.pair = pair;
         this.engine1Path = engine1Path;
         this.engine2Path = engine2Path;
@@ -34,12 +47,37 @@ public class OnDemandPairTask implements Callable<PairResult> {
         this.engine2Name = engine2Name;
     }
 
+    public MatchPair getPair() {
+        return pair;
+    }
+
+    public String getEngine1Path() {
+        return engine1Path;
+    }
+
+    public String getEngine2Path() {
+        return engine2Path;
+    }
+
+    public TimeControl getTimeControl() {
+        return baseTimeControl;
+    }
+
+    public String getEngine1Name() {
+        return engine1Name;
+    }
+
+    public String getEngine2Name() {
+        return engine2Name;
+    }
+
     @Override
     public PairResult call() {
         List<GameResult> results = new ArrayList<>();
         String threadName = Thread.currentThread().getName();
         Engine engine1 = null;
         Engine engine2 = null;
+        GameWatchdog.Watch watch = watchdog != null ? watchdog.watch("Pair " + pair.getPairId()) : null;
         
         try {
             // System.out.println("[" + threadName + "] === " + pair + " starting ===");
@@ -47,8 +85,8 @@ public class OnDemandPairTask implements Callable<PairResult> {
             
             // Create engines on-demand
             // System.out.println("[" + threadName + "] Creating engine instances...");
-            engine1 = new Engine(engine1Path);
-            engine2 = new Engine(engine2Path);
+            engine1 = startEngine(watch, engine1Path, engine1Name);
+            engine2 = isSelfPlay() ? engine1 : startEngine(watch, engine2Path, engine2Name);
             // System.out.println("[" + threadName + "] Engines created successfully");
             
             // Display FEN (truncate if too long for readability)
@@ -70,17 +108,40 @@ public class OnDemandPairTask implements Callable<PairResult> {
                 engine1Name,
                 engine2Name
             );
+            game1.setWatch(watch);
             GameResult result1 = game1.run();
             results.add(result1);
+            
+            // Replace an engine the watchdog took over (it is being killed)
+            if (watch != null && watch.isExpired()) {
+                Engine expired = watch.getExpiredEngine();
+                watch.reset();
+                if (expired == engine1) {
+                    engine1 = startEngine(watch, engine1Path, engine1Name);
+                    if (isSelfPlay()) {
+                        engine2 = engine1;
+                    }
+                } else if (expired == engine2) {
+                    engine2 = startEngine(watch, engine2Path, engine2Name);
+                }
+            }
             // System.out.println("[" + threadName + "] Game 1 of pair " + pair.getPairId() + " completed: " + result1.getResult());
             
             // Reset engines between games (clear queue + ucinewgame)
             // System.out.println("[" + threadName + "] Resetting engines between games...");
+            long generation = arm(watch, "reset " + engine1Name, engine1);
             engine1.reset();
-            engine2.reset();
+            disarm(watch, generation);
+            if (engine2 != engine1) {
+                generation = arm(watch, "reset " + engine2Name, engine2);
+                engine2.reset();
+                disarm(watch, generation);
+            }
             
-            // Small delay between games
-            Thread.sleep(100);
+            // Small delay between games (not needed with a single process)
+            if (engine2 != engine1) {
+                Thread.sleep(100);
+            }
             
             // Game 2: engine2 = White, engine1 = Black (colors swapped)
             // System.out.println("[" + threadName + "] Starting game 2 of pair " + pair.getPairId());
@@ -94,6 +155,7 @@ public class OnDemandPairTask implements Callable<PairResult> {
                 engine2Name,
                 engine1Name
             );
+            game2.setWatch(watch);
             GameResult result2 = game2.run();
             results.add(result2);
             // System.out.println("[" + threadName + "] Game 2 of pair " + pair.getPairId() + " completed: " + result2.getResult());
@@ -103,36 +165,47 @@ public class OnDemandPairTask implements Callable<PairResult> {
             return new PairResult(pair.getPairId(), results, engine1Name, engine2Name);
             
         } catch (Exception e) {
-            System.err.println("[" + threadName + "] Exception in pair " + pair.getPairId() + ": " + e.getMessage());
-            e.printStackTrace();
+            boolean watchdogTimeout = watch != null && watch.isExpired();
+            String reason = watchdogTimeout ? "watchdog_timeout" : "Error: " + e.getMessage();
+            String diagnostics = watchdogTimeout ? watch.getDiagnostics() : null;
+            if (!watchdogTimeout) {
+                System.err.println("[" + threadName + "] Exception in pair " + pair.getPairId() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
             // If we have partial results, return them
             if (results.isEmpty()) {
                 // Both games failed - return error results
                 GameResult errorGame1 = new GameResult(
                     pair.getGame1Id(),
                     "0-0",
-                    "Error: " + e.getMessage()
+                    reason,
+                    diagnostics
                 );
                 GameResult errorGame2 = new GameResult(
                     pair.getGame2Id(),
                     "0-0",
-                    "Error: " + e.getMessage()
+                    reason,
+                    diagnostics
                 );
                 results.add(errorGame1);
                 results.add(errorGame2);
             }
             return new PairResult(pair.getPairId(), results, engine1Name, engine2Name);
         } finally {
-            // Always close engines after pair completes
+            // Always close engines after pair completes (except those the watchdog is killing)
             // System.out.println("[" + threadName + "] Closing engines for pair " + pair.getPairId());
-            if (engine1 != null) {
+            Engine expired = watch != null ? watch.getExpiredEngine() : null;
+            if (watch != null) {
+                watch.close();
+            }
+            if (engine1 != null && engine1 != expired) {
                 try {
                     engine1.close();
                 } catch (Exception e) {
                     System.err.println("[" + threadName + "] Error closing engine1: " + e.getMessage());
                 }
             }
-            if (engine2 != null) {
+            if (engine2 != null && engine2 != expired && engine2 != engine1) {
                 try {
                     engine2.close();
                 } catch (Exception e) {
@@ -142,4 +215,37 @@ public class OnDemandPairTask implements Callable<PairResult> {
             // System.out.println("[" + threadName + "] Engines closed for pair " + pair.getPairId());
         }
     }
+
+    private boolean isSelfPlay() {
+        return engine1Path.equals(engine2Path) && engine1Name.equals(engine2Name);
+    }
+
+    /**
+     * Start an engine under a startup deadline.
+     */
+    private Engine startEngine(GameWatchdog.Watch watch, String path, String name) throws Exception {
+        long generation = arm(watch, "startup " + name, null);
+        Engine engine = new Engine(path);
+        try {
+            disarm(watch, generation);
+        } catch (InterruptedException e) {
+            // Started too late: nobody else owns this process
+            engine.kill();
+            throw e;
+        }
+        return engine;
+    }
+
+    private long arm(GameWatchdog.Watch watch, String phase, Engine engine) {
+        return watch != null ? watch.arm(phase, engine, watch.getSetupTimeoutMs()) : 0;
+    }
+
+    /**
+     * @throws InterruptedException if the hard deadline passed before the engine answered
+     */
+    private void disarm(GameWatchdog.Watch watch, long generation) throws InterruptedException {
+        if (watch != null && !watch.disarm(generation, System.currentTimeMillis())) {
+            throw new InterruptedException("Hard deadline passed before the engine answered");
+        }
+    }
 }
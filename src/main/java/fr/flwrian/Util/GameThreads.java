@@ -0,0 +1,103 @@
+package fr.flwrian.Util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Thread factory for game tasks and engine reader threads.
+ *
+ * By default every game runs on a platform pool thread and every engine owns
+ * two platform reader threads. When virtual threads are enabled (Java 21+),
+ * pair tasks, game loops and engine readers all run on virtual threads instead,
+ * and the number of in-flight games is bounded by the runner's slot semaphore
+ * rather than by the size of an OS thread pool.
+ *
+ * The project targets Java 17, so the Java 21 API is looked up reflectively.
+ * On older runtimes the virtual mode falls back to platform threads.
+ */
+public class GameThreads {
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method NEW_VIRTUAL_EXECUTOR = findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+    private static final Method BUILDER_NAME = findBuilderMethod("name", String.class);
+    private static final Method BUILDER_START = findBuilderMethod("start", Runnable.class);
+
+    private static volatile boolean virtualEnabled = false;
+
+    /**
+     * Check if the running JVM supports virtual threads.
+     */
+    public static boolean isVirtualSupported() {
+        return OF_VIRTUAL != null && NEW_VIRTUAL_EXECUTOR != null
+            && BUILDER_NAME != null && BUILDER_START != null;
+    }
+
+    /**
+     * Enable or disable virtual threads for all game tasks and engine readers.
+     * @return true if virtual threads are now in use
+     */
+    public static boolean setVirtualEnabled(boolean enabled) {
+        if (enabled && !isVirtualSupported()) {
+            System.err.println("Virtual threads require Java 21+ (running " +
+                System.getProperty("java.version") + "), using platform threads");
+            virtualEnabled = false;
+        } else {
+            virtualEnabled = enabled;
+        }
+        return virtualEnabled;
+    }
+
+    public static boolean isVirtualEnabled() {
+        return virtualEnabled;
+    }
+
+    /**
+     * Create the executor that runs pair tasks.
+     * @param concurrency Number of concurrent pairs (pool size in platform mode)
+     */
+    public static ExecutorService newGamePool(int concurrency) {
+        if (virtualEnabled) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+            } catch (Exception e) {
+                System.err.println("Failed to create virtual thread executor: " + e.getMessage());
+            }
+        }
+        return Executors.newFixedThreadPool(concurrency);
+    }
+
+    /**
+     * Start a helper thread (e.g. engine stdout/stderr reader).
+     * @param name Thread name
+     * @param task Code to run
+     */
+    public static Thread start(String name, Runnable task) {
+        if (virtualEnabled) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+                return (Thread) BUILDER_START.invoke(builder, task);
+            } catch (Exception e) {
+                // Fall through to a platform thread
+            }
+        }
+        Thread thread = new Thread(task, name);
+        thread.start();
+        return thread;
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Method findBuilderMethod(String name, Class<?> parameterType) {
+        try {
+            return Class.forName("java.lang.Thread$Builder").getMethod(name, parameterType);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package fr.flwrian.WebSocket;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonArray;
+import fr.flwrian.Archive.GameDatabase;
+import fr.flwrian.Stats.SerializedSnapshot;
 import fr.flwrian.Stats.StatsManager;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.*;
@@ -12,15 +14,29 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * WebSocket endpoint for live game streaming.
+ *
+ * Stats and game databases are registered per tournament (several run side by
+ * side under the tournament manager). Requests may name a "tournament"; without
+ * one they get the first tournament registered.
  */
 @WebSocket
 public class GameWebSocket {
     private static final CopyOnWriteArraySet<Session> sessions = new CopyOnWriteArraySet<>();
     private static final Gson gson = new Gson();
-    private static StatsManager statsManager;
+    private static final Map<String, StatsManager> statsByTournament = new ConcurrentHashMap<>();
+    private static final Map<String, GameDatabase> databasesByTournament = new ConcurrentHashMap<>();
+    private static volatile StatsManager statsManager;  // Default: first one registered
+    private static volatile GameDatabase gameDatabase;  // Default: first one registered
+    private static volatile Consumer<JsonObject> forwarder; // Remote sink (distributed worker mode)
+    // Last serialized leaderboard message and last broadcast version, per stats manager
+    private static final Map<StatsManager, LeaderboardMessage> leaderboardMessages = new ConcurrentHashMap<>();
+    private static final Map<StatsManager, Long> broadcastVersions = new ConcurrentHashMap<>();
+    // Tournament whose leaderboard each session follows (absent: the default one)
+    private static final Map<Session, String> subscriptions = new ConcurrentHashMap<>();
     
     // Store current game states for late-joining clients
     private static final ConcurrentHashMap<Integer, JsonObject> gameStates = new ConcurrentHashMap<>();
@@ -29,10 +45,54 @@ public class GameWebSocket {
     private static final ConcurrentHashMap<Integer, List<String>> gameMoves = new ConcurrentHashMap<>();
     
     /**
-     * Set the stats manager for broadcasting leaderboard updates
+     * Register a tournament's stats manager for queries and leaderboard updates
+     * @param tournament Tournament name, or null for a tournament without one
      */
-    public static void setStatsManager(StatsManager manager) {
-        statsManager = manager;
+    public static synchronized void setStatsManager(String tournament, StatsManager manager) {
+        if (tournament != null) {
+            statsByTournament.put(tournament, manager);
+        }
+        if (statsManager == null) {
+            statsManager = manager;
+        }
+    }
+
+    /**
+     * Stats of a tournament
+     * @param tournament Tournament name, or null for the default one
+     * @return the stats manager, or null if there is none for that tournament
+     */
+    public static StatsManager getStatsManager(String tournament) {
+        return tournament != null ? statsByTournament.get(tournament) : statsManager;
+    }
+
+    /**
+     * Register a tournament's game database, searched by /api/games
+     * @param tournament Tournament name, or null for a tournament without one
+     */
+    public static synchronized void setGameDatabase(String tournament, GameDatabase database) {
+        if (tournament != null) {
+            databasesByTournament.put(tournament, database);
+        }
+        if (gameDatabase == null) {
+            gameDatabase = database;
+        }
+    }
+
+    /**
+     * Game database of a tournament
+     * @param tournament Tournament name, or null for the default one
+     */
+    public static GameDatabase getGameDatabase(String tournament) {
+        return tournament != null ? databasesByTournament.get(tournament) : gameDatabase;
+    }
+
+    /**
+     * Forward every broadcast message to a remote sink as well as local clients.
+     * Used by distributed workers to stream live games back to the coordinator.
+     */
+    public static void setForwarder(Consumer<JsonObject> sink) {
+        forwarder = sink;
     }
 
     @OnWebSocketConnect
@@ -55,6 +115,7 @@ public class GameWebSocket {
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) {
         sessions.remove(session);
+        subscriptions.remove(session);
         System.out.println("WebSocket disconnected: " + session.getRemoteAddress());
     }
 
@@ -69,12 +130,67 @@ public class GameWebSocket {
             JsonObject request = gson.fromJson(message, JsonObject.class);
             if (request.has("type")) {
                 String type = request.get("type").getAsString();
+                String tournament = request.has("tournament") ? request.get("tournament").getAsString() : null;
+                StatsManager stats = getStatsManager(tournament);
+                
+                // Handle leaderboard request; a client sending the version it has gets "unchanged" if still current
+                if ("get_leaderboard".equals(type) && stats != null) {
+                    // Later broadcasts follow the tournament last asked for
+                    if (tournament != null) {
+                        subscriptions.put(session, tournament);
+                    } else {
+                        subscriptions.remove(session);
+                    }
+                    // Versions are epoch-qualified, so one from before a restart never matches
+                    String known = request.has("version") && !request.get("version").isJsonNull()
+                        ? request.get("version").getAsString() : null;
+                    if (stats.versionTag(stats.getVersion()).equals(known)) {
+                        JsonObject response = new JsonObject();
+                        response.addProperty("type", "leaderboard_unchanged");
+                        response.addProperty("version", known);
+                        sendToSession(session, response);
+                    } else {
+                        sendToSession(session, leaderboardMessage(stats));
+                    }
+                }
+                
+                // Head-to-head records with error margins, optionally for one engine
+                if ("get_pairings".equals(type) && stats != null) {
+                    String engine = request.has("engine") ? request.get("engine").getAsString() : null;
+                    JsonObject response = new JsonObject();
+                    response.addProperty("type", "pairings");
+                    response.add("pairings", pairingsJson(stats, engine));
+                    sendToSession(session, response);
+                }
                 
-                // Handle leaderboard request
-                if ("get_leaderboard".equals(type) && statsManager != null) {
+                // Head-to-head matrices only, without the rest of the stats
+                if ("get_head_to_head".equals(type) && stats != null) {
+                    String timeControl = request.has("timeControl") ? request.get("timeControl").getAsString() : null;
                     JsonObject response = new JsonObject();
-                    response.addProperty("type", "leaderboard");
-                    response.add("stats", gson.toJsonTree(statsManager.getStats()));
+                    response.addProperty("type", "head_to_head");
+                    response.add("matrix", stats.getHeadToHead().toJson(timeControl));
+                    sendToSession(session, response);
+                }
+                
+                // Results by opening, optionally only flagged ones or one engine's
+                if ("get_openings".equals(type) && stats != null) {
+                    JsonObject response = new JsonObject();
+                    response.addProperty("type", "openings");
+                    response.add("openings", gson.toJsonTree(stats.getOpenings().getOpenings(
+                        request.has("flagged") && request.get("flagged").getAsBoolean(),
+                        request.has("engine") ? request.get("engine").getAsString() : null)));
+                    sendToSession(session, response);
+                }
+                
+                // Rating history, optionally of one engine and downsampled to "points"
+                if ("get_elo_history".equals(type) && stats != null) {
+                    JsonObject response = new JsonObject();
+                    response.addProperty("type", "elo_history");
+                    response.add("history", stats.getEloHistory().query(
+                        request.has("engine") ? request.get("engine").getAsString() : null,
+                        request.has("from") ? request.get("from").getAsLong() : 0,
+                        request.has("to") ? request.get("to").getAsLong() : Long.MAX_VALUE,
+                        request.has("points") ? request.get("points").getAsInt() : 0));
                     sendToSession(session, response);
                 }
             }
@@ -84,14 +200,59 @@ public class GameWebSocket {
     }
     
     /**
-     * Broadcast leaderboard update to all clients
+     * Head-to-head records of a tournament's stats (empty if there are none).
+     */
+    public static JsonArray pairingsJson(StatsManager stats, String engine) {
+        if (stats == null) {
+            return new JsonArray();
+        }
+        return gson.toJsonTree(stats.getStats(true).getPairings(engine)).getAsJsonArray();
+    }
+
+    /**
+     * Broadcast a leaderboard update to the clients following it (nothing if it did not change since the last one)
+     */
+    public static void broadcastLeaderboard(StatsManager stats) {
+        long version = stats.getVersion();
+        Long previous = broadcastVersions.put(stats, version);
+        if (previous != null && previous == version) {
+            return;
+        }
+        String json = leaderboardMessage(stats);
+        Consumer<JsonObject> sink = forwarder;
+        if (sink != null) {
+            sink.accept(gson.fromJson(json, JsonObject.class));
+        }
+        for (Session session : sessions) {
+            if (getStatsManager(subscriptions.get(session)) == stats) {
+                sendToSession(session, json);
+            }
+        }
+    }
+
+    /**
+     * {"type": "leaderboard", "version": "tag", "stats": {...}}, built once per stats version.
+     * The version is the epoch-qualified tag of StatsManager.versionTag.
      */
-    public static void broadcastLeaderboard() {
-        if (statsManager != null) {
-            JsonObject message = new JsonObject();
-            message.addProperty("type", "leaderboard");
-            message.add("stats", gson.toJsonTree(statsManager.getStats()));
-            broadcast(message);
+    private static String leaderboardMessage(StatsManager stats) {
+        SerializedSnapshot snapshot = stats.getSerializedStats();
+        LeaderboardMessage current = leaderboardMessages.get(stats);
+        if (current == null || current.version != snapshot.getVersion()) {
+            current = new LeaderboardMessage(snapshot.getVersion(),
+                "{\"type\":\"leaderboard\",\"version\":\"" + stats.versionTag(snapshot.getVersion())
+                    + "\",\"stats\":" + snapshot.getJson() + "}");
+            leaderboardMessages.put(stats, current);
+        }
+        return current.text;
+    }
+
+    private static final class LeaderboardMessage {
+        final long version;
+        final String text;
+
+        LeaderboardMessage(long version, String text) {
+            this.version = version;
+            this.text = text;
         }
     }
 
@@ -172,6 +333,11 @@ public class GameWebSocket {
         }
         } // Close the if (message.has("gameId"))
         
+        Consumer<JsonObject> sink = forwarder;
+        if (sink != null) {
+            sink.accept(message);
+        }
+        
         String json = gson.toJson(message);
         for (Session session : sessions) {
             sendToSession(session, json);
@@ -0,0 +1,48 @@
+package fr.flwrian.WebSocket;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Runtime controls exposed over HTTP by {@link WebSocketServer} under /control.
+ * Implementations apply changes at pair boundaries: games already in flight
+ * are never interrupted.
+ */
+public interface TournamentControl {
+
+    /**
+     * Current scheduling state (running/paused/draining, concurrency, progress, engines).
+     */
+    JsonObject getState();
+
+    /**
+     * Stop starting new pairs; in-flight pairs finish normally.
+     */
+    void pause();
+
+    void resume();
+
+    /**
+     * Stop starting new pairs and end the tournament once in-flight pairs finish.
+     * The remaining schedule stays in the journal and can be resumed later.
+     */
+    void drain();
+
+    /**
+     * Change the number of concurrent pairs.
+     * @throws IllegalArgumentException if concurrency is not positive
+     */
+    void setConcurrency(int concurrency);
+
+    /**
+     * Register a new engine for future pairs.
+     * @param path Path to the engine executable
+     * @throws IllegalArgumentException if the engine does not exist or is already registered
+     */
+    void addEngine(String path);
+
+    /**
+     * Stop scheduling an engine; its in-flight pairs finish normally.
+     * @throws IllegalArgumentException if the engine is not registered
+     */
+    void retireEngine(String name);
+}
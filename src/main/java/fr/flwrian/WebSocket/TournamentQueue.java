@@ -0,0 +1,24 @@
+package fr.flwrian.WebSocket;
+
+import com.google.gson.JsonArray;
+
+import java.io.IOException;
+
+/**
+ * Tournament queue exposed over HTTP by {@link WebSocketServer} under /tournaments.
+ */
+public interface TournamentQueue {
+
+    /**
+     * Progress of every queued, running and finished tournament.
+     */
+    JsonArray getTournaments();
+
+    /**
+     * Queue a tournament from its config file.
+     * @param configPath Path to the tournament config.yml
+     * @param weight Relative share of game slots
+     * @param priority Higher priorities are served first
+     */
+    void submitTournament(String configPath, double weight, int priority) throws IOException;
+}
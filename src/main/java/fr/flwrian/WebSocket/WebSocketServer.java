@@ -15,10 +15,35 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.Duration;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.flwrian.Archive.ArchivedGame;
+import fr.flwrian.Archive.GameDatabase;
+import fr.flwrian.Archive.GameQuery;
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+import fr.flwrian.Stats.ResultsStore;
+import fr.flwrian.Stats.ResultsStore.GroupBy;
+import fr.flwrian.Stats.SerializedSnapshot;
+import fr.flwrian.Stats.StatsManager;
+import fr.flwrian.Stats.StatsQuery;
 
 /**
  * WebSocket server for live game streaming with SSL/TLS support.
@@ -28,6 +53,9 @@ public class WebSocketServer {
     private final int port;
     private final boolean sslEnabled;
     private final int sslPort;
+    private volatile TournamentControl control;
+    private volatile TournamentQueue tournaments;
+    private volatile String controlToken;
 
     public WebSocketServer(int port) {
         this(port, false, 8443, null, null, null);
@@ -78,9 +106,40 @@ public class WebSocketServer {
         context.addServlet(new ServletHolder(new StaticResourceServlet()), "/static/*");
         context.addServlet(new ServletHolder(new LiveServlet()), "/live");
         context.addServlet(new ServletHolder(new LeaderboardServlet()), "/leaderboard");
+        context.addServlet(new ServletHolder(new ControlServlet(this)), "/control/*");
+        context.addServlet(new ServletHolder(new TournamentsServlet(this)), "/tournaments");
+        context.addServlet(new ServletHolder(new PairingsServlet()), "/api/pairings");
+        context.addServlet(new ServletHolder(new HeadToHeadServlet()), "/api/head-to-head");
+        context.addServlet(new ServletHolder(new EloHistoryServlet()), "/api/elo-history");
+        context.addServlet(new ServletHolder(new OpeningsServlet()), "/api/openings");
+        context.addServlet(new ServletHolder(new AggregateServlet()), "/api/results/aggregate");
+        context.addServlet(new ServletHolder(new StatsApiServlet()), "/api/stats/*");
+        context.addServlet(new ServletHolder(new GamesServlet()), "/api/games/*");
         context.addServlet(new ServletHolder(new IndexServlet()), "/");
     }
 
+    /**
+     * Expose runtime controls under /control.
+     */
+    public void setControl(TournamentControl control) {
+        this.control = control;
+    }
+
+    /**
+     * Expose the tournament queue under /tournaments (tournament manager mode).
+     */
+    public void setTournamentQueue(TournamentQueue queue) {
+        this.tournaments = queue;
+    }
+
+    /**
+     * Require a token (X-Control-Token header or "token" parameter) for /control.
+     * @param token Token, or null to only accept requests from this machine
+     */
+    public void setControlToken(String token) {
+        this.controlToken = token;
+    }
+
     /**
      * Create SSL/TLS connector for HTTPS and WSS.
      */
@@ -172,6 +231,495 @@ public class WebSocketServer {
         }
     }
 
+    /**
+     * Runtime control API.
+     *
+     * GET  /control                      - current state
+     * POST /control/pause                - stop starting new pairs
+     * POST /control/resume               - resume scheduling
+     * POST /control/drain                - finish in-flight pairs, then end the run
+     * POST /control/concurrency?value=N  - change the number of concurrent pairs
+     * POST /control/engines/add?path=P   - register an engine
+     * POST /control/engines/retire?name=N - stop scheduling an engine
+     */
+    private static class ControlServlet extends HttpServlet {
+        private final WebSocketServer server;
+
+        ControlServlet(WebSocketServer server) {
+            this.server = server;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            TournamentControl control = authorize(req, resp);
+            if (control != null) {
+                reply(resp, HttpServletResponse.SC_OK, control.getState());
+            }
+        }
+
+        @Override
+        protected void doPost(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            TournamentControl control = authorize(req, resp);
+            if (control == null) {
+                return;
+            }
+            String action = req.getPathInfo() != null ? req.getPathInfo() : "";
+            try {
+                switch (action) {
+                    case "/pause":
+                        control.pause();
+                        break;
+                    case "/resume":
+                        control.resume();
+                        break;
+                    case "/drain":
+                        control.drain();
+                        break;
+                    case "/concurrency":
+                        control.setConcurrency(Integer.parseInt(required(req, "value")));
+                        break;
+                    case "/engines/add":
+                        control.addEngine(required(req, "path"));
+                        break;
+                    case "/engines/retire":
+                        control.retireEngine(required(req, "name"));
+                        break;
+                    default:
+                        error(resp, HttpServletResponse.SC_NOT_FOUND, "Unknown action: " + action);
+                        return;
+                }
+            } catch (IllegalArgumentException e) {
+                error(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                return;
+            }
+            // Changes are applied at the next pair boundary
+            reply(resp, HttpServletResponse.SC_ACCEPTED, control.getState());
+        }
+
+        private TournamentControl authorize(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            if (!hasValidToken(server, req, resp)) {
+                return null;
+            }
+            TournamentControl control = server.control;
+            if (control == null) {
+                error(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "No tournament running");
+            }
+            return control;
+        }
+
+        static boolean hasValidToken(WebSocketServer server, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            String token = server.controlToken;
+            if (token == null || token.isEmpty()) {
+                // Without a token the API starts arbitrary executables for anyone, so keep it local
+                if (!InetAddress.getByName(req.getRemoteAddr()).isLoopbackAddress()) {
+                    error(resp, HttpServletResponse.SC_FORBIDDEN, "Set server.controlToken to allow remote control");
+                    return false;
+                }
+                return true;
+            }
+            String given = req.getHeader("X-Control-Token");
+            if (given == null) {
+                given = req.getParameter("token");
+            }
+            if (given == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                    given.getBytes(StandardCharsets.UTF_8))) {
+                error(resp, HttpServletResponse.SC_UNAUTHORIZED, "Invalid control token");
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Stats of the tournament named by the "tournament" parameter (the default one without it).
+         * @return the stats manager, or null once an error has been sent
+         */
+        static StatsManager stats(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            String tournament = req.getParameter("tournament");
+            StatsManager stats = GameWebSocket.getStatsManager(tournament);
+            if (stats == null) {
+                if (tournament != null) {
+                    error(resp, HttpServletResponse.SC_NOT_FOUND, "Unknown tournament: " + tournament);
+                } else {
+                    error(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Stats are not enabled");
+                }
+            }
+            return stats;
+        }
+
+        static String required(HttpServletRequest req, String name) {
+            String value = req.getParameter(name);
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException("Missing parameter '" + name + "'");
+            }
+            return value;
+        }
+
+        static void error(HttpServletResponse resp, int status, String message) throws IOException {
+            JsonObject body = new JsonObject();
+            body.addProperty("error", message);
+            reply(resp, status, body);
+        }
+
+        static void reply(HttpServletResponse resp, int status, JsonElement body) throws IOException {
+            resp.setContentType("application/json");
+            resp.setStatus(status);
+            resp.getWriter().println(body.toString());
+        }
+    }
+
+    /**
+     * Tournament queue API (tournament manager mode).
+     *
+     * GET  /tournaments                                   - progress and ETA of every tournament
+     * POST /tournaments?config=PATH[&weight=W][&priority=P] - queue a tournament
+     */
+    private static class TournamentsServlet extends HttpServlet {
+        private final WebSocketServer server;
+
+        TournamentsServlet(WebSocketServer server) {
+            this.server = server;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            TournamentQueue queue = authorize(req, resp);
+            if (queue != null) {
+                ControlServlet.reply(resp, HttpServletResponse.SC_OK, queue.getTournaments());
+            }
+        }
+
+        @Override
+        protected void doPost(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            TournamentQueue queue = authorize(req, resp);
+            if (queue == null) {
+                return;
+            }
+            try {
+                String weight = req.getParameter("weight");
+                String priority = req.getParameter("priority");
+                queue.submitTournament(ControlServlet.required(req, "config"),
+                    weight != null ? Double.parseDouble(weight) : 1.0,
+                    priority != null ? Integer.parseInt(priority) : 0);
+            } catch (IOException | IllegalArgumentException e) {
+                ControlServlet.error(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                return;
+            }
+            ControlServlet.reply(resp, HttpServletResponse.SC_ACCEPTED, queue.getTournaments());
+        }
+
+        private TournamentQueue authorize(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            if (!ControlServlet.hasValidToken(server, req, resp)) {
+                return null;
+            }
+            TournamentQueue queue = server.tournaments;
+            if (queue == null) {
+                ControlServlet.error(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Not running in tournament manager mode");
+            }
+            return queue;
+        }
+    }
+
+    /**
+     * Head-to-head records with 95% intervals, LOS and normalized Elo.
+     *
+     * GET /api/pairings[?engine=NAME]
+     */
+    private static class PairingsServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            StatsManager stats = ControlServlet.stats(req, resp);
+            if (stats == null) {
+                return;
+            }
+            ControlServlet.reply(resp, HttpServletResponse.SC_OK, GameWebSocket.pairingsJson(stats, req.getParameter("engine")));
+        }
+    }
+
+    /**
+     * Head-to-head W/D/L and pentanomial matrices (see HeadToHeadMatrix for the layout).
+     *
+     * GET /api/head-to-head[?tc=TIME_CONTROL]
+     */
+    private static class HeadToHeadServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            StatsManager stats = ControlServlet.stats(req, resp);
+            if (stats == null) {
+                return;
+            }
+            ControlServlet.reply(resp, HttpServletResponse.SC_OK, stats.getHeadToHead().toJson(req.getParameter("tc")));
+        }
+    }
+
+    /**
+     * Rating history per engine, columnar (see EloHistory.query).
+     *
+     * GET /api/elo-history[?engine=NAME][&from=SEQ][&to=SEQ][&points=N]
+     */
+    private static class EloHistoryServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            StatsManager stats = ControlServlet.stats(req, resp);
+            if (stats == null) {
+                return;
+            }
+            long from;
+            long to;
+            int points;
+            try {
+                from = req.getParameter("from") != null ? Long.parseLong(req.getParameter("from")) : 0;
+                to = req.getParameter("to") != null ? Long.parseLong(req.getParameter("to")) : Long.MAX_VALUE;
+                points = req.getParameter("points") != null ? Integer.parseInt(req.getParameter("points")) : 0;
+            } catch (NumberFormatException e) {
+                ControlServlet.error(resp, HttpServletResponse.SC_BAD_REQUEST, "from, to and points must be numbers");
+                return;
+            }
+            ControlServlet.reply(resp, HttpServletResponse.SC_OK,
+                stats.getEloHistory().query(req.getParameter("engine"), from, to, points));
+        }
+    }
+
+    /**
+     * Results by opening, with openings flagged for pruning.
+     *
+     * GET /api/openings[?flagged=true][&engine=NAME]
+     */
+    private static class OpeningsServlet extends HttpServlet {
+        private static final Gson gson = new Gson();
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            StatsManager stats = ControlServlet.stats(req, resp);
+            if (stats == null) {
+                return;
+            }
+            boolean flagged = "true".equals(req.getParameter("flagged"));
+            ControlServlet.reply(resp, HttpServletResponse.SC_OK,
+                gson.toJsonTree(stats.getOpenings().getOpenings(flagged, req.getParameter("engine"))));
+        }
+    }
+
+    /**
+     * Aggregates over every stored game.
+     *
+     * GET /api/results/aggregate?by=engine|tc|opening|day[&from=EPOCH_MS][&to=EPOCH_MS]
+     */
+    private static class AggregateServlet extends HttpServlet {
+        private static final Gson gson = new Gson();
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            StatsManager stats = ControlServlet.stats(req, resp);
+            if (stats == null) {
+                return;
+            }
+            if (stats.getResultsStore() == null) {
+                ControlServlet.error(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Results store is not enabled");
+                return;
+            }
+            GroupBy groupBy;
+            switch (req.getParameter("by") != null ? req.getParameter("by") : "engine") {
+                case "engine": groupBy = GroupBy.ENGINE; break;
+                case "tc": groupBy = GroupBy.TIME_CONTROL; break;
+                case "opening": groupBy = GroupBy.OPENING; break;
+                case "day": groupBy = GroupBy.DAY; break;
+                default:
+                    ControlServlet.error(resp, HttpServletResponse.SC_BAD_REQUEST, "by must be engine, tc, opening or day");
+                    return;
+            }
+            long from;
+            long to;
+            try {
+                from = req.getParameter("from") != null ? Long.parseLong(req.getParameter("from")) : Long.MIN_VALUE;
+                to = req.getParameter("to") != null ? Long.parseLong(req.getParameter("to")) : Long.MAX_VALUE;
+            } catch (NumberFormatException e) {
+                ControlServlet.error(resp, HttpServletResponse.SC_BAD_REQUEST, "from and to must be epoch milliseconds");
+                return;
+            }
+            long start = System.nanoTime();
+            List<ResultsStore.Aggregate> groups = stats.getResultsStore().aggregate(groupBy, from, to);
+            JsonObject body = new JsonObject();
+            body.addProperty("games", stats.getResultsStore().size());
+            body.addProperty("elapsedMs", (System.nanoTime() - start) / 1e6);
+            body.add("groups", gson.toJsonTree(groups));
+            ControlServlet.reply(resp, HttpServletResponse.SC_OK, body);
+        }
+    }
+
+    /**
+     * Cached read-only stats queries (see StatsQuery for the paths and parameters).
+     * Responses carry the stats version (qualified by the process, see StatsManager.versionTag)
+     * as ETag; If-None-Match with the current one gets 304.
+     *
+     * GET /api/stats/leaderboard[?tc=TC], /engines/NAME, /time-controls[/TC]
+     * GET /api/stats/snapshot - the whole leaderboard snapshot, as broadcast over the WebSocket
+     */
+    private static class StatsApiServlet extends HttpServlet {
+        private final Map<StatsManager, StatsQuery> queries = new ConcurrentHashMap<>();
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            StatsManager stats = ControlServlet.stats(req, resp);
+            if (stats == null) {
+                return;
+            }
+            StatsQuery query = queries.computeIfAbsent(stats, StatsQuery::new);
+            // Up to date clients are answered before any work
+            String current = etag(stats, query.getVersion());
+            if (matches(req.getHeader("If-None-Match"), current)) {
+                resp.setHeader("ETag", current);
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            if ("/snapshot".equals(req.getPathInfo())) {
+                // Serialized once per version and shared with WebSocket clients
+                SerializedSnapshot snapshot = stats.getSerializedStats();
+                resp.setHeader("ETag", etag(stats, snapshot.getVersion()));
+                resp.setHeader("Cache-Control", "no-cache");
+                resp.setContentType("application/json");
+                resp.setCharacterEncoding("UTF-8");
+                resp.setContentLength(snapshot.getBytes().length);
+                resp.setStatus(HttpServletResponse.SC_OK);
+                resp.getOutputStream().write(snapshot.getBytes());
+                return;
+            }
+            Map<String, String> params = new HashMap<>();
+            req.getParameterMap().forEach((name, values) -> params.put(name, values[0]));
+            StatsQuery.Response response;
+            try {
+                response = query.query(req.getPathInfo() != null ? req.getPathInfo() : "", params);
+            } catch (IllegalArgumentException e) {
+                ControlServlet.error(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                return;
+            } catch (NoSuchElementException e) {
+                ControlServlet.error(resp, HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+                return;
+            }
+            resp.setHeader("ETag", etag(stats, response.getVersion()));
+            resp.setHeader("Cache-Control", "no-cache");
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.setStatus(HttpServletResponse.SC_OK);
+            resp.getWriter().print(response.getBody());
+        }
+
+        private static String etag(StatsManager stats, long version) {
+            return "\"" + stats.versionTag(version) + "\"";
+        }
+
+        private static boolean matches(String ifNoneMatch, String etag) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Search of the game database (see GameQuery for the filters). Matching games
+     * are streamed newest first, one per line as JSON (application/x-ndjson) or
+     * as PGN; page with before=ID of the last game received.
+     *
+     * GET /api/games?engine=NAME&opponent=NAME&result=loss&reason=time_forfeit&tc=10%2B0.1&from=2026-10-01&format=json|pgn
+     * GET /api/games/ID[?format=pgn]
+     */
+    private static class GamesServlet extends HttpServlet {
+        private static final Gson gson = new Gson();
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) 
+                throws ServletException, IOException {
+            String tournament = req.getParameter("tournament");
+            GameDatabase database = GameWebSocket.getGameDatabase(tournament);
+            if (database == null) {
+                if (tournament != null) {
+                    ControlServlet.error(resp, HttpServletResponse.SC_NOT_FOUND, "No game database for tournament: " + tournament);
+                } else {
+                    ControlServlet.error(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Game database is not enabled");
+                }
+                return;
+            }
+            boolean pgn = "pgn".equals(req.getParameter("format"));
+            String path = req.getPathInfo();
+            if (path != null && path.length() > 1) {
+                ArchivedGame game;
+                try {
+                    game = database.read(Long.parseLong(path.substring(1)));
+                } catch (NumberFormatException e) {
+                    ControlServlet.error(resp, HttpServletResponse.SC_BAD_REQUEST, "Game ID must be a number");
+                    return;
+                } catch (NoSuchElementException e) {
+                    ControlServlet.error(resp, HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+                    return;
+                }
+                resp.setContentType(pgn ? "application/x-chess-pgn" : "application/json");
+                resp.setCharacterEncoding("UTF-8");
+                resp.setStatus(HttpServletResponse.SC_OK);
+                resp.getWriter().print(pgn ? game.toPgn() : gson.toJson(toJson(game)));
+                return;
+            }
+
+            Map<String, String> params = new HashMap<>();
+            req.getParameterMap().forEach((name, values) -> params.put(name, values[0]));
+            GameQuery query;
+            try {
+                query = GameQuery.parse(params);
+            } catch (IllegalArgumentException e) {
+                ControlServlet.error(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                return;
+            }
+            resp.setContentType(pgn ? "application/x-chess-pgn" : "application/x-ndjson");
+            resp.setCharacterEncoding("UTF-8");
+            resp.setStatus(HttpServletResponse.SC_OK);
+            PrintWriter out = resp.getWriter();
+            // Each game is written as soon as it is read; the response buffer sends them on
+            database.search(query, game -> {
+                out.print(pgn ? game.toPgn() : gson.toJson(toJson(game)) + "\n");
+                if (out.checkError()) {
+                    throw new IOException("Client disconnected");
+                }
+            });
+        }
+
+        private static JsonObject toJson(ArchivedGame archived) {
+            GameResult game = archived.getGame();
+            GameRecord record = game.getRecord();
+            JsonObject json = new JsonObject();
+            json.addProperty("id", archived.getId());
+            json.addProperty("event", archived.getEvent());
+            json.addProperty("round", archived.getRound());
+            json.addProperty("timestamp", archived.getTimestamp());
+            json.addProperty("white", record.getWhite());
+            json.addProperty("black", record.getBlack());
+            json.addProperty("result", game.getResult());
+            json.addProperty("reason", game.getReason());
+            json.addProperty("timeControl", record.getTimeControl());
+            json.addProperty("startFen", record.getStartFen());
+            json.addProperty("plies", record.getPlies());
+            json.add("moves", gson.toJsonTree(record.getMoves()));
+            return json;
+        }
+    }
+
     /**
      * Live viewer servlet.
      */
@@ -0,0 +1,55 @@
+package fr.flwrian;
+
+import fr.flwrian.Distributed.Worker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Entry point for a distributed worker.
+ * 
+ * Usage: java -jar enginelab.jar worker <host:port> [slots] [cacheDir]
+ * 
+ * The worker plays pairs leased by the coordinator (a tournament with
+ * distributed.enabled in its config.yml). Engines are downloaded from the
+ * coordinator on first use and cached by hash. The coordinator's
+ * distributed.secret is read from the ENGINELAB_SECRET environment variable
+ * (kept off the command line, where other users could see it).
+ */
+public class WorkerMain {
+    public static void main(String[] args) {
+        if (args.length < 1 || !args[0].contains(":")) {
+            System.err.println("Usage: java -jar enginelab.jar worker <host:port> [slots] [cacheDir]");
+            System.exit(1);
+        }
+        
+        String host = args[0].substring(0, args[0].lastIndexOf(':'));
+        int port = Integer.parseInt(args[0].substring(args[0].lastIndexOf(':') + 1));
+        int slots = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        Path cacheDir = Path.of(args.length > 2 ? args[2] : "./worker-cache");
+        String secret = System.getenv("ENGINELAB_SECRET");
+        if (secret == null || secret.isEmpty()) {
+            System.err.println("Set ENGINELAB_SECRET to the coordinator's distributed.secret");
+            System.exit(1);
+        }
+        
+        System.out.println("═══════════════════════════════════════════════");
+        System.out.println("EngineLab Worker");
+        System.out.println("═══════════════════════════════════════════════");
+        System.out.println("Coordinator: " + host + ":" + port);
+        System.out.println("Slots:       " + slots);
+        System.out.println("Cache:       " + cacheDir.toAbsolutePath());
+        System.out.println();
+        
+        try {
+            Files.createDirectories(cacheDir);
+            Worker worker = new Worker(host, port, slots, cacheDir, secret);
+            Runtime.getRuntime().addShutdownHook(new Thread(worker::stop));
+            worker.run();
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
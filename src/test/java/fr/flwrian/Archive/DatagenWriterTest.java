@@ -0,0 +1,116 @@
+package fr.flwrian.Archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatagenWriterTest {
+
+    private static GameResult game(String result, String reason, String startFen, String... moves) {
+        GameResult game = new GameResult(1, result, reason);
+        GameRecord record = new GameRecord("A", "A", startFen, "-");
+        for (int ply = 0; ply < moves.length; ply++) {
+            Integer score = ply == 10 ? null : ply == 9 ? GameRecord.mateScore(80) : Integer.valueOf(10 * ply);
+            record.addPly(moves[ply], score, 8, 10, 5000L, 1_000_000L, null, 5, 10000);
+        }
+        record.trim();
+        game.setRecord(record);
+        return game;
+    }
+
+    private static DatagenBoard replay(String fen, String... moves) {
+        DatagenBoard board = new DatagenBoard();
+        board.load(fen);
+        for (String move : moves) {
+            board.apply(move);
+        }
+        return board;
+    }
+
+    @Test
+    void testBoardReplaysAndPacksPositions() {
+        assertEquals("rnbqkbnr/ppp1p1pp/5P2/3p4/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 3",
+            replay("startpos", "e2e4", "d7d5", "e4e5", "f7f5", "e5f6").fen());
+        DatagenBoard enPassant = replay("startpos", "e2e4", "d7d5", "e4e5", "f7f5");
+        assertEquals("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", enPassant.fen());
+        assertTrue(enPassant.isCapture("e5f6"));
+        assertFalse(enPassant.isCapture("e5e6"));
+        assertEquals("4k2r/8/8/8/8/8/8/r4RK1 w k - 0 2",
+            replay("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", "e1g1", "a8a1").fen());
+        assertEquals("Q7/8/8/8/8/8/8/k6K b - - 0 1", replay("8/P7/8/8/8/8/8/k6K w - -", "a7a8q").fen());
+
+        assertTrue(replay("4k3/8/8/8/8/8/8/4R1K1 b - - 0 1").inCheck());
+        assertFalse(replay("4k3/8/8/8/8/8/4P3/4R1K1 b - - 0 1").inCheck());
+        assertTrue(replay("4k3/8/3N4/8/8/8/8/6K1 b - - 0 1").inCheck());
+        assertTrue(replay("4k3/3P4/8/8/8/8/8/6K1 b - - 0 1").inCheck());
+        assertTrue(replay("4k3/8/8/1B6/8/8/8/6K1 b - - 0 1").inCheck());
+        assertFalse(replay("4k3/8/8/1B6/8/8/8/6K1 w - - 0 1").inCheck());
+
+        ByteBuffer packed = ByteBuffer.allocate(DatagenBoard.PACKED_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        assertTrue(enPassant.pack(packed, -123, 1));
+        assertFalse(packed.hasRemaining());
+        packed.flip();
+        assertEquals(enPassant.fen(), DatagenBoard.unpack(packed).fen());
+        assertEquals(-123, packed.getShort(28));
+        assertEquals(1, packed.get(30));
+    }
+
+    @Test
+    void testWritesFilteredPositionsToShards(@TempDir Path tempDir) throws Exception {
+        Path dir = tempDir.resolve("datagen");
+        try (DatagenWriter writer = new DatagenWriter(dir, 3, 0, 400, 3000)) {
+            // Kept: plies 0-5, 8 and 13. Captures (6, 7, 11, 12), a long mate (9) and no score (10) are not
+            writer.write(game("1-0", "resignation", "startpos", "e2e4", "e7e5", "g1f3", "b8c6", "f1b5", "a7a6",
+                "b5c6", "d7c6", "e1g1", "c8g4", "h2h3", "g4f3", "d1f3", "f8c5"), "Datagen", "1.1");
+            // In check at ply 0: plies 1 and 2 are kept
+            writer.write(game("1/2-1/2", "draw", "4k3/8/8/8/8/8/8/4RK2 b - - 0 1", "e8d8", "e1e2", "d8c8"),
+                "Datagen", "1.2");
+            writer.write(game("0-1", "time_forfeit", "startpos", "e2e4", "e7e5"), "Datagen", "2.1");
+            writer.flush();
+            assertEquals(3, writer.getGames());
+            assertEquals(10, writer.getPositions());
+        }
+
+        // Dealt in turn: shard 0 has positions 0, 3, 6 and 9
+        ByteBuffer shard0 = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("positions-00.bin"))).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(4 * DatagenBoard.PACKED_SIZE, shard0.limit());
+        assertEquals(3 * DatagenBoard.PACKED_SIZE, Files.size(dir.resolve("positions-01.bin")));
+        assertEquals(3 * DatagenBoard.PACKED_SIZE, Files.size(dir.resolve("positions-02.bin")));
+        String[] fens = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2",
+            "r1bqkbnr/1pp2ppp/p1p5/4p3/4P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 5",
+            "3k4/8/8/8/8/8/4R3/5K2 b - - 2 2"};
+        int[] scores = {0, -30, 80, -20};   // White's side
+        int[] results = {2, 2, 2, 1};
+        for (int i = 0; i < fens.length; i++) {
+            int offset = i * DatagenBoard.PACKED_SIZE;
+            assertEquals(fens[i], DatagenBoard.unpack(shard0.position(offset)).fen());
+            assertEquals(scores[i], shard0.getShort(offset + 28));
+            assertEquals(results[i], shard0.get(offset + 30));
+        }
+        ByteBuffer shard1 = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("positions-01.bin"))).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals("r2qkbnr/1pp2ppp/p1p5/4p3/4P3/5Q1P/PPPP1PP1/RNB2RK1 b kq - 0 7",
+            DatagenBoard.unpack(shard1.position(2 * DatagenBoard.PACKED_SIZE)).fen());
+        assertEquals(-130, shard1.getShort(2 * DatagenBoard.PACKED_SIZE + 28));
+
+        // A torn position is dropped on restart, then new positions are appended
+        Files.write(dir.resolve("positions-00.bin"), new byte[5], StandardOpenOption.APPEND);
+        try (DatagenWriter writer = new DatagenWriter(dir, 3, 0, 400, 3000)) {
+            writer.write(game("1/2-1/2", "draw", "4k3/8/8/8/8/8/8/4RK2 b - - 0 1", "e8d8", "e1e2", "d8c8"),
+                "Datagen", "3.1");
+        }
+        assertEquals(5 * DatagenBoard.PACKED_SIZE, Files.size(dir.resolve("positions-00.bin")));
+        assertEquals(4 * DatagenBoard.PACKED_SIZE, Files.size(dir.resolve("positions-01.bin")));
+    }
+}
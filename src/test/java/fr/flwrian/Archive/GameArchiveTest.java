@@ -0,0 +1,141 @@
+package fr.flwrian.Archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameArchiveTest {
+    private static final String[] MOVES = {"e2e4", "e7e5", "g1f3", "b8c6", "f1b5", "a7a6", "e7e8q", "b2a1n"};
+
+    private static GameResult game(int id, Random random) {
+        GameResult game = new GameResult(id, id % 3 == 0 ? "1-0" : "1/2-1/2", id % 3 == 0 ? "checkmate" : "max_moves",
+            id % 7 == 0 ? "details " + id : null);
+        game.setGameStats(0, 1000L * id, 12.34, 15.5, 1_500_000, 900_000 + id);
+        GameRecord record = new GameRecord("Engine" + (id % 5), "Engine" + (id % 5 + 1),
+            id % 2 == 0 ? "startpos" : "4k3/8/8/8/8/8/4P3/4K3 b - -", "10+0.1");
+        int plies = random.nextInt(200);
+        int score = 0;
+        for (int ply = 0; ply < plies; ply++) {
+            score += random.nextInt(61) - 30;
+            Integer reported = ply % 11 == 0 ? null : ply == plies - 1 ? -(10000 - 300) : Integer.valueOf(score);
+            record.addPly(MOVES[random.nextInt(MOVES.length)], reported, random.nextInt(30), random.nextInt(40),
+                (long) random.nextInt(1 << 30) * 8, 2_000_000L, ply % 4 == 0 ? null : "e2e4 e7e5 g1f3",
+                random.nextInt(2000), 10_000 - 50L * ply);
+        }
+        record.trim();
+        game.setRecord(record);
+        return game;
+    }
+
+    private static void assertSameGame(GameResult expected, ArchivedGame actual) {
+        GameResult game = actual.getGame();
+        assertEquals(expected.getId(), game.getId());
+        assertEquals(expected.getResult(), game.getResult());
+        assertEquals(expected.getReason(), game.getReason());
+        assertEquals(expected.getDiagnostics(), game.getDiagnostics());
+        assertEquals(expected.getDurationMs(), game.getDurationMs());
+        assertEquals(expected.getWhiteDepth(), game.getWhiteDepth(), 0.01);
+        assertEquals(expected.getBlackNps(), game.getBlackNps());
+        GameRecord a = expected.getRecord();
+        GameRecord b = game.getRecord();
+        assertEquals(a.getWhite(), b.getWhite());
+        assertEquals(a.getStartFen(), b.getStartFen());
+        assertEquals(a.getPlies(), b.getPlies());
+        assertArrayEquals(a.getMoves(), b.getMoves());
+        for (int ply = 0; ply < a.getPlies(); ply++) {
+            assertEquals(a.getScore(ply), b.getScore(ply));
+            assertEquals(a.getDepth(ply), b.getDepth(ply));
+            assertEquals(a.getSelDepth(ply), b.getSelDepth(ply));
+            assertEquals(a.getNodes(ply), b.getNodes(ply));
+            assertEquals(a.getNps(ply), b.getNps(ply));
+            assertEquals(a.getTimeMs(ply), b.getTimeMs(ply));
+            assertEquals(a.getClockMs(ply), b.getClockMs(ply));
+            assertArrayEquals(a.getPv(ply), b.getPv(ply));
+        }
+    }
+
+    @Test
+    void testGamesAreReadBackByIdAfterReopening(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("games.elga");
+        Random random = new Random(7);
+        GameResult[] games = new GameResult[3000];
+        try (GameArchive archive = new GameArchive(file)) {
+            for (int i = 0; i < 2000; i++) {
+                games[i] = game(i, random);
+                assertEquals(i, archive.append(games[i], "Test", "1." + i, 1_700_000_000_000L + i));
+            }
+            assertEquals(-1, archive.append(new GameResult(-1, "*", "engine_crash"), "Test", "0.1", 0));
+        }
+        // Reopened for appending: IDs continue
+        try (GameArchive archive = new GameArchive(file)) {
+            for (int i = 2000; i < games.length; i++) {
+                games[i] = game(i, random);
+                assertEquals(i, archive.append(games[i], "Test", "1." + i, 1_700_000_000_000L + i));
+            }
+        }
+
+        try (ArchiveReader reader = new ArchiveReader(file)) {
+            assertEquals(games.length, reader.size());
+            for (int n = 0; n < 500; n++) {
+                int id = random.nextInt(games.length);
+                ArchivedGame archived = reader.read(id);
+                assertEquals(id, archived.getId());
+                assertEquals("1." + id, archived.getRound());
+                assertEquals(1_700_000_000_000L + id, archived.getTimestamp());
+                assertSameGame(games[id], archived);
+            }
+            long[] next = new long[1];
+            reader.forEach(archived -> assertEquals(next[0]++, archived.getId()));
+            assertEquals(games.length, next[0]);
+            assertThrows(NoSuchElementException.class, () -> reader.read(games.length));
+
+            Path pgn = tempDir.resolve("games.pgn");
+            assertEquals(games.length, reader.exportPgn(pgn));
+            String text = Files.readString(pgn, StandardCharsets.UTF_8);
+            assertEquals(games.length, text.split("\\[Event \"Test\"\\]", -1).length - 1);
+        }
+    }
+
+    @Test
+    void testArchiveWithoutFooterIsRecovered(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("games.elga");
+        Path killed = tempDir.resolve("killed.elga");
+        Random random = new Random(3);
+        GameResult[] games = new GameResult[600];
+        try (GameArchive archive = new GameArchive(file)) {
+            for (int i = 0; i < games.length; i++) {
+                games[i] = game(i, random);
+                archive.append(games[i], "Test", "1.1", 0);
+            }
+            archive.flush();
+            // As left by a killed process: complete blocks, no footer, a torn block after them
+            byte[] written = Files.readAllBytes(file);
+            byte[] torn = Arrays.copyOf(written, written.length + 100);
+            System.arraycopy(written, GameArchive.HEADER_SIZE, torn, written.length, 100);
+            Files.write(killed, torn);
+        }
+
+        try (ArchiveReader reader = new ArchiveReader(killed)) {
+            assertEquals(games.length, reader.size());
+            assertSameGame(games[games.length - 1], reader.read(games.length - 1));
+        }
+        try (GameArchive archive = new GameArchive(killed)) {
+            assertEquals(games.length, archive.append(game(games.length, random), "Test", "2.1", 0));
+        }
+        try (ArchiveReader reader = new ArchiveReader(killed)) {
+            assertEquals(games.length + 1, reader.size());
+            assertSameGame(games[0], reader.read(0));
+        }
+    }
+}
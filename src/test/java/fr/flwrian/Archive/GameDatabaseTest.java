@@ -0,0 +1,136 @@
+package fr.flwrian.Archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+import fr.flwrian.Stats.OpeningStats;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameDatabaseTest {
+    private static final String[] RESULTS = {"1-0", "1/2-1/2", "0-1"};
+    private static final String[] REASONS = {"checkmate", "time_forfeit", "adjudication"};
+    private static final String[] TCS = {"10+0.1", "60+0.6"};
+    private static final String[] FENS = {"startpos", "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1"};
+    private static final long DAY = 24 * 3600 * 1000L;
+    private static final long START = 1_760_000_000_000L;
+
+    private static GameResult game(int id) {
+        GameResult game = new GameResult(id, RESULTS[id % 3], REASONS[id / 3 % 3]);
+        GameRecord record = new GameRecord("Engine" + (id % 4), "Engine" + (id / 4 % 4), FENS[id / 7 % 2], TCS[id / 5 % 2]);
+        record.addPly("e2e4", 20, 10, 12, 1000L, 100_000L, null, 10, 1000);
+        record.trim();
+        game.setRecord(record);
+        return game;
+    }
+
+    private static long timestamp(int id) {
+        return START + id * (DAY / 10);   // 10 games a day
+    }
+
+    private static List<Long> search(GameDatabase database, Map<String, String> params) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        database.search(GameQuery.parse(params), game -> ids.add(game.getId()));
+        return ids;
+    }
+
+    private static List<Long> expected(int games, int limit, LongPredicate filter) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = games - 1; id >= 0 && ids.size() < limit; id--) {
+            if (filter.test(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static Map<String, String> params(String... pairs) {
+        Map<String, String> params = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            params.put(pairs[i], pairs[i + 1]);
+        }
+        return params;
+    }
+
+    private static boolean plays(long id, String engine, boolean white) {
+        GameRecord record = game((int) id).getRecord();
+        return (white ? record.getWhite() : record.getBlack()).equals(engine);
+    }
+
+    @Test
+    void testSearchesMatchEveryFilter(@TempDir Path tempDir) throws Exception {
+        int games = 1000;
+        try (GameDatabase database = new GameDatabase(tempDir.resolve("games.elga"))) {
+            for (int i = 0; i < games; i++) {
+                assertEquals(i, database.append(game(i), "Test", "1." + i, timestamp(i)));
+            }
+            // The last games are still in the archive's unwritten block
+            assertEquals(expected(games, 100, id -> plays(id, "Engine1", true) || plays(id, "Engine1", false)),
+                search(database, params("engine", "Engine1")));
+            assertEquals(expected(games, 100, id -> plays(id, "Engine1", false) && plays(id, "Engine2", true)),
+                search(database, params("engine", "Engine1", "opponent", "Engine2", "color", "black")));
+            assertEquals(expected(games, 100, id -> (plays(id, "Engine3", true) && id % 3 == 2)
+                    || (plays(id, "Engine3", false) && id % 3 == 0)),
+                search(database, params("engine", "Engine3", "result", "loss")));
+            assertEquals(expected(games, 20, id -> id % 3 == 1 && id / 3 % 3 == 1 && id / 5 % 2 == 0),
+                search(database, params("result", "draw", "reason", "time_forfeit", "tc", "10 0.1", "limit", "20")));
+            String opening = Long.toHexString(OpeningStats.positionKey(FENS[1]));
+            assertEquals(expected(games, 100, id -> id / 7 % 2 == 1 && id < 500),
+                search(database, params("opening", opening, "before", "500")));
+            assertEquals(expected(games, 1000, id -> id / 7 % 2 == 0 && id >= 200 && id < 300),
+                search(database, params("opening", "startpos", "from", "" + timestamp(200),
+                    "to", "" + (timestamp(300) - 1), "limit", "1000")));
+            assertEquals(List.of(), search(database, params("engine", "Unknown")));
+            assertThrows(IllegalArgumentException.class, () -> GameQuery.parse(params("result", "win")));
+            assertThrows(IllegalArgumentException.class, () -> GameQuery.parse(params("from", "yesterday")));
+        }
+    }
+
+    @Test
+    void testIndexFollowsTheArchiveOnOpen(@TempDir Path tempDir) throws Exception {
+        // Archived without an index: the missing games are indexed on open
+        Path file = tempDir.resolve("games.elga");
+        try (GameArchive archive = new GameArchive(file)) {
+            for (int i = 0; i < 300; i++) {
+                archive.append(game(i), "Test", "1.1", timestamp(i));
+            }
+        }
+        try (GameDatabase database = new GameDatabase(file)) {
+            for (int i = 300; i < 400; i++) {
+                assertEquals(i, database.append(game(i), "Test", "1.1", timestamp(i)));
+            }
+        }
+        // An index ahead of its archive (the archive lost its last block): the extra rows are dropped
+        Path shorter = tempDir.resolve("shorter.elga");
+        try (GameArchive archive = new GameArchive(shorter)) {
+            for (int i = 0; i < 250; i++) {
+                archive.append(game(i), "Test", "1.1", timestamp(i));
+            }
+        }
+        Files.copy(tempDir.resolve("games.elga.idx"), tempDir.resolve("shorter.elga.idx"),
+            StandardCopyOption.REPLACE_EXISTING);
+        try (GameDatabase database = new GameDatabase(shorter)) {
+            assertEquals(250, database.append(game(250), "Test", "1.1", timestamp(250)));
+            assertEquals(expected(251, 100, id -> plays(id, "Engine2", true)),
+                search(database, params("engine", "Engine2", "color", "white")));
+        }
+        try (GameDatabase database = new GameDatabase(file)) {
+            assertEquals(400, database.size());
+            assertEquals(expected(400, 1000, id -> id % 3 == 0),
+                search(database, params("result", "1-0", "limit", "1000")));
+            assertEquals(expected(400, 1000, id -> id / 7 % 2 == 1),
+                search(database, params("opening", FENS[1], "limit", "1000")));
+        }
+    }
+}
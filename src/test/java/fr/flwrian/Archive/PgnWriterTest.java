@@ -0,0 +1,96 @@
+package fr.flwrian.Archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgnWriterTest {
+
+    private static GameResult game(int id, String startFen, String[] moves) {
+        GameResult game = new GameResult(id, "1-0", "checkmate");
+        GameRecord record = new GameRecord("A", "B", startFen, "10+0.1");
+        for (int ply = 0; ply < moves.length; ply++) {
+            Integer score = ply == 0 ? null : ply == moves.length - 1 ? GameRecord.mateScore(1) : 25 * ply; // Mate in 1 last
+            record.addPly(moves[ply], score, ply, null, null, null, null, 512, 10000);
+        }
+        record.trim();
+        game.setRecord(record);
+        return game;
+    }
+
+    @Test
+    void testFormatsHeadersCommentsAndFen() {
+        String[] moves = {"f2f3", "e7e5", "g2g4", "d8h4"};
+        GameResult game = game(1, "startpos", moves);
+        String pgn = PgnWriter.format(game, "Test \"Cup\"", "1.1", "2026.01.02", moves);
+
+        assertTrue(pgn.contains("[Event \"Test \\\"Cup\\\"\"]\n"));
+        assertTrue(pgn.contains("[Date \"2026.01.02\"]\n"));
+        assertTrue(pgn.contains("[Round \"1.1\"]\n"));
+        assertTrue(pgn.contains("[White \"A\"]\n[Black \"B\"]\n[Result \"1-0\"]\n"));
+        assertTrue(pgn.contains("[TimeControl \"10+0.1\"]\n[PlyCount \"4\"]\n[Termination \"normal\"]\n"));
+        assertFalse(pgn.contains("[FEN"));
+        assertTrue(pgn.contains("1. f2f3 {0.512s} e7e5 {+0.25/1 0.512s} 2. g2g4 {+0.50/2 0.512s}"));
+        assertTrue(pgn.contains("d8h4 {+M1/3 0.512s}"));
+        assertTrue(pgn.endsWith("{checkmate} 1-0\n\n"));
+        for (String line : pgn.split("\n")) {
+            assertTrue(line.length() <= 80, line);
+        }
+
+        String fen = "4k3/8/8/8/8/8/4P3/4K3 b - -";
+        String[] blackFirst = {"e8d7", "e2e4"};
+        String setUp = PgnWriter.format(game(2, fen, blackFirst), "T", "1.2", "2026.01.02", blackFirst);
+        assertTrue(setUp.contains("[SetUp \"1\"]\n[FEN \"" + fen + " 0 1\"]\n"));
+        assertTrue(setUp.contains("1... e8d7 {0.512s} 2. e2e4"));
+
+        assertEquals("time forfeit", PgnWriter.termination("timeout"));
+        assertEquals("adjudication", PgnWriter.termination("max_moves"));
+        assertEquals("unterminated", PgnWriter.termination("something_new"));
+    }
+
+    @Test
+    void testRollsCompressedFiles(@TempDir Path tempDir) throws Exception {
+        String[] moves = new String[120];
+        for (int ply = 0; ply < moves.length; ply++) {
+            moves[ply] = ply % 2 == 0 ? "g1f3" : "g8f6";
+        }
+        try (PgnWriter writer = new PgnWriter(tempDir, "gzip", 2)) {
+            for (int id = 0; id < 5; id++) {
+                writer.write(game(id, "startpos", moves), "T", "1." + (id + 1));
+            }
+            writer.write(new GameResult(9, "*", "engine_crash"), "T", "2.1"); // Never started
+            writer.flush();
+            assertEquals(5, writer.getWritten());
+        }
+        assertTrue(Files.exists(tempDir.resolve("games-000003.pgn.gz")));
+        assertFalse(Files.exists(tempDir.resolve("games-000004.pgn.gz")));
+        int games = 0;
+        for (int file = 1; file <= 3; file++) {
+            String pgn;
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(tempDir.resolve(String.format("games-%06d.pgn.gz", file))))) {
+                pgn = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            games += pgn.split("\\[Event ", -1).length - 1;
+            for (String line : pgn.split("\n")) {
+                assertTrue(line.length() <= 80, line);
+            }
+        }
+        assertEquals(5, games);
+
+        // A restart continues after the last file instead of overwriting it
+        try (PgnWriter writer = new PgnWriter(tempDir, "none", 2)) {
+            writer.write(game(6, "startpos", moves), "T", "3.1");
+        }
+        assertTrue(Files.exists(tempDir.resolve("games-000004.pgn")));
+    }
+}
@@ -0,0 +1,118 @@
+package fr.flwrian.Bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.flwrian.Config.Config;
+import fr.flwrian.Runner.MatchRunner;
+import fr.flwrian.Util.GameThreads;
+
+/**
+ * Measures harness overhead (JVM CPU time, peak threads, peak heap) of the
+ * platform and virtual thread execution modes with many concurrent
+ * fixed-nodes games. Engine processes are not included in the CPU figure.
+ *
+ * Games run through a MatchRunner whose concurrency (its slot semaphore) is
+ * the number of games in flight: as many pairs as slots are scheduled, so
+ * every slot keeps one game running until its pair is done. The engine plays
+ * itself under two names (symbolic links), so every game starts two processes.
+ *
+ * Usage: ExecutionModeBenchmark <enginePath> [slots=256] [nodes=5000] [mode=both|platform|virtual]
+ */
+public class ExecutionModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ExecutionModeBenchmark <enginePath> [slots] [nodes] [both|platform|virtual]");
+            System.exit(1);
+        }
+        Path engine = Path.of(args[0]).toAbsolutePath();
+        int slots = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        long nodes = args.length > 2 ? Long.parseLong(args[2]) : 5000;
+        String mode = args.length > 3 ? args[3] : "both";
+
+        Path dir = Files.createTempDirectory("execution-mode-bench");
+        List<String> engines = List.of(
+            Files.createSymbolicLink(dir.resolve("EngineA"), engine).toString(),
+            Files.createSymbolicLink(dir.resolve("EngineB"), engine).toString());
+        Config.TimeControl tc = new Config.TimeControl();
+        tc.setBaseTimeMs(60000);
+        tc.setNodes(nodes);
+
+        StringBuilder results = new StringBuilder(String.format("%-10s %10s %12s %12s %10s %12s%n",
+            "mode", "wall (s)", "cpu (s)", "cpu/game ms", "threads", "heap (MB)"));
+        try {
+            if (!"virtual".equals(mode)) {
+                results.append(run("platform", false, engines, tc, slots));
+            }
+            if (!"platform".equals(mode)) {
+                if (!GameThreads.isVirtualSupported()) {
+                    results.append(String.format("%-10s %s%n", "virtual", "skipped (requires Java 21+)"));
+                } else {
+                    results.append(run("virtual", true, engines, tc, slots));
+                }
+            }
+        } finally {
+            for (String link : engines) {
+                Files.delete(Path.of(link));
+            }
+            Files.delete(dir);
+        }
+
+        // The runner logs every game, so the table comes last
+        System.out.println();
+        System.out.println("Execution mode benchmark: " + slots + " slots (games in flight), " + slots
+            + " pairs, " + nodes + " nodes/move");
+        System.out.print(results);
+    }
+
+    private static String run(String label, boolean virtual, List<String> engines, Config.TimeControl tc,
+                              int slots) throws Exception {
+        GameThreads.setVirtualEnabled(virtual);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        threads.resetPeakThreadCount();
+
+        // Sample heap usage while games run
+        AtomicLong peakHeap = new AtomicLong();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        Duration cpuStart = cpuTime();
+        long wallStart = System.nanoTime();
+
+        // Pairs are bounded by the runner's slot semaphore, not by the pool
+        MatchRunner runner = new MatchRunner(engines, slots, List.of(tc), 0, null);
+        runner.runPairs(slots);
+        int played = slots * 2;
+
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        double cpuSeconds = cpuTime().minus(cpuStart).toMillis() / 1000.0;
+        sampler.interrupt();
+
+        return String.format("%-10s %10.1f %12.2f %12.2f %10d %12.1f%n",
+            label, wallSeconds, cpuSeconds, cpuSeconds * 1000 / played,
+            threads.getPeakThreadCount(), peakHeap.get() / (1024.0 * 1024.0));
+    }
+
+    private static Duration cpuTime() {
+        return ProcessHandle.current().info().totalCpuDuration().orElse(Duration.ZERO);
+    }
+}
@@ -0,0 +1,117 @@
+package fr.flwrian.Bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import fr.flwrian.Archive.ArchiveReader;
+import fr.flwrian.Archive.GameArchive;
+import fr.flwrian.Result.GameRecord;
+import fr.flwrian.Result.GameResult;
+
+/**
+ * Writes random games to a game archive, then times random reads by ID,
+ * a sequential scan and the PGN export.
+ *
+ * Games have full per-move data (score, depth, seldepth, nodes, nps, a
+ * 5-move PV, time and clock). Moves are random squares, so the export falls
+ * back to UCI moves and times the PGN formatting, not the SAN conversion.
+ *
+ * Usage: GameArchiveBenchmark [games=200000] [plies=120] [reads=20000]
+ */
+public class GameArchiveBenchmark {
+    private static final String[] RESULTS = {"1-0", "1/2-1/2", "0-1"};
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+        int reads = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        Path dir = Files.createTempDirectory("archive-bench");
+        Path file = dir.resolve("games.elga");
+        try {
+            // A pool of distinct games, reused so generation is not timed
+            Random random = new Random(1);
+            GameResult[] pool = new GameResult[1000];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = randomGame(i, plies / 2 + random.nextInt(plies), random);
+            }
+
+            long start = System.nanoTime();
+            try (GameArchive archive = new GameArchive(file)) {
+                for (int i = 0; i < games; i++) {
+                    archive.append(pool[i % pool.length], "Bench", (i / 2 + 1) + "." + (i % 2 + 1),
+                        1_700_000_000_000L + i * 1000L);
+                }
+            }
+            double writeMs = (System.nanoTime() - start) / 1e6;
+            long bytes = Files.size(file);
+            System.out.println(String.format("Wrote %d games in %.0f ms: %.0f games/s, %.1f MB/s, %.0f bytes/game (%.1f bytes/ply)",
+                games, writeMs, games / writeMs * 1000, bytes / writeMs / 1000, (double) bytes / games,
+                (double) bytes / games / plies));
+
+            try (ArchiveReader reader = new ArchiveReader(file)) {
+                // Warm up, then time
+                for (int i = 0; i < Math.min(reads, 2000); i++) {
+                    reader.read(random.nextInt(games));
+                }
+                start = System.nanoTime();
+                long checksum = 0;
+                for (int i = 0; i < reads; i++) {
+                    checksum += reader.read(random.nextInt(games)).getGame().getRecord().getPlies();
+                }
+                double readMs = (System.nanoTime() - start) / 1e6;
+                System.out.println(String.format("Random reads: %d in %.0f ms, %.1f us/read (%d plies)",
+                    reads, readMs, readMs * 1000 / reads, checksum));
+
+                start = System.nanoTime();
+                long[] scanned = new long[1];
+                reader.forEach(game -> scanned[0] += game.getGame().getRecord().getPlies());
+                double scanMs = (System.nanoTime() - start) / 1e6;
+                System.out.println(String.format("Sequential scan: %.0f ms, %.0f games/s", scanMs, games / scanMs * 1000));
+
+                Path pgn = dir.resolve("games.pgn");
+                start = System.nanoTime();
+                reader.exportPgn(pgn);
+                double exportMs = (System.nanoTime() - start) / 1e6;
+                System.out.println(String.format("PGN export: %.0f ms, %.0f games/s, %.1f MB of PGN (%.1fx the archive)",
+                    exportMs, games / exportMs * 1000, Files.size(pgn) / 1e6, (double) Files.size(pgn) / bytes));
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static GameResult randomGame(int id, int plies, Random random) {
+        GameResult game = new GameResult(id, RESULTS[random.nextInt(3)], "checkmate");
+        game.setGameStats(plies, 5000 + random.nextInt(60000), 18.5, 19.25, 1_500_000, 1_600_000);
+        GameRecord record = new GameRecord("Engine" + random.nextInt(50), "Engine" + random.nextInt(50),
+            "startpos", "10+0.1");
+        int score = 0;
+        long clock = 10_000;
+        for (int ply = 0; ply < plies; ply++) {
+            score = Math.max(-2000, Math.min(2000, score + random.nextInt(41) - 20));
+            int time = 50 + random.nextInt(300);
+            clock = clock - time + 100;
+            StringBuilder pv = new StringBuilder();
+            for (int i = 0; i < 5; i++) {
+                pv.append(i > 0 ? " " : "").append(randomMove(random));
+            }
+            long nodes = 100_000L + random.nextInt(900_000);
+            record.addPly(randomMove(random), score, 15 + random.nextInt(10), 20 + random.nextInt(20), nodes,
+                nodes * 1000 / time, pv.toString(), time, clock);
+        }
+        record.trim();
+        game.setRecord(record);
+        return game;
+    }
+
+    private static String randomMove(Random random) {
+        return "" + (char) ('a' + random.nextInt(8)) + (char) ('1' + random.nextInt(8))
+            + (char) ('a' + random.nextInt(8)) + (char) ('1' + random.nextInt(8));
+    }
+}
@@ -0,0 +1,84 @@
+package fr.flwrian.Bench;
+
+import java.util.Random;
+
+import fr.flwrian.Stats.EloCalculator;
+import fr.flwrian.Stats.LeaderboardStats;
+import fr.flwrian.Stats.RatingSolver;
+
+/**
+ * Times the maximum-likelihood rating solver on round-robins of many engines:
+ * a cold solve, then a warm re-solve after 1% more games (the background
+ * refresh case). Also reports the error against the true ratings.
+ *
+ * Usage: RatingSolverBenchmark [engines=100,300,500] [gamesPerPair=20]
+ */
+public class RatingSolverBenchmark {
+
+    public static void main(String[] args) {
+        String[] sizes = (args.length > 0 ? args[0] : "100,300,500").split(",");
+        int gamesPerPair = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        System.out.println("Rating solver benchmark: round-robin, " + gamesPerPair + " games per pair");
+        System.out.println(String.format("%8s %10s %10s %12s %8s %12s %8s %10s",
+            "engines", "games", "entries", "cold (ms)", "sweeps", "warm (ms)", "sweeps", "rmse (Elo)"));
+        for (String size : sizes) {
+            run(Integer.parseInt(size.trim()), gamesPerPair);
+        }
+    }
+
+    private static void run(int engines, int gamesPerPair) {
+        Random random = new Random(engines);
+        double[] trueRatings = new double[engines];
+        for (int i = 0; i < engines; i++) {
+            trueRatings[i] = random.nextGaussian() * 200;
+        }
+        LeaderboardStats stats = new LeaderboardStats();
+        long games = 0;
+        for (int i = 0; i < engines; i++) {
+            for (int j = i + 1; j < engines; j++) {
+                for (int g = 0; g < gamesPerPair; g++) {
+                    boolean swap = g % 2 == 1;
+                    play(stats, random, trueRatings, swap ? j : i, swap ? i : j);
+                    games++;
+                }
+            }
+        }
+
+        RatingSolver.PairwiseResults results = stats.pairwiseResults();
+        long start = System.nanoTime();
+        RatingSolver.Result cold = RatingSolver.solve(results);
+        double coldMs = (System.nanoTime() - start) / 1e6;
+
+        for (long g = 0; g < games / 100; g++) {
+            int white = random.nextInt(engines);
+            int black = (white + 1 + random.nextInt(engines - 1)) % engines;
+            play(stats, random, trueRatings, white, black);
+        }
+        RatingSolver.PairwiseResults more = stats.pairwiseResults();
+        start = System.nanoTime();
+        RatingSolver.Result warm = RatingSolver.solve(more, cold);
+        double warmMs = (System.nanoTime() - start) / 1e6;
+
+        double mean = 0;
+        for (double rating : trueRatings) {
+            mean += rating;
+        }
+        mean /= engines;
+        double squared = 0;
+        for (int i = 0; i < engines; i++) {
+            double error = warm.getRating("E" + i) - EloCalculator.DEFAULT_ELO - (trueRatings[i] - mean);
+            squared += error * error;
+        }
+        System.out.println(String.format("%8d %10d %10d %12.1f %8d %12.1f %8d %10.1f",
+            engines, games, results.size(), coldMs, cold.getSweeps(), warmMs, warm.getSweeps(), Math.sqrt(squared / engines)));
+    }
+
+    private static void play(LeaderboardStats stats, Random random, double[] ratings, int white, int black) {
+        double x = ratings[white] - ratings[black] + 30;
+        double pWin = 1 / (1 + Math.pow(10, -(x - 120) / 400));
+        double pLoss = 1 / (1 + Math.pow(10, -(-x - 120) / 400));
+        double u = random.nextDouble();
+        stats.recordGameResult("E" + white, "E" + black, u < pWin ? "1-0" : u < pWin + pLoss ? "0-1" : "1/2-1/2", null);
+    }
+}
@@ -0,0 +1,63 @@
+package fr.flwrian.Bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import fr.flwrian.Result.GameResult;
+import fr.flwrian.Stats.ResultsStore;
+
+/**
+ * Fills a results store with random games, then times each aggregation
+ * (best of 5, after a warm-up run).
+ *
+ * Usage: ResultsStoreBenchmark [games=2000000] [engines=50] [openings=5000]
+ */
+public class ResultsStoreBenchmark {
+    private static final String[] RESULTS = {"1-0", "1/2-1/2", "0-1"};
+    private static final String[] TIME_CONTROLS = {"10+0.1", "60+0.6", "180+2"};
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int engines = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int openings = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+
+        Path dir = Files.createTempDirectory("results-bench");
+        try (ResultsStore store = new ResultsStore(dir)) {
+            Random random = new Random(1);
+            long now = System.currentTimeMillis();
+            long start = System.nanoTime();
+            for (int i = 0; i < games; i++) {
+                int white = random.nextInt(engines);
+                int black = (white + 1 + random.nextInt(engines - 1)) % engines;
+                GameResult game = new GameResult(i, RESULTS[random.nextInt(3)], "checkmate");
+                game.setGameStats(40 + random.nextInt(120), 5000 + random.nextInt(60000),
+                    10 + random.nextInt(20), 10 + random.nextInt(20), 500_000 + random.nextInt(2_000_000), 500_000 + random.nextInt(2_000_000));
+                store.append(i + 1, now - (long) (games - i) * 1000, "Engine" + white, "Engine" + black,
+                    TIME_CONTROLS[random.nextInt(3)], "opening-" + random.nextInt(openings), game);
+            }
+            store.sync();
+            double appendMs = (System.nanoTime() - start) / 1e6;
+            System.out.println(String.format("Appended %d games in %.0f ms (%.2f us/game), %d cores",
+                games, appendMs, appendMs * 1000 / games, Runtime.getRuntime().availableProcessors()));
+
+            System.out.println(String.format("%-14s %8s %10s", "group by", "groups", "best (ms)"));
+            for (ResultsStore.GroupBy groupBy : ResultsStore.GroupBy.values()) {
+                int groups = store.aggregate(groupBy, Long.MIN_VALUE, Long.MAX_VALUE).size();
+                double best = Double.MAX_VALUE;
+                for (int run = 0; run < 5; run++) {
+                    long t = System.nanoTime();
+                    store.aggregate(groupBy, Long.MIN_VALUE, Long.MAX_VALUE);
+                    best = Math.min(best, (System.nanoTime() - t) / 1e6);
+                }
+                System.out.println(String.format("%-14s %8d %10.1f", groupBy, groups, best));
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+}
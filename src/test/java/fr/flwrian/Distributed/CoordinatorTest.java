@@ -0,0 +1,246 @@
+package fr.flwrian.Distributed;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import fr.flwrian.Game.MatchPair;
+import fr.flwrian.Game.TimeControl;
+import fr.flwrian.Result.GameResult;
+import fr.flwrian.Result.PairResult;
+import fr.flwrian.Task.OnDemandPairTask;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoordinatorTest {
+    private static final String SECRET = "correct horse battery staple";
+
+    @Test
+    void testLeaseRequeuedWhenWorkerDisconnects(@TempDir Path tempDir) throws Exception {
+        Coordinator coordinator = new Coordinator(0, 30000, SECRET);
+        coordinator.start();
+        try {
+            CompletableFuture<PairResult> future = coordinator.submit(task(tempDir, 7));
+
+            try (FakeWorker first = new FakeWorker(coordinator.getPort(), "first", SECRET)) {
+                JsonObject assign = first.expect("assign");
+                assertEquals(7, assign.get("pairId").getAsInt());
+            }
+
+            try (FakeWorker second = new FakeWorker(coordinator.getPort(), "second", SECRET)) {
+                JsonObject assign = second.expect("assign");
+                assertEquals(7, assign.get("pairId").getAsInt());
+                assertEquals(1, coordinator.getRequeuedCount());
+
+                // Engine binaries are fetched by content hash
+                String hash = assign.getAsJsonObject("engine1").get("hash").getAsString();
+                JsonObject request = Protocol.message("engine_request");
+                request.addProperty("hash", hash);
+                second.send(request);
+                JsonObject header = second.expect("engine_data");
+                byte[] binary = second.readBinary(header.get("size").getAsLong());
+                assertArrayEquals(Files.readAllBytes(tempDir.resolve("EngineA")), binary);
+
+                second.sendResult(assign);
+            }
+
+            PairResult result = future.get(5, TimeUnit.SECONDS);
+            assertEquals(7, result.getPairId());
+            assertEquals(1.5, result.getEngine1Score(), 0.001);
+        } finally {
+            coordinator.shutdown();
+        }
+    }
+
+    @Test
+    void testLeaseRevokedWithoutHeartbeat(@TempDir Path tempDir) throws Exception {
+        Coordinator coordinator = new Coordinator(0, 1000, SECRET);
+        coordinator.start();
+        try {
+            CompletableFuture<PairResult> future = coordinator.submit(task(tempDir, 3));
+
+            try (FakeWorker silent = new FakeWorker(coordinator.getPort(), "silent", SECRET)) {
+                JsonObject stale = silent.expect("assign");
+
+                long deadline = System.currentTimeMillis() + 5000;
+                while (coordinator.getRequeuedCount() == 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(50);
+                }
+                assertEquals(1, coordinator.getRequeuedCount());
+
+                try (FakeWorker healthy = new FakeWorker(coordinator.getPort(), "healthy", SECRET)) {
+                    JsonObject assign = healthy.expect("assign");
+                    assertNotEquals(stale.get("lease").getAsLong(), assign.get("lease").getAsLong());
+                    healthy.sendResult(assign);
+                    assertEquals(3, future.get(5, TimeUnit.SECONDS).getPairId());
+                }
+            }
+        } finally {
+            coordinator.shutdown();
+        }
+    }
+
+    @Test
+    void testWorkerWithoutTheSecretIsRejected(@TempDir Path tempDir) throws Exception {
+        Coordinator coordinator = new Coordinator(0, 30000, SECRET);
+        coordinator.start();
+        try {
+            coordinator.submit(task(tempDir, 1));
+            try (FakeWorker intruder = new FakeWorker(coordinator.getPort(), "intruder", "guess")) {
+                assertEquals("wrong secret", intruder.expect("rejected").get("reason").getAsString());
+            }
+            // A real worker with the wrong secret gives up instead of retrying
+            Worker worker = new Worker("localhost", coordinator.getPort(), 1, tempDir.resolve("cache"), "guess");
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+            assertEquals(0, coordinator.getWorkerCount());
+            assertEquals(1, coordinator.getPendingCount());
+        } finally {
+            coordinator.shutdown();
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testRealWorkerDownloadsEngineAndPlaysPair(@TempDir Path tempDir) throws Exception {
+        // A UCI engine that resigns every game, shipped to the worker by hash
+        Path engine = tempDir.resolve("resigner.sh");
+        Files.writeString(engine, String.join("\n",
+            "#!/bin/sh",
+            "while read -r cmd; do",
+            "  case \"$cmd\" in",
+            "    uci) echo \"uciok\" ;;",
+            "    isready) echo \"readyok\" ;;",
+            "    go*) echo \"bestmove 0000\" ;;",
+            "    quit) exit 0 ;;",
+            "  esac",
+            "done",
+            ""));
+        engine.toFile().setExecutable(true);
+
+        Coordinator coordinator = new Coordinator(0, 30000, SECRET);
+        coordinator.start();
+        Path cache = Files.createDirectories(tempDir.resolve("cache"));
+        Worker worker = new Worker("localhost", coordinator.getPort(), 2, cache, SECRET);
+        Thread thread = new Thread(() -> {
+            try {
+                worker.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        try {
+            CompletableFuture<PairResult> future = coordinator.submit(new OnDemandPairTask(new MatchPair(4),
+                engine.toString(), engine.toString(), new TimeControl(10000, 100), "A", "B"));
+            PairResult result = future.get(30, TimeUnit.SECONDS);
+
+            assertEquals(4, result.getPairId());
+            assertEquals(2, result.getGameResults().size());
+            for (GameResult game : result.getGameResults()) {
+                assertEquals("resignation", game.getReason());
+                assertEquals("0-1", game.getResult());
+            }
+            assertEquals(1.0, result.getEngine1Score(), 0.001);
+            String hash = Protocol.sha256(engine);
+            assertArrayEquals(Files.readAllBytes(engine), Files.readAllBytes(cache.resolve(hash).resolve("resigner.sh")));
+            assertEquals(1, coordinator.getWorkerCount());
+            assertEquals(2, coordinator.getTotalSlots());
+        } finally {
+            coordinator.shutdown();
+            thread.join(15000);
+        }
+        assertFalse(thread.isAlive());
+    }
+
+    private OnDemandPairTask task(Path tempDir, int pairId) throws IOException {
+        Path engineA = Files.write(tempDir.resolve("EngineA"), new byte[]{1, 2, 3, 4});
+        Path engineB = Files.write(tempDir.resolve("EngineB"), new byte[]{5, 6, 7});
+        return new OnDemandPairTask(new MatchPair(pairId), engineA.toString(), engineB.toString(),
+            new TimeControl(10000, 100), "EngineA", "EngineB");
+    }
+
+    /**
+     * Speaks the worker side of the protocol without playing any game.
+     */
+    private static class FakeWorker implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        FakeWorker(int port, String id, String secret) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setSoTimeout(5000);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            String nonce = expect("challenge").get("nonce").getAsString();
+            JsonObject hello = Protocol.message("hello");
+            hello.addProperty("version", Protocol.VERSION);
+            hello.addProperty("workerId", id);
+            hello.addProperty("slots", 1);
+            hello.addProperty("proof", Protocol.proof(secret, "worker", nonce));
+            hello.addProperty("nonce", Protocol.nonce());
+            send(hello);
+        }
+
+        void send(JsonObject message) throws IOException {
+            Protocol.writeJson(out, message);
+        }
+
+        JsonObject expect(String type) throws IOException {
+            while (true) {
+                Protocol.Frame frame = Protocol.read(in);
+                if (type.equals(frame.type())) {
+                    return frame.json;
+                }
+            }
+        }
+
+        byte[] readBinary(long size) throws IOException {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            while (data.size() < size) {
+                data.writeBytes(Protocol.read(in).data);
+            }
+            return data.toByteArray();
+        }
+
+        void sendResult(JsonObject assign) throws IOException {
+            MatchPair pair = new MatchPair(assign.get("pairId").getAsInt());
+            PairResult result = new PairResult(pair.getPairId(), List.of(
+                new GameResult(pair.getGame1Id(), "1-0", "checkmate"),
+                new GameResult(pair.getGame2Id(), "1/2-1/2", "stalemate")), "EngineA", "EngineB");
+            JsonObject msg = Protocol.message("result");
+            msg.addProperty("lease", assign.get("lease").getAsLong());
+            msg.add("result", Protocol.gson().toJsonTree(result));
+            send(msg);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package fr.flwrian.Distributed;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkerTest {
+
+    @Test
+    void testEngineFilesStayInTheCache() {
+        assertEquals(Path.of("stockfish"), Worker.engineFileName("stockfish"));
+        assertEquals(Path.of("x"), Worker.engineFileName("../../bin/x"));
+        assertEquals(Path.of("x"), Worker.engineFileName("/usr/bin/x"));
+        assertNull(Worker.engineFileName(null));
+        assertNull(Worker.engineFileName(""));
+        assertNull(Worker.engineFileName("."));
+        assertNull(Worker.engineFileName(".."));
+        assertNull(Worker.engineFileName("bin/.."));
+        assertNull(Worker.engineFileName("/"));
+
+        assertTrue(Protocol.isSha256("0123456789abcdef".repeat(4)));
+        assertFalse(Protocol.isSha256("../" + "0".repeat(61)));
+        assertFalse(Protocol.isSha256("0123456789ABCDEF".repeat(4)));
+        assertFalse(Protocol.isSha256("0".repeat(63)));
+        assertFalse(Protocol.isSha256(null));
+    }
+}
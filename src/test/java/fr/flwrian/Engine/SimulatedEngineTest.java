@@ -0,0 +1,58 @@
+package fr.flwrian.Engine;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+class SimulatedEngineTest {
+
+    @Test
+    void testSpecParsing() {
+        assertTrue(SimulatedEngine.isSimulated("sim:Alpha?think=5"));
+        assertTrue(SimulatedEngine.isSimulated("simproc:Beta"));
+        assertFalse(SimulatedEngine.isSimulated("./engines/stockfish"));
+        assertEquals("Alpha", SimulatedEngine.nameOf("sim:Alpha?think=5"));
+        assertEquals("Beta", SimulatedEngine.nameOf("simproc:Beta"));
+        assertThrows(IllegalArgumentException.class, () -> SimulatedEngine.start("sim:Gamma?nps=0"));
+        assertThrows(IllegalArgumentException.class, () -> SimulatedEngine.start("sim:Gamma?dist=normal"));
+    }
+
+    @Test
+    void testUciHandshakeAndSearch() throws Exception {
+        Engine engine = new Engine("sim:Alpha?think=1&dist=fixed");
+        try {
+            engine.send("uci");
+            engine.waitFor("uciok");
+            engine.send("isready");
+            engine.waitFor("readyok");
+            engine.send("position startpos");
+            engine.send("go nodes 1000");
+
+            String line;
+            do {
+                line = engine.pollLine(5, TimeUnit.SECONDS);
+                assertNotNull(line, "No bestmove from simulated engine");
+            } while (!line.startsWith("bestmove"));
+            assertTrue(engine.isAlive());
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testCrashEndsProcess() throws Exception {
+        Engine engine = new Engine("sim:Crashy?crash=1");
+        try {
+            engine.send("position startpos");
+            engine.send("go movetime 10");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (engine.isAlive() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(engine.isAlive());
+        } finally {
+            engine.close();
+        }
+    }
+}
@@ -89,4 +89,18 @@ class TimeControlTest {
         assertTrue(str.contains("60.0"));
         assertTrue(str.contains("1.0"));
     }
+
+    @Test
+    void testFixedNodesDoesNotChargeClock() {
+        TimeControl tc = new TimeControl(5000, 100, 20000);
+        assertTrue(tc.isFixedNodes());
+        assertEquals(20000, tc.getNodesPerMove());
+
+        tc.applyMove(8000, true);
+        assertEquals(5000, tc.getWhiteTime());
+        assertTrue(tc.hasTimeLeft(true));
+
+        TimeControl copy = tc.copy();
+        assertEquals(20000, copy.getNodesPerMove());
+    }
 }
@@ -0,0 +1,79 @@
+package fr.flwrian.Result;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRecordTest {
+
+    @Test
+    void testMovesEncodeInSixteenBits() {
+        for (String move : new String[]{"a1h8", "h8a1", "e2e4", "e7e8q", "b2a1n", "g7g8r", "c7c8b", "0000"}) {
+            assertEquals(move, GameRecord.decodeMove(GameRecord.encodeMove(move)));
+        }
+        assertEquals("e7e8q", GameRecord.decodeMove(GameRecord.encodeMove("e7e8Q")));
+        assertThrows(IllegalArgumentException.class, () -> GameRecord.encodeMove("z9a1"));
+        assertThrows(IllegalArgumentException.class, () -> GameRecord.encodeMove("(none)"));
+    }
+
+    @Test
+    void testMateScoresStayApartFromCentipawns() {
+        // Long mates used to fall in the centipawn range
+        for (int mateIn : new int[]{1, 80, 500, 0, -1, -80}) {
+            int score = GameRecord.mateScore(mateIn);
+            assertTrue(GameRecord.isMate(score));
+            assertEquals(mateIn, GameRecord.mateIn(score));
+        }
+        assertTrue(GameRecord.mateScore(1) > GameRecord.mateScore(80));
+        assertFalse(GameRecord.isMate(3000));
+        assertFalse(GameRecord.isMate(-30000));
+        assertFalse(GameRecord.isMate(GameRecord.NO_SCORE));
+    }
+
+    @Test
+    void testUnparsableEngineMovesDoNotFailTheRecord() {
+        GameRecord record = new GameRecord("A", "B", "startpos", "10+0.1");
+        record.addPly("e2e4", 20, 10, 12, 1000L, null, "e2e4 e7e5 (none) g1f3", 5, 1000);
+        record.addPly("(none)", null, null, null, null, null, "(none)", 5, 1000);
+        // The PV stops before the bad token, a bad bestmove is the null move
+        assertArrayEquals(new String[]{"e2e4", "e7e5"}, record.getPv(0));
+        assertEquals("0000", record.getMove(1));
+        assertEquals(0, record.getPv(1).length);
+    }
+
+    @Test
+    void testRecordKeepsEveryPlyThroughPairResult() {
+        GameRecord record = new GameRecord("A", "B", "startpos", "10+0.1");
+        for (int ply = 0; ply < 300; ply++) {
+            record.addPly(ply % 2 == 0 ? "g1f3" : "f3g1", ply, ply / 2, ply, 1000L * ply, 1_000_000L,
+                ply % 3 == 0 ? null : "g1f3 g8f6 f3g1", 10 + ply, 60_000 - ply);
+        }
+        record.addPly("e7e8q", null, null, null, null, null, "", 5, 100);
+        record.trim();
+
+        GameResult game = new GameResult(1, "1-0", "checkmate");
+        game.setRecord(record);
+        PairResult pair = new PairResult(0, List.of(game, new GameResult(2, "*", "engine_crash")), "A", "B");
+        // Records survive the JSON round trip workers use
+        GameRecord back = new Gson().fromJson(new Gson().toJson(pair), PairResult.class).getGameRecords().get(0);
+        assertEquals(1, pair.getGameRecords().size());
+
+        assertEquals(301, back.getPlies());
+        assertEquals("A", back.getWhite());
+        assertEquals("10+0.1", back.getTimeControl());
+        assertEquals("f3g1", back.getMove(299));
+        assertEquals(299, back.getScore(299));
+        assertEquals(149, back.getDepth(299));
+        assertEquals(299_000, back.getNodes(299));
+        assertEquals(309, back.getTimeMs(299));
+        assertEquals(59_701, back.getClockMs(299));
+        assertArrayEquals(new String[]{"g1f3", "g8f6", "f3g1"}, back.getPv(299));
+        assertEquals(0, back.getPv(0).length);
+        assertEquals(GameRecord.NO_SCORE, back.getScore(300));
+        assertEquals(0, back.getSelDepth(300));
+        assertEquals("e7e8q", back.getMoves()[300]);
+    }
+}
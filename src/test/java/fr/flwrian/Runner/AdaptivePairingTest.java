@@ -0,0 +1,99 @@
+package fr.flwrian.Runner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptivePairingTest {
+
+    @Test
+    void testRecoversRatingOrderAndConverges() {
+        List<String> engines = List.of("A", "B", "C");
+        double[] strength = {200, 0, -200};
+        AdaptivePairing pairing = new AdaptivePairing(150, null);
+        Random random = new Random(1);
+        assertFalse(pairing.isComplete(engines));
+
+        int pairs = 0;
+        while (!pairing.isComplete(engines) && pairs < 5000) {
+            int[] pair = pairing.selectPair(engines, random);
+            assertNotEquals(pair[0], pair[1]);
+            double p = 1.0 / (1.0 + Math.pow(10, (strength[pair[1]] - strength[pair[0]]) / 400));
+            double score = (random.nextDouble() < p ? 1 : 0) + (random.nextDouble() < p ? 1 : 0);
+            pairing.recordCompleted(engines.get(pair[0]), engines.get(pair[1]), score, 2, 0);
+            pairs++;
+        }
+
+        assertTrue(pairing.isComplete(engines));
+        assertTrue(pairing.getMaxCiWidth(engines) < 150);
+        Map<String, double[]> estimates = pairing.getEstimates();
+        assertTrue(estimates.get("A")[0] > estimates.get("B")[0]);
+        assertTrue(estimates.get("B")[0] > estimates.get("C")[0]);
+        assertEquals(0, estimates.get("A")[0] + estimates.get("B")[0] + estimates.get("C")[0], 1e-6);
+    }
+
+    @Test
+    void testPrefersUncertainEngines() {
+        List<String> engines = List.of("A", "B", "C");
+        AdaptivePairing pairing = new AdaptivePairing(10, null);
+        for (int i = 0; i < 50; i++) {
+            pairing.recordCompleted("A", "B", 1, 2, 0);
+        }
+        // C has never played: any informative pair must involve it
+        int[] pair = pairing.selectPair(engines, new Random(3));
+        assertTrue(pair[0] == 2 || pair[1] == 2);
+
+        // A pair in flight counts as information, so the next slot goes elsewhere
+        pairing.pairStarted(engines.get(pair[0]), engines.get(pair[1]));
+        int[] next = pairing.selectPair(engines, new Random(3));
+        int[] sortedFirst = sorted(pair);
+        int[] sortedNext = sorted(next);
+        assertTrue(sortedNext[1] == 2);
+        assertFalse(Arrays.equals(sortedFirst, sortedNext));
+    }
+
+    @Test
+    void testFocusEngineIsAlwaysPaired() {
+        List<String> engines = List.of("A", "B", "C", "D");
+        AdaptivePairing pairing = new AdaptivePairing(10, "D");
+        Random random = new Random(5);
+        for (int i = 0; i < 20; i++) {
+            int[] pair = pairing.selectPair(engines, random);
+            assertTrue(engines.get(pair[0]).equals("D") || engines.get(pair[1]).equals("D"));
+            pairing.recordCompleted(engines.get(pair[0]), engines.get(pair[1]), 1, 2, 0);
+        }
+        assertNull(pairing.selectPair(List.of("A"), random));
+    }
+
+    @Test
+    void testDrawsNarrowTheInterval() {
+        List<String> engines = List.of("A", "B");
+        AdaptivePairing decisive = new AdaptivePairing(10, null);
+        AdaptivePairing drawish = new AdaptivePairing(10, null);
+        for (int i = 0; i < 100; i++) {
+            // Same score (1/2): a win and a loss, or two draws
+            decisive.recordCompleted("A", "B", 1, 2, 0);
+            drawish.recordCompleted("A", "B", 1, 2, 2);
+        }
+        double decisiveWidth = decisive.getMaxCiWidth(engines);
+        double drawishWidth = drawish.getMaxCiWidth(engines);
+        assertTrue(drawishWidth < decisiveWidth * 0.8);
+        assertEquals(decisive.getEstimates().get("A")[0], drawish.getEstimates().get("A")[0], 1e-6);
+
+        // Unchanged until the next completed pair
+        assertEquals(drawishWidth, drawish.getMaxCiWidth(engines));
+        drawish.recordCompleted("A", "B", 1, 2, 2);
+        assertTrue(drawish.getMaxCiWidth(engines) < drawishWidth);
+    }
+
+    private static int[] sorted(int[] pair) {
+        int[] copy = pair.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
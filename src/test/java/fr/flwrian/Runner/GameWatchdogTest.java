@@ -0,0 +1,77 @@
+package fr.flwrian.Runner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameWatchdogTest {
+
+    @Test
+    void testExpiredDeadlineInterruptsThread() {
+        GameWatchdog watchdog = new GameWatchdog();
+        try (GameWatchdog.Watch watch = watchdog.watch("Pair 1")) {
+            watch.arm("search", null, 200);
+
+            boolean interrupted = false;
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+
+            assertTrue(interrupted);
+            assertTrue(watch.isExpired());
+            assertTrue(watch.getDiagnostics().contains("Pair 1"));
+            assertTrue(watch.getDiagnostics().contains("search"));
+            assertEquals(1, watchdog.getTimeoutCount());
+        } finally {
+            watchdog.shutdown();
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void testDisarmedWatchDoesNotFire() throws InterruptedException {
+        GameWatchdog watchdog = new GameWatchdog();
+        try (GameWatchdog.Watch watch = watchdog.watch("Pair 2")) {
+            watch.arm("search", null, 100);
+            watch.disarm();
+            Thread.sleep(400);
+
+            assertFalse(watch.isExpired());
+            assertEquals(0, watchdog.getTimeoutCount());
+        } finally {
+            watchdog.shutdown();
+        }
+        assertEquals(0, watchdog.getActiveCount());
+    }
+
+    @Test
+    void testAnswerBeforeDeadlineWithdrawsLateCheck() {
+        GameWatchdog watchdog = new GameWatchdog();
+        try (GameWatchdog.Watch watch = watchdog.watch("Pair 3")) {
+            // The answer came in time, but the check runs before the thread disarms
+            long generation = watch.arm("search", null, 50);
+            long respondedAt = System.currentTimeMillis();
+            while (!watch.isExpired()) {
+                Thread.onSpinWait();
+            }
+            assertTrue(watch.disarm(generation, respondedAt));
+            assertFalse(watch.isExpired());
+            assertFalse(Thread.currentThread().isInterrupted());
+            assertEquals(0, watchdog.getTimeoutCount());
+
+            // An answer after the deadline keeps the timeout
+            generation = watch.arm("search", null, 50);
+            while (!watch.isExpired()) {
+                Thread.onSpinWait();
+            }
+            assertFalse(watch.disarm(generation, System.currentTimeMillis()));
+            assertTrue(watch.isExpired());
+            assertEquals(1, watchdog.getTimeoutCount());
+        } finally {
+            watchdog.shutdown();
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
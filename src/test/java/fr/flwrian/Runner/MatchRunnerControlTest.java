@@ -0,0 +1,47 @@
+package fr.flwrian.Runner;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import fr.flwrian.Config.Config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchRunnerControlTest {
+
+    @Test
+    void testControlRequestsAreValidatedAndQueued(@TempDir Path tempDir) throws Exception {
+        Path engineA = Files.createFile(tempDir.resolve("EngineA"));
+        Path engineB = Files.createFile(tempDir.resolve("EngineB"));
+        Path engineC = Files.createFile(tempDir.resolve("EngineC"));
+        Config.TimeControl tc = new Config.TimeControl();
+        tc.setBaseTimeMs(10000);
+        tc.setIncrementMs(100);
+
+        MatchRunner runner = new MatchRunner(List.of(engineA.toString(), engineB.toString()), 2, List.of(tc), 0, null);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> runner.setConcurrency(0));
+            assertThrows(IllegalArgumentException.class, () -> runner.addEngine(tempDir.resolve("missing").toString()));
+            assertThrows(IllegalArgumentException.class, () -> runner.addEngine(engineA.toString()));
+            assertThrows(IllegalArgumentException.class, () -> runner.retireEngine("Unknown"));
+
+            runner.pause();
+            runner.setConcurrency(4);
+            runner.addEngine(engineC.toString());
+
+            // Nothing changes until the scheduling loop reaches a pair boundary
+            JsonObject state = runner.getState();
+            assertEquals("running", state.get("state").getAsString());
+            assertEquals(2, state.get("concurrency").getAsInt());
+            assertEquals(3, state.get("pendingChanges").getAsInt());
+            assertEquals(2, state.getAsJsonArray("engines").size());
+        } finally {
+            runner.forceShutdown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package fr.flwrian.Runner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import fr.flwrian.Result.PairResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedSlotPoolTest {
+
+    @Test
+    void testWeightsAndPriorities() throws Exception {
+        SharedSlotPool pool = new SharedSlotPool(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        // Occupy the only slot while the other pairs are queued
+        SharedSlotPool.Share first = pool.register("first", 1, 0);
+        CompletableFuture<PairResult> blocking = first.submit(() -> {
+            blocker.await();
+            return null;
+        });
+
+        SharedSlotPool.Share light = pool.register("light", 1, 0);
+        SharedSlotPool.Share heavy = pool.register("heavy", 3, 0);
+        SharedSlotPool.Share urgent = pool.register("urgent", 1, 5);
+        List<CompletableFuture<PairResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(light.submit(record(order, "light")));
+            futures.add(heavy.submit(record(order, "heavy")));
+        }
+        futures.add(urgent.submit(record(order, "urgent")));
+
+        assertEquals(1, pool.getRunning());
+        assertEquals(4, heavy.getQueued());
+        blocker.countDown();
+        blocking.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<PairResult> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals("urgent", order.get(0));
+        // Weight 3 gets three slots for every one of weight 1 while both have work
+        assertEquals(3, Collections.frequency(order.subList(1, 5), "heavy"));
+        assertEquals(4, light.getStarted());
+        assertEquals(4, heavy.getStarted());
+        pool.shutdown();
+    }
+
+    @Test
+    void testClosedShareDropsQueuedPairs() throws Exception {
+        SharedSlotPool pool = new SharedSlotPool(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        SharedSlotPool.Share share = pool.register("t", 1, 0);
+        CompletableFuture<PairResult> running = share.submit(() -> {
+            blocker.await();
+            return null;
+        });
+        CompletableFuture<PairResult> queued = share.submit(() -> null);
+
+        share.close();
+        blocker.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertTrue(queued.isCancelled());
+        assertThrows(IllegalArgumentException.class, () -> pool.register("bad", 0, 0));
+        pool.shutdown();
+    }
+
+    private static java.util.concurrent.Callable<PairResult> record(List<String> order, String name) {
+        return () -> {
+            order.add(name);
+            return null;
+        };
+    }
+}
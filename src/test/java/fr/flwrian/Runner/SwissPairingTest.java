@@ -0,0 +1,132 @@
+package fr.flwrian.Runner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SwissPairingTest {
+
+    @Test
+    void testPipelinedRoundsWithoutRematches() {
+        List<String> engines = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            engines.add("E" + i);
+        }
+        SwissPairing swiss = new SwissPairing(5, 0);
+        Random random = new Random(7);
+        Set<String> met = new HashSet<>();
+        Map<String, Integer> whiteFirst = new HashMap<>();
+        Map<String, Integer> roundOf = new HashMap<>();
+        List<String[]> inFlight = new ArrayList<>();
+        boolean overlapped = false;
+        int pairs = 0;
+
+        while (!swiss.isComplete(engines)) {
+            int[] pair;
+            while ((pair = swiss.selectPair(engines, random)) != null) {
+                String white = engines.get(pair[0]);
+                String black = engines.get(pair[1]);
+                assertTrue(met.add(key(white, black)), "Rematch " + white + " - " + black);
+                whiteFirst.merge(white, 1, Integer::sum);
+                int round = roundOf.merge(white, 1, Integer::sum);
+                assertEquals(round, (int) roundOf.merge(black, 1, Integer::sum));
+                for (String[] other : inFlight) {
+                    overlapped |= roundOf.get(other[0]) != round;
+                }
+                swiss.pairStarted(white, black);
+                inFlight.add(new String[]{white, black});
+                pairs++;
+            }
+            assertFalse(inFlight.isEmpty(), "Swiss pairing stalled");
+            // Pairs finish in random order
+            String[] done = inFlight.remove(random.nextInt(inFlight.size()));
+            double score = random.nextInt(5) / 2.0;
+            swiss.pairFinished(done[0], done[1], null);
+            swiss.recordCompleted(done[0], done[1], score, 2, 0);
+        }
+
+        assertEquals(5 * 6, pairs);
+        assertTrue(overlapped, "Next round never started before the previous one finished");
+        for (String engine : engines) {
+            assertEquals(5, (int) roundOf.get(engine));
+            int white = whiteFirst.getOrDefault(engine, 0);
+            assertTrue(white >= 2 && white <= 3, engine + " started " + white + "/5 pairs as white");
+        }
+    }
+
+    @Test
+    void testOddFieldGivesOneByePerRound() {
+        List<String> engines = List.of("A", "B", "C");
+        SwissPairing swiss = new SwissPairing(3, 0);
+        Random random = new Random(1);
+        int pairs = 0;
+        while (!swiss.isComplete(engines)) {
+            int[] pair = swiss.selectPair(engines, random);
+            assertNotNull(pair);
+            String white = engines.get(pair[0]);
+            String black = engines.get(pair[1]);
+            swiss.pairStarted(white, black);
+            swiss.pairFinished(white, black, null);
+            swiss.recordCompleted(white, black, 1, 2, 0);
+            pairs++;
+        }
+        assertEquals(3, pairs);
+        // Every engine met the two others once and sat out one round
+        for (com.google.gson.JsonElement entry : swiss.getState(engines).getAsJsonArray("standings")) {
+            assertEquals(3, entry.getAsJsonObject().get("roundsPlayed").getAsInt());
+            assertEquals(3.0, entry.getAsJsonObject().get("score").getAsDouble(), 0.001);
+        }
+    }
+
+    @Test
+    void testByesAreReplayedOnResume() {
+        List<String> engines = List.of("A", "B", "C");
+        SwissPairing swiss = new SwissPairing(3, 0);
+        List<String[]> journal = new ArrayList<>();
+        swiss.setByeListener(engine -> journal.add(new String[]{engine, null}));
+        Random random = new Random(1);
+
+        // Round 1: one bye and one pair, then a restart
+        int[] pair = swiss.selectPair(engines, random);
+        String white = engines.get(pair[0]);
+        String black = engines.get(pair[1]);
+        swiss.pairStarted(white, black);
+        swiss.pairFinished(white, black, null);
+        swiss.recordCompleted(white, black, 1, 2, 0);
+        journal.add(new String[]{white, black});
+        assertEquals(1, journal.stream().filter(entry -> entry[1] == null).count());
+
+        SwissPairing resumed = new SwissPairing(3, 0);
+        for (String[] entry : journal) {
+            resumed.recordCompleted(entry[0], entry[1], 1, entry[1] != null ? 2 : 0, 0);
+        }
+        assertEquals(swiss.getState(engines).toString(), resumed.getState(engines).toString());
+
+        // The engine that sat out round 1 is not given a second bye
+        while (!resumed.isComplete(engines)) {
+            pair = resumed.selectPair(engines, random);
+            assertNotNull(pair);
+            white = engines.get(pair[0]);
+            black = engines.get(pair[1]);
+            resumed.pairStarted(white, black);
+            resumed.pairFinished(white, black, null);
+            resumed.recordCompleted(white, black, 1, 2, 0);
+        }
+        for (com.google.gson.JsonElement entry : resumed.getState(engines).getAsJsonArray("standings")) {
+            assertEquals(3, entry.getAsJsonObject().get("roundsPlayed").getAsInt());
+            assertEquals(3.0, entry.getAsJsonObject().get("score").getAsDouble(), 0.001);
+        }
+    }
+
+    private static String key(String a, String b) {
+        return a.compareTo(b) < 0 ? a + "|" + b : b + "|" + a;
+    }
+}
@@ -0,0 +1,98 @@
+package fr.flwrian.Runner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import fr.flwrian.Result.GameResult;
+import fr.flwrian.Result.PairResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TournamentJournalTest {
+
+    @Test
+    void testResumeReplaysInFlightPairsFirst(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("journal.jsonl");
+        long seed;
+        try (TournamentJournal journal = TournamentJournal.open(file, "engines=[A, B]", 5)) {
+            assertFalse(journal.isResumed());
+            seed = journal.getSeed();
+            journal.pairSubmitted(0, "A", "B");
+            journal.pairSubmitted(1, "A", "B");
+            journal.pairSubmitted(2, "A", "B");
+            journal.pairCompleted(pair(0, "1-0", "1/2-1/2"));
+            journal.byeAwarded("C");
+            journal.pairCompleted(pair(2, "0-1", "0-1"));
+            journal.pairSubmitted(3, "A", "B");
+            journal.pairFailed(3);
+            journal.engineAdded("./engines/C");
+            journal.engineRetired("B");
+        }
+        // Torn record from a crash mid-write
+        Files.writeString(file, "{\"type\":\"comp", StandardOpenOption.APPEND);
+
+        try (TournamentJournal journal = TournamentJournal.open(file, "engines=[A, B]", 5)) {
+            assertTrue(journal.isResumed());
+            assertEquals(seed, journal.getSeed());
+            assertEquals(Set.of(0, 2, 3), journal.getCompletedPairs());
+            assertEquals(List.of(1), journal.getInFlightPairs());
+            assertEquals(List.of(1, 4), journal.getRemainingPairs());
+            assertEquals(4, journal.getCompletedGames());
+            assertEquals(1.5 + 1.0, journal.getEngineScores().get("A"), 0.001);
+            assertEquals(0.5 + 1.0, journal.getEngineScores().get("B"), 0.001);
+            assertArrayEquals(new String[]{"A", "B"}, journal.getSubmittedEngines(1));
+            assertEquals(3, journal.getCompletions().size());
+            assertEquals("C", journal.getCompletions().get(1).getEngine1());
+            assertNull(journal.getCompletions().get(1).getEngine2());
+            assertEquals(1, journal.getCompletions().get(0).getDraws());
+            assertEquals(2, journal.getEngineChanges().size());
+            assertTrue(journal.getEngineChanges().get(0).isAdd());
+            assertEquals("./engines/C", journal.getEngineChanges().get(0).getEngine());
+            assertEquals("B", journal.getEngineChanges().get(1).getEngine());
+            journal.pairSubmitted(1, "A", "B");
+        }
+
+        // Records appended after the torn line are still readable
+        try (TournamentJournal journal = TournamentJournal.open(file, "engines=[A, B]", 5)) {
+            assertEquals(List.of(1), journal.getInFlightPairs());
+        }
+    }
+
+    @Test
+    void testFinishedOrChangedTournamentStartsOver(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("journal.jsonl");
+        try (TournamentJournal journal = TournamentJournal.open(file, "engines=[A, B]", 2)) {
+            journal.pairSubmitted(0, "A", "B");
+        }
+        try (TournamentJournal journal = TournamentJournal.open(file, "engines=[A, C]", 2)) {
+            assertFalse(journal.isResumed());
+            assertEquals(List.of(0, 1), journal.getRemainingPairs());
+            journal.finished();
+        }
+        assertTrue(Files.exists(tempDir.resolve("journal.jsonl.prev")));
+        try (TournamentJournal journal = TournamentJournal.open(file, "engines=[A, C]", 2)) {
+            assertFalse(journal.isResumed());
+        }
+    }
+
+    @Test
+    void testPairScheduleIsDeterministic() {
+        for (int pairId = 0; pairId < 100; pairId++) {
+            assertEquals(MatchRunner.pairRandom(42, pairId).nextLong(), MatchRunner.pairRandom(42, pairId).nextLong());
+        }
+        assertNotEquals(MatchRunner.pairRandom(42, 1).nextLong(), MatchRunner.pairRandom(42, 2).nextLong());
+    }
+
+    private static PairResult pair(int pairId, String game1, String game2) {
+        return new PairResult(pairId, List.of(
+            new GameResult(pairId * 2, game1, "test"),
+            new GameResult(pairId * 2 + 1, game2, "test")), "A", "B");
+    }
+}
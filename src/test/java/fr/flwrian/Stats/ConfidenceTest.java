@@ -0,0 +1,48 @@
+package fr.flwrian.Stats;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfidenceTest {
+
+    @Test
+    void testNoGames() {
+        assertNull(Confidence.of(0, 0, 0));
+    }
+
+    @Test
+    void testEvenRecord() {
+        Confidence c = Confidence.of(30, 40, 30);
+        assertEquals(0.5, c.getScore(), 1e-9);
+        assertEquals(0, c.getElo(), 1e-9);
+        assertEquals(0.5, c.getLos(), 1e-9);
+        assertEquals(0, c.getNElo(), 1e-9);
+        assertEquals(0.4, c.getDrawRatio(), 1e-9);
+        assertEquals(-c.getEloLow(), c.getEloHigh(), 0.1);
+    }
+
+    @Test
+    void testWinningRecord() {
+        // 60% score is about +70 Elo
+        Confidence c = Confidence.of(400, 400, 200);
+        assertEquals(70.4, c.getElo(), 0.1);
+        assertTrue(c.getEloLow() < c.getElo() && c.getElo() < c.getEloHigh());
+        assertTrue(c.getEloLow() > 0);
+        assertTrue(c.getLos() > 0.999);
+        assertTrue(c.getNElo() > 0);
+    }
+
+    @Test
+    void testMoreGamesNarrowInterval() {
+        Confidence few = Confidence.of(12, 10, 8);
+        Confidence many = Confidence.of(1200, 1000, 800);
+        assertTrue(many.getEloError() < few.getEloError() / 5);
+    }
+
+    @Test
+    void testPhi() {
+        assertEquals(0.5, Confidence.phi(0), 1e-7);
+        assertEquals(0.975, Confidence.phi(1.959964), 1e-6);
+        assertEquals(0.025, Confidence.phi(-1.959964), 1e-6);
+    }
+}
@@ -0,0 +1,78 @@
+package fr.flwrian.Stats;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EloHistoryTest {
+
+    @Test
+    void testPersistsAndDropsTornRecord(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("elo_history.bin");
+        LeaderboardStats stats = new LeaderboardStats();
+        try (EloHistory history = new EloHistory(file)) {
+            for (int i = 0; i < 10; i++) {
+                stats.recordGameResult("A", "B", i % 3 == 0 ? "0-1" : "1-0", null);
+                history.record(stats.snapshot(), 1000 + i);
+            }
+            // Nothing changed: no new point
+            history.record(stats.snapshot(), 2000);
+            assertEquals(10, history.getSeries("A").size());
+        }
+        Files.write(file, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (EloHistory reloaded = new EloHistory(file)) {
+            EloHistory.Series a = reloaded.getSeries("A");
+            assertEquals(10, a.size());
+            assertEquals(10, a.getGames(9));
+            assertEquals(stats.snapshot().getEngineStats().get("A").getElo(), a.getRating(9), 0.01);
+            assertTrue(a.getError(9) > 0);
+
+            stats.recordGameResult("C", "A", "1-0", null);
+            reloaded.record(stats.snapshot(), 3000);
+        }
+        try (EloHistory reloaded = new EloHistory(file)) {
+            assertEquals(11, reloaded.getSeries("A").size());
+            assertEquals(1, reloaded.getSeries("C").size());
+        }
+    }
+
+    @Test
+    void testDownsamplesOldPointsAndQueriesRanges() throws Exception {
+        EloHistory.Series series = new EloHistory.Series("A", 0);
+        for (int i = 1; i <= EloHistory.MAX_POINTS * 4; i++) {
+            series.add(i, i, i, i, 1);
+        }
+        assertTrue(series.size() <= EloHistory.MAX_POINTS);
+        // Recent points are all kept, old ones are sparse
+        assertEquals(EloHistory.MAX_POINTS * 4, series.getGames(series.size() - 1));
+        assertEquals(EloHistory.MAX_POINTS * 4 - 1, series.getGames(series.size() - 2));
+        assertEquals(1, series.getGames(0));
+        assertTrue(series.getGames(1) - series.getGames(0) > 2);
+
+        EloHistory history = new EloHistory();
+        LeaderboardStats stats = new LeaderboardStats();
+        for (int i = 0; i < 100; i++) {
+            stats.recordGameResult("A", "B", "1-0", null);
+            history.record(stats.snapshot(), i);
+        }
+        JsonArray range = history.query("A", 20, 60, 0).getAsJsonObject("A").getAsJsonArray("sequences");
+        assertEquals(41, range.size());
+        assertEquals(20, range.get(0).getAsLong());
+        assertEquals(60, range.get(40).getAsLong());
+
+        JsonObject sampled = history.query(null, 0, Long.MAX_VALUE, 10);
+        assertEquals(2, sampled.size());
+        JsonArray games = sampled.getAsJsonObject("B").getAsJsonArray("games");
+        assertEquals(10, games.size());
+        assertEquals(1, games.get(0).getAsInt());
+        assertEquals(100, games.get(9).getAsInt());
+    }
+}
@@ -0,0 +1,83 @@
+package fr.flwrian.Stats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import fr.flwrian.Result.GameResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadToHeadMatrixTest {
+
+    @Test
+    void testCountsBothSides() {
+        HeadToHeadMatrix matrix = new HeadToHeadMatrix();
+        matrix.recordGame("A", "B", "1-0", "10+0.1");
+        matrix.recordGame("B", "A", "1/2-1/2", "10+0.1");
+        matrix.recordGame("A", "B", "0-1", "60+1");
+        matrix.recordPair("A", "B", "1-0", "1/2-1/2", "10+0.1");
+        for (int i = 0; i < 20; i++) {
+            matrix.recordGame("E" + i, "A", "1-0", "10+0.1");
+        }
+
+        assertArrayEquals(new long[]{1, 1, 0}, matrix.getResults("A", "B", "10+0.1"));
+        assertArrayEquals(new long[]{0, 1, 1}, matrix.getResults("B", "A", "10+0.1"));
+        assertArrayEquals(new long[]{1, 1, 1}, matrix.getResults("A", "B", null));
+        assertArrayEquals(new long[]{0, 0, 0, 1, 0}, matrix.getPentanomial("A", "B", null));
+        assertArrayEquals(new long[]{0, 1, 0, 0, 0}, matrix.getPentanomial("B", "A", null));
+        assertArrayEquals(new long[]{0, 0, 1}, matrix.getResults("A", "E19", null));
+
+        HeadToHeadMatrix restored = new HeadToHeadMatrix();
+        restored.merge(matrix.toJson(null));
+        assertArrayEquals(new long[]{1, 1, 1}, restored.getResults("A", "B", null));
+        assertArrayEquals(new long[]{0, 0, 0, 1, 0}, restored.getPentanomial("A", "B", "10+0.1"));
+        assertArrayEquals(new long[]{1, 0, 0}, restored.getResults("E7", "A", null));
+        assertEquals(1, matrix.toJson("60+1").getAsJsonObject("timeControls").size());
+    }
+
+    @Test
+    void testConcurrentRecordersLoseNoGame() throws Exception {
+        HeadToHeadMatrix matrix = new HeadToHeadMatrix();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            String engine = "E" + t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    // New engines register while the others record
+                    matrix.recordGame(engine, "A", "1-0", "tc");
+                    matrix.recordGame(engine + "-" + (i % 50), engine, "1/2-1/2", "tc");
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            assertArrayEquals(new long[]{0, 0, 1000}, matrix.getResults("A", "E" + t, null));
+            assertArrayEquals(new long[]{0, 20, 0}, matrix.getResults("E" + t, "E" + t + "-7", "tc"));
+        }
+        assertEquals(1 + threads.length * 51, matrix.getEngines().size());
+        assertEquals(matrix.toJson(null), matrix.copy().toJson(null));
+    }
+
+    @Test
+    void testPairsSurviveRestart(@TempDir Path tempDir) throws Exception {
+        String dir = tempDir.toString();
+        StatsManager first = new StatsManager(true, dir, 3);
+        // The first pair ends up in the snapshot, the second only in the journal
+        first.recordPair(new GameResult(0, "1-0", "test"), new GameResult(1, "0-1", "test"), "A", "B", "tc", "startpos");
+        first.recordGame(new GameResult(2, "1-0", "test"), "A", "B", "tc", "startpos");
+        first.flush();
+        first.recordPair(new GameResult(3, "1/2-1/2", "test"), new GameResult(4, "1-0", "test"), "A", "B", "tc", "startpos");
+        first.flush();
+        assertArrayEquals(new long[]{0, 1, 0, 0, 1}, first.getHeadToHead().getPentanomial("A", "B", "tc"));
+
+        StatsManager second = new StatsManager(true, dir, 3);
+        assertArrayEquals(new long[]{0, 1, 0, 0, 1}, second.getHeadToHead().getPentanomial("A", "B", "tc"));
+        assertArrayEquals(new long[]{3, 1, 1}, second.getHeadToHead().getResults("A", "B", "tc"));
+        second.close();
+    }
+}
@@ -0,0 +1,85 @@
+package fr.flwrian.Stats;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardStatsTest {
+
+    @Test
+    void testSnapshotsStayConsistentUnderConcurrentRecording() throws Exception {
+        LeaderboardStats stats = new LeaderboardStats();
+        String[] engines = {"A", "B", "C", "D", "E", "F"};
+        int gamesPerThread = 5000;
+        AtomicBoolean inconsistent = new AtomicBoolean();
+
+        List<Thread> recorders = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            recorders.add(new Thread(() -> {
+                for (int i = 0; i < gamesPerThread; i++) {
+                    String white = engines[(i + offset) % engines.length];
+                    String black = engines[(i + offset + 1 + i % 3) % engines.length];
+                    String result = i % 3 == 0 ? "1-0" : i % 3 == 1 ? "0-1" : "1/2-1/2";
+                    stats.recordGameResult(white, black, result, "10+0.1");
+                }
+            }));
+        }
+        Thread reader = new Thread(() -> {
+            while (recorders.stream().anyMatch(Thread::isAlive)) {
+                LeaderboardStats.Snapshot snapshot = stats.snapshot();
+                int games = 0;
+                double points = 0;
+                for (LeaderboardStats.EngineStats engine : snapshot.getEngineStats().values()) {
+                    games += engine.getTotalGames();
+                    points += engine.getPoints();
+                }
+                // Every game adds exactly two engine-games and one point
+                if (games != 2 * snapshot.getSequence() || points != snapshot.getSequence()) {
+                    inconsistent.set(true);
+                }
+            }
+        });
+        recorders.forEach(Thread::start);
+        reader.start();
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+        reader.join();
+
+        assertFalse(inconsistent.get());
+        assertEquals(4L * gamesPerThread, stats.getSequence());
+        int games = stats.snapshot().getEngineStats().values().stream().mapToInt(LeaderboardStats.EngineStats::getTotalGames).sum();
+        assertEquals(2 * 4 * gamesPerThread, games);
+    }
+
+    @Test
+    void testSnapshotJsonShape() {
+        LeaderboardStats stats = new LeaderboardStats();
+        stats.recordGameResult("A", "B", "1-0", "60+1");
+        stats.recordGameResult("B", "A", "1/2-1/2", "60+1");
+
+        Gson gson = new Gson();
+        JsonObject json = gson.toJsonTree(stats.snapshot()).getAsJsonObject();
+        assertEquals(1, json.size());
+        JsonObject a = json.getAsJsonObject("engineStats").getAsJsonObject("A");
+        assertEquals("A", a.get("engineName").getAsString());
+        assertEquals(2, a.get("totalGames").getAsInt());
+        assertEquals(1.5, a.get("points").getAsDouble());
+        assertTrue(a.has("elo") && a.has("peakElo"));
+        JsonObject tc = a.getAsJsonObject("timeControlStats").getAsJsonObject("60+1");
+        assertEquals("60+1", tc.get("timeControl").getAsString());
+        assertEquals(2, tc.get("games").getAsInt());
+
+        // Round trip through a saved file
+        LeaderboardStats restored = new LeaderboardStats();
+        restored.merge(gson.fromJson(json, LeaderboardStats.Snapshot.class));
+        assertEquals(a, gson.toJsonTree(restored.snapshot()).getAsJsonObject().getAsJsonObject("engineStats").getAsJsonObject("A"));
+    }
+}
@@ -0,0 +1,55 @@
+package fr.flwrian.Stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningStatsTest {
+    private static final String DRAWISH = "rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2";
+    private static final String SHARP = "rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 1 2";
+
+    @Test
+    void testPositionKeyIgnoresMoveCounters() {
+        assertEquals(OpeningStats.positionKey("startpos"), OpeningStats.positionKey(OpeningStats.STARTPOS_FEN));
+        assertEquals(OpeningStats.positionKey(DRAWISH), OpeningStats.positionKey(DRAWISH.replace(" 0 2", " 5 9")));
+        assertNotEquals(OpeningStats.positionKey(DRAWISH), OpeningStats.positionKey(SHARP));
+    }
+
+    @Test
+    void testFlagsUninformativeOpenings() {
+        LeaderboardStats stats = new LeaderboardStats();
+        for (int i = 0; i < OpeningStats.MIN_PAIRS_TO_FLAG; i++) {
+            stats.recordGameResult("A", "B", "1/2-1/2", "tc", DRAWISH, null, null);
+            stats.recordGameResult("B", "A", "1/2-1/2", "tc", DRAWISH, "1/2-1/2", null);
+            // White wins both games whoever plays it
+            stats.recordGameResult("A", "B", "1-0", "tc", SHARP, null, null);
+            stats.recordGameResult("B", "A", "1-0", "tc", SHARP, "1-0", null);
+            // Decided by the engines
+            stats.recordGameResult("A", "B", "1-0", "tc", "startpos", null, null);
+            stats.recordGameResult("B", "A", "0-1", "tc", "startpos", "1-0", null);
+        }
+
+        OpeningStats openings = stats.snapshot(true).getOpenings();
+        assertEquals(3, openings.size());
+        List<OpeningStats.Opening> flagged = openings.getOpenings(true, null);
+        assertEquals(2, flagged.size());
+        OpeningStats.Opening sharp = flagged.stream().filter(o -> o.getFen().equals(SHARP)).findFirst().orElseThrow();
+        assertEquals(OpeningStats.COLOR_DECIDED, sharp.getFlag());
+        assertEquals(1.0, sharp.getWhiteScore());
+        assertEquals(4, sharp.getEngines().get("A").getWins());
+        assertEquals(4, sharp.getEngines().get("A").getLosses());
+        assertEquals(OpeningStats.ALWAYS_DRAWN,
+            flagged.stream().filter(o -> o.getFen().equals(DRAWISH)).findFirst().orElseThrow().getFlag());
+
+        OpeningStats.Opening start = openings.getOpenings(false, "A").stream()
+            .filter(o -> o.getFen().equals(OpeningStats.STARTPOS_FEN)).findFirst().orElseThrow();
+        assertNull(start.getFlag());
+        assertEquals(1.0, start.getEngines().get("A").getScore());
+
+        OpeningStats restored = new OpeningStats();
+        restored.merge(openings.toJson());
+        assertEquals(2, restored.getOpenings(true, null).size());
+    }
+}
@@ -0,0 +1,67 @@
+package fr.flwrian.Stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingSolverTest {
+
+    @Test
+    void testRecoversRatingsDrawsAndWhiteAdvantage() {
+        double[] trueRatings = {-150, -50, 0, 60, 140};
+        double trueAdvantage = 40;
+        double trueDrawElo = 150;
+        Random random = new Random(7);
+        LeaderboardStats stats = new LeaderboardStats();
+        for (int g = 0; g < 40_000; g++) {
+            int white = random.nextInt(trueRatings.length);
+            int black = (white + 1 + random.nextInt(trueRatings.length - 1)) % trueRatings.length;
+            double x = trueRatings[white] - trueRatings[black] + trueAdvantage;
+            double pWin = 1 / (1 + Math.pow(10, -(x - trueDrawElo) / 400));
+            double pLoss = 1 / (1 + Math.pow(10, -(-x - trueDrawElo) / 400));
+            double u = random.nextDouble();
+            String result = u < pWin ? "1-0" : u < pWin + pLoss ? "0-1" : "1/2-1/2";
+            stats.recordGameResult("E" + white, "E" + black, result, null);
+        }
+
+        RatingSolver.Result result = RatingSolver.solve(stats.pairwiseResults());
+        for (int i = 0; i < trueRatings.length; i++) {
+            assertEquals(trueRatings[i] + EloCalculator.DEFAULT_ELO, result.getRating("E" + i), 12, "E" + i);
+        }
+        assertEquals(trueAdvantage, result.getWhiteAdvantage(), 8);
+        assertEquals(trueDrawElo, result.getDrawElo(), 8);
+        assertTrue(Double.isNaN(result.getRating("unknown")));
+
+        // Warm start from the solution converges almost immediately
+        RatingSolver.Result again = RatingSolver.solve(stats.pairwiseResults(), result);
+        assertTrue(again.getSweeps() <= 2, "sweeps: " + again.getSweeps());
+    }
+
+    @Test
+    void testIndependentOfGameOrder() {
+        List<String[]> games = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            games.add(new String[]{"A", "B", "1-0"});
+            games.add(new String[]{"B", "A", "1/2-1/2"});
+            games.add(new String[]{"B", "C", i % 3 == 0 ? "0-1" : "1-0"});
+            games.add(new String[]{"C", "A", "1/2-1/2"});
+        }
+        LeaderboardStats inOrder = new LeaderboardStats();
+        games.forEach(g -> inOrder.recordGameResult(g[0], g[1], g[2], null));
+        Collections.shuffle(games, new Random(3));
+        LeaderboardStats shuffled = new LeaderboardStats();
+        games.forEach(g -> shuffled.recordGameResult(g[0], g[1], g[2], null));
+
+        RatingSolver.Result a = RatingSolver.solve(inOrder.pairwiseResults());
+        RatingSolver.Result b = RatingSolver.solve(shuffled.pairwiseResults());
+        for (String engine : new String[]{"A", "B", "C"}) {
+            assertEquals(a.getRating(engine), b.getRating(engine), 0.05);
+        }
+        assertTrue(a.getRating("A") > a.getRating("B"));
+    }
+}
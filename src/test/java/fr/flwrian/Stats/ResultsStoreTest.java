@@ -0,0 +1,64 @@
+package fr.flwrian.Stats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import fr.flwrian.Result.GameResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultsStoreTest {
+    private static final long DAY = 86_400_000L;
+
+    private static GameResult game(String result, String reason, int plies, double whiteDepth, double blackDepth) {
+        GameResult game = new GameResult(0, result, reason);
+        game.setGameStats(plies, plies * 100L, whiteDepth, blackDepth, 1_000_000, 2_000_000);
+        return game;
+    }
+
+    @Test
+    void testAppendsAcrossSegmentsAndAggregates(@TempDir Path tempDir) throws Exception {
+        try (ResultsStore store = new ResultsStore(tempDir, 16)) {
+            for (int i = 0; i < 40; i++) {
+                // A beats B as white, draws as black; day 0 then day 1
+                boolean aWhite = i % 2 == 0;
+                store.append(i + 1, i < 20 ? 0 : DAY, aWhite ? "A" : "B", aWhite ? "B" : "A", i < 30 ? "10+0.1" : "60+1",
+                    "startpos", game(aWhite ? "1-0" : "1/2-1/2", "checkmate", 60, aWhite ? 12 : 10, aWhite ? 10 : 12));
+            }
+            store.append(0, DAY, "A", "C", "10+0.1", "startpos", game("*", "exception: boom", 3, 0, 0));
+        }
+
+        try (ResultsStore store = new ResultsStore(tempDir, 16)) {
+            assertEquals(41, store.size());
+            List<ResultsStore.Aggregate> engines = store.aggregate(ResultsStore.GroupBy.ENGINE, Long.MIN_VALUE, Long.MAX_VALUE);
+            ResultsStore.Aggregate a = engines.get(0);
+            assertEquals("A", a.getKey());
+            assertEquals(41, a.getGames());
+            assertEquals(20, a.getWins());
+            assertEquals(20, a.getDraws());
+            assertEquals(0, a.getLosses());
+            assertEquals(0.75, a.getScore());
+            assertEquals(12.0, a.getAvgDepth());
+            ResultsStore.Aggregate b = engines.get(1);
+            assertEquals(20, b.getLosses());
+            assertEquals(10.0, b.getAvgDepth());
+
+            List<ResultsStore.Aggregate> timeControls = store.aggregate(ResultsStore.GroupBy.TIME_CONTROL, Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals("10+0.1", timeControls.get(0).getKey());
+            assertEquals(31, timeControls.get(0).getGames());
+            assertEquals(10, timeControls.get(1).getGames());
+
+            List<ResultsStore.Aggregate> days = store.aggregate(ResultsStore.GroupBy.DAY, DAY, Long.MAX_VALUE);
+            assertEquals(1, days.size());
+            assertEquals("1970-01-02", days.get(0).getKey());
+            assertEquals(21, days.get(0).getGames());
+
+            List<ResultsStore.Aggregate> openings = store.aggregate(ResultsStore.GroupBy.OPENING, Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals(Long.toHexString(OpeningStats.positionKey("startpos")), openings.get(0).getKey());
+            assertEquals(60.0 * 40 / 41 + 3.0 / 41, openings.get(0).getAvgPlies(), 0.01);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package fr.flwrian.Stats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import fr.flwrian.Result.GameResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsManagerTest {
+
+    @Test
+    void testRecoversFromSnapshotPlusJournal(@TempDir Path tempDir) throws Exception {
+        String dir = tempDir.toString();
+        StatsManager first = new StatsManager(true, dir, 3);
+        for (int i = 0; i < 5; i++) {
+            first.recordGame(new GameResult(i, i % 2 == 0 ? "1-0" : "1/2-1/2", "test"), "A", "B", "1+0.01");
+            if (i == 2) {
+                first.flush(); // First batch reaches the snapshot threshold
+            }
+        }
+        first.flush();
+        assertEquals(0, first.getQueueDepth());
+        int eloA = first.getStats().getEngineStats().get("A").getElo();
+        // No close(): the process "crashed" with 3 games in the snapshot and 2 in the journal
+
+        // A torn last line is ignored
+        Files.writeString(tempDir.resolve("leaderboard_journal.jsonl"), "{\"seq\":6,\"wh", StandardOpenOption.APPEND);
+
+        StatsManager second = new StatsManager(true, dir, 3);
+        LeaderboardStats.EngineStats a = second.getStats().getEngineStats().get("A");
+        assertEquals(5, a.getTotalGames());
+        assertEquals(3, a.getWins());
+        assertEquals(2, a.getDraws());
+        assertEquals(eloA, a.getElo());
+        assertEquals(5, a.getTimeControlStats().get("1+0.01").getGames());
+
+        second.recordGame(new GameResult(5, "0-1", "test"), "A", "B", "1+0.01");
+        second.close();
+
+        StatsManager third = new StatsManager(true, dir, 3);
+        assertEquals(6, third.getStats().getEngineStats().get("B").getTotalGames());
+        assertEquals(0, Files.size(tempDir.resolve("leaderboard_journal.jsonl")));
+        third.close();
+    }
+
+    @Test
+    void testStaleJournalRecordsAreNotCountedTwice(@TempDir Path tempDir) throws Exception {
+        String dir = tempDir.toString();
+        StatsManager first = new StatsManager(true, dir, 100);
+        first.recordGame(new GameResult(0, "1-0", "test"), "A", "B", null);
+        first.recordGame(new GameResult(1, "0-1", "test"), "A", "B", null);
+        first.flush();
+        Path journal = tempDir.resolve("leaderboard_journal.jsonl");
+        String records = Files.readString(journal);
+        first.close();
+
+        // Crash between writing the snapshot and truncating the journal
+        Files.writeString(journal, records);
+
+        StatsManager second = new StatsManager(true, dir, 100);
+        assertEquals(2, second.getStats().getEngineStats().get("A").getTotalGames());
+        second.recordGame(new GameResult(2, "1-0", "test"), "A", "B", null);
+        second.close();
+        try (StatsManager third = new StatsManager(true, dir, 100)) {
+            assertEquals(3, third.getStats().getEngineStats().get("A").getTotalGames());
+        }
+    }
+
+    @Test
+    void testUnratedGamesDoNotCountTowardsSnapshots(@TempDir Path tempDir) throws Exception {
+        try (StatsManager stats = new StatsManager(true, tempDir.toString(), 2)) {
+            stats.recordGame(new GameResult(0, "1-0", "test"), "A", "B", null);
+            stats.recordGame(new GameResult(1, "*", "engine_crash"), "A", "B", null);
+            stats.recordGame(new GameResult(2, "*", "engine_crash"), "A", "B", null);
+            stats.flush();
+            // One rated game journaled: no snapshot yet, so the journal keeps it
+            assertEquals(1, Files.readAllLines(tempDir.resolve("leaderboard_journal.jsonl")).size());
+        }
+    }
+
+    @Test
+    void testSerializedStatsAreSharedUntilTheyChange(@TempDir Path tempDir) throws Exception {
+        StatsManager stats = new StatsManager(false, tempDir.toString());
+        stats.recordGame(new GameResult(0, "1-0", "test"), "A", "B", "1+0.01");
+        SerializedSnapshot first = stats.getSerializedStats();
+        // Only rebuilt when the version moved (the background rating solve also moves it)
+        SerializedSnapshot again = stats.getSerializedStats();
+        assertTrue(again == first || again.getVersion() > first.getVersion());
+        assertTrue(first.getJson().contains("\"A\""));
+
+        stats.recordGame(new GameResult(1, "0-1", "test"), "A", "C", "1+0.01");
+        SerializedSnapshot second = stats.getSerializedStats();
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(2, second.getSequence());
+        assertTrue(second.getJson().contains("\"C\""));
+        stats.close();
+    }
+}
@@ -0,0 +1,59 @@
+package fr.flwrian.Stats;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import fr.flwrian.Result.GameResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsQueryTest {
+
+    @Test
+    void testResponsesAreCachedUntilTheStatsChange(@TempDir Path tempDir) throws Exception {
+        StatsManager stats = new StatsManager(false, tempDir.toString());
+        stats.recordPair(new GameResult(0, "1-0", "test"), new GameResult(1, "1/2-1/2", "test"),
+            "A", "B", "10+0.1", "startpos");
+        stats.recordGame(new GameResult(2, "0-1", "test"), "A", "C", "1+0.01");
+        stats.flush();
+        StatsQuery query = new StatsQuery(stats);
+
+        StatsQuery.Response first = query.query("/leaderboard", Map.of("limit", "2"));
+        assertSame(first, query.query("/leaderboard", Map.of("limit", "2")));
+        JsonObject page = JsonParser.parseString(first.getBody()).getAsJsonObject();
+        assertEquals(first.getVersion(), page.get("version").getAsLong());
+        assertEquals(3, page.get("total").getAsInt());
+        assertEquals(2, page.getAsJsonArray("items").size());
+
+        // Per time control: only the games played in it
+        JsonObject tc = JsonParser.parseString(query.query("/leaderboard", Map.of("tc", "10+0.1")).getBody()).getAsJsonObject();
+        assertEquals(2, tc.get("total").getAsInt());
+        JsonObject a = tc.getAsJsonArray("items").get(0).getAsJsonObject();
+        assertEquals("A", a.get("engine").getAsString());
+        assertEquals(2, a.get("games").getAsInt());
+        assertEquals(tc.get("items"), JsonParser.parseString(query.query("/time-controls/10+0.1", Map.of()).getBody())
+            .getAsJsonObject().get("items"));
+        tc = JsonParser.parseString(query.query("/time-controls/1+0.01", Map.of()).getBody()).getAsJsonObject();
+        assertEquals("C", tc.getAsJsonArray("items").get(0).getAsJsonObject().get("engine").getAsString());
+        assertEquals(0, JsonParser.parseString(query.query("/leaderboard", Map.of("tc", "5+0")).getBody())
+            .getAsJsonObject().get("total").getAsInt());
+
+        stats.recordGame(new GameResult(3, "1-0", "test"), "D", "A", "1+0.01");
+        StatsQuery.Response second = query.query("/leaderboard", Map.of("limit", "2"));
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(4, JsonParser.parseString(second.getBody()).getAsJsonObject().get("total").getAsInt());
+
+        assertThrows(NoSuchElementException.class, () -> query.query("/engines/Z", Map.of()));
+        assertThrows(NoSuchElementException.class, () -> query.query("/nothing", Map.of()));
+        assertThrows(NoSuchElementException.class, () -> query.query("/time-controls/5+0", Map.of()));
+        assertThrows(NoSuchElementException.class, () -> query.query("/head-to-head", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> query.query("/leaderboard", Map.of("offset", "-1")));
+        stats.close();
+    }
+}
@@ -0,0 +1,77 @@
+package fr.flwrian.Task;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import fr.flwrian.Game.MatchPair;
+import fr.flwrian.Game.TimeControl;
+import fr.flwrian.Result.GameResult;
+import fr.flwrian.Result.PairResult;
+import fr.flwrian.Runner.GameWatchdog;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OnDemandPairTaskTest {
+
+    /**
+     * UCI script that resigns every game. The first instance to start a new game
+     * leaves its pid in the marker file and hangs, deaf to "stop" and "quit".
+     */
+    private static Path flakyEngine(Path dir) throws Exception {
+        Path script = dir.resolve("flaky.sh");
+        Files.writeString(script, String.join("\n",
+            "#!/bin/sh",
+            "marker=\"" + dir.resolve("hung") + "\"",
+            "while read -r cmd; do",
+            "  case \"$cmd\" in",
+            "    uci) echo \"id name Flaky\"; echo \"uciok\" ;;",
+            "    isready) echo \"readyok\" ;;",
+            "    ucinewgame) if [ ! -e \"$marker\" ]; then echo $$ > \"$marker\"; exec sleep 60; fi ;;",
+            "    go*) echo \"bestmove 0000\" ;;",
+            "    quit) exit 0 ;;",
+            "  esac",
+            "done",
+            ""));
+        script.toFile().setExecutable(true);
+        return script;
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testHungEngineIsKilledAndReplaced(@TempDir Path tempDir) throws Exception {
+        String engine = flakyEngine(tempDir).toString();
+        GameWatchdog watchdog = new GameWatchdog(500);
+        try {
+            OnDemandPairTask task = new OnDemandPairTask(new MatchPair(1), engine, engine,
+                new TimeControl(10000, 100), "A", "B", watchdog);
+            PairResult result = task.call();
+
+            // A (white) hung on its first new game and loses it; its replacement plays game 2
+            GameResult game1 = result.getGameResults().get(0);
+            GameResult game2 = result.getGameResults().get(1);
+            assertEquals("watchdog_timeout", game1.getReason());
+            assertEquals("0-1", game1.getResult());
+            assertEquals("resignation", game2.getReason());
+            assertEquals("0-1", game2.getResult());
+            assertEquals(1, watchdog.getTimeoutCount());
+            assertEquals(0, watchdog.getActiveCount());
+
+            // Escalation: "stop" and "quit" are ignored, so the process is killed
+            long pid = Long.parseLong(Files.readString(tempDir.resolve("hung")).trim());
+            Optional<ProcessHandle> hung = ProcessHandle.of(pid);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (hung.isPresent() && hung.get().isAlive() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertFalse(hung.isPresent() && hung.get().isAlive());
+        } finally {
+            watchdog.shutdown();
+        }
+    }
+}